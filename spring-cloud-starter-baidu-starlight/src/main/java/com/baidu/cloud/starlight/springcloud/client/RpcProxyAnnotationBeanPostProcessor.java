@@ -22,6 +22,7 @@ import com.baidu.cloud.starlight.core.rpc.SingleStarlightClient;
 import com.baidu.cloud.starlight.springcloud.client.annotation.RpcProxy;
 import com.baidu.cloud.starlight.springcloud.client.cluster.FailFastClusterClient;
 import com.baidu.cloud.starlight.springcloud.client.cluster.FailOverClusterClient;
+import com.baidu.cloud.starlight.springcloud.client.cluster.HedgingClusterClient;
 import com.baidu.cloud.starlight.springcloud.client.cluster.LoadBalancer;
 import com.baidu.cloud.starlight.springcloud.client.cluster.SingleStarlightClientManager;
 import com.baidu.cloud.starlight.springcloud.client.properties.StarlightClientProperties;
@@ -288,6 +289,9 @@ public class RpcProxyAnnotationBeanPostProcessor
             case "failover":
                 definitionBuilder = BeanDefinitionBuilder.genericBeanDefinition(FailOverClusterClient.class);
                 break;
+            case "hedge":
+                definitionBuilder = BeanDefinitionBuilder.genericBeanDefinition(HedgingClusterClient.class);
+                break;
             default:
                 throw new IllegalStateException(
                     "starlight.client.config {clusterModel} is null, " + "please config it before run");
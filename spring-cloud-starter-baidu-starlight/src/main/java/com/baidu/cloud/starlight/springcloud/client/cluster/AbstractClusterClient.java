@@ -45,12 +45,14 @@ import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.baidu.cloud.starlight.springcloud.common.SpringCloudConstants.ROUTE_CONTEXT_KEY;
@@ -180,8 +182,7 @@ public abstract class AbstractClusterClient implements StarlightClient {
         addProviderAppName(request);
         // sub cluster execute
         boolean labelRouter = false;
-        Map<String, Object> routeContext = new HashMap<>(RpcContext.getContext().get());
-        request.getNoneAdditionKv().putIfAbsent(ROUTE_CONTEXT_KEY, routeContext);
+        saveRouteContext(request);
         // 支持海若请求级的label selector选择, 用完删除防止向下传递
         RpcContext.getContext().remove(SpringCloudConstants.REQUEST_LABEL_SELECTOR_ROUTE_KEY);
         try {
@@ -304,6 +305,36 @@ public abstract class AbstractClusterClient implements StarlightClient {
         throw new UnsupportedOperationException("Get remoteURI is not support in AbstractClusterClient");
     }
 
+    /**
+     * Save the route context of the caller thread to the request, retries reuse the route context saved by the first
+     * request. Only the keys read by the routers are kept, the RpcContext of traced requests is not copied
+     *
+     * @param request
+     */
+    protected void saveRouteContext(Request request) {
+        if (!request.getNoneAdditionKv().containsKey(ROUTE_CONTEXT_KEY)) {
+            Object labelSelector = RpcContext.getContext().get(SpringCloudConstants.REQUEST_LABEL_SELECTOR_ROUTE_KEY);
+            Map<String, Object> routeContext = labelSelector == null ? Collections.emptyMap()
+                : Collections.singletonMap(SpringCloudConstants.REQUEST_LABEL_SELECTOR_ROUTE_KEY, labelSelector);
+            request.getNoneAdditionKv().put(ROUTE_CONTEXT_KEY, routeContext);
+        }
+    }
+
+    /**
+     * 在client业务线程池中执行任务，timer线程为全局共享，不应在其中执行选址、建连、编码等耗时操作。尚无业务线程池时直接执行
+     *
+     * @param task
+     * @throws java.util.concurrent.RejectedExecutionException 业务线程池已满
+     */
+    protected void executeInBizThread(Runnable task) {
+        Executor executor = SingleStarlightClient.bizExecutor();
+        if (executor == null) {
+            task.run();
+            return;
+        }
+        executor.execute(task);
+    }
+
     private class NetworkErrorRetryCallback implements RpcCallback {
 
         private final RpcCallback chainedCallback;
@@ -22,11 +22,11 @@ import com.baidu.cloud.starlight.api.model.Response;
 import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
 import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
 import com.baidu.cloud.starlight.api.utils.LogUtils;
-import com.baidu.cloud.starlight.api.utils.StringUtils;
 import com.baidu.cloud.starlight.springcloud.client.properties.StarlightClientProperties;
 import com.baidu.cloud.starlight.springcloud.client.properties.StarlightRouteProperties;
 import com.baidu.cloud.starlight.springcloud.common.SpringCloudConstants;
 import com.baidu.cloud.starlight.springcloud.configuration.Configuration;
+import com.baidu.cloud.starlight.transport.utils.TimerHolder;
 import com.baidu.cloud.thirdparty.netty.util.Timeout;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
 
@@ -41,16 +41,21 @@ import java.util.concurrent.atomic.AtomicInteger;
 public class FailOverClusterClient extends AbstractClusterClient {
 
     /**
-     * Key 为 Request的原因是 调用satrgate时会更改requestId
+     * Retries of all the requests to this provider, shared by the interfaces
      */
-    private final Map<Request, AtomicInteger> remainedRetries = new ConcurrentHashMap<>();
+    private final RetryBudget retryBudget;
 
-    private final Map<Request, Integer> retryTimesMap = new ConcurrentHashMap<>();
+    /**
+     * Compiled retry methods and error codes of each interface
+     */
+    private final Map<Class<?>, RetryPolicy> retryPolicies = new ConcurrentHashMap<>();
 
     public FailOverClusterClient(String name, StarlightClientProperties properties, LoadBalancer loadBalancer,
         DiscoveryClient discoveryClient, SingleStarlightClientManager clientManager, Configuration configuration,
         StarlightRouteProperties routeProperties) {
         super(name, properties, loadBalancer, discoveryClient, clientManager, configuration, routeProperties);
+        this.retryBudget = new RetryBudget(properties.getRetryBudgetRatio(name),
+            properties.getRetryBudgetMinRetriesPerSecond(name));
     }
 
     @Override
@@ -59,9 +64,12 @@ public class FailOverClusterClient extends AbstractClusterClient {
         if (retryTimes == null || retryTimes <= 0) {
             retryTimes = 0;
         }
-        remainedRetries.putIfAbsent(request, new AtomicInteger(retryTimes)); // putIfAbsent
-        retryTimesMap.putIfAbsent(request, retryTimes); // putIfAbsent
-        super.request(request, new FailOverClusterCallback(callback));
+        retryBudget.deposit();
+        super.request(request, new FailOverClusterCallback(callback, retryTimes));
+    }
+
+    protected RetryBudget getRetryBudget() {
+        return retryBudget;
     }
 
     /**
@@ -74,48 +82,21 @@ public class FailOverClusterClient extends AbstractClusterClient {
     }
 
     /**
-     * Determined whether method is retryable
+     * Get the retry policy compiled from properties, recompile if the retry config of the interface is changed
      *
+     * @param request
      * @return
      */
-    private boolean isRetryable(Request request) {
-        String retryableMethods = properties.getRetryMethods(getName(), request.getServiceClass().getName());
-
-        if (StringUtils.isEmpty(retryableMethods)) {
-            return false;
+    private RetryPolicy retryPolicy(Request request) {
+        Class<?> serviceClass = request.getServiceClass();
+        String retryMethods = properties.getRetryMethods(getName(), serviceClass.getName());
+        String retryErrorCodes = properties.getRetryErrorCodes(getName(), serviceClass.getName());
+        RetryPolicy policy = retryPolicies.get(serviceClass);
+        if (policy == null || !policy.compiledFrom(retryMethods, retryErrorCodes)) {
+            policy = RetryPolicy.compile(retryMethods, retryErrorCodes);
+            retryPolicies.put(serviceClass, policy);
         }
-
-        String[] retryableMethodList = retryableMethods.split(SpringCloudConstants.RETRYABLE_SPLIT_KEY);
-        for (String method : retryableMethodList) {
-            if (request.getMethodName().startsWith(method)) {
-                return true;
-            }
-        }
-
-        return false;
-    }
-
-    private boolean isRetryable(RpcException rpcException, Request request) {
-
-        String retryErrorCodes = properties.getRetryErrorCodes(getName(), request.getServiceClass().getName());
-        if (StringUtils.isEmpty(retryErrorCodes)) {
-            return false;
-        }
-
-        Integer code = rpcException.getCode();
-        if (code == null) {
-            return false;
-        }
-
-        String strCode = String.valueOf(code);
-        String[] retryableCodeList = retryErrorCodes.split(SpringCloudConstants.RETRYABLE_SPLIT_KEY);
-        for (String errCode : retryableCodeList) {
-            if (strCode.equals(errCode)) {
-                return true;
-            }
-        }
-
-        return false;
+        return policy;
     }
 
     /**
@@ -128,17 +109,23 @@ public class FailOverClusterClient extends AbstractClusterClient {
         return properties.getRetryDelayTimeUnitMills(getName(), request.getServiceClass().getName());
     }
 
-    private void clearRetryTimesCache(Request request) {
-        retryTimesMap.remove(request);
-        remainedRetries.remove(request);
-    }
-
+    /**
+     * Retry state of one request is carried by its callback, the callback is reused by the retries. The delayed retry
+     * is scheduled on the timer and sent in the client biz thread, instead of sleeping in the thread delivering the
+     * error.
+     */
     protected class FailOverClusterCallback implements RpcCallback {
 
         private final RpcCallback chainedCallback;
 
-        public FailOverClusterCallback(RpcCallback callback) {
-            chainedCallback = callback;
+        private final int retryTimes;
+
+        private final AtomicInteger remainedRetries;
+
+        public FailOverClusterCallback(RpcCallback callback, int retryTimes) {
+            this.chainedCallback = callback;
+            this.retryTimes = retryTimes;
+            this.remainedRetries = new AtomicInteger(retryTimes);
         }
 
         @Override
@@ -153,16 +140,13 @@ public class FailOverClusterClient extends AbstractClusterClient {
 
         @Override
         public void onResponse(Response response) {
-            Integer canRetryTimes = retryTimesMap.get(getRequest());
-            AtomicInteger remindRetryTimes = remainedRetries.get(getRequest());
-            if (canRetryTimes != null && remindRetryTimes != null && !canRetryTimes.equals(remindRetryTimes.get())) { // 代表经历过retry了，记录重试成功日志
+            int remained = remainedRetries.get();
+            if (retryTimes != remained) { // 代表经历过retry了，记录重试成功日志
                 LOGGER.info(
                     "[FailOver] Request retry success:" + " serviceName {}, methodName {}, traceId {}, retryCount {}",
                     getRequest().getServiceName(), getRequest().getMethodName(),
-                    LogUtils.parseTraceIdSpanId(getRequest()).get(LogUtils.TCID),
-                    (canRetryTimes - remindRetryTimes.get()));
+                    LogUtils.parseTraceIdSpanId(getRequest()).get(LogUtils.TCID), (retryTimes - remained));
             }
-            clearRetryTimesCache(getRequest());
             chainedCallback.onResponse(response);
         }
 
@@ -171,36 +155,45 @@ public class FailOverClusterClient extends AbstractClusterClient {
             Request request = getRequest();
 
             if (!(e instanceof RpcException)) {
-                clearRetryTimesCache(request);
                 chainedCallback.onError(e);
+                return;
             }
 
             RpcException rpcException = (RpcException) e;
 
+            RetryPolicy retryPolicy = retryPolicy(request);
             // 1. error code can retry, retry
-            if (!isRetryable(rpcException, request)) {
-                clearRetryTimesCache(request);
+            if (!retryPolicy.isRetryableCode(rpcException.getCode())) {
                 chainedCallback.onError(e);
                 return;
             }
 
             // 2. Method is configured to be retryable, retry
-            if (!isRetryable(request)) {
-                clearRetryTimesCache(getRequest());
+            if (!retryPolicy.isRetryableMethod(request.getMethodName())) {
                 chainedCallback.onError(e);
                 return;
             }
 
             // 3. reach max retry times, end the request and return exception
-            AtomicInteger remindRetryTimes = remainedRetries.get(request);
             // There are no more retries, end the request
-            if (remindRetryTimes == null || remindRetryTimes.get() <= 0) {
+            int remained = remainedRetries.get();
+            if (remained <= 0) {
                 LOGGER.warn(
                     "[FailOver] Request failed will not retry, reach the max retry times: "
                         + "serviceName {}, methodName{}, traceId {}",
                     request.getServiceName(), request.getMethodName(),
                     LogUtils.parseTraceIdSpanId(request).get(LogUtils.TCID));
-                clearRetryTimesCache(request);
+                chainedCallback.onError(e);
+                return;
+            }
+
+            // 4. retry budget of the provider is used up, end the request to avoid retry storm
+            if (!retryBudget.tryWithdraw()) {
+                LOGGER.warn(
+                    "[FailOver] Request failed will not retry, retry budget is used up: "
+                        + "serviceName {}, methodName{}, traceId {}",
+                    request.getServiceName(), request.getMethodName(),
+                    LogUtils.parseTraceIdSpanId(request).get(LogUtils.TCID));
                 chainedCallback.onError(e);
                 return;
             }
@@ -209,22 +202,40 @@ public class FailOverClusterClient extends AbstractClusterClient {
                 "[FailOver] Request failed will retry: "
                     + "errorCode {}, serviceName {}, methodName {}, traceId {}, retryNo {}, exception {}. ",
                 rpcException.getCode(), request.getServiceName(), request.getMethodName(),
-                LogUtils.parseTraceIdSpanId(request).get(LogUtils.TCID), remindRetryTimes.get(), e.getMessage());
-            LOGGER.debug("[FailOver] Request failed will retry, retryNo {}, route_context: {}", remindRetryTimes.get(),
+                LogUtils.parseTraceIdSpanId(request).get(LogUtils.TCID), remained, e.getMessage());
+            LOGGER.debug("[FailOver] Request failed will retry, retryNo {}, route_context: {}", remained,
                 request.getNoneAdditionKv().get(SpringCloudConstants.ROUTE_CONTEXT_KEY));
 
-            try {
-                int retryDelayInterval =
-                    retryDelayTimeUnitMills(request) * (retryTimesMap.get(request) - remindRetryTimes.get());
-                TimeUnit.MILLISECONDS.sleep(retryDelayInterval);
-            } catch (InterruptedException interruptedException) {
-                LOGGER.error("The delay between two retries was interrupted, this should not happen",
-                    interruptedException);
+            Integer delayUnit = retryDelayTimeUnitMills(request);
+            long retryDelayInterval = delayUnit == null ? 0 : (long) delayUnit * (retryTimes - remained);
+            remainedRetries.decrementAndGet(); // decrement retry times
+
+            if (retryDelayInterval <= 0) {
+                retry();
+            } else {
+                TimerHolder.getTimer().newTimeout(timeout -> submitRetry(), retryDelayInterval,
+                    TimeUnit.MILLISECONDS);
             }
+        }
 
-            remindRetryTimes.decrementAndGet(); // decrement retry times
+        /**
+         * The timer thread is shared, only hand the retry over to the biz thread
+         */
+        private void submitRetry() {
+            try {
+                executeInBizThread(this::retry);
+            } catch (Throwable e) {
+                chainedCallback.onError(e);
+            }
+        }
 
-            request(getRequest(), chainedCallback); // retry
+        private void retry() {
+            try {
+                FailOverClusterClient.super.request(getRequest(), this);
+            } catch (Throwable e) {
+                // the caller of the first request has returned, deliver the error by callback
+                chainedCallback.onError(e);
+            }
         }
 
         @Override
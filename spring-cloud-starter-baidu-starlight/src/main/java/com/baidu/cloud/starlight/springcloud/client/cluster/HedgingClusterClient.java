@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster;
+
+import com.baidu.cloud.starlight.api.exception.StarlightRpcException;
+import com.baidu.cloud.starlight.api.model.Request;
+import com.baidu.cloud.starlight.api.model.Response;
+import com.baidu.cloud.starlight.api.model.RpcRequest;
+import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
+import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
+import com.baidu.cloud.starlight.core.statistics.LatencyHistogram;
+import com.baidu.cloud.starlight.protocol.http.springrest.sse.SpringRestSseProtocol;
+import com.baidu.cloud.starlight.springcloud.client.properties.StarlightClientProperties;
+import com.baidu.cloud.starlight.springcloud.client.properties.StarlightRouteProperties;
+import com.baidu.cloud.starlight.springcloud.common.SpringCloudConstants;
+import com.baidu.cloud.starlight.springcloud.configuration.Configuration;
+import com.baidu.cloud.starlight.transport.netty.RequestTimeoutTask;
+import com.baidu.cloud.starlight.transport.utils.TimerHolder;
+import com.baidu.cloud.thirdparty.netty.util.Timeout;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HedgingClusterClient SPI name: "hedge", like the backup request of brpc. If the request has not answered within the
+ * hedge delay (hedgeDelayMills or hedgeDelayPercentile of the recent latency), a backup copy is sent to another
+ * instance chosen by the LoadBalancer from the client biz thread. The first response wins, the slower request is
+ * cancelled and removed from the rpc channel. Backup requests are capped by the hedge budget. NOTICE: only for
+ * idempotent services.
+ */
+public class HedgingClusterClient extends AbstractClusterClient {
+
+    /**
+     * The hedge delay by percentile needs enough samples
+     */
+    private static final int MIN_LATENCY_SAMPLES = 100;
+
+    private final RetryBudget hedgeBudget;
+
+    private final Map<Class<?>, LatencyHistogram> latencyHistograms = new ConcurrentHashMap<>();
+
+    public HedgingClusterClient(String name, StarlightClientProperties properties, LoadBalancer loadBalancer,
+        DiscoveryClient discoveryClient, SingleStarlightClientManager clientManager, Configuration configuration,
+        StarlightRouteProperties routeProperties) {
+        super(name, properties, loadBalancer, discoveryClient, clientManager, configuration, routeProperties);
+        this.hedgeBudget = new RetryBudget(properties.getHedgeBudgetRatio(name),
+            properties.getRetryBudgetMinRetriesPerSecond(name));
+    }
+
+    @Override
+    public void request(Request request, RpcCallback callback) {
+        hedgeBudget.deposit();
+        // sse is a stream, cannot be hedged
+        long delayMills =
+            SpringRestSseProtocol.PROTOCOL_NAME.equals(request.getProtocolName()) ? -1 : hedgeDelayMills(request);
+        if (delayMills > 0) {
+            // the backup request is sent in another thread, route it by the context of the caller thread
+            saveRouteContext(request);
+        }
+        HedgeCall hedgeCall = new HedgeCall(request, callback, delayMills > 0);
+        super.request(request, hedgeCall.primary);
+
+        if (delayMills > 0) {
+            hedgeCall.scheduleHedge(delayMills);
+        }
+    }
+
+    /**
+     * Get hedge delay from properties, fixed delay first
+     *
+     * @param request
+     * @return delay mills, not hedge if less than or equal to 0
+     */
+    protected long hedgeDelayMills(Request request) {
+        String className = request.getServiceClass().getName();
+        Integer delayMills = properties.getHedgeDelayMills(getName(), className);
+        if (delayMills != null && delayMills > 0) {
+            return delayMills;
+        }
+
+        Double percentile = properties.getHedgeDelayPercentile(getName(), className);
+        if (percentile != null && percentile > 0) {
+            LatencyHistogram histogram = latencyHistogram(request.getServiceClass());
+            return histogram.count() < MIN_LATENCY_SAMPLES ? -1 : histogram.recentPercentile(percentile);
+        }
+
+        return -1;
+    }
+
+    protected RetryBudget getHedgeBudget() {
+        return hedgeBudget;
+    }
+
+    private LatencyHistogram latencyHistogram(Class<?> serviceClass) {
+        return latencyHistograms.computeIfAbsent(serviceClass, clazz -> new LatencyHistogram());
+    }
+
+    /**
+     * Backup request is a copy with a new id, it's sent and decoded independently
+     */
+    private static Request copyRequest(Request request) {
+        Request copy = new RpcRequest();
+        copy.setServiceName(request.getServiceName());
+        copy.setMethodName(request.getMethodName());
+        copy.setParams(request.getParams());
+        copy.setParamsTypes(request.getParamsTypes());
+        copy.setGenericParamsTypes(request.getGenericParamsTypes());
+        copy.setServiceClass(request.getServiceClass());
+        copy.setMethod(request.getMethod());
+        copy.setServiceConfig(request.getServiceConfig());
+        copy.setReturnType(request.getReturnType());
+        copy.setGenericReturnType(request.getGenericReturnType());
+        copy.setProtocolName(request.getProtocolName());
+        copy.setCompressType(request.getCompressType());
+        copy.setAttachmentKv(new LinkedHashMap<>(request.getAttachmentKv()));
+        copy.setNoneAdditionKv(new LinkedHashMap<>(request.getNoneAdditionKv()));
+        return copy;
+    }
+
+    /**
+     * State of one call: the primary request and the backup one
+     */
+    protected class HedgeCall {
+
+        private final Request request;
+
+        private final RpcCallback chainedCallback;
+
+        private final long startTime;
+
+        private final AtomicBoolean done = new AtomicBoolean(false);
+
+        /**
+         * Requests sent and not completed
+         */
+        private final AtomicInteger pending = new AtomicInteger(1);
+
+        private final AttemptCallback primary;
+
+        /**
+         * Copied before the primary request is sent, the primary request is modified while being sent
+         */
+        private final Request backupRequest;
+
+        private volatile AttemptCallback backup;
+
+        private volatile Timeout hedgeTimeout;
+
+        private volatile Throwable lastError;
+
+        HedgeCall(Request request, RpcCallback chainedCallback, boolean hedgeable) {
+            this.request = request;
+            this.chainedCallback = chainedCallback;
+            this.startTime = System.currentTimeMillis();
+            this.primary = new AttemptCallback(this, request);
+            this.backupRequest = hedgeable ? copyRequest(request) : null;
+        }
+
+        void scheduleHedge(long delayMills) {
+            Timeout timeout =
+                TimerHolder.getTimer().newTimeout(t -> submitHedge(), delayMills, TimeUnit.MILLISECONDS);
+            hedgeTimeout = timeout;
+            if (done.get()) {
+                timeout.cancel();
+            }
+        }
+
+        /**
+         * The timer thread is shared, only hand the backup request over to the biz thread
+         */
+        void submitHedge() {
+            if (done.get()) {
+                return;
+            }
+            try {
+                executeInBizThread(this::hedge);
+            } catch (Throwable e) {
+                LOGGER.debug("[Hedge] Failed to submit backup request, will not send backup request", e);
+            }
+        }
+
+        void hedge() {
+            if (done.get() || backupRequest == null) {
+                return;
+            }
+            if (!hedgeBudget.tryWithdraw()) {
+                LOGGER.debug("[Hedge] Hedge budget is used up, will not send backup request: {}#{}",
+                    request.getServiceName(), request.getMethodName());
+                return;
+            }
+            if (!retain()) {
+                return;
+            }
+
+            if (request.getRemoteURI() != null) {
+                backupRequest.getNoneAdditionKv().put(SpringCloudConstants.HEDGE_EXCLUDED_ADDRESS_KEY,
+                    request.getRemoteURI().getAddress());
+            }
+            AttemptCallback attempt = new AttemptCallback(this, backupRequest);
+            backup = attempt;
+            LOGGER.debug("[Hedge] Send backup request {}#{}, excluded instance {}", request.getServiceName(),
+                request.getMethodName(),
+                backupRequest.getNoneAdditionKv().get(SpringCloudConstants.HEDGE_EXCLUDED_ADDRESS_KEY));
+            try {
+                HedgingClusterClient.super.request(backupRequest, attempt);
+            } catch (Throwable e) {
+                attempt.onError(e);
+            }
+        }
+
+        /**
+         * One more request is pending, fails if all the requests have completed
+         */
+        boolean retain() {
+            int current;
+            do {
+                current = pending.get();
+                if (current <= 0) {
+                    return false;
+                }
+            } while (!pending.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        void onResponse(AttemptCallback attempt, Response response) {
+            if (!done.compareAndSet(false, true)) {
+                return; // the slower one, dropped
+            }
+            cancelHedge();
+            AttemptCallback other = attempt == primary ? backup : primary;
+            if (other != null) {
+                other.cancel();
+            }
+            long now = System.currentTimeMillis();
+            LatencyHistogram histogram = latencyHistogram(request.getServiceClass());
+            histogram.record(now - attempt.startTime);
+            if (attempt != primary) {
+                // the primary request is cancelled, its latency is at least the elapsed time. Recording only the
+                // faster backup would pull the hedge delay percentile down
+                histogram.record(now - startTime);
+                LOGGER.debug("[Hedge] Backup request wins: {}#{}", request.getServiceName(), request.getMethodName());
+            }
+            chainedCallback.onResponse(response);
+        }
+
+        void onError(AttemptCallback attempt, Throwable e) {
+            if (done.get()) {
+                return; // cancelled
+            }
+            lastError = e;
+            release();
+        }
+
+        /**
+         * One request completes with error, the call fails if it's the last one
+         */
+        private void release() {
+            if (pending.decrementAndGet() > 0) {
+                return; // wait for the other request
+            }
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            cancelHedge();
+            chainedCallback.onError(lastError);
+        }
+
+        private void cancelHedge() {
+            Timeout timeout = hedgeTimeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        }
+
+        /**
+         * For test
+         *
+         * @return
+         */
+        protected Request getBackupRequest() {
+            return backupRequest;
+        }
+    }
+
+    protected class AttemptCallback implements RpcCallback {
+
+        private final HedgeCall hedgeCall;
+
+        private final Request request;
+
+        private final long startTime;
+
+        private volatile Timeout timeout;
+
+        AttemptCallback(HedgeCall hedgeCall, Request request) {
+            this.hedgeCall = hedgeCall;
+            this.request = request;
+            this.startTime = System.currentTimeMillis();
+        }
+
+        @Override
+        public void addTimeout(Timeout timeout) {
+            this.timeout = timeout;
+        }
+
+        @Override
+        public Request getRequest() {
+            return request;
+        }
+
+        @Override
+        public void onResponse(Response response) {
+            cancelTimeout();
+            hedgeCall.onResponse(this, response);
+        }
+
+        @Override
+        public void onError(Throwable e) {
+            cancelTimeout();
+            hedgeCall.onError(this, e);
+        }
+
+        @Override
+        public void addRpcChannel(RpcChannel rpcChannel) {
+            hedgeCall.chainedCallback.addRpcChannel(rpcChannel);
+        }
+
+        /**
+         * Remove the request from the rpc channel and complete its filter chain with a cancelled error, so that the
+         * monitor and load balancer statistics still see the slow request
+         */
+        void cancel() {
+            Timeout current = timeout;
+            if (current == null || !current.cancel()) {
+                return; // not sent yet or completed
+            }
+            if (current.task() instanceof RequestTimeoutTask) {
+                RpcCallback pending = ((RequestTimeoutTask) current.task()).abandon();
+                if (pending != null) {
+                    pending.onError(new StarlightRpcException(StarlightRpcException.CANCELLED,
+                        "Request is cancelled because the hedged request has responded"));
+                }
+            }
+        }
+
+        private void cancelTimeout() {
+            Timeout current = timeout;
+            if (current != null && !current.isCancelled()) {
+                current.cancel();
+            }
+        }
+    }
+}
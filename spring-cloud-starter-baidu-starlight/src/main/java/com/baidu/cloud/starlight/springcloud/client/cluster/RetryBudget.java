@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps retries as a fraction of the requests. Every request deposits {@code ratio} token, every retry withdraws one
+ * token, and retries are rejected when the balance is used up. At least {@code minRetriesPerSecond} tokens are
+ * available in every second so that low traffic can still retry. Lock free, shared by the requests of one cluster
+ * client.
+ */
+public class RetryBudget {
+
+    /**
+     * Tokens are stored as fixed point numbers
+     */
+    private static final long SCALE = 1000L;
+
+    /**
+     * Tokens earned by requests are kept at most this many seconds of the minimum retries (at least one retry per
+     * second)
+     */
+    private static final long MAX_BALANCE_SECONDS = 10L;
+
+    private final long depositUnits;
+
+    private final long minUnits;
+
+    private final long maxUnits;
+
+    private final AtomicLong balance;
+
+    private final AtomicLong lastRefillSecond;
+
+    public RetryBudget(double ratio, int minRetriesPerSecond) {
+        if (ratio < 0 || minRetriesPerSecond < 0) {
+            throw new IllegalArgumentException(
+                "Illegal retry budget, ratio " + ratio + ", minRetriesPerSecond " + minRetriesPerSecond);
+        }
+        this.depositUnits = (long) (ratio * SCALE);
+        this.minUnits = minRetriesPerSecond * SCALE;
+        this.maxUnits = Math.max(minUnits, SCALE) * MAX_BALANCE_SECONDS;
+        this.balance = new AtomicLong(minUnits);
+        this.lastRefillSecond = new AtomicLong(currentSecond());
+    }
+
+    /**
+     * Called once for each request, not for the retries
+     */
+    public void deposit() {
+        if (depositUnits == 0) {
+            return;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current >= maxUnits) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(maxUnits, current + depositUnits)));
+    }
+
+    /**
+     * Take one token for a retry
+     *
+     * @return false if the budget is used up, the request should not be retried
+     */
+    public boolean tryWithdraw() {
+        refill(currentSecond());
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+
+    /**
+     * Remaining retries, for log and test
+     *
+     * @return
+     */
+    public long available() {
+        refill(currentSecond());
+        return balance.get() / SCALE;
+    }
+
+    /**
+     * Top up to the minimum retries once a second
+     *
+     * @param second
+     */
+    void refill(long second) {
+        if (minUnits == 0) {
+            return;
+        }
+        long last = lastRefillSecond.get();
+        if (second <= last || !lastRefillSecond.compareAndSet(last, second)) {
+            return;
+        }
+        long current;
+        do {
+            current = balance.get();
+            if (current >= minUnits) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, minUnits));
+    }
+
+    private static long currentSecond() {
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+    }
+}
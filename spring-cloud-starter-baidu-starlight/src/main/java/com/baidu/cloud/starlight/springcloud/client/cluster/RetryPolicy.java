@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster;
+
+import com.baidu.cloud.starlight.api.utils.StringUtils;
+import com.baidu.cloud.starlight.springcloud.common.SpringCloudConstants;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Retry methods and retry error codes compiled from the string config, so that the request path only does prefix
+ * matching and bit testing. Recompiled when the config strings are changed.
+ */
+final class RetryPolicy {
+
+    /**
+     * Error codes in [0, MAX_BIT_CODE) are kept in the bitset, the rare others in an array
+     */
+    private static final int MAX_BIT_CODE = 1 << 16;
+
+    private final String retryMethods;
+
+    private final String retryErrorCodes;
+
+    private final String[] methodPrefixes;
+
+    private final BitSet codes;
+
+    private final int[] otherCodes;
+
+    private RetryPolicy(String retryMethods, String retryErrorCodes, String[] methodPrefixes, BitSet codes,
+        int[] otherCodes) {
+        this.retryMethods = retryMethods;
+        this.retryErrorCodes = retryErrorCodes;
+        this.methodPrefixes = methodPrefixes;
+        this.codes = codes;
+        this.otherCodes = otherCodes;
+    }
+
+    static RetryPolicy compile(String retryMethods, String retryErrorCodes) {
+        String[] methodPrefixes = new String[0];
+        if (!StringUtils.isEmpty(retryMethods)) {
+            methodPrefixes = retryMethods.split(SpringCloudConstants.RETRYABLE_SPLIT_KEY);
+        }
+
+        BitSet codes = new BitSet();
+        List<Integer> others = new ArrayList<>();
+        if (!StringUtils.isEmpty(retryErrorCodes)) {
+            for (String errCode : retryErrorCodes.split(SpringCloudConstants.RETRYABLE_SPLIT_KEY)) {
+                Integer code = parseCode(errCode);
+                if (code == null) {
+                    continue;
+                }
+                if (code >= 0 && code < MAX_BIT_CODE) {
+                    codes.set(code);
+                } else {
+                    others.add(code);
+                }
+            }
+        }
+        int[] otherCodes = new int[others.size()];
+        for (int i = 0; i < otherCodes.length; i++) {
+            otherCodes[i] = others.get(i);
+        }
+
+        return new RetryPolicy(retryMethods, retryErrorCodes, methodPrefixes, codes, otherCodes);
+    }
+
+    /**
+     * Same as comparing the string of the error code with the config entry: " 1001" or "01001" never matches
+     */
+    private static Integer parseCode(String errCode) {
+        try {
+            int code = Integer.parseInt(errCode);
+            return String.valueOf(code).equals(errCode) ? code : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The config strings are kept by the properties, the policy is stale when they are rebound
+     */
+    boolean compiledFrom(String retryMethods, String retryErrorCodes) {
+        return this.retryMethods == retryMethods && this.retryErrorCodes == retryErrorCodes;
+    }
+
+    boolean isRetryableMethod(String methodName) {
+        for (String prefix : methodPrefixes) {
+            if (methodName.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isRetryableCode(Integer code) {
+        if (code == null) {
+            return false;
+        }
+        if (code >= 0 && code < MAX_BIT_CODE) {
+            return codes.get(code);
+        }
+        for (int otherCode : otherCodes) {
+            if (otherCode == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -69,8 +69,10 @@ public class RouterChain {
      * @return
      */
     public Cluster noneRoute(Request request) {
-        LOGGER.info("[NONE_ROUTE] Request matched none route: req {}, routeClass {}", RouteUtils.reqMsg(request),
-            noneRouter.getClass().getSimpleName());
+        if (LOGGER.isInfoEnabled()) {
+            LOGGER.info("[NONE_ROUTE] Request matched none route: req {}, routeClass {}", RouteUtils.reqMsg(request),
+                noneRouter.getClass().getSimpleName());
+        }
         return noneRouter.route(request);
     }
 }
@@ -147,6 +147,7 @@ public class SingleStarlightClientManager {
     public void removeSingleClient(String host, Integer port) {
         SingleStarlightClient client = starlightClients.remove(InstanceUtils.ipPortStr(host, port));
         if (client != null) {
+            PeerStatus.statusChanged(); // the removed client is no longer filtered by status
             LOGGER.info("Remove and destroy inactive SingleStarlightClient from StarlightClientManager, "
                 + "host {}, port {}, isActive {}", host, port, client.isActive());
             client.destroy(); // gracefully or not
@@ -18,30 +18,41 @@ package com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance;
 
 import com.baidu.cloud.starlight.api.rpc.threadpool.NamedThreadFactory;
 import com.baidu.cloud.starlight.springcloud.client.properties.StarlightClientProperties;
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.reflect.TypeToken;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
 import org.springframework.cloud.client.ServiceInstance;
-import org.springframework.util.StringUtils;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.lang.reflect.Type;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Properties;
-import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
+ * 服务实例列表的本地缓存，内存中保存最近一次发现的实例列表，定时以二进制快照的形式写入本地磁盘。
+ * 写入时先写临时文件再原子rename，避免进程退出或并发读取时读到不完整的文件
+ * <p>
+ * 快照格式: magic, version, 实例数, 实例[instanceId, serviceId, host, port, secure, metadata]。
+ * 字符串按出现顺序编入字典，重复的metadata key/value仅存储一次
+ *
  * Created by liuruisen on 2021/7/27.
  */
 public class ServiceInstanceLocalStore {
@@ -50,18 +61,54 @@ public class ServiceInstanceLocalStore {
 
     private static final Integer STORE_LOCAL_CACHE_DELAY = 3 * 60 * 1000;
 
+    /**
+     * "STLR"
+     */
+    private static final int MAGIC = 0x53544C52;
+
+    private static final int VERSION = 1;
+
+    /**
+     * String codes, the positive code is the 1-based index of a string in the dictionary
+     */
+    private static final int NULL_STRING = 0;
+
+    private static final int NEW_STRING = -1;
+
+    /**
+     * Min bytes of a server: instanceId, serviceId, host codes, port, secure and metadata size
+     */
+    private static final int MIN_SERVER_BYTES = 4 * 3 + 4 + 1 + 4;
+
+    /**
+     * Min bytes of a metadata entry: key and value codes
+     */
+    private static final int MIN_METADATA_ENTRY_BYTES = 4 * 2;
+
+    /**
+     * Upper bounds of the sizes read from disk, a larger size means the cache file is corrupt
+     */
+    private static final int MAX_SERVERS = 1000000;
+
+    private static final int MAX_METADATA_SIZE = 10000;
+
+    private static final int MAX_STRING_LENGTH = 1024 * 1024;
+
     private final String clientName;
 
     private final StarlightClientProperties starlightProperties;
 
     /**
-     * Local mem cache of Ribbon Server, stored in local disk
+     * Local mem cache of the servers, stored in local disk
      */
-    private Properties localSrvListCache;
+    private volatile List<ServiceInstance> cachedServers = Collections.emptyList();
 
-    private File cacheFile;
+    /**
+     * Whether the mem cache is changed since last store
+     */
+    private volatile boolean dirty;
 
-    private static final Gson GSON = new Gson();
+    private File cacheFile;
 
     private ScheduledExecutorService storeCacheExecutor;
 
@@ -77,11 +124,10 @@ public class ServiceInstanceLocalStore {
     public void initLocalCache() {
         // enable local cache
         if (starlightProperties.getLocalCacheEnabled(clientName)) {
-            localSrvListCache = new Properties();
             String cacheFilePath = getCacheFileName();
             // 非强依赖，创建不成功仍可以继续执行，只是会缺少本地文件缓存能力
             createCacheFile(cacheFilePath);
-            // load server list from disk, will be temporarily stored in memory(Properties)
+            // load server list from disk, will be temporarily stored in memory
             loadCachedListOfServers();
 
             // store cache executor
@@ -96,75 +142,37 @@ public class ServiceInstanceLocalStore {
      * Load server list from local disk
      */
     public void loadCachedListOfServers() {
-        if (cacheFile != null && cacheFile.exists()) {
-            InputStream in = null;
-            try {
-                in = new FileInputStream(cacheFile);
-                localSrvListCache.load(in);
-                LOGGER.info("Load server list of " + clientName + " from local disk success");
-            } catch (Throwable e) {
-                LOGGER.warn("Load server list of " + clientName + " from local disk failed. ", e);
-            } finally {
-                if (in != null) {
-                    try {
-                        in.close();
-                    } catch (IOException e) {
-                        LOGGER.warn("Close cache file input stream failed. ", e);
-                    }
-                }
+        if (cacheFile == null || !cacheFile.exists() || cacheFile.length() == 0) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        try (DataInputStream in =
+            new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile), 64 * 1024))) {
+            List<ServiceInstance> servers = readServers(in);
+            if (servers != null) {
+                cachedServers = servers;
+                LOGGER.info("Load server list of {} from local disk success, size {}, cost {}ms", clientName,
+                    servers.size(), System.currentTimeMillis() - startTime);
+            } else {
+                // 旧版本格式的缓存文件，下次存储时覆盖
+                LOGGER.info("Local disk cache of {} is not a server list snapshot, ignore it", clientName);
             }
+        } catch (Throwable e) {
+            LOGGER.warn("Load server list of " + clientName + " from local disk failed. ", e);
         }
     }
 
     /**
-     * Get the server list from local disk
+     * Get the server list from local cache
      *
      * @return
      */
     public List<ServiceInstance> getCachedListOfServers() {
-        List<ServiceInstance> cachedServerList = new ArrayList<>();
-
-        Set<Map.Entry<Object, Object>> cacheEntries = localSrvListCache.entrySet();
-        if (cacheEntries.size() == 0) {
+        List<ServiceInstance> servers = cachedServers;
+        if (servers.isEmpty()) {
             LOGGER.info("Local cache dose not have any server when get server list from it.");
-            return cachedServerList;
-        }
-
-        long getStartTime = System.currentTimeMillis();
-
-        for (Map.Entry<Object, Object> entry : cacheEntries) {
-            String serversClassName = (String) entry.getKey();
-            String serverListJson = (String) entry.getValue();
-            if (!StringUtils.isEmpty(serversClassName) && !StringUtils.isEmpty(serverListJson)) {
-                try {
-                    List cachedList = jsonToServerList(serverListJson, Class.forName(serversClassName));
-                    cachedServerList.addAll(cachedList);
-                    LOGGER.info("Get server list from local cache success, size {}", cachedServerList.size());
-                    break;
-                } catch (ClassNotFoundException e) {
-                    LOGGER.warn("Get server list from local cache failed. ", e);
-                    break;
-                }
-            }
-        }
-        long getCost = System.currentTimeMillis() - getStartTime;
-        if (getCost > 2000) {
-            LOGGER.info("Get cache list cost {}ms", getCost);
         }
-        LOGGER.debug("Get cache list cost {}ms", getCost);
-        return cachedServerList;
-    }
-
-    private <T> List<T> jsonToServerList(String json, Class<T> serverClass) {
-        Type type = new TypeToken<ArrayList<JsonObject>>() {}.getType();
-        ArrayList<JsonObject> jsonObjs = GSON.fromJson(json, type);
-
-        List<T> serverList = new ArrayList<>();
-        for (JsonObject jsonObj : jsonObjs) {
-            serverList.add(GSON.fromJson(jsonObj, serverClass));
-        }
-
-        return serverList;
+        return servers;
     }
 
     /**
@@ -176,34 +184,38 @@ public class ServiceInstanceLocalStore {
         if (servers == null || servers.size() == 0) {
             return;
         }
-        long updateStartTime = System.currentTimeMillis();
-
-        String serversClassName = servers.get(0).getClass().getName();
-        String serverListJson = GSON.toJson(servers);
-        // update mem
-        localSrvListCache.setProperty(serversClassName, serverListJson);
-
-        long updateCost = System.currentTimeMillis() - updateStartTime;
-        if (updateCost > 2000) {
-            LOGGER.info("Update CachedListOfServers cost {}ms", updateCost);
+        if (servers == cachedServers) {
+            return;
         }
-        LOGGER.debug("Update CachedListOfServers cost {}ms", updateCost);
+        // 仅保存引用，序列化推迟到存储磁盘时
+        cachedServers = servers;
+        dirty = true;
     }
 
     /**
      * Store server list to local disk synchronized 防止退出时更新本地文件与定时任务更新
      */
     public synchronized void storeCachedListOfServer() {
-        if (cacheFile == null || !cacheFile.exists()) {
+        if (cacheFile == null || !cacheFile.exists() || !dirty) {
             return;
         }
         long startTime = System.currentTimeMillis();
-        // notice: 当前场景 均为单线程进行文件的存储和读取，不存在并发的问题
+        dirty = false;
+        List<ServiceInstance> servers = cachedServers;
+        File tmpFile = new File(cacheFile.getPath() + ".tmp");
         try {
-            try (FileOutputStream out = new FileOutputStream(cacheFile)) {
-                localSrvListCache.store(out, "Starlight Local Registry");
+            try (DataOutputStream out =
+                new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmpFile), 64 * 1024))) {
+                writeServers(out, servers);
+            }
+            try {
+                Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile.toPath(), cacheFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
             }
         } catch (Throwable e) {
+            dirty = true;
             LOGGER.warn("Store server list to local disk cache failed. ", e);
         }
         long storeCost = System.currentTimeMillis() - startTime;
@@ -253,4 +265,112 @@ public class ServiceInstanceLocalStore {
             }
         }
     }
+
+    static void writeServers(DataOutputStream out, List<ServiceInstance> servers) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(servers.size());
+        Map<String, Integer> dictionary = new HashMap<>();
+        for (ServiceInstance server : servers) {
+            writeString(out, server.getInstanceId(), dictionary);
+            writeString(out, server.getServiceId(), dictionary);
+            writeString(out, server.getHost(), dictionary);
+            out.writeInt(server.getPort());
+            out.writeBoolean(server.isSecure());
+            Map<String, String> metadata = server.getMetadata();
+            if (metadata == null) {
+                out.writeInt(-1);
+                continue;
+            }
+            out.writeInt(metadata.size());
+            for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                writeString(out, entry.getKey(), dictionary);
+                writeString(out, entry.getValue(), dictionary);
+            }
+        }
+    }
+
+    /**
+     * Read the servers snapshot
+     *
+     * @param in
+     * @return servers, null if the data is not a servers snapshot or is corrupt
+     * @throws IOException
+     */
+    static List<ServiceInstance> readServers(DataInputStream in) throws IOException {
+        if (in.available() < 4 * 3 || in.readInt() != MAGIC || in.readInt() != VERSION) {
+            return null;
+        }
+        try {
+            int size = in.readInt();
+            if (size < 0 || size > MAX_SERVERS || (long) size * MIN_SERVER_BYTES > in.available()) {
+                return null;
+            }
+            List<ServiceInstance> servers = new ArrayList<>(size);
+            List<String> dictionary = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                String instanceId = readString(in, dictionary);
+                String serviceId = readString(in, dictionary);
+                String host = readString(in, dictionary);
+                int port = in.readInt();
+                boolean secure = in.readBoolean();
+                int metadataSize = in.readInt();
+                if (metadataSize < -1 || metadataSize > MAX_METADATA_SIZE
+                    || (long) metadataSize * MIN_METADATA_ENTRY_BYTES > in.available()) {
+                    return null;
+                }
+                Map<String, String> metadata = null;
+                if (metadataSize >= 0) {
+                    metadata = new HashMap<>(metadataSize * 4 / 3 + 1);
+                    for (int j = 0; j < metadataSize; j++) {
+                        metadata.put(readString(in, dictionary), readString(in, dictionary));
+                    }
+                }
+                servers.add(new DefaultServiceInstance(instanceId, serviceId, host, port, secure, metadata));
+            }
+            return Collections.unmodifiableList(servers);
+        } catch (StreamCorruptedException | EOFException e) {
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value, Map<String, Integer> dictionary)
+        throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        Integer code = dictionary.get(value);
+        if (code != null) {
+            out.writeInt(code);
+            return;
+        }
+        dictionary.put(value, dictionary.size() + 1);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(NEW_STRING);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, List<String> dictionary) throws IOException {
+        int code = in.readInt();
+        if (code == NULL_STRING) {
+            return null;
+        }
+        if (code != NEW_STRING) {
+            if (code < 0 || code > dictionary.size()) {
+                throw new StreamCorruptedException("Illegal string code " + code);
+            }
+            return dictionary.get(code - 1);
+        }
+        int length = in.readInt();
+        if (length < 0 || length > MAX_STRING_LENGTH || length > in.available()) {
+            throw new StreamCorruptedException("Illegal string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        String value = new String(bytes, StandardCharsets.UTF_8);
+        dictionary.add(value);
+        return value;
+    }
 }
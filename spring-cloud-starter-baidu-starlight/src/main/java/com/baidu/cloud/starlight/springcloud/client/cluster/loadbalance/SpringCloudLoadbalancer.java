@@ -51,10 +51,17 @@ public class SpringCloudLoadbalancer implements LoadBalancer {
         // 路由采用的方案为：
         // 通过RpcContext设置ClusterMeta信息，在StarlightLoadBalancer的choose方法中执行筛选
         // StarlightLoadBalancer举例，如ribbon的BaseLoadBalancer实现
+        // WeightedBlockLoadBalanceClient支持显式传入ClusterMeta信息同步选择实例，不再经过RpcContext
         long chooseStart = System.currentTimeMillis();
-        RpcContext.getContext().set(REQUEST_ROUTE_KEY, clusterSelector);
-        ServiceInstance instance = loadBalancerClient.choose(clusterSelector.getServiceId());
-        RpcContext.getContext().remove(REQUEST_ROUTE_KEY);
+        ServiceInstance instance;
+        if (loadBalancerClient instanceof WeightedBlockLoadBalanceClient) {
+            instance = ((WeightedBlockLoadBalanceClient) loadBalancerClient).choose(clusterSelector.getServiceId(),
+                clusterSelector);
+        } else {
+            RpcContext.getContext().set(REQUEST_ROUTE_KEY, clusterSelector);
+            instance = loadBalancerClient.choose(clusterSelector.getServiceId());
+            RpcContext.getContext().remove(REQUEST_ROUTE_KEY);
+        }
         LOGGER.debug("Spring cloud loadblancer choose instance for {} cost {}", clusterSelector.getServiceId(),
             System.currentTimeMillis() - chooseStart);
         return instance;
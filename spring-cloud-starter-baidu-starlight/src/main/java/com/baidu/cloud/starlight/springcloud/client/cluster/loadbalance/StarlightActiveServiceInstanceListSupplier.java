@@ -16,9 +16,13 @@
  
 package com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance;
 
+import com.baidu.cloud.starlight.api.rpc.RpcContext;
+import com.baidu.cloud.starlight.api.transport.PeerStatus;
 import com.baidu.cloud.starlight.core.rpc.SingleStarlightClient;
+import com.baidu.cloud.starlight.springcloud.client.cluster.ClusterSelector;
 import com.baidu.cloud.starlight.springcloud.client.cluster.SingleStarlightClientManager;
 import com.baidu.cloud.starlight.springcloud.client.properties.StarlightClientProperties;
+import com.baidu.cloud.starlight.springcloud.common.SpringCloudConstants;
 import com.baidu.cloud.thirdparty.netty.util.Timeout;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,15 +32,19 @@ import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceList
 import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
 import org.springframework.context.ConfigurableApplicationContext;
 import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 每个下游对应一个ServiceInstanceListSupplier 在此处实现 异常实例摘除、shutdown实例摘除、路由实例筛选逻辑
@@ -64,8 +72,37 @@ public class StarlightActiveServiceInstanceListSupplier extends DelegatingServic
 
     private final SingleStarlightClientManager clientManager;
 
+    /**
+     * Upper bound of the snapshot age, so that config changes of the filters also take effect
+     */
+    private static final long SNAPSHOT_MAX_AGE_MILLS = 30 * 1000L;
+
     private List<StarlightServerListFilter> serverListFilters;
 
+    /**
+     * Filters executed when the snapshot is rebuilt
+     */
+    private List<StarlightServerListFilter> snapshotFilters;
+
+    /**
+     * Filters depending on the request, executed per request on the snapshot
+     */
+    private List<StarlightServerListFilter> requestScopedFilters;
+
+    private volatile ServerListSnapshot snapshot;
+
+    /**
+     * Interval to refresh the discovered servers cached for {@link #getInstances(ClusterSelector)}
+     */
+    private static final long DISCOVERY_REFRESH_INTERVAL_MILLS = 1000L;
+
+    /**
+     * Discovered servers cached for the synchronous choose path
+     */
+    private volatile DiscoveredServers discoveredServers;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+
     private ScheduledFuture<?> scheduledFuture;
 
     public StarlightActiveServiceInstanceListSupplier(ConfigurableApplicationContext context,
@@ -75,10 +112,14 @@ public class StarlightActiveServiceInstanceListSupplier extends DelegatingServic
         this.clientManager = context.getBean(SingleStarlightClientManager.class);
         Map<String, StarlightServerListFilter> filterMap = context.getBeansOfType(StarlightServerListFilter.class);
         if (filterMap != null && !filterMap.isEmpty()) {
-            this.serverListFilters = filterMap.values().stream().toList();
+            this.serverListFilters = filterMap.values().stream()
+                .sorted(Comparator.comparingInt(StarlightServerListFilter::getOrder)).toList();
         } else {
             this.serverListFilters = new ArrayList<>();
         }
+        this.snapshotFilters = serverListFilters.stream().filter(filter -> !filter.isRequestScoped()).toList();
+        this.requestScopedFilters =
+            serverListFilters.stream().filter(StarlightServerListFilter::isRequestScoped).toList();
     }
 
     @Override
@@ -138,15 +179,126 @@ public class StarlightActiveServiceInstanceListSupplier extends DelegatingServic
             return originServers;
         }
 
-        List<ServiceInstance> serverList = new LinkedList<>(originServers); // the original servers is unmodifiable,
-                                                                            // copy once
-        for (StarlightServerListFilter serverListFilter : serverListFilters) {
+        List<ServiceInstance> serverList = snapshotServers(originServers);
+        for (StarlightServerListFilter serverListFilter : requestScopedFilters) {
             serverList = serverListFilter.getFilteredList(serverList);
         }
 
         return serverList;
     }
 
+    /**
+     * Get active servers synchronously, used by {@link StarlightServiceInstanceLoadBalancer}. The discovered servers
+     * are cached and refreshed by the reactive discovery path in background.
+     *
+     * @param clusterSelector route selector of the request, may be null
+     * @return
+     */
+    public List<ServiceInstance> getInstances(ClusterSelector clusterSelector) {
+        List<ServiceInstance> originServers = discoveredServers();
+
+        if (originServers == null || originServers.size() < 1) {
+            return originServers;
+        }
+
+        if (serverListFilters == null || serverListFilters.size() < 1) {
+            return originServers;
+        }
+
+        List<ServiceInstance> serverList = snapshotServers(originServers);
+        for (StarlightServerListFilter serverListFilter : requestScopedFilters) {
+            serverList = serverListFilter.getFilteredList(serverList, clusterSelector);
+        }
+
+        return serverList;
+    }
+
+    /**
+     * Get active servers synchronously from the supplier, block on the supplier if it is not a
+     * {@link StarlightActiveServiceInstanceListSupplier}, such as a user defined supplier wrapping it. The route
+     * selector is then passed by RpcContext like the blocking choose, so that RoutableServerListFilter still routes
+     *
+     * @param supplier
+     * @param clusterSelector
+     * @return
+     */
+    public static List<ServiceInstance> instances(ServiceInstanceListSupplier supplier,
+        ClusterSelector clusterSelector) {
+        if (supplier instanceof StarlightActiveServiceInstanceListSupplier) {
+            return ((StarlightActiveServiceInstanceListSupplier) supplier).getInstances(clusterSelector);
+        }
+        if (clusterSelector == null) {
+            return supplier.get().next().block();
+        }
+        Object previous = RpcContext.getContext().get(SpringCloudConstants.REQUEST_ROUTE_KEY);
+        RpcContext.getContext().set(SpringCloudConstants.REQUEST_ROUTE_KEY, clusterSelector);
+        try {
+            return supplier.get().next().block();
+        } finally {
+            if (previous == null) {
+                RpcContext.getContext().remove(SpringCloudConstants.REQUEST_ROUTE_KEY);
+            } else {
+                RpcContext.getContext().set(SpringCloudConstants.REQUEST_ROUTE_KEY, previous);
+            }
+        }
+    }
+
+    private List<ServiceInstance> discoveredServers() {
+        DiscoveredServers current = discoveredServers;
+        if (current == null) {
+            // 首次获取，同步等待服务发现结果
+            List<ServiceInstance> servers =
+                updateOrGetCacheServers(delegate.get().next().defaultIfEmpty(Collections.emptyList()).block());
+            discoveredServers = new DiscoveredServers(servers, System.currentTimeMillis());
+            return servers;
+        }
+
+        if (System.currentTimeMillis() - current.discoverTime >= DISCOVERY_REFRESH_INTERVAL_MILLS) {
+            refreshDiscoveredServers();
+        }
+        return current.servers;
+    }
+
+    /**
+     * Refresh the discovered servers asynchronously, at most one refresh in flight
+     */
+    private void refreshDiscoveredServers() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        delegate.get().next().defaultIfEmpty(Collections.emptyList()).subscribeOn(Schedulers.boundedElastic())
+            .doFinally(signal -> refreshing.set(false))
+            .subscribe(servers -> discoveredServers =
+                new DiscoveredServers(updateOrGetCacheServers(servers), System.currentTimeMillis()),
+                e -> LOGGER.warn("Refresh discovered servers of {} failed, caused by ", getServiceId(), e));
+    }
+
+    /**
+     * The servers filtered by the snapshot filters, rebuilt only when the discovered servers or the peer statuses are
+     * changed
+     *
+     * @param originServers
+     * @return unmodifiable servers
+     */
+    protected List<ServiceInstance> snapshotServers(List<ServiceInstance> originServers) {
+        long statusVersion = PeerStatus.statusVersion();
+        long now = System.currentTimeMillis();
+        ServerListSnapshot current = snapshot;
+        if (current != null && current.statusVersion == statusVersion
+            && now - current.createTime < SNAPSHOT_MAX_AGE_MILLS && current.isBuiltFrom(originServers)) {
+            return current.servers;
+        }
+
+        List<ServiceInstance> serverList = originServers;
+        for (StarlightServerListFilter serverListFilter : snapshotFilters) {
+            serverList = serverListFilter.getFilteredList(serverList);
+        }
+        List<ServiceInstance> servers =
+            serverList == null ? null : Collections.unmodifiableList(new ArrayList<>(serverList));
+        snapshot = new ServerListSnapshot(originServers, statusVersion, now, servers);
+        return servers;
+    }
+
     private List<ServiceInstance> updateOrGetCacheServers(List<ServiceInstance> originServers) {
 
         if (!clientProperties.getLocalCacheEnabled(getServiceId()) || localStore == null) {
@@ -169,6 +321,60 @@ public class StarlightActiveServiceInstanceListSupplier extends DelegatingServic
         return originServers;
     }
 
+    /**
+     * Filtered servers of one version of the discovered servers and peer statuses
+     */
+    private static class ServerListSnapshot {
+
+        private final List<ServiceInstance> originServers;
+
+        private final long statusVersion;
+
+        private final long createTime;
+
+        private final List<ServiceInstance> servers;
+
+        ServerListSnapshot(List<ServiceInstance> originServers, long statusVersion, long createTime,
+            List<ServiceInstance> servers) {
+            this.originServers = originServers;
+            this.statusVersion = statusVersion;
+            this.createTime = createTime;
+            this.servers = servers;
+        }
+
+        /**
+         * Discovery clients may return a new list with the same instances each time
+         */
+        boolean isBuiltFrom(List<ServiceInstance> otherServers) {
+            if (originServers == otherServers) {
+                return true;
+            }
+            if (originServers.size() != otherServers.size()) {
+                return false;
+            }
+            Iterator<ServiceInstance> iterator = otherServers.iterator();
+            for (ServiceInstance server : originServers) {
+                ServiceInstance other = iterator.next();
+                if (server != other && !server.equals(other)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class DiscoveredServers {
+
+        private final List<ServiceInstance> servers;
+
+        private final long discoverTime;
+
+        DiscoveredServers(List<ServiceInstance> servers, long discoverTime) {
+            this.servers = servers;
+            this.discoverTime = discoverTime;
+        }
+    }
+
     /**
      * Clean up unused client
      */
@@ -24,7 +24,9 @@ import com.baidu.cloud.starlight.springcloud.client.properties.StarlightRoutePro
 import com.baidu.cloud.starlight.springcloud.client.shutdown.ShutdownServerListFilter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.cloud.client.ServiceInstance;
 import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
 import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
 import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
 import org.springframework.context.ConfigurableApplicationContext;
@@ -62,6 +64,15 @@ public class StarlightLoadbalancerConfiguration {
         return new RoutableServerListFilter(clientManager, routeProperties, name);
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public ReactorLoadBalancer<ServiceInstance> starlightRoundRobinLoadBalancer(Environment environment,
+        LoadBalancerClientFactory clientFactory) {
+        String name = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new StarlightRoundRobinLoadBalancer(
+            clientFactory.getLazyProvider(name, ServiceInstanceListSupplier.class), name);
+    }
+
     @Bean
     @ConditionalOnBean(DiscoveryClient.class)
     @ConditionalOnMissingBean
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance;
+
+import com.baidu.cloud.starlight.springcloud.client.cluster.ClusterSelector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 默认的轮询负载均衡器，在{@link RoundRobinLoadBalancer}的基础上支持同步选择实例
+ */
+public class StarlightRoundRobinLoadBalancer extends RoundRobinLoadBalancer
+    implements StarlightServiceInstanceLoadBalancer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StarlightRoundRobinLoadBalancer.class);
+
+    private final String serviceId;
+
+    private final ObjectProvider<ServiceInstanceListSupplier> instanceListSupplierObjectProvider;
+
+    private final AtomicInteger position;
+
+    public StarlightRoundRobinLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> instancesListSupplierProvider,
+        String serviceId) {
+        super(instancesListSupplierProvider, serviceId);
+        this.serviceId = serviceId;
+        this.instanceListSupplierObjectProvider = instancesListSupplierProvider;
+        this.position = new AtomicInteger(ThreadLocalRandom.current().nextInt(1000));
+    }
+
+    @Override
+    public ServiceInstance choose(ClusterSelector clusterSelector) {
+        return roundRobin(serviceInstances(clusterSelector));
+    }
+
+    protected ServiceInstance roundRobin(List<ServiceInstance> instances) {
+        if (instances == null || instances.isEmpty()) {
+            LOGGER.warn("No servers available for service: {}", serviceId);
+            return null;
+        }
+        if (instances.size() == 1) {
+            return instances.get(0);
+        }
+        int pos = position.incrementAndGet() & Integer.MAX_VALUE;
+        return instances.get(pos % instances.size());
+    }
+
+    protected List<ServiceInstance> serviceInstances(ClusterSelector clusterSelector) {
+        ServiceInstanceListSupplier supplier =
+            instanceListSupplierObjectProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return StarlightActiveServiceInstanceListSupplier.instances(supplier, clusterSelector);
+    }
+}
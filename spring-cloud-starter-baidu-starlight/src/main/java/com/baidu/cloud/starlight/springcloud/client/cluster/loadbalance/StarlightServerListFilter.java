@@ -17,6 +17,7 @@
 package com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance;
 
 import com.baidu.cloud.starlight.api.rpc.threadpool.NamedThreadFactory;
+import com.baidu.cloud.starlight.springcloud.client.cluster.ClusterSelector;
 import com.baidu.cloud.starlight.springcloud.client.cluster.SingleStarlightClientManager;
 import com.baidu.cloud.thirdparty.netty.util.HashedWheelTimer;
 import com.baidu.cloud.thirdparty.netty.util.Timeout;
@@ -52,6 +53,29 @@ public interface StarlightServerListFilter extends Ordered {
      */
     List<ServiceInstance> getFilteredList(List<ServiceInstance> originList);
 
+    /**
+     * Filter origin server list with the route selector of the request passed explicitly, used by the synchronous
+     * choose path of {@link StarlightServiceInstanceLoadBalancer} instead of the route selector in RpcContext.
+     *
+     * @param originList
+     * @param clusterSelector route selector of the request, may be null
+     * @return
+     */
+    default List<ServiceInstance> getFilteredList(List<ServiceInstance> originList, ClusterSelector clusterSelector) {
+        return getFilteredList(originList);
+    }
+
+    /**
+     * Whether the result depends on the request, such as the route selector in RpcContext. Other filters only depend
+     * on the server list and the peer status, they are executed when the server list snapshot is rebuilt rather than
+     * per request.
+     *
+     * @return
+     */
+    default boolean isRequestScoped() {
+        return false;
+    }
+
     /**
      * Server list filter timer tasks, such as clean up tasks or recover tasks
      * 
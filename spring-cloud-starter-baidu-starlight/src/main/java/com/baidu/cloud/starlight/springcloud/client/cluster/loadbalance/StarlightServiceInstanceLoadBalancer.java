@@ -0,0 +1,36 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance;
+
+import com.baidu.cloud.starlight.springcloud.client.cluster.ClusterSelector;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+
+/**
+ * 支持同步选择实例的负载均衡器：请求路径上不经过Reactor订阅与block，路由信息显式传入而非通过RpcContext传递。
+ * 实例列表直接读取{@link StarlightActiveServiceInstanceListSupplier}缓存的服务列表，Reactor仅用于服务发现的刷新
+ */
+public interface StarlightServiceInstanceLoadBalancer extends ReactorServiceInstanceLoadBalancer {
+
+    /**
+     * 同步选择实例
+     *
+     * @param clusterSelector 请求的路由信息
+     * @return chosen instance, null if no instance available
+     */
+    ServiceInstance choose(ClusterSelector clusterSelector);
+}
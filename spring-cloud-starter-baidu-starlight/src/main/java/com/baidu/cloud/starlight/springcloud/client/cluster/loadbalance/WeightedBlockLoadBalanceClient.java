@@ -55,6 +55,42 @@ public class WeightedBlockLoadBalanceClient extends BlockingLoadBalancerClient {
             return super.choose(serviceId, request);
         }
 
+        ReactiveLoadBalancer<ServiceInstance> loadBalancer = clusterLoadBalancer(serviceId, clusterSelector);
+        if (loadBalancer == null) {
+            return null;
+        }
+
+        Response<ServiceInstance> loadBalancerResponse = Mono.from(loadBalancer.choose(request)).block();
+        if (loadBalancerResponse == null) {
+            return null;
+        }
+        return loadBalancerResponse.getServer();
+    }
+
+    /**
+     * 同步选择实例，路由信息显式传入。负载均衡器为{@link StarlightServiceInstanceLoadBalancer}时不经过Reactor订阅与block，
+     * 否则退化为通过RpcContext传递路由信息的阻塞choose
+     *
+     * @param serviceId
+     * @param clusterSelector
+     * @return
+     */
+    public ServiceInstance choose(String serviceId, ClusterSelector clusterSelector) {
+        ReactiveLoadBalancer<ServiceInstance> loadBalancer = clusterLoadBalancer(serviceId, clusterSelector);
+        if (loadBalancer instanceof StarlightServiceInstanceLoadBalancer) {
+            return ((StarlightServiceInstanceLoadBalancer) loadBalancer).choose(clusterSelector);
+        }
+
+        RpcContext.getContext().set(REQUEST_ROUTE_KEY, clusterSelector);
+        try {
+            return choose(serviceId);
+        } finally {
+            RpcContext.getContext().remove(REQUEST_ROUTE_KEY);
+        }
+    }
+
+    private ReactiveLoadBalancer<ServiceInstance> clusterLoadBalancer(String serviceId,
+        ClusterSelector clusterSelector) {
         String subClusterKey = clusterSelector.getClusterName();
         ReactiveLoadBalancer<ServiceInstance> loadBalancer = clusterRules.get(subClusterKey);
         if (loadBalancer == null) {
@@ -64,11 +100,6 @@ public class WeightedBlockLoadBalanceClient extends BlockingLoadBalancerClient {
             }
             clusterRules.put(subClusterKey, loadBalancer);
         }
-
-        Response<ServiceInstance> loadBalancerResponse = Mono.from(loadBalancer.choose(request)).block();
-        if (loadBalancerResponse == null) {
-            return null;
-        }
-        return loadBalancerResponse.getServer();
+        return loadBalancer;
     }
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance.lalb;
+
+import com.baidu.cloud.starlight.api.statistics.Stats;
+import com.baidu.cloud.starlight.core.statistics.StarlightStatistics;
+import com.baidu.cloud.starlight.core.statistics.StarlightStatsManager;
+import com.baidu.cloud.starlight.springcloud.client.cluster.ClusterSelector;
+import com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance.StarlightActiveServiceInstanceListSupplier;
+import com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance.StarlightServiceInstanceLoadBalancer;
+import com.baidu.cloud.starlight.springcloud.common.InstanceUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 增量模式的LALB loadbalancer，与brpc LALB一致：时延样本到达时由{@link LalbLatencyStats}增量计算实例权重并直接更新权重树，
+ * choose时无锁读取不可变的{@link LalbWeightTree}快照，仅在实例上下线时重建权重树。
+ * 与{@link LocalityAwareLoadBalancer}相比，choose不再重建权重树，也不存在全局锁。
+ * 同一serviceId的不同集群(如标签路由)实例子集不同，按{@link ClusterSelector}各自维护权重树，避免交替请求反复重建
+ */
+public class IncrementalLocalityAwareLoadBalancer implements StarlightServiceInstanceLoadBalancer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IncrementalLocalityAwareLoadBalancer.class);
+
+    private final String serviceId;
+
+    private final ObjectProvider<ServiceInstanceListSupplier> instanceListSupplierObjectProvider;
+
+    /**
+     * 按集群选择器区分的权重树数量上限，超出后新的集群共用默认权重树
+     */
+    static final int MAX_SELECTOR_WEIGHT_TREES = 256;
+
+    /**
+     * 默认权重树，用于未指定集群的请求
+     */
+    private final AtomicReference<LalbWeightTree<ServiceInstance>> weightTree;
+
+    /**
+     * ClusterSelector -> 该集群的权重树，选择器随集群创建，按identity区分
+     */
+    private final Map<ClusterSelector, AtomicReference<LalbWeightTree<ServiceInstance>>> selectorWeightTrees;
+
+    public IncrementalLocalityAwareLoadBalancer(
+        ObjectProvider<ServiceInstanceListSupplier> instancesListSupplierProvider, String serviceId) {
+        this.serviceId = serviceId;
+        this.instanceListSupplierObjectProvider = instancesListSupplierProvider;
+        this.weightTree = new AtomicReference<>(new LalbWeightTree<>());
+        this.selectorWeightTrees = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        List<ServiceInstance> servers = serviceInstances(request);
+        if (servers == null || servers.isEmpty()) {
+            LOGGER.warn("No servers available for service: {}", serviceId);
+            return Mono.just(new EmptyResponse());
+        }
+
+        ServiceInstance result = currentWeightTree(servers).select();
+        if (result == null) {
+            return Mono.just(new EmptyResponse());
+        }
+        return Mono.just(new DefaultResponse(result));
+    }
+
+    @Override
+    public ServiceInstance choose(ClusterSelector clusterSelector) {
+        ServiceInstanceListSupplier supplier =
+            instanceListSupplierObjectProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        List<ServiceInstance> servers = StarlightActiveServiceInstanceListSupplier.instances(supplier, clusterSelector);
+        if (servers == null || servers.isEmpty()) {
+            LOGGER.warn("No servers available for service: {}", serviceId);
+            return null;
+        }
+        return currentWeightTree(weightTreeOf(clusterSelector), servers).select();
+    }
+
+    protected LalbWeightTree<ServiceInstance> currentWeightTree(List<ServiceInstance> servers) {
+        return currentWeightTree(weightTree, servers);
+    }
+
+    /**
+     * 获取当前权重树，实例集合变化时无锁重建：CAS替换成功的线程负责关联新树、解除旧树。
+     * 实例集合未变但实例对象已重建时，替换树中的实例对象，不重建
+     *
+     * @param treeRef
+     * @param servers
+     * @return
+     */
+    protected LalbWeightTree<ServiceInstance> currentWeightTree(
+        AtomicReference<LalbWeightTree<ServiceInstance>> treeRef, List<ServiceInstance> servers) {
+        LalbWeightTree<ServiceInstance> current = treeRef.get();
+        if (current.updateEntities(servers)) {
+            return current;
+        }
+
+        long startTime = System.currentTimeMillis();
+        LalbWeightTree<ServiceInstance> newTree = generateWeightTree(servers);
+        if (treeRef.compareAndSet(current, newTree)) {
+            newTree.attach();
+            current.detach();
+            if (treeRef.get() != newTree) {
+                // 关联期间又被替换，替换者可能已先行解除，此处兜底防止监听泄漏
+                newTree.detach();
+            }
+            LOGGER.debug("IncrementalLocalityAwareLoadBalancer rebuild weight tree of {} instances cost {}ms",
+                servers.size(), System.currentTimeMillis() - startTime);
+            return newTree;
+        }
+        // 其他线程已完成重建
+        return treeRef.get();
+    }
+
+    protected LalbWeightTree<ServiceInstance> generateWeightTree(List<ServiceInstance> servers) {
+        List<ServiceInstance> instances = new ArrayList<>(servers);
+        List<LalbLatencyStats> latencyStats = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            latencyStats.add(lalbLatencyStats(instance));
+        }
+        // 与时延统计一致按host:port标识实例
+        return new LalbWeightTree<>(instances, latencyStats, InstanceUtils::ipPortStr);
+    }
+
+    /**
+     * 获取或创建实例的时延统计，没有表示尚未调用到的实例[未调用到、新增实例]
+     *
+     * @param serviceInstance
+     * @return
+     */
+    private LalbLatencyStats lalbLatencyStats(ServiceInstance serviceInstance) {
+        StarlightStatistics statistics =
+            StarlightStatsManager.getOrCreateStatsByHostPort(InstanceUtils.ipPortStr(serviceInstance));
+        Stats stats = statistics.discoverStats(LocalityAwareLoadBalancer.LALB_STATS_KEY);
+        if (!(stats instanceof LalbLatencyStats)) {
+            statistics.registerStats(LocalityAwareLoadBalancer.LALB_STATS_KEY, new LalbLatencyStats());
+            stats = statistics.discoverStats(LocalityAwareLoadBalancer.LALB_STATS_KEY);
+        }
+        if (stats instanceof LalbLatencyStats) {
+            return (LalbLatencyStats) stats;
+        }
+        // registered by others with an unexpected type, use a detached one
+        return new LalbLatencyStats();
+    }
+
+    private AtomicReference<LalbWeightTree<ServiceInstance>> weightTreeOf(ClusterSelector clusterSelector) {
+        if (clusterSelector == null) {
+            return weightTree;
+        }
+        AtomicReference<LalbWeightTree<ServiceInstance>> selectorWeightTree =
+            selectorWeightTrees.get(clusterSelector);
+        if (selectorWeightTree != null) {
+            return selectorWeightTree;
+        }
+        if (selectorWeightTrees.size() >= MAX_SELECTOR_WEIGHT_TREES) {
+            return weightTree;
+        }
+        return selectorWeightTrees.computeIfAbsent(clusterSelector,
+            selector -> new AtomicReference<>(new LalbWeightTree<>()));
+    }
+
+    /**
+     * For test
+     *
+     * @return
+     */
+    protected LalbWeightTree<ServiceInstance> getWeightTree() {
+        return weightTree.get();
+    }
+
+    /**
+     * For test
+     *
+     * @param clusterSelector
+     * @return
+     */
+    protected LalbWeightTree<ServiceInstance> getWeightTree(ClusterSelector clusterSelector) {
+        return weightTreeOf(clusterSelector).get();
+    }
+
+    private List<ServiceInstance> serviceInstances(Request request) {
+        ServiceInstanceListSupplier supplier =
+            instanceListSupplierObjectProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+
+        return supplier.get(request).next().block();
+    }
+}
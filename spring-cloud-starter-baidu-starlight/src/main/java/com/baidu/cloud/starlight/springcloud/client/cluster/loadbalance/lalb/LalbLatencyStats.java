@@ -20,9 +20,10 @@ import com.baidu.cloud.starlight.api.common.Constants;
 import com.baidu.cloud.starlight.api.model.Request;
 import com.baidu.cloud.starlight.api.model.Response;
 import com.baidu.cloud.starlight.api.statistics.Stats;
+import com.baidu.cloud.starlight.core.statistics.LatencyHistogram;
 
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * LALB负载均衡场景记录请求时延信息 Created by liuruisen on 2020/10/9.
@@ -30,57 +31,117 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 public class LalbLatencyStats implements Stats {
 
     /**
-     * 计算平均响应时间的窗口大小，太长对于变化感知不及时，太短准确性较低 综合考虑后，采取stargate实践验证过的数值 10
+     * 原固定时延窗口的大小，时延改为由带衰减的直方图统计后不再使用
      */
+    @Deprecated
     public static final Integer DEFAULT_WINDOW_SIZE = 10;
 
-    private final Queue<Long> latencyWindow;
+    /**
+     * 权重所依据的尾部时延分位，与brpc LALB一致，使长尾慢的实例分到更少的流量
+     */
+    public static final double TAIL_LATENCY_PERCENTILE = 90.0;
+
+    /**
+     * 增量权重的放大系数，权重 = WEIGHT_SCALE / (尾部时延(us) + 1000)，保证时延在合理范围内时权重不小于1
+     */
+    public static final long WEIGHT_SCALE = 1_000_000_000L;
+
+    /**
+     * 尚无时延样本时的初始权重，对应约10ms的尾部时延
+     */
+    public static final long INITIAL_WEIGHT = WEIGHT_SCALE / 11000;
+
+    private static final long MICROS_PER_MILLI = 1000L;
+
+    /**
+     * 带衰减的时延直方图，平均时延与尾部时延基于全部近期样本而非最近10个
+     */
+    private final LatencyHistogram latencyHistogram;
+
+    /**
+     * 权重变化监听者，即当前权重树快照中对应的节点
+     */
+    private final Set<WeightListener> weightListeners;
 
     public LalbLatencyStats() {
-        this.latencyWindow = new ConcurrentLinkedQueue<>();
+        this.latencyHistogram = new LatencyHistogram();
+        this.weightListeners = new CopyOnWriteArraySet<>();
+    }
+
+    public LatencyHistogram getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    /**
+     * ServiceInstance avg latency
+     *
+     * @return
+     */
+    public Long avgLatency() {
+        return latencyHistogram.mean();
     }
 
-    public Queue<Long> getLatencyWindow() {
-        return latencyWindow;
+    /**
+     * ServiceInstance tail latency, 0 if there is no sample
+     *
+     * @return latency in millis
+     */
+    public long tailLatency() {
+        long latency = latencyHistogram.recentPercentile(TAIL_LATENCY_PERCENTILE);
+        return latency < 0 ? 0L : latency;
     }
 
     /**
+     * 记录时延样本，并将新权重通知给监听者。 参考brpc LALB，每个样本只更新本实例的权重，不重建整棵权重树
      *
-     * @param latency
+     * @param latency latency in millis
      */
-    public void updateLatencyWindow(Long latency) {
-        Queue<Long> latencyWindow = getLatencyWindow();
-        latencyWindow.add(latency);
-        if (latencyWindow.size() > DEFAULT_WINDOW_SIZE) {
-            latencyWindow.poll(); // clear excess data
+    public void updateWeight(long latency) {
+        latencyHistogram.record(latency);
+
+        if (weightListeners.isEmpty()) {
+            return;
+        }
+        long weight = weight();
+        for (WeightListener listener : weightListeners) {
+            listener.onWeightChanged(weight);
         }
     }
 
     /**
-     * ServiceInstance avg latency
+     * 是否已有时延样本
      *
      * @return
      */
-    public Long avgLatency() {
-        return avgLatency(latencyWindow.size());
+    public boolean hasLatencySample() {
+        return latencyHistogram.count() > 0;
     }
 
-    protected Long avgLatency(int windowSize) {
-        if (windowSize == 0) {
-            return 0L;
-        }
-        Long latencies = 0L;
-        for (Long latency : latencyWindow) {
-            latencies += latency;
+    /**
+     * 基于尾部时延计算的权重，尚无样本时返回{@link #INITIAL_WEIGHT}
+     *
+     * @return
+     */
+    public long weight() {
+        if (!hasLatencySample()) {
+            return INITIAL_WEIGHT;
         }
-        return latencies / windowSize;
+        return Math.max(WEIGHT_SCALE / (tailLatency() * MICROS_PER_MILLI + MICROS_PER_MILLI), 1L);
+    }
+
+    public void addWeightListener(WeightListener listener) {
+        weightListeners.add(listener);
+    }
+
+    public void removeWeightListener(WeightListener listener) {
+        weightListeners.remove(listener);
     }
 
     @Override
     public void record(Request request, Response response) {
         Long latency = latency(request, response);
         if (latency != null) {
-            updateLatencyWindow(latency);
+            updateWeight(latency);
         }
     }
 
@@ -92,4 +153,17 @@ public class LalbLatencyStats implements Stats {
         // Impossible to happen
         return null;
     }
+
+    /**
+     * 权重变化监听
+     */
+    public interface WeightListener {
+
+        /**
+         * Called when the weight of the instance changes
+         *
+         * @param weight new weight
+         */
+        void onWeightChanged(long weight);
+    }
 }
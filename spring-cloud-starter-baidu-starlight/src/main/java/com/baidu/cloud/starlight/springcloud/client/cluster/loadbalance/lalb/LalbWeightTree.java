@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance.lalb;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Function;
+
+/**
+ * 增量更新的LALB权重树快照，参考brpc LALB实现。 实例集合不可变，仅在实例上下线时重建；
+ * 实例权重变化时只沿父节点路径原子地更新左子树权重，选择时无锁读取。 节点以数组形式存储为完全二叉树，节点i的左右子节点分别为2i+1、2i+2
+ */
+public class LalbWeightTree<T> {
+
+    /**
+     * 并发更新导致的选择失败重试次数
+     */
+    private static final int MAX_SELECT_RETRY = 3;
+
+    private final Node<T>[] nodes;
+
+    /**
+     * 每个节点左子树的权重和
+     */
+    private final AtomicLongArray leftWeights;
+
+    private final AtomicLong totalWeight;
+
+    /**
+     * 实例的唯一标识，如host:port。服务发现刷新后实例对象会重建，需按标识而非对象identity判断实例集合是否变化
+     */
+    private final Function<T, ?> keyFunction;
+
+    /**
+     * 用于判断实例集合是否变化，key为实例标识
+     */
+    private final Map<Object, Integer> entityIndexes;
+
+    @SuppressWarnings("unchecked")
+    public LalbWeightTree(List<T> entities, List<LalbLatencyStats> stats, Function<T, ?> keyFunction) {
+        if (entities.size() != stats.size()) {
+            throw new IllegalArgumentException("Size of entities and stats must be equal");
+        }
+        int size = entities.size();
+        this.nodes = new Node[size];
+        this.leftWeights = new AtomicLongArray(size);
+        this.keyFunction = keyFunction;
+        this.entityIndexes = new HashMap<>(size * 4 / 3 + 1);
+
+        for (int i = 0; i < size; i++) {
+            LalbLatencyStats stat = stats.get(i);
+            nodes[i] = new Node<>(this, i, entities.get(i), stat, stat.weight());
+            entityIndexes.put(keyFunction.apply(entities.get(i)), i);
+        }
+
+        // 自底向上计算子树权重和
+        long[] subTreeWeights = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            int left = 2 * i + 1;
+            int right = left + 1;
+            long leftWeight = left < size ? subTreeWeights[left] : 0L;
+            long rightWeight = right < size ? subTreeWeights[right] : 0L;
+            leftWeights.set(i, leftWeight);
+            subTreeWeights[i] = nodes[i].getWeight() + leftWeight + rightWeight;
+        }
+        this.totalWeight = new AtomicLong(size > 0 ? subTreeWeights[0] : 0L);
+    }
+
+    /**
+     * 以实例自身的equals作为标识
+     *
+     * @param entities
+     * @param stats
+     */
+    public LalbWeightTree(List<T> entities, List<LalbLatencyStats> stats) {
+        this(entities, stats, Function.identity());
+    }
+
+    /**
+     * Empty tree
+     */
+    public LalbWeightTree() {
+        this(Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * 按权重随机选择实例，无锁
+     *
+     * @return null if tree is empty
+     */
+    public T select() {
+        int size = nodes.length;
+        if (size == 0) {
+            return null;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int retry = 0; retry < MAX_SELECT_RETRY; retry++) {
+            long total = totalWeight.get();
+            if (total <= 0) {
+                break;
+            }
+            long remain = random.nextLong(total);
+            int index = 0;
+            while (index < size) {
+                long leftWeight = leftWeights.get(index);
+                if (remain < leftWeight) {
+                    index = 2 * index + 1;
+                    continue;
+                }
+                remain -= leftWeight;
+                long selfWeight = nodes[index].getWeight();
+                if (remain < selfWeight) {
+                    return nodes[index].getEntity();
+                }
+                remain -= selfWeight;
+                index = 2 * index + 2;
+            }
+            // 选择过程中权重被并发更新，重试
+        }
+        return nodes[random.nextInt(size)].getEntity();
+    }
+
+    /**
+     * 实例集合是否与当前快照一致。实例列表未刷新时按顺序比较引用即可命中，不产生额外分配；
+     * 否则按实例标识查找，实例对象重建但标识不变时不重建权重树
+     *
+     * @param entities
+     * @return
+     */
+    public boolean sameEntities(List<T> entities) {
+        if (entities == null || entities.size() != nodes.length) {
+            return false;
+        }
+        int index = 0;
+        boolean inOrder = true;
+        for (T entity : entities) {
+            if (nodes[index++].getEntity() != entity) {
+                inOrder = false;
+                break;
+            }
+        }
+        if (inOrder) {
+            return true;
+        }
+        for (T entity : entities) {
+            if (!entityIndexes.containsKey(keyFunction.apply(entity))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 实例集合与当前快照一致时，将快照中的实例替换为最新的实例对象，权重与时延统计的关联保持不变。
+     * 服务发现刷新后实例对象重建但标识不变时，元数据(protocols、interfaces、labels等)可能已变化，需选出最新的实例对象
+     *
+     * @param entities
+     * @return false if the entities are not the same as the snapshot, the tree needs to be rebuilt
+     */
+    public boolean updateEntities(List<T> entities) {
+        if (!sameEntities(entities)) {
+            return false;
+        }
+        int index = 0;
+        for (T entity : entities) {
+            Node<T> node = nodes[index++];
+            if (node.getEntity() == entity) {
+                continue;
+            }
+            // 顺序变化时按标识定位节点
+            node = nodes[entityIndexes.get(keyFunction.apply(entity))];
+            if (node.getEntity() != entity) {
+                node.setEntity(entity);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 关联时延统计，此后时延样本将直接更新本树的权重
+     */
+    public void attach() {
+        for (Node<T> node : nodes) {
+            node.getStats().addWeightListener(node);
+            // 构建与关联之间可能有新的时延样本
+            node.onWeightChanged(node.getStats().weight());
+        }
+    }
+
+    /**
+     * 解除与时延统计的关联，树被替换后调用
+     */
+    public void detach() {
+        for (Node<T> node : nodes) {
+            node.getStats().removeWeightListener(node);
+        }
+    }
+
+    public long getTotalWeight() {
+        return totalWeight.get();
+    }
+
+    public int size() {
+        return nodes.length;
+    }
+
+    /**
+     * For test
+     *
+     * @param index
+     * @return
+     */
+    protected long getNodeWeight(int index) {
+        return nodes[index].getWeight();
+    }
+
+    /**
+     * 将节点权重变化量沿父节点路径向上传播：节点位于父节点左子树时更新父节点的左子树权重
+     *
+     * @param index
+     * @param diff
+     */
+    private void propagate(int index, long diff) {
+        int child = index;
+        while (child > 0) {
+            int parent = (child - 1) >> 1;
+            if (child == 2 * parent + 1) {
+                leftWeights.addAndGet(parent, diff);
+            }
+            child = parent;
+        }
+        totalWeight.addAndGet(diff);
+    }
+
+    private static class Node<T> implements LalbLatencyStats.WeightListener {
+
+        private final LalbWeightTree<T> tree;
+
+        private final int index;
+
+        private volatile T entity;
+
+        private final LalbLatencyStats stats;
+
+        private final AtomicLong weight;
+
+        Node(LalbWeightTree<T> tree, int index, T entity, LalbLatencyStats stats, long weight) {
+            this.tree = tree;
+            this.index = index;
+            this.entity = entity;
+            this.stats = stats;
+            this.weight = new AtomicLong(weight);
+        }
+
+        long getWeight() {
+            return weight.get();
+        }
+
+        T getEntity() {
+            return entity;
+        }
+
+        void setEntity(T entity) {
+            this.entity = entity;
+        }
+
+        LalbLatencyStats getStats() {
+            return stats;
+        }
+
+        @Override
+        public void onWeightChanged(long newWeight) {
+            long diff = newWeight - weight.getAndSet(newWeight);
+            if (diff != 0) {
+                tree.propagate(index, diff);
+            }
+        }
+    }
+}
@@ -19,6 +19,8 @@ package com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance.lalb;
 import com.baidu.cloud.starlight.api.statistics.Stats;
 import com.baidu.cloud.starlight.core.statistics.StarlightStatistics;
 import com.baidu.cloud.starlight.core.statistics.StarlightStatsManager;
+import com.baidu.cloud.starlight.springcloud.client.cluster.ClusterSelector;
+import com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance.StarlightRoundRobinLoadBalancer;
 import com.baidu.cloud.starlight.springcloud.common.InstanceUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,11 +30,9 @@ import org.springframework.cloud.client.loadbalancer.DefaultResponse;
 import org.springframework.cloud.client.loadbalancer.Request;
 import org.springframework.cloud.client.loadbalancer.Response;
 import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
-import org.springframework.cloud.loadbalancer.core.RoundRobinLoadBalancer;
 import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
 import reactor.core.publisher.Mono;
 
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -45,7 +45,7 @@ import java.util.concurrent.atomic.AtomicLong;
 /**
  * LALB loadbalancer 耗时目标暂定 20ms内 TODO unit test Created by liuruisen on 2020/10/21.
  */
-public class LocalityAwareLoadBalancer extends RoundRobinLoadBalancer {
+public class LocalityAwareLoadBalancer extends StarlightRoundRobinLoadBalancer {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(LocalityAwareLoadBalancer.class);
 
@@ -63,7 +63,7 @@ public class LocalityAwareLoadBalancer extends RoundRobinLoadBalancer {
 
     private static final float ACTIVE_INSTANCE_RATIO = 0.7f;
 
-    private static final int MIN_LATENCY_WINDOW = 3;
+    private static final int MIN_LATENCY_SAMPLES = 3;
 
     private WeightTreeNode<ServiceInstance> weightTree;
 
@@ -105,6 +105,26 @@ public class LocalityAwareLoadBalancer extends RoundRobinLoadBalancer {
         return Mono.just(new DefaultResponse(result));
     }
 
+    @Override
+    public ServiceInstance choose(ClusterSelector clusterSelector) {
+        List<ServiceInstance> servers = serviceInstances(clusterSelector);
+        updateWeightTree(servers);
+        WeightTreeNode<ServiceInstance> currentTree = weightTree;
+        // 第一次请求 weight为0
+        if (currentTree.getWeight() == 0) {
+            ServiceInstance result = roundRobin(servers);
+            if (result != null) {
+                addLalbLatencyStats(result);
+            }
+            return result;
+        }
+
+        long randomWeight = ThreadLocalRandom.current().nextLong(currentTree.getWeight());
+        ServiceInstance result = searchNode(currentTree, randomWeight).getNodeEntity();
+        addLalbLatencyStats(result);
+        return result;
+    }
+
     protected <T> WeightTreeNode<T> searchNode(WeightTreeNode<T> weightTree, long weight) {
 
         if (weightTree.getLeftNode() == null) {
@@ -123,10 +143,17 @@ public class LocalityAwareLoadBalancer extends RoundRobinLoadBalancer {
 
     }
 
+    protected void updateWeightTree(Request request) {
+        try {
+            updateWeightTree(serviceInstances(request));
+        } catch (Exception e) {
+            LOGGER.error("Update ServiceInstance weight tree error", e);
+        }
+    }
+
     // 完全二叉权重树的构建
-    protected synchronized void updateWeightTree(Request request) {
+    protected synchronized void updateWeightTree(List<ServiceInstance> servers) {
         try {
-            List<ServiceInstance> servers = serviceInstances(request);
             if (servers != null && servers.size() > 0) {
                 // calculate
                 this.weightTree = generateWeightTreeByNodes(weightTreeNodes(servers));
@@ -151,7 +178,8 @@ public class LocalityAwareLoadBalancer extends RoundRobinLoadBalancer {
 
         if (serviceInstances != null) {
             Map<LalbLatencyStats, ServiceInstance> lalbLatencyStatsMap = new HashMap<>();
-            List<Long> avgLatencies = new LinkedList<>();
+            long[] tailLatencies = new long[serviceInstances.size()];
+            int sampledCount = 0;
 
             // get all serviceInstanceStats, include requested and unrequested instances
             for (ServiceInstance serviceInstance : serviceInstances) {
@@ -164,10 +192,9 @@ public class LocalityAwareLoadBalancer extends RoundRobinLoadBalancer {
                     stats = new LalbLatencyStats();
                     statistics.registerStats(LALB_STATS_KEY, stats);
                 }
-                Queue<Long> latencyWindow = ((LalbLatencyStats) stats).getLatencyWindow();
-                if (latencyWindow.size() >= MIN_LATENCY_WINDOW) {
+                if (((LalbLatencyStats) stats).getLatencyHistogram().count() >= MIN_LATENCY_SAMPLES) {
                     lalbLatencyStatsMap.put((LalbLatencyStats) stats, serviceInstance);
-                    avgLatencies.add(((LalbLatencyStats) stats).avgLatency());
+                    tailLatencies[sampledCount++] = ((LalbLatencyStats) stats).tailLatency();
                 } else {
                     // default weight
                     weightTreeNodes.add(new WeightTreeNode<>(serviceInstanceHashCode(serviceInstance), DEFAULT_WEIGHT,
@@ -189,8 +216,8 @@ public class LocalityAwareLoadBalancer extends RoundRobinLoadBalancer {
                 return weightTreeNodes;
             }
 
-            // calculate the avg latency of all service instance as a benchmark
-            Long predictedMaxLatency = latency90Percentile(avgLatencies);
+            // calculate the tail latency of all service instance as a benchmark
+            Long predictedMaxLatency = latency90Percentile(tailLatencies, sampledCount);
 
             for (Map.Entry<LalbLatencyStats, ServiceInstance> entry : lalbLatencyStatsMap.entrySet()) {
                 long weight = serviceInstanceWeight(entry.getKey(), predictedMaxLatency);
@@ -208,18 +235,43 @@ public class LocalityAwareLoadBalancer extends RoundRobinLoadBalancer {
     }
 
     /**
-     * Calculate the latency90Percentile of all {@link ServiceInstance} below serviceId 90分位值
+     * Calculate the latency90Percentile of all {@link ServiceInstance} below serviceId 90分位值。
+     * 只需第k小的值，使用快速选择代替全量排序，会打乱latencies前size个元素的顺序
      *
-     * @param avgLatencies
+     * @param latencies
+     * @param size count of valid latencies
      * @return
      */
-    protected Long latency90Percentile(List<Long> avgLatencies) {
-        int percentileIndex = Double.valueOf(avgLatencies.size() * 0.9).intValue() - 1;
-        if (percentileIndex < 0) {
-            percentileIndex = 0;
+    protected Long latency90Percentile(long[] latencies, int size) {
+        int k = Math.max((int) (size * 0.9) - 1, 0);
+        int left = 0;
+        int right = size - 1;
+        while (left < right) {
+            long pivot = latencies[(left + right) >>> 1];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (latencies[i] < pivot) {
+                    i++;
+                }
+                while (latencies[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    long tmp = latencies[i];
+                    latencies[i++] = latencies[j];
+                    latencies[j--] = tmp;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break;
+            }
         }
-        Collections.sort(avgLatencies);
-        return avgLatencies.get(percentileIndex);
+        return latencies[k];
     }
 
     /**
@@ -230,11 +282,11 @@ public class LocalityAwareLoadBalancer extends RoundRobinLoadBalancer {
      * @return
      */
     protected long serviceInstanceWeight(LalbLatencyStats stats, Long predictedMaxLatency) {
-        Long fixedWindowAvgLatency = stats.avgLatency();
+        long tailLatency = stats.tailLatency();
         // normalization to 1-100 to prevent inaccurate calculation, plus 10ms to the predictedMaxLatency to prevent 0
-        Long normalizedAvgLatency = fixedWindowAvgLatency * 100 / (predictedMaxLatency + 10);
+        long normalizedLatency = tailLatency * 100 / (predictedMaxLatency + 10);
 
-        long serviceInstanceWeight = 100 - normalizedAvgLatency;
+        long serviceInstanceWeight = 100 - normalizedLatency;
 
         // Avoid instance with a weight of 0 and no chance to access
         long weight = 0;
@@ -27,7 +27,6 @@ import com.baidu.cloud.starlight.springcloud.common.SpringCloudConstants;
 import com.baidu.cloud.thirdparty.netty.util.Timeout;
 import org.springframework.cloud.client.ServiceInstance;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
@@ -67,18 +66,32 @@ public class RoutableServerListFilter implements StarlightServerListFilter {
             return servers;
         }
 
-        ClusterSelector clusterSelector = (ClusterSelector) obj;
+        List<ServiceInstance> result = getFilteredList(servers, (ClusterSelector) obj);
+        // 支持海若请求级的label selector选择, 用完删除防止向下传递（ugly实现）
+        RpcContext.getContext().remove(SpringCloudConstants.REQUEST_LABEL_SELECTOR_ROUTE_KEY);
+        return result;
+    }
+
+    @Override
+    public List<ServiceInstance> getFilteredList(List<ServiceInstance> servers, ClusterSelector clusterSelector) {
+
+        if (!routeProperties.getEnabled() || clusterSelector == null) {
+            return servers;
+        }
 
-        List<ServiceInstance> result = new ArrayList<>(servers);
+        if (servers == null || servers.size() == 0) {
+            return servers;
+        }
+
+        List<ServiceInstance> result;
         try {
-            result = clusterSelector.selectorClusterInstances(result);
+            // servers为不可变的列表快照，直接传入以便selector按引用命中缓存
+            result = clusterSelector.selectorClusterInstances(servers);
         } catch (Throwable e) {
             LOGGER.error("Route select instances for serviceId {} failed, clusterSelector {}.", name,
                 clusterSelector.getClass().getSimpleName(), e);
             return servers;
         }
-        // 支持海若请求级的label selector选择, 用完删除防止向下传递（ugly实现）
-        RpcContext.getContext().remove(SpringCloudConstants.REQUEST_LABEL_SELECTOR_ROUTE_KEY);
 
         if ((result == null || result.isEmpty()) && InstanceUtils.isBnsServiceId(servers.get(0).getServiceId())) {
             // bns 服务兜底策略，因为BNS不是标准的Gravity服务但支持了内容路由，需要进行过滤；
@@ -90,6 +103,11 @@ public class RoutableServerListFilter implements StarlightServerListFilter {
         return result;
     }
 
+    @Override
+    public boolean isRequestScoped() {
+        return true;
+    }
+
     @Override
     public Map<String, Timeout> getServerListFilterTasks() {
         return null;
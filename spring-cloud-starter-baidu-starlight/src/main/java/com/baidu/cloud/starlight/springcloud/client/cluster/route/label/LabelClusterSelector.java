@@ -27,12 +27,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.client.ServiceInstance;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * Migrate from gravity and extend ClusterSelector
+ * <p>
+ * 解析后的LabelSelector按selector字符串缓存，过滤结果按原始实例列表的引用缓存：服务列表快照未变化时直接返回上次的过滤结果
  */
 public class LabelClusterSelector extends ClusterSelector {
 
@@ -40,6 +43,16 @@ public class LabelClusterSelector extends ClusterSelector {
 
     private LabelParser labelParser = new LabelParser();
 
+    /**
+     * 最近一次解析的label selector
+     */
+    private volatile ParsedSelector parsedSelector;
+
+    /**
+     * 最近一次的过滤结果
+     */
+    private volatile SelectResult lastResult;
+
     @Override
     public List<ServiceInstance> selectorClusterInstances(List<ServiceInstance> originList) {
         if (originList == null || originList.isEmpty()) {
@@ -52,14 +65,21 @@ public class LabelClusterSelector extends ClusterSelector {
             return originList;
         }
 
+        SelectResult last = lastResult;
+        if (last != null && last.isSelectedFrom(labelSelector, originList)) {
+            return last.result;
+        }
+
         List<ServiceInstance> result = originList;
         try {
-            LabelSelector selector = labelParser.parse(labelSelector);
+            LabelSelector selector = parse(labelSelector);
             if (selector.getMatchExpressions() != null) {
-                result = originList.stream().filter(server -> matchLabels(server, selector.getMatchExpressions()))
-                    .collect(Collectors.toList());
+                result = Collections.unmodifiableList(
+                    originList.stream().filter(server -> matchLabels(server, selector.getMatchExpressions()))
+                        .collect(Collectors.toList()));
                 recordSelectorResult(labelSelector, originList, result);
             }
+            lastResult = new SelectResult(labelSelector, originList, result);
         } catch (Throwable e) {
             LOG.error("[LABEL_ROUTE]LabelClusterSelector#selectorClusterInstances failed, service: {}, label: {}",
                 getServiceId(), labelSelector, e);
@@ -72,6 +92,15 @@ public class LabelClusterSelector extends ClusterSelector {
         return result;
     }
 
+    private LabelSelector parse(String labelSelector) {
+        ParsedSelector parsed = parsedSelector;
+        if (parsed == null || !parsed.labelSelector.equals(labelSelector)) {
+            parsed = new ParsedSelector(labelSelector, labelParser.parse(labelSelector));
+            parsedSelector = parsed;
+        }
+        return parsed.selector;
+    }
+
     private boolean matchLabels(ServiceInstance server, List<LabelSelectorRequirement> expressions) {
         for (LabelSelectorRequirement expression : expressions) {
             if (!matchLabel(server, expression)) {
@@ -87,9 +116,20 @@ public class LabelClusterSelector extends ClusterSelector {
             // NOTICE: 仅适用gravity场景
             return true;
         }
-        Map<String, String> meta = getServerMeta(server);
-        String value = meta != null ? meta.get(expression.getKey()) : null;
-        return expression.labelValueMatch(value);
+        return expression.labelValueMatch(getServerLabel(server, expression.getKey()));
+    }
+
+    /**
+     * 与{@link #getServerMeta(ServiceInstance)}取值一致，但不拷贝实例的metadata
+     */
+    private String getServerLabel(ServiceInstance server, String key) {
+        Map<String, String> serverMeta = server.getMetadata();
+        if (serverMeta == null || !serverMeta.containsKey(SpringCloudConstants.EM_PRODUCT_LINE)) { // 真对BNS的兼容
+            if (SpringCloudConstants.EM_PRODUCT_LINE.equals(key) || SpringCloudConstants.EM_APP.equals(key)) {
+                return getMeta().get(key);
+            }
+        }
+        return serverMeta != null ? serverMeta.get(key) : null;
     }
 
     private void recordSelectorEmptyResult(String labelSelector, List<ServiceInstance> origin) {
@@ -103,4 +143,38 @@ public class LabelClusterSelector extends ClusterSelector {
             labelSelector, origin.size(), result.size(),
             result.stream().map(ServiceInstance::getInstanceId).collect(Collectors.joining(",")));
     }
+
+    private static class ParsedSelector {
+
+        private final String labelSelector;
+
+        private final LabelSelector selector;
+
+        ParsedSelector(String labelSelector, LabelSelector selector) {
+            this.labelSelector = labelSelector;
+            this.selector = selector;
+        }
+    }
+
+    private static class SelectResult {
+
+        private final String labelSelector;
+
+        private final List<ServiceInstance> originList;
+
+        private final List<ServiceInstance> result;
+
+        SelectResult(String labelSelector, List<ServiceInstance> originList, List<ServiceInstance> result) {
+            this.labelSelector = labelSelector;
+            this.originList = originList;
+            this.result = result;
+        }
+
+        /**
+         * 原始列表按引用比较：列表快照重建时引用即变化，相当于列表版本号
+         */
+        boolean isSelectedFrom(String labelSelector, List<ServiceInstance> originList) {
+            return this.originList == originList && this.labelSelector.equals(labelSelector);
+        }
+    }
 }
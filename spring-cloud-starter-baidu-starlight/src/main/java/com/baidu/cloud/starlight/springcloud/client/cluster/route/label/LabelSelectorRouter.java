@@ -32,6 +32,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created by liuruisen on 2021/12/7.
@@ -42,6 +43,11 @@ public class LabelSelectorRouter extends AbstractRouter {
 
     private static final Integer PRIORITY = Integer.MAX_VALUE - 1;
 
+    /**
+     * 缓存的label selector数量上限，请求级selector取值过多时超出部分不缓存
+     */
+    private static final int MAX_CACHED_SELECTORS = 256;
+
     private final String serviceId;
 
     private final LoadBalancer loadBalancer;
@@ -50,6 +56,11 @@ public class LabelSelectorRouter extends AbstractRouter {
 
     private final StarlightClientProperties clientProperties;
 
+    /**
+     * label selector -> cluster, 复用LabelClusterSelector中解析与过滤的缓存
+     */
+    private final Map<String, Cluster> labelClusters = new ConcurrentHashMap<>();
+
     public LabelSelectorRouter(String serviceId, StarlightRouteProperties routeProperties,
         StarlightClientProperties clientProperties, LoadBalancer loadBalancer) {
         this.serviceId = serviceId;
@@ -66,7 +77,8 @@ public class LabelSelectorRouter extends AbstractRouter {
         Map<String, Object> routeContext =
             (Map<String, Object>) request.getNoneAdditionKv().get(SpringCloudConstants.ROUTE_CONTEXT_KEY);
         LOGGER.debug("LabelSelectorRouter route context {}", routeContext);
-        String labelSelector = (String) routeContext.get(SpringCloudConstants.REQUEST_LABEL_SELECTOR_ROUTE_KEY);
+        String labelSelector = routeContext == null ? null
+            : (String) routeContext.get(SpringCloudConstants.REQUEST_LABEL_SELECTOR_ROUTE_KEY);
         LOGGER.debug("LabelSelectorRouter label selector from route context {}", labelSelector);
         if (StringUtils.isEmpty(labelSelector)) {
             labelSelector = routeProperties.getServiceLabelSelector(getRouteServiceId());
@@ -76,6 +88,21 @@ public class LabelSelectorRouter extends AbstractRouter {
             labelSelector = "";
         }
 
+        Cluster cluster = labelClusters.get(labelSelector);
+        if (cluster == null) {
+            cluster = createCluster(labelSelector);
+            if (labelClusters.size() < MAX_CACHED_SELECTORS) {
+                Cluster exist = labelClusters.putIfAbsent(labelSelector, cluster);
+                cluster = exist != null ? exist : cluster;
+            }
+        }
+
+        recordRouteMatch(request, labelSelector, routeStart);
+
+        return cluster;
+    }
+
+    private Cluster createCluster(String labelSelector) {
         ClusterSelector clusterSelector = new LabelClusterSelector();
         clusterSelector.setServiceId(getServiceId());
         clusterSelector.setClusterName(getServiceId());
@@ -84,8 +111,6 @@ public class LabelSelectorRouter extends AbstractRouter {
         clusterLabels.put(SpringCloudConstants.LABEL_SELECTOR_ROUTE_KEY, labelSelector);
         clusterSelector.setMeta(clusterLabels);
 
-        recordRouteMatch(request, labelSelector, routeStart);
-
         return new DefaultCluster(clusterSelector, clientProperties, loadBalancer);
     }
 
@@ -109,6 +134,9 @@ public class LabelSelectorRouter extends AbstractRouter {
     }
 
     private void recordRouteMatch(Request request, String labelSelector, long routeStart) {
+        if (!LOGGER.isInfoEnabled()) {
+            return;
+        }
         LOGGER.info(
             "[LABEL_ROUTE] Request matched label-selector route: " + "serviceId {}, req{}, labelSelector {}, cost {}",
             getServiceId(), RouteUtils.reqMsg(request), labelSelector, System.currentTimeMillis() - routeStart);
@@ -27,20 +27,18 @@ import com.baidu.cloud.starlight.api.utils.StringUtils;
 import com.baidu.cloud.starlight.core.rpc.SingleStarlightClient;
 import com.baidu.cloud.starlight.protocol.http.springrest.sse.SpringRestSseProtocol;
 import com.baidu.cloud.starlight.protocol.stargate.StargateProtocol;
-import com.baidu.cloud.starlight.serialization.serializer.JsonSerializer;
 import com.baidu.cloud.starlight.springcloud.client.cluster.Cluster;
 import com.baidu.cloud.starlight.springcloud.client.cluster.ClusterSelector;
 import com.baidu.cloud.starlight.springcloud.client.cluster.LoadBalancer;
 import com.baidu.cloud.starlight.springcloud.client.cluster.SingleStarlightClientManager;
+import com.baidu.cloud.starlight.springcloud.client.cluster.subcluster.InstanceMetadataCache.InstanceMetadata;
 import com.baidu.cloud.starlight.springcloud.client.properties.OutlierConfig;
 import com.baidu.cloud.starlight.springcloud.client.properties.StarlightClientProperties;
 import com.baidu.cloud.starlight.springcloud.common.SpringCloudConstants;
-import com.baidu.cloud.thirdparty.jackson.core.type.TypeReference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cloud.client.ServiceInstance;
 
-import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -53,6 +51,16 @@ public class DefaultCluster implements Cluster {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultCluster.class);
 
+    /**
+     * Times to choose again when the chosen instance is excluded by the backup request
+     */
+    private static final int MAX_CHOOSE_EXCLUDED_TIMES = 2;
+
+    /**
+     * 实例元数据的解析缓存，所有集群共享
+     */
+    private static final InstanceMetadataCache METADATA_CACHE = new InstanceMetadataCache();
+
     private ClusterSelector clusterSelector;
 
     // NOTICE 支持修改lb后, 进行更改线程和使用线程的并发控制
@@ -91,6 +99,13 @@ public class DefaultCluster implements Cluster {
         // select instance
         long starTime = System.currentTimeMillis();
         ServiceInstance instance = getLoadBalancer().choose(clusterSelector);
+        Object excludedAddress = request.getNoneAdditionKv().get(SpringCloudConstants.HEDGE_EXCLUDED_ADDRESS_KEY);
+        if (excludedAddress != null) {
+            // backup request prefers another instance, the excluded one is used if no other can be chosen
+            for (int i = 0; i < MAX_CHOOSE_EXCLUDED_TIMES && isAddress(instance, excludedAddress); i++) {
+                instance = getLoadBalancer().choose(clusterSelector);
+            }
+        }
         LOGGER.debug("Select instance from ribbon cost: {}", System.currentTimeMillis() - starTime);
         if (instance == null) {
             throw new StarlightRpcException(SpringCloudConstants.NO_INSTANCE_ERROR_CODE,
@@ -137,21 +152,22 @@ public class DefaultCluster implements Cluster {
         }
     }
 
+    private static boolean isAddress(ServiceInstance instance, Object address) {
+        return instance != null && address.equals(instance.getHost() + ":" + instance.getPort());
+    }
+
     /**
      * Protocol selection When no protocol is specified, the protocol selection strategy will be adopted.
      */
     private String requestProtocol(ServiceConfig serviceConfig, ServiceInstance instance) {
         String protocolName = serviceConfig.getProtocol();
         if (StringUtils.isEmpty(protocolName)) {
-            if (instance.getMetadata() == null || instance.getMetadata().size() == 0
-                || StringUtils.isEmpty(instance.getMetadata().get(SpringCloudConstants.PROTOCOLS_KEY))) {
+            protocolName = METADATA_CACHE.get(instance).getProtocol();
+            if (StringUtils.isEmpty(protocolName)) {
                 LOGGER.warn("Unable to select protocol for request: "
                     + "there is nor protocol message in registration message or in configuration."
                     + "Will use the default protocol brpc");
                 protocolName = Constants.BRPC_VALUE;
-            } else {
-                String protocols = instance.getMetadata().get(SpringCloudConstants.PROTOCOLS_KEY);
-                protocolName = protocols.split(",")[0];
             }
         }
 
@@ -171,7 +187,9 @@ public class DefaultCluster implements Cluster {
             return;
         }
 
-        if (StringUtils.isEmpty(instance.getMetadata().get(SpringCloudConstants.INTERFACES_KEY))) {
+        InstanceMetadata metadata = METADATA_CACHE.get(instance);
+        String interfaceStr = metadata.getInterfaces();
+        if (StringUtils.isEmpty(interfaceStr)) {
             LOGGER.warn(
                 "Request service {} method {} protocol stargate. "
                     + "There is no interfaces message in registration message, "
@@ -180,59 +198,52 @@ public class DefaultCluster implements Cluster {
             return;
         }
 
-        String interfaceStr = instance.getMetadata().get(SpringCloudConstants.INTERFACES_KEY);
-        if (!interfaceStr.contains(request.getServiceClass().getName())) {
-            LOGGER.warn(
-                "Request service {}, method {}, protocol stargate, interface metadata {}. "
-                    + "The registration interfaces metadata dose not contain the service, "
-                    + "will use default group[normal] and version[1.0.0]. ",
-                request.getServiceClass().getName(), request.getMethodName(), interfaceStr);
-            return;
-        }
-
-        try {
-            List<String> interfaces =
-                JsonSerializer.OBJECT_MAPPER.readValue(interfaceStr, new TypeReference<List<String>>() {});
-
+        String serviceClassName = request.getServiceClass().getName();
+        String[] interfaceMeta = metadata.getInterfaceMeta(serviceClassName);
+        if (interfaceMeta == null) {
+            if (!interfaceStr.contains(serviceClassName)) {
+                LOGGER.warn(
+                    "Request service {}, method {}, protocol stargate, interface metadata {}. "
+                        + "The registration interfaces metadata dose not contain the service, "
+                        + "will use default group[normal] and version[1.0.0]. ",
+                    serviceClassName, request.getMethodName(), interfaceStr);
+                return;
+            }
+            if (metadata.isInterfacesIllegal()) {
+                throw new IllegalStateException(
+                    "Cannot use stargate to send request, " + "parse interfaces metadata failed, interface metadata "
+                        + interfaceStr + " please check provider registration metadata");
+            }
+            List<String> interfaces = metadata.getInterfaceList();
             if (interfaces == null || interfaces.size() == 0) {
                 LOGGER.warn(
                     "Request service {}, method {}, protocol stargate, interface metadata {}. "
                         + "The result of parsing registration interfaces metadata is empty, "
                         + "will use default group[normal] and version[1.0.0]. ",
-                    request.getServiceClass().getName(), request.getMethodName(), interfaceStr);
+                    serviceClassName, request.getMethodName(), interfaceStr);
                 return;
             }
-
-            for (String interfaceName : interfaces) {
-                if (interfaceName.contains(request.getServiceClass().getName())) {
-                    String[] metadata = interfaceName.split(":");
-                    if (metadata.length != 3) {
-                        LOGGER.warn(
-                            "Request service {}, method {}, protocol stargate, interface {}. "
-                                + "The interface info parse from registration metadata is illegal, "
-                                + "will use default group[normal] and version[1.0.0]. ",
-                            request.getServiceClass().getName(), request.getMethodName(), interfaceName);
-                        return;
-                    }
-                    serviceConfig.setGroup(metadata[0]);
-                    serviceConfig.setVersion(metadata[2]);
-                    LOGGER.debug("Request service {}, method {} use protocol {}, group is {}, version is {}",
-                        request.getServiceName(), request.getMethodName(), request.getProtocolName(),
-                        serviceConfig.getGroup(), serviceConfig.getVersion());
-                    return;
-                }
-            }
-
             LOGGER.debug(
                 "Request service {}, method {}, protocol stargate, interfaces {}. "
                     + "The interface list parse from metadata do not contain the request service, "
                     + "will use default group[normal] and version[1.0.0]. ",
-                request.getServiceClass().getName(), request.getMethodName(), interfaces);
-        } catch (IOException e) {
-            throw new IllegalStateException(
-                "Cannot use stargate to send request, " + "parse interfaces metadata failed, interface metadata "
-                    + interfaceStr + " please check provider registration metadata");
+                serviceClassName, request.getMethodName(), interfaces);
+            return;
+        }
+
+        if (interfaceMeta.length != 3) {
+            LOGGER.warn(
+                "Request service {}, method {}, protocol stargate, interface {}. "
+                    + "The interface info parse from registration metadata is illegal, "
+                    + "will use default group[normal] and version[1.0.0]. ",
+                serviceClassName, request.getMethodName(), String.join(":", interfaceMeta));
+            return;
         }
+        serviceConfig.setGroup(interfaceMeta[0]);
+        serviceConfig.setVersion(interfaceMeta[2]);
+        LOGGER.debug("Request service {}, method {} use protocol {}, group is {}, version is {}",
+            request.getServiceName(), request.getMethodName(), request.getProtocolName(), serviceConfig.getGroup(),
+            serviceConfig.getVersion());
     }
 
     /**
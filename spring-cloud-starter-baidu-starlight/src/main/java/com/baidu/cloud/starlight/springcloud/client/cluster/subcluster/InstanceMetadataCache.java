@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster.subcluster;
+
+import com.baidu.cloud.starlight.api.utils.StringUtils;
+import com.baidu.cloud.starlight.serialization.serializer.JsonSerializer;
+import com.baidu.cloud.starlight.springcloud.common.SpringCloudConstants;
+import com.baidu.cloud.thirdparty.jackson.core.type.TypeReference;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 实例注册元数据(protocols、stargate interfaces)的解析缓存，按instanceId缓存，元数据变化时重新解析。
+ * 读路径无锁，容量只在新增时检查
+ */
+class InstanceMetadataCache {
+
+    /**
+     * 缓存的实例数上限，超出时裁剪到上限的3/4，被裁剪的实例下次请求时重新解析
+     */
+    static final int MAX_CACHED_INSTANCES = 10000;
+
+    private final Map<Object, InstanceMetadata> cache = new ConcurrentHashMap<>();
+
+    private final int maxCachedInstances;
+
+    InstanceMetadataCache() {
+        this(MAX_CACHED_INSTANCES);
+    }
+
+    InstanceMetadataCache(int maxCachedInstances) {
+        this.maxCachedInstances = maxCachedInstances;
+    }
+
+    /**
+     * Get the parsed metadata of the instance
+     *
+     * @param instance
+     * @return
+     */
+    InstanceMetadata get(ServiceInstance instance) {
+        Map<String, String> metadata = instance.getMetadata();
+        String protocols = metadata == null ? null : metadata.get(SpringCloudConstants.PROTOCOLS_KEY);
+        String interfaces = metadata == null ? null : metadata.get(SpringCloudConstants.INTERFACES_KEY);
+
+        Object key = cacheKey(instance);
+        InstanceMetadata instanceMetadata = cache.get(key);
+        if (instanceMetadata != null && instanceMetadata.isParsedFrom(protocols, interfaces)) {
+            return instanceMetadata;
+        }
+
+        instanceMetadata = new InstanceMetadata(protocols, interfaces);
+        if (cache.put(key, instanceMetadata) == null && cache.size() > maxCachedInstances) {
+            trim();
+        }
+        return instanceMetadata;
+    }
+
+    /**
+     * 裁剪到上限的3/4，避免每次新增都裁剪；只在新增实例时调用，不影响读路径
+     */
+    private synchronized void trim() {
+        int target = maxCachedInstances - maxCachedInstances / 4;
+        Iterator<Object> iterator = cache.keySet().iterator();
+        while (cache.size() > target && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+        }
+    }
+
+    int size() {
+        return cache.size();
+    }
+
+    /**
+     * instanceId的hash已缓存，无需每次请求拼接字符串；未设置instanceId时使用实例本身
+     */
+    private static Object cacheKey(ServiceInstance instance) {
+        String instanceId = instance.getInstanceId();
+        return instanceId == null ? instance : instanceId;
+    }
+
+    /**
+     * Parsed metadata of one version of the instance metadata
+     */
+    static class InstanceMetadata {
+
+        /**
+         * 未找到服务对应的interface
+         */
+        private static final String[] NONE_INTERFACE = new String[0];
+
+        private final String protocols;
+
+        private final String interfaces;
+
+        /**
+         * The first protocol in protocols metadata, null if absent
+         */
+        private final String protocol;
+
+        /**
+         * Parsed interfaces metadata, null if absent or illegal
+         */
+        private final List<String> interfaceList;
+
+        private final boolean interfacesIllegal;
+
+        /**
+         * service class name -> interface metadata [group, ?, version]
+         */
+        private final Map<String, String[]> interfaceMetas = new ConcurrentHashMap<>();
+
+        InstanceMetadata(String protocols, String interfaces) {
+            this.protocols = protocols;
+            this.interfaces = interfaces;
+            this.protocol = StringUtils.isEmpty(protocols) ? null : protocols.split(",")[0];
+
+            List<String> parsed = null;
+            boolean illegal = false;
+            if (!StringUtils.isEmpty(interfaces)) {
+                try {
+                    parsed = JsonSerializer.OBJECT_MAPPER.readValue(interfaces, new TypeReference<List<String>>() {});
+                } catch (IOException e) {
+                    illegal = true;
+                }
+            }
+            this.interfaceList = parsed == null ? null : Collections.unmodifiableList(parsed);
+            this.interfacesIllegal = illegal;
+        }
+
+        boolean isParsedFrom(String protocols, String interfaces) {
+            return Objects.equals(this.protocols, protocols) && Objects.equals(this.interfaces, interfaces);
+        }
+
+        String getProtocol() {
+            return protocol;
+        }
+
+        String getInterfaces() {
+            return interfaces;
+        }
+
+        List<String> getInterfaceList() {
+            return interfaceList;
+        }
+
+        boolean isInterfacesIllegal() {
+            return interfacesIllegal;
+        }
+
+        /**
+         * Interface metadata split by ':' of the first interface containing the service class name
+         *
+         * @param serviceClassName
+         * @return split interface metadata, null if no interface contains the service
+         */
+        String[] getInterfaceMeta(String serviceClassName) {
+            if (interfaceList == null) {
+                return null;
+            }
+            String[] interfaceMeta = interfaceMetas.get(serviceClassName);
+            if (interfaceMeta == null) {
+                interfaceMeta = NONE_INTERFACE;
+                for (String interfaceName : interfaceList) {
+                    if (interfaceName.contains(serviceClassName)) {
+                        interfaceMeta = interfaceName.split(":");
+                        break;
+                    }
+                }
+                interfaceMetas.put(serviceClassName, interfaceMeta);
+            }
+            return interfaceMeta == NONE_INTERFACE ? null : interfaceMeta;
+        }
+    }
+}
@@ -27,7 +27,7 @@ import com.baidu.cloud.starlight.api.statistics.Stats;
 import com.baidu.cloud.starlight.api.transport.PeerStatus;
 import com.baidu.cloud.starlight.api.utils.StringUtils;
 import com.baidu.cloud.starlight.core.rpc.SingleStarlightClient;
-import com.baidu.cloud.starlight.core.statistics.FixedTimeWindowStats;
+import com.baidu.cloud.starlight.core.statistics.SlidingWindowStats;
 import com.baidu.cloud.starlight.core.statistics.StarlightStatistics;
 import com.baidu.cloud.starlight.core.statistics.StarlightStatsManager;
 import com.baidu.cloud.starlight.springcloud.client.cluster.SingleStarlightClientManager;
@@ -101,8 +101,8 @@ public class OutlierDetectFilter implements Filter {
             Integer outlierMinReqNum =
                 remoteURI.getParameter(OUTLIER_DETECT_MINI_REQUEST_NUM_KEY, OUTLIER_DETECT_MINI_REQUEST_NUM);
 
-            Integer totalReqCount = outlierStats.totalReqCount();
-            Integer failReqCount = outlierStats.failReqCount();
+            int totalReqCount = outlierStats.totalReqCount();
+            int failReqCount = outlierStats.failReqCount();
             if (totalReqCount < outlierMinReqNum) { // less than outlier detect threshold, return
                 return;
             }
@@ -111,14 +111,14 @@ public class OutlierDetectFilter implements Filter {
             if (!StringUtils.isEmpty(outlierDetectFailCount)) {
                 int outlierFailCount = Integer.parseInt(outlierDetectFailCount);
                 if (failReqCount >= outlierFailCount) {
-                    markOutlier(remoteURI, starlightClientManager, outlierStats);
+                    markOutlier(remoteURI, starlightClientManager, totalReqCount, failReqCount);
                 }
             } else {
                 int outlierDetectFailPercent = remoteURI.getParameter(OUTLIER_DETECT_FAIL_PERCENT_THRESHOLD_KEY,
                     OUTLIER_DETECT_FAIL_PERCENT_THRESHOLD);
                 int failPercent = failPercent(failReqCount, totalReqCount);
                 if (failPercent > outlierDetectFailPercent) { // Failure threshold exceeded, mark client as outlier
-                    markOutlier(remoteURI, starlightClientManager, outlierStats);
+                    markOutlier(remoteURI, starlightClientManager, totalReqCount, failReqCount);
                 }
             }
         } catch (Throwable throwable) {
@@ -127,8 +127,8 @@ public class OutlierDetectFilter implements Filter {
 
     }
 
-    private void markOutlier(URI remoteURI, SingleStarlightClientManager starlightClientManager,
-        CountStats outlierStats) {
+    private void markOutlier(URI remoteURI, SingleStarlightClientManager starlightClientManager, int totalReqCount,
+        int failReqCount) {
         SingleStarlightClient singleClient =
             starlightClientManager.getSingleClient(remoteURI.getHost(), remoteURI.getPort());
         if (singleClient == null) {
@@ -156,12 +156,12 @@ public class OutlierDetectFilter implements Filter {
             detectFailPercent = Integer.parseInt(outlierDetectFailPct);
         }
 
-        int failPercent = failPercent(outlierStats.failReqCount(), outlierStats.totalReqCount());
+        int failPercent = failPercent(failReqCount, totalReqCount);
 
         OutlierDetectEvent detectEvent = new OutlierDetectEvent();
-        detectEvent.setReqCount(outlierStats.totalReqCount());
-        detectEvent.setSuccReqCount(outlierStats.sucReqCount());
-        detectEvent.setFailCount(outlierStats.failReqCount());
+        detectEvent.setReqCount(totalReqCount);
+        detectEvent.setSuccReqCount(totalReqCount - failReqCount);
+        detectEvent.setFailCount(failReqCount);
         detectEvent.setDetectFailCount(detectFailCount);
         detectEvent.setDetectFailPercent(detectFailPercent);
         detectEvent.setFailPercent(failPercent);
@@ -192,7 +192,7 @@ public class OutlierDetectFilter implements Filter {
 
         int detectInterval = remoteURI.getParameter(OUTLIER_DETECT_INTERVAL_KEY, OUTLIER_DETECT_INTERVAL);
         if (statistics.discoverStats(SpringCloudConstants.OUTLIER_STATS_KEY) == null) {
-            FixedTimeWindowStats outlierStats = new FixedTimeWindowStats(detectInterval);
+            SlidingWindowStats outlierStats = new SlidingWindowStats(detectInterval);
             statistics.registerStats(SpringCloudConstants.OUTLIER_STATS_KEY, outlierStats);
         }
     }
@@ -84,6 +84,32 @@ public class ClientConfig {
 
     private Integer networkErrorRetryTimes;
 
+    /**
+     * Retries allowed as a fraction of the requests, so that a failing provider does not multiply the load. Default
+     * is 0.1
+     */
+    private Double retryBudgetRatio; // application level
+
+    /**
+     * Retries allowed per second regardless of the ratio, for low traffic. Default is 10
+     */
+    private Integer retryBudgetMinRetriesPerSecond; // application level
+
+    /**
+     * Send a backup request if no response within the delay, used in hedge cluster model
+     */
+    private Integer hedgeDelayMills; // application level
+
+    /**
+     * Send a backup request if no response within the percentile of the recent latency, such as 99
+     */
+    private Double hedgeDelayPercentile; // application level
+
+    /**
+     * Backup requests allowed as a fraction of the requests. Default is 0.1
+     */
+    private Double hedgeBudgetRatio; // application level
+
     /**
      * The config of outlier detect and eject
      */
@@ -369,6 +395,76 @@ public class ClientConfig {
         this.networkErrorRetryTimes = networkErrorRetryTimes;
     }
 
+    public Double getRetryBudgetRatio() {
+        return retryBudgetRatio;
+    }
+
+    public void setRetryBudgetRatio(Double retryBudgetRatio) {
+        this.retryBudgetRatio = retryBudgetRatio;
+    }
+
+    public Integer getRetryBudgetMinRetriesPerSecond() {
+        return retryBudgetMinRetriesPerSecond;
+    }
+
+    public void setRetryBudgetMinRetriesPerSecond(Integer retryBudgetMinRetriesPerSecond) {
+        this.retryBudgetMinRetriesPerSecond = retryBudgetMinRetriesPerSecond;
+    }
+
+    public Integer getHedgeDelayMills() {
+        return hedgeDelayMills;
+    }
+
+    /**
+     * Get hedgeDelayMills for the specify interface
+     *
+     * @param className
+     * @return
+     */
+    public Integer getHedgeDelayMills(String className) {
+        InterfaceConfig config = interfaceConfig.get(className);
+        if (config != null && config.getHedgeDelayMills() != null) {
+            return config.getHedgeDelayMills();
+        }
+
+        return hedgeDelayMills;
+    }
+
+    public void setHedgeDelayMills(Integer hedgeDelayMills) {
+        this.hedgeDelayMills = hedgeDelayMills;
+    }
+
+    public Double getHedgeDelayPercentile() {
+        return hedgeDelayPercentile;
+    }
+
+    /**
+     * Get hedgeDelayPercentile for the specify interface
+     *
+     * @param className
+     * @return
+     */
+    public Double getHedgeDelayPercentile(String className) {
+        InterfaceConfig config = interfaceConfig.get(className);
+        if (config != null && config.getHedgeDelayPercentile() != null) {
+            return config.getHedgeDelayPercentile();
+        }
+
+        return hedgeDelayPercentile;
+    }
+
+    public void setHedgeDelayPercentile(Double hedgeDelayPercentile) {
+        this.hedgeDelayPercentile = hedgeDelayPercentile;
+    }
+
+    public Double getHedgeBudgetRatio() {
+        return hedgeBudgetRatio;
+    }
+
+    public void setHedgeBudgetRatio(Double hedgeBudgetRatio) {
+        this.hedgeBudgetRatio = hedgeBudgetRatio;
+    }
+
     public Boolean getLocalCacheEnabled() {
         return localCacheEnabled;
     }
@@ -34,6 +34,17 @@ public class InterfaceConfig {
 
     private String retryErrorCodes; // split by , default null
 
+    /**
+     * Send a backup request if no response within the delay, used in hedge cluster model
+     */
+    private Integer hedgeDelayMills; // interface level
+
+    /**
+     * Send a backup request if no response within the percentile of the recent latency, such as 99. Used when
+     * hedgeDelayMills is not configured
+     */
+    private Double hedgeDelayPercentile; // interface level
+
     public Integer getRequestTimeoutMills() {
         return requestTimeoutMills;
     }
@@ -73,4 +84,20 @@ public class InterfaceConfig {
     public void setRetryErrorCodes(String retryErrorCodes) {
         this.retryErrorCodes = retryErrorCodes;
     }
+
+    public Integer getHedgeDelayMills() {
+        return hedgeDelayMills;
+    }
+
+    public void setHedgeDelayMills(Integer hedgeDelayMills) {
+        this.hedgeDelayMills = hedgeDelayMills;
+    }
+
+    public Double getHedgeDelayPercentile() {
+        return hedgeDelayPercentile;
+    }
+
+    public void setHedgeDelayPercentile(Double hedgeDelayPercentile) {
+        this.hedgeDelayPercentile = hedgeDelayPercentile;
+    }
 }
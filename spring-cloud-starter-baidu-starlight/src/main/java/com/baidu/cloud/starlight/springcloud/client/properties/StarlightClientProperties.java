@@ -526,6 +526,79 @@ public class StarlightClientProperties {
         return SpringCloudConstants.NETWORK_ERROR_RETRY_TIMES; // default is 3
     }
 
+    public Double getRetryBudgetRatio(String clientName) {
+        ClientConfig globalConfig = config.get(defaultConfig);
+        ClientConfig clientConfig = config.get(clientName);
+
+        if (clientConfig != null && clientConfig.getRetryBudgetRatio() != null) {
+            return clientConfig.getRetryBudgetRatio();
+        }
+
+        if (globalConfig != null && globalConfig.getRetryBudgetRatio() != null) {
+            return globalConfig.getRetryBudgetRatio();
+        }
+
+        return SpringCloudConstants.DEFAULT_RETRY_BUDGET_RATIO;
+    }
+
+    public Integer getRetryBudgetMinRetriesPerSecond(String clientName) {
+        ClientConfig globalConfig = config.get(defaultConfig);
+        ClientConfig clientConfig = config.get(clientName);
+
+        if (clientConfig != null && clientConfig.getRetryBudgetMinRetriesPerSecond() != null) {
+            return clientConfig.getRetryBudgetMinRetriesPerSecond();
+        }
+
+        if (globalConfig != null && globalConfig.getRetryBudgetMinRetriesPerSecond() != null) {
+            return globalConfig.getRetryBudgetMinRetriesPerSecond();
+        }
+
+        return SpringCloudConstants.DEFAULT_RETRY_BUDGET_MIN_RETRIES_PER_SECOND;
+    }
+
+    public Integer getHedgeDelayMills(String clientName, String className) {
+        ClientConfig clientConfig = config.get(clientName);
+        if (clientConfig != null && clientConfig.getHedgeDelayMills(className) != null) {
+            return clientConfig.getHedgeDelayMills(className);
+        }
+
+        ClientConfig globalConfig = config.get(defaultConfig);
+        if (globalConfig != null && globalConfig.getHedgeDelayMills(className) != null) {
+            return globalConfig.getHedgeDelayMills(className);
+        }
+
+        return null;
+    }
+
+    public Double getHedgeDelayPercentile(String clientName, String className) {
+        ClientConfig clientConfig = config.get(clientName);
+        if (clientConfig != null && clientConfig.getHedgeDelayPercentile(className) != null) {
+            return clientConfig.getHedgeDelayPercentile(className);
+        }
+
+        ClientConfig globalConfig = config.get(defaultConfig);
+        if (globalConfig != null && globalConfig.getHedgeDelayPercentile(className) != null) {
+            return globalConfig.getHedgeDelayPercentile(className);
+        }
+
+        return null;
+    }
+
+    public Double getHedgeBudgetRatio(String clientName) {
+        ClientConfig globalConfig = config.get(defaultConfig);
+        ClientConfig clientConfig = config.get(clientName);
+
+        if (clientConfig != null && clientConfig.getHedgeBudgetRatio() != null) {
+            return clientConfig.getHedgeBudgetRatio();
+        }
+
+        if (globalConfig != null && globalConfig.getHedgeBudgetRatio() != null) {
+            return globalConfig.getHedgeBudgetRatio();
+        }
+
+        return SpringCloudConstants.DEFAULT_HEDGE_BUDGET_RATIO;
+    }
+
     public Boolean getLocalCacheEnabled(String clientName) {
         ClientConfig globalConfig = config.get(defaultConfig);
         ClientConfig clientConfig = config.get(clientName);
@@ -120,6 +120,26 @@ public class SpringCloudConstants {
 
     public static final String RETRYABLE_SPLIT_KEY = ",";
 
+    /**
+     * default retries allowed as a fraction of the requests, used in failover cluster client
+     */
+    public static final Double DEFAULT_RETRY_BUDGET_RATIO = 0.1;
+
+    /**
+     * default retries allowed per second regardless of the ratio, used in failover cluster client
+     */
+    public static final Integer DEFAULT_RETRY_BUDGET_MIN_RETRIES_PER_SECOND = 10;
+
+    /**
+     * default backup requests allowed as a fraction of the requests, used in hedge cluster client
+     */
+    public static final Double DEFAULT_HEDGE_BUDGET_RATIO = 0.1;
+
+    /**
+     * Address of the instance already requested, the backup request prefers another instance
+     */
+    public static final String HEDGE_EXCLUDED_ADDRESS_KEY = "hedge_excluded_address";
+
     /**
      * Used to identify the server instance launch and register time
      */
@@ -23,6 +23,7 @@ import org.springframework.context.SmartLifecycle;
 
 import com.baidu.cloud.starlight.springcloud.client.cluster.FailFastClusterClient;
 import com.baidu.cloud.starlight.springcloud.client.cluster.FailOverClusterClient;
+import com.baidu.cloud.starlight.springcloud.client.cluster.HedgingClusterClient;
 import com.baidu.cloud.starlight.springcloud.client.cluster.SingleStarlightClientManager;
 
 public class StarlightClientLifecycle implements SmartLifecycle {
@@ -56,6 +57,10 @@ public class StarlightClientLifecycle implements SmartLifecycle {
                 FailOverClusterClient client = (FailOverClusterClient) applicationContext.getBean(beanName);
                 client.init();
             }
+            for (String beanName : applicationContext.getBeanNamesForType(HedgingClusterClient.class)) {
+                HedgingClusterClient client = (HedgingClusterClient) applicationContext.getBean(beanName);
+                client.init();
+            }
         }
 
         this.running = true;
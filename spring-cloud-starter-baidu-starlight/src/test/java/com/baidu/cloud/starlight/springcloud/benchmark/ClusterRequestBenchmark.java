@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.benchmark;
+
+import com.baidu.cloud.starlight.api.model.Request;
+import com.baidu.cloud.starlight.api.model.Response;
+import com.baidu.cloud.starlight.api.model.RpcRequest;
+import com.baidu.cloud.starlight.api.model.RpcResponse;
+import com.baidu.cloud.starlight.api.rpc.RpcContext;
+import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
+import com.baidu.cloud.starlight.api.rpc.config.ServiceConfig;
+import com.baidu.cloud.starlight.core.rpc.SingleStarlightClient;
+import com.baidu.cloud.starlight.springcloud.client.cluster.ClusterSelector;
+import com.baidu.cloud.starlight.springcloud.client.cluster.FailFastClusterClient;
+import com.baidu.cloud.starlight.springcloud.client.cluster.LoadBalancer;
+import com.baidu.cloud.starlight.springcloud.client.cluster.SingleStarlightClientManager;
+import com.baidu.cloud.starlight.springcloud.client.properties.ClientConfig;
+import com.baidu.cloud.starlight.springcloud.client.properties.StarlightClientProperties;
+import com.baidu.cloud.starlight.springcloud.client.properties.StarlightRouteProperties;
+import com.baidu.cloud.starlight.springcloud.common.ApplicationContextUtils;
+import com.baidu.cloud.starlight.springcloud.common.InstanceUtils;
+import com.baidu.cloud.starlight.springcloud.common.SpringCloudConstants;
+import com.baidu.cloud.starlight.springcloud.configuration.Configuration;
+import com.baidu.cloud.thirdparty.netty.util.Timeout;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Overhead of ClusterClient#request() before the request is handed to the transport, with label-selector routing
+ * enabled or disabled and with or without the RpcContext of the caller. The load balancer answers the callback
+ * directly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClusterRequestBenchmark {
+
+    private static final String SERVICE_ID = "cluster-benchmark";
+
+    private static final String HOST = "10.0.0.1";
+
+    private static final int PORT = 8000;
+
+    @Param({"false", "true"})
+    private boolean routeEnabled;
+
+    /**
+     * Entries in the RpcContext of the caller, such as the trace context
+     */
+    @Param({"0", "8"})
+    private int contextSize;
+
+    private Map<String, Object> callerContext;
+
+    private FailFastClusterClient clusterClient;
+
+    private ServiceConfig serviceConfig;
+
+    private Response response;
+
+    @Setup
+    public void setup() {
+        StaticApplicationContext applicationContext = new StaticApplicationContext();
+        applicationContext.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark",
+            Collections.singletonMap(SpringCloudConstants.STARLIGHT_SERVER_NAME_KEY, "benchmark-consumer")));
+        new ApplicationContextUtils().setApplicationContext(applicationContext);
+
+        StarlightClientProperties properties = new StarlightClientProperties();
+        Map<String, ClientConfig> configs = new HashMap<>();
+        configs.put(properties.getDefaultConfig(), new ClientConfig());
+        properties.setConfig(configs);
+
+        StarlightRouteProperties routeProperties = new StarlightRouteProperties();
+        routeProperties.setEnabled(routeEnabled);
+
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(SpringCloudConstants.PROTOCOLS_KEY, "brpc");
+        ServiceInstance instance = new DefaultServiceInstance(SERVICE_ID + "-0", SERVICE_ID, HOST, PORT, false,
+            metadata);
+
+        // the alive client is found by the cluster, nothing is connected
+        SingleStarlightClient singleClient = Mockito.mock(SingleStarlightClient.class);
+        doReturn(true).when(singleClient).isActive();
+        SingleStarlightClientManager.getInstance().allSingleClients().put(InstanceUtils.ipPortStr(HOST, PORT),
+            singleClient);
+
+        LoadBalancer loadBalancer = new LoadBalancer() {
+            @Override
+            public ServiceInstance choose(ClusterSelector clusterSelector) {
+                return instance;
+            }
+
+            @Override
+            public void execute(ClusterSelector clusterSelector, SingleStarlightClient starlightClient,
+                ServiceInstance chosen, Request request, RpcCallback callback) {
+                callback.onResponse(response);
+            }
+        };
+
+        clusterClient = new FailFastClusterClient(SERVICE_ID, properties, loadBalancer,
+            Mockito.mock(DiscoveryClient.class), SingleStarlightClientManager.getInstance(),
+            Mockito.mock(Configuration.class), routeProperties);
+        serviceConfig = new ServiceConfig();
+        clusterClient.refer(ClusterRequestBenchmark.class, serviceConfig);
+        clusterClient.init();
+
+        response = new RpcResponse();
+
+        callerContext = new HashMap<>();
+        for (int i = 0; i < contextSize; i++) {
+            callerContext.put("trace_key_" + i, "trace_value_" + i);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        SingleStarlightClientManager.getInstance().allSingleClients().remove(InstanceUtils.ipPortStr(HOST, PORT));
+    }
+
+    @Benchmark
+    public Request request() {
+        // RpcContext is thread local, fill it in the benchmark thread
+        if (RpcContext.getContext().get().size() < contextSize) {
+            RpcContext.getContext().set(callerContext);
+        }
+        Request request = new RpcRequest();
+        request.setServiceClass(ClusterRequestBenchmark.class);
+        request.setServiceConfig(serviceConfig);
+        request.setMethodName("request");
+        clusterClient.request(request, new BenchmarkCallback(request));
+        return request;
+    }
+
+    private static class BenchmarkCallback implements RpcCallback {
+
+        private final Request request;
+
+        BenchmarkCallback(Request request) {
+            this.request = request;
+        }
+
+        @Override
+        public void addTimeout(Timeout timeout) {
+        }
+
+        @Override
+        public Request getRequest() {
+            return request;
+        }
+
+        @Override
+        public void onResponse(Response response) {
+        }
+
+        @Override
+        public void onError(Throwable e) {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(ClusterRequestBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.benchmark;
+
+import com.baidu.cloud.starlight.springcloud.client.cluster.route.label.LabelClusterSelector;
+import com.baidu.cloud.starlight.springcloud.common.SpringCloudConstants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Label route over 1000 instances with a 5-term selector. {@link #uncached()} creates a selector per request as the
+ * router used to do, {@link #cached()} reuses the selector and the same instance list snapshot.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LabelRouteBenchmark {
+
+    private static final String SERVICE_ID = "label-benchmark";
+
+    private static final int INSTANCE_COUNT = 1000;
+
+    private static final String LABEL_SELECTOR =
+        "env=online&&EM_PLATFORM in (online,onlinenew)&&EM_LOGIC_IDC!=nj&&version not in (1.0,1.1)&&zone=zone-a";
+
+    private List<ServiceInstance> instances;
+
+    private LabelClusterSelector cachedSelector;
+
+    @Setup
+    public void setup() {
+        List<ServiceInstance> list = new ArrayList<>(INSTANCE_COUNT);
+        for (int i = 0; i < INSTANCE_COUNT; i++) {
+            Map<String, String> labels = new HashMap<>();
+            labels.put(SpringCloudConstants.EM_PRODUCT_LINE, "ns");
+            labels.put(SpringCloudConstants.EM_APP, SERVICE_ID);
+            labels.put("env", "online");
+            labels.put("EM_PLATFORM", i % 2 == 0 ? "online" : "onlinenew");
+            labels.put("EM_LOGIC_IDC", i % 3 == 0 ? "nj" : "bj");
+            labels.put("version", "1." + (i % 4));
+            labels.put("zone", i % 5 == 0 ? "zone-b" : "zone-a");
+            String host = "10.0." + (i / 256) + "." + (i % 256);
+            list.add(new DefaultServiceInstance(SERVICE_ID + "-" + i, SERVICE_ID, host, 8000, false, labels));
+        }
+        instances = Collections.unmodifiableList(list);
+        cachedSelector = newSelector();
+    }
+
+    @Benchmark
+    public List<ServiceInstance> uncached() {
+        return newSelector().selectorClusterInstances(instances);
+    }
+
+    @Benchmark
+    public List<ServiceInstance> cached() {
+        return cachedSelector.selectorClusterInstances(instances);
+    }
+
+    private static LabelClusterSelector newSelector() {
+        LabelClusterSelector selector = new LabelClusterSelector();
+        selector.setServiceId(SERVICE_ID);
+        selector.setClusterName(SERVICE_ID);
+        selector.getMeta().put(SpringCloudConstants.LABEL_SELECTOR_ROUTE_KEY, LABEL_SELECTOR);
+        return selector;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {1, 16}) {
+            Options options = new OptionsBuilder().include(LabelRouteBenchmark.class.getSimpleName())
+                .threads(threads).build();
+            new Runner(options).run();
+        }
+    }
+}
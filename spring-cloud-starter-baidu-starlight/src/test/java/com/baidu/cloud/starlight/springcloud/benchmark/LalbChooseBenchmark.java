@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.benchmark;
+
+import com.baidu.cloud.starlight.api.statistics.Stats;
+import com.baidu.cloud.starlight.core.statistics.StarlightStatistics;
+import com.baidu.cloud.starlight.core.statistics.StarlightStatsManager;
+import com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance.lalb.IncrementalLocalityAwareLoadBalancer;
+import com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance.lalb.LalbLatencyStats;
+import com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance.lalb.LocalityAwareLoadBalancer;
+import com.baidu.cloud.starlight.springcloud.common.InstanceUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LALB choose() throughput, the chosen instance records a latency sample as ClientMonitorFilter does.
+ * Run {@link #main(String[])} to compare 1/16/64 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LalbChooseBenchmark {
+
+    private static final String SERVICE_ID = "lalb-benchmark";
+
+    private static final int WARM_UP_SAMPLES = 10;
+
+    @Param({"10", "100", "1000"})
+    private int instanceCount;
+
+    @Param({"synchronized", "incremental"})
+    private String mode;
+
+    private ReactorServiceInstanceLoadBalancer loadBalancer;
+
+    private Request<?> request;
+
+    private Map<ServiceInstance, LalbLatencyStats> latencyStats;
+
+    @Setup
+    public void setup() {
+        ServiceInstance[] instances = new ServiceInstance[instanceCount];
+        latencyStats = new IdentityHashMap<>(instanceCount);
+        for (int i = 0; i < instanceCount; i++) {
+            String host = "10.0." + (i / 256) + "." + (i % 256);
+            instances[i] = new DefaultServiceInstance(SERVICE_ID + "-" + i, SERVICE_ID, host, 8000, false);
+            StarlightStatistics statistics =
+                StarlightStatsManager.getOrCreateStatsByHostPort(InstanceUtils.ipPortStr(instances[i]));
+            statistics.registerStats(LocalityAwareLoadBalancer.LALB_STATS_KEY, new LalbLatencyStats());
+            Stats stats = statistics.discoverStats(LocalityAwareLoadBalancer.LALB_STATS_KEY);
+            latencyStats.put(instances[i], (LalbLatencyStats) stats);
+            // warm up the latency histogram so that all instances take part in weight calculation
+            for (int j = 0; j < WARM_UP_SAMPLES; j++) {
+                recordLatency((LalbLatencyStats) stats);
+            }
+        }
+
+        if ("incremental".equals(mode)) {
+            loadBalancer = new IncrementalLocalityAwareLoadBalancer(
+                ServiceInstanceListSuppliers.toProvider(SERVICE_ID, instances), SERVICE_ID);
+        } else {
+            loadBalancer = new LocalityAwareLoadBalancer(ServiceInstanceListSuppliers.toProvider(SERVICE_ID, instances),
+                SERVICE_ID);
+        }
+        request = new DefaultRequest<>();
+    }
+
+    @Benchmark
+    public ServiceInstance choose() {
+        Response<ServiceInstance> response = loadBalancer.choose(request).block();
+        ServiceInstance instance = response.getServer();
+        LalbLatencyStats stats = latencyStats.get(instance);
+        if (stats != null) {
+            recordLatency(stats);
+        }
+        return instance;
+    }
+
+    private static void recordLatency(LalbLatencyStats stats) {
+        long latency = ThreadLocalRandom.current().nextLong(1, 20);
+        stats.updateWeight(latency);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {1, 16, 64}) {
+            Options options = new OptionsBuilder().include(LalbChooseBenchmark.class.getSimpleName())
+                .threads(threads).build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -24,6 +24,7 @@ import com.baidu.cloud.starlight.api.model.Response;
 import com.baidu.cloud.starlight.api.model.ResultFuture;
 import com.baidu.cloud.starlight.api.model.RpcRequest;
 import com.baidu.cloud.starlight.api.model.RpcResponse;
+import com.baidu.cloud.starlight.api.rpc.RpcContext;
 import com.baidu.cloud.starlight.core.rpc.SingleStarlightClient;
 import com.baidu.cloud.starlight.core.rpc.callback.FutureCallback;
 import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
@@ -176,6 +177,30 @@ public class FailFastClusterClientTest extends AbstractClusterClientTest {
         assertEquals(1, clientMap.size());
     }
 
+    @Test
+    public void saveRouteContext() {
+        FailFastClusterClient clusterClient = new FailFastClusterClient("rpc-provider", properties, loadBalancer,
+            discoveryClient, clientManager, configuration, routeProperties);
+        try {
+            // trace context is not copied
+            RpcContext.getContext().set("trace_id", "123");
+            Request request = new RpcRequest();
+            clusterClient.saveRouteContext(request);
+            Map<?, ?> routeContext =
+                (Map<?, ?>) request.getNoneAdditionKv().get(SpringCloudConstants.ROUTE_CONTEXT_KEY);
+            assertTrue(routeContext.isEmpty());
+
+            RpcContext.getContext().set(SpringCloudConstants.REQUEST_LABEL_SELECTOR_ROUTE_KEY, "env in (gray)");
+            request = new RpcRequest();
+            clusterClient.saveRouteContext(request);
+            routeContext = (Map<?, ?>) request.getNoneAdditionKv().get(SpringCloudConstants.ROUTE_CONTEXT_KEY);
+            assertEquals(1, routeContext.size());
+            assertEquals("env in (gray)", routeContext.get(SpringCloudConstants.REQUEST_LABEL_SELECTOR_ROUTE_KEY));
+        } finally {
+            RpcContext.removeContext();
+        }
+    }
+
     @Test
     public void destroy() throws NoSuchFieldException, IllegalAccessException {
         SingleStarlightClient starlightClient = Mockito.mock(SingleStarlightClient.class);
@@ -16,6 +16,7 @@
  
 package com.baidu.cloud.starlight.springcloud.client.cluster;
 
+import com.baidu.cloud.starlight.api.exception.StarlightRpcException;
 import com.baidu.cloud.starlight.api.model.Request;
 import com.baidu.cloud.starlight.api.model.ResultFuture;
 import com.baidu.cloud.starlight.api.model.RpcRequest;
@@ -26,20 +27,19 @@ import com.baidu.cloud.starlight.core.rpc.callback.FutureCallback;
 import com.baidu.cloud.starlight.springcloud.client.properties.ClientConfig;
 import com.baidu.cloud.starlight.springcloud.client.properties.InterfaceConfig;
 import com.baidu.cloud.starlight.springcloud.client.properties.StarlightClientProperties;
+import com.baidu.cloud.starlight.springcloud.common.SpringCloudConstants;
 import org.junit.Test;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.util.Collections;
-import java.util.Map;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
-import static org.junit.Assert.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 /**
  * Created by liuruisen on 2020/9/21.
@@ -47,7 +47,7 @@ import static org.mockito.Mockito.doReturn;
 public class FailOverClusterClientTest extends AbstractClusterClientTest {
 
     @Test
-    public void retryRequest() throws IOException, NoSuchFieldException, IllegalAccessException {
+    public void retryRequest() throws IOException {
         ClientConfig defaultConfig = properties.getClientConfig(properties.getDefaultConfig());
         defaultConfig.setFilters("");
         defaultConfig.setRetryMethods("");
@@ -75,20 +75,47 @@ public class FailOverClusterClientTest extends AbstractClusterClientTest {
         RpcContext.getContext().setRequestTimeoutMills(3000);
         clusterClient.request(request, rpcCallback);
 
-        Class failOverClusterClass = clusterClient.getClass();
-        Field remainedRetriesField = failOverClusterClass.getDeclaredField("remainedRetries");
-        remainedRetriesField.setAccessible(true);
-        Map<Long, AtomicInteger> remainedReties = (Map<Long, AtomicInteger>) remainedRetriesField.get(clusterClient);
-        assertNotNull(remainedReties);
-        assertEquals(1, remainedReties.size());
-
-        Field retryTimesMapField = failOverClusterClass.getDeclaredField("retryTimesMap");
-        retryTimesMapField.setAccessible(true);
-        Map<Long, Integer> retryTimesMap = (Map<Long, Integer>) retryTimesMapField.get(clusterClient);
-        assertNotNull(retryTimesMap);
-        assertEquals(1, retryTimesMap.size());
+        // retry state is carried by the callback, the request deposits its share into the retry budget
+        assertEquals(SpringCloudConstants.DEFAULT_RETRY_BUDGET_MIN_RETRIES_PER_SECOND.longValue(),
+            clusterClient.getRetryBudget().available());
 
         // TODO 如何测试retry能力
     }
 
+    @Test
+    public void notRetry() {
+        ClientConfig defaultConfig = properties.getClientConfig(properties.getDefaultConfig());
+        defaultConfig.setRetryMethods("retry");
+        defaultConfig.setRetryErrorCodes("1000");
+        defaultConfig.setRetryBudgetRatio(0.0);
+        defaultConfig.setRetryBudgetMinRetriesPerSecond(0);
+
+        FailOverClusterClient clusterClient = new FailOverClusterClient("rpc-provider", properties, loadBalancer,
+            discoveryClient, clientManager, configuration, routeProperties);
+
+        Request request = new RpcRequest();
+        request.setServiceClass(FailOverClusterClient.class);
+        request.setMethodName("retry");
+        RpcCallback chainedCallback = mock(RpcCallback.class);
+        doReturn(request).when(chainedCallback).getRequest();
+        FailOverClusterClient.FailOverClusterCallback callback =
+            clusterClient.new FailOverClusterCallback(chainedCallback, 3);
+
+        // not rpc exception
+        RuntimeException runtimeException = new RuntimeException("not rpc exception");
+        callback.onError(runtimeException);
+        verify(chainedCallback, times(1)).onError(runtimeException);
+
+        // error code is not retryable
+        StarlightRpcException notRetryable = new StarlightRpcException(1001, "not retryable");
+        callback.onError(notRetryable);
+        verify(chainedCallback, times(1)).onError(notRetryable);
+
+        // retry budget is used up
+        StarlightRpcException retryable = new StarlightRpcException(1000, "retryable");
+        callback.onError(retryable);
+        verify(chainedCallback, times(1)).onError(retryable);
+        assertEquals(0, clusterClient.getRetryBudget().available());
+    }
+
 }
\ No newline at end of file
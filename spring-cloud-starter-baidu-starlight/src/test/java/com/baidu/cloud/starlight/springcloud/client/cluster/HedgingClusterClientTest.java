@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster;
+
+import com.baidu.cloud.starlight.api.exception.StarlightRpcException;
+import com.baidu.cloud.starlight.api.model.Request;
+import com.baidu.cloud.starlight.api.model.Response;
+import com.baidu.cloud.starlight.api.model.RpcRequest;
+import com.baidu.cloud.starlight.api.model.RpcResponse;
+import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
+import com.baidu.cloud.starlight.springcloud.client.properties.ClientConfig;
+import com.baidu.cloud.starlight.springcloud.client.properties.InterfaceConfig;
+import com.baidu.cloud.starlight.transport.netty.RequestTimeoutTask;
+import com.baidu.cloud.thirdparty.netty.util.Timeout;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class HedgingClusterClientTest extends AbstractClusterClientTest {
+
+    private HedgingClusterClient hedgingClient() {
+        return new HedgingClusterClient("rpc-provider", properties, loadBalancer, discoveryClient, clientManager,
+            configuration, routeProperties);
+    }
+
+    private Request request() {
+        Request request = new RpcRequest();
+        request.setServiceClass(HedgingClusterClient.class);
+        request.setMethodName("hedge");
+        return request;
+    }
+
+    @Test
+    public void hedgeDelayMills() {
+        HedgingClusterClient hedgingClient = hedgingClient();
+        assertEquals(-1, hedgingClient.hedgeDelayMills(request()));
+
+        ClientConfig defaultConfig = properties.getClientConfig(properties.getDefaultConfig());
+        defaultConfig.setHedgeDelayPercentile(99.0);
+        // not enough samples
+        assertEquals(-1, hedgingClient.hedgeDelayMills(request()));
+
+        InterfaceConfig interfaceConfig = new InterfaceConfig();
+        interfaceConfig.setHedgeDelayMills(20);
+        defaultConfig
+            .setInterfaceConfig(Collections.singletonMap(HedgingClusterClient.class.getName(), interfaceConfig));
+        assertEquals(20, hedgingClient.hedgeDelayMills(request()));
+    }
+
+    @Test
+    public void firstResponseWins() {
+        HedgingClusterClient hedgingClient = hedgingClient();
+        Request request = request();
+        RpcCallback chainedCallback = mock(RpcCallback.class);
+        HedgingClusterClient.HedgeCall hedgeCall = hedgingClient.new HedgeCall(request, chainedCallback, false);
+
+        HedgingClusterClient.AttemptCallback primary = hedgingClient.new AttemptCallback(hedgeCall, request);
+        assertTrue(hedgeCall.retain());
+        HedgingClusterClient.AttemptCallback backup = hedgingClient.new AttemptCallback(hedgeCall, request());
+
+        Response response = new RpcResponse();
+        backup.onResponse(response);
+        verify(chainedCallback, times(1)).onResponse(response);
+
+        // the slower one is dropped
+        primary.onResponse(new RpcResponse());
+        primary.onError(new StarlightRpcException("error"));
+        verify(chainedCallback, times(1)).onResponse(any());
+        verify(chainedCallback, never()).onError(any());
+    }
+
+    @Test
+    public void backupRequestCopiedBeforeSend() {
+        HedgingClusterClient hedgingClient = hedgingClient();
+        Request request = request();
+        request.getAttachmentKv().put("key", "value");
+        HedgingClusterClient.HedgeCall hedgeCall =
+            hedgingClient.new HedgeCall(request, mock(RpcCallback.class), true);
+
+        // modified while the primary request is being sent
+        request.getAttachmentKv().put("sending", "true");
+        Request backupRequest = hedgeCall.getBackupRequest();
+        assertNotEquals(request.getId(), backupRequest.getId());
+        assertEquals("value", backupRequest.getAttachmentKv().get("key"));
+        assertFalse(backupRequest.getAttachmentKv().containsKey("sending"));
+
+        assertNull(hedgingClient.new HedgeCall(request, mock(RpcCallback.class), false).getBackupRequest());
+    }
+
+    @Test
+    public void errorWaitsForOtherRequest() {
+        HedgingClusterClient hedgingClient = hedgingClient();
+        Request request = request();
+        RpcCallback chainedCallback = mock(RpcCallback.class);
+        HedgingClusterClient.HedgeCall hedgeCall = hedgingClient.new HedgeCall(request, chainedCallback, false);
+        HedgingClusterClient.AttemptCallback primary = hedgingClient.new AttemptCallback(hedgeCall, request);
+        assertTrue(hedgeCall.retain());
+        HedgingClusterClient.AttemptCallback backup = hedgingClient.new AttemptCallback(hedgeCall, request());
+
+        primary.onError(new StarlightRpcException("primary error"));
+        verify(chainedCallback, never()).onError(any());
+
+        StarlightRpcException backupError = new StarlightRpcException("backup error");
+        backup.onError(backupError);
+        verify(chainedCallback, times(1)).onError(backupError);
+
+        // all the requests have completed, no more backup request
+        assertTrue(!hedgeCall.retain());
+    }
+
+    @Test
+    public void primaryErrorBeforeHedge() {
+        HedgingClusterClient hedgingClient = hedgingClient();
+        Request request = request();
+        RpcCallback chainedCallback = mock(RpcCallback.class);
+        HedgingClusterClient.HedgeCall hedgeCall = hedgingClient.new HedgeCall(request, chainedCallback, false);
+        HedgingClusterClient.AttemptCallback primary = hedgingClient.new AttemptCallback(hedgeCall, request);
+
+        StarlightRpcException error = new StarlightRpcException("primary error");
+        primary.onError(error);
+        verify(chainedCallback, times(1)).onError(error);
+        assertTrue(!hedgeCall.retain());
+    }
+
+    @Test
+    public void cancel() throws Exception {
+        HedgingClusterClient hedgingClient = hedgingClient();
+        Request request = request();
+        RpcCallback chainedCallback = mock(RpcCallback.class);
+        HedgingClusterClient.HedgeCall hedgeCall = hedgingClient.new HedgeCall(request, chainedCallback, false);
+        HedgingClusterClient.AttemptCallback attempt = hedgingClient.new AttemptCallback(hedgeCall, request);
+
+        RpcCallback pendingCallback = mock(RpcCallback.class);
+        RequestTimeoutTask timeoutTask = mock(RequestTimeoutTask.class);
+        doReturn(pendingCallback).when(timeoutTask).abandon();
+        Timeout timeout = mock(Timeout.class);
+        doReturn(true).when(timeout).cancel();
+        doReturn(timeoutTask).when(timeout).task();
+        attempt.addTimeout(timeout);
+
+        attempt.cancel();
+        verify(timeoutTask, times(1)).abandon();
+        verify(timeoutTask, never()).run(any());
+        ArgumentCaptor<Throwable> captor = ArgumentCaptor.forClass(Throwable.class);
+        verify(pendingCallback, times(1)).onError(captor.capture());
+        assertEquals(StarlightRpcException.CANCELLED, ((StarlightRpcException) captor.getValue()).getCode());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void minRetries() {
+        RetryBudget retryBudget = new RetryBudget(0.0, 2);
+        assertEquals(2, retryBudget.available());
+        assertTrue(retryBudget.tryWithdraw());
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+
+        // next second
+        retryBudget.refill(Long.MAX_VALUE);
+        assertTrue(retryBudget.tryWithdraw());
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+    }
+
+    @Test
+    public void ratio() {
+        RetryBudget retryBudget = new RetryBudget(0.1, 0);
+        assertFalse(retryBudget.tryWithdraw());
+
+        for (int i = 0; i < 9; i++) {
+            retryBudget.deposit();
+        }
+        assertFalse(retryBudget.tryWithdraw());
+        retryBudget.deposit();
+        assertTrue(retryBudget.tryWithdraw());
+        assertFalse(retryBudget.tryWithdraw());
+
+        // earned tokens are capped
+        for (int i = 0; i < 100000; i++) {
+            retryBudget.deposit();
+        }
+        assertEquals(10, retryBudget.available());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegal() {
+        new RetryBudget(-1, 10);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+
+    @Test
+    public void retryableMethod() {
+        RetryPolicy policy = RetryPolicy.compile("get,query", null);
+        assertTrue(policy.isRetryableMethod("getUser"));
+        assertTrue(policy.isRetryableMethod("query"));
+        assertFalse(policy.isRetryableMethod("update"));
+
+        policy = RetryPolicy.compile("", null);
+        assertFalse(policy.isRetryableMethod("getUser"));
+    }
+
+    @Test
+    public void retryableCode() {
+        RetryPolicy policy = RetryPolicy.compile(null, "1001,1004,-1,100000,abc, 1005,01006");
+        assertTrue(policy.isRetryableCode(1001));
+        assertTrue(policy.isRetryableCode(1004));
+        assertTrue(policy.isRetryableCode(-1));
+        assertTrue(policy.isRetryableCode(100000));
+        assertFalse(policy.isRetryableCode(1002));
+        assertFalse(policy.isRetryableCode(-2));
+        // entries which are not the string of a code never match
+        assertFalse(policy.isRetryableCode(1005));
+        assertFalse(policy.isRetryableCode(1006));
+        assertFalse(policy.isRetryableCode(null));
+
+        policy = RetryPolicy.compile(null, null);
+        assertFalse(policy.isRetryableCode(1001));
+    }
+
+    @Test
+    public void compiledFrom() {
+        String methods = "get";
+        String codes = "1001";
+        RetryPolicy policy = RetryPolicy.compile(methods, codes);
+        assertTrue(policy.compiledFrom(methods, codes));
+        assertFalse(policy.compiledFrom(methods, new String(codes)));
+        assertFalse(policy.compiledFrom(null, codes));
+    }
+}
@@ -16,15 +16,21 @@
  
 package com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance;
 
-import com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance.ServiceInstanceLocalStore;
 import com.baidu.cloud.starlight.springcloud.client.properties.StarlightClientProperties;
 import org.junit.Test;
 import org.springframework.cloud.client.DefaultServiceInstance;
 import org.springframework.cloud.client.ServiceInstance;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
-import java.lang.reflect.Field;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -46,27 +52,37 @@ public class ServiceInstanceLocalStoreTest {
 
         ServiceInstanceLocalStore localStore =
             new ServiceInstanceLocalStore("testApp-load", new StarlightClientProperties());
+        assertTrue(file.exists());
+        assertEquals(0, localStore.getCachedListOfServers().size());
 
-        localStore.loadCachedListOfServers();
-
-        Class lbClass = localStore.getClass();
-
-        try {
-            Field cacheFileField = lbClass.getDeclaredField("cacheFile");
-            cacheFileField.setAccessible(true);
+        List<ServiceInstance> servers = getServiceInstanceList(10000);
+        localStore.updateCachedListOfServers(servers);
+        // store to local disk
+        localStore.close();
+        assertFalse(new File(getCacheFileName("testApp-load") + ".tmp").exists());
 
-            Field cacheField = lbClass.getDeclaredField("localSrvListCache");
-            cacheField.setAccessible(true);
+        ServiceInstanceLocalStore localStore2 =
+            new ServiceInstanceLocalStore("testApp-load", new StarlightClientProperties());
+        List<ServiceInstance> loaded = localStore2.getCachedListOfServers();
+        assertEquals(servers, loaded);
+        assertTrue(loaded.get(0) instanceof DefaultServiceInstance);
+        localStore2.close();
+    }
 
-            assertNotNull(cacheFileField.get(localStore));
-            assertTrue(((File) cacheFileField.get(localStore)).exists());
-            assertNotNull(cacheField.get(localStore));
-        } catch (NoSuchFieldException e) {
-            e.printStackTrace();
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
+    @Test
+    public void loadIllegalLocalCache() throws IOException {
+        File file = new File(getCacheFileName("testApp-illegal"));
+        file.getParentFile().mkdirs();
+        // cache file of properties format
+        Properties properties = new Properties();
+        properties.setProperty(DefaultServiceInstance.class.getName(), "[]");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            properties.store(out, "Starlight Local Registry");
         }
 
+        ServiceInstanceLocalStore localStore =
+            new ServiceInstanceLocalStore("testApp-illegal", new StarlightClientProperties());
+        assertEquals(0, localStore.getCachedListOfServers().size());
         localStore.close();
     }
 
@@ -79,28 +95,81 @@ public class ServiceInstanceLocalStoreTest {
 
         ServiceInstanceLocalStore localStore =
             new ServiceInstanceLocalStore("testApp-update", new StarlightClientProperties());
+        assertEquals(0, localStore.getCachedListOfServers().size());
 
-        try {
-            Class lbClass = localStore.getClass();
-            Field cacheField = lbClass.getDeclaredField("localSrvListCache");
-            cacheField.setAccessible(true);
-            Properties localCache = (Properties) cacheField.get(localStore);
-            assertEquals(0, localCache.entrySet().size());
+        List<ServiceInstance> servers = getServiceInstanceList(50000);
+        localStore.updateCachedListOfServers(servers);
+        assertSame(servers, localStore.getCachedListOfServers());
 
-            List<ServiceInstance> servers = getServiceInstanceList(50000);
+        // empty servers will not update the cache
+        localStore.updateCachedListOfServers(new ArrayList<>());
+        assertSame(servers, localStore.getCachedListOfServers());
 
-            localStore.updateCachedListOfServers(servers);
+        localStore.close();
+    }
 
-            Properties localCacheAfter = (Properties) cacheField.get(localStore);
-            assertEquals(1, localCacheAfter.entrySet().size());
+    @Test
+    public void writeAndReadServers() throws IOException {
+        List<ServiceInstance> servers = getServiceInstanceList(3);
+        servers.add(new DefaultServiceInstance(null, "test-app", "localhost", 8080, false, null));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ServiceInstanceLocalStore.writeServers(new DataOutputStream(bytes), servers);
+        List<ServiceInstance> result = ServiceInstanceLocalStore
+            .readServers(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(servers.size(), result.size());
+        for (int i = 0; i < servers.size(); i++) {
+            assertEquals(servers.get(i).getInstanceId(), result.get(i).getInstanceId());
+            assertEquals(servers.get(i).getHost(), result.get(i).getHost());
+            assertEquals(servers.get(i).getPort(), result.get(i).getPort());
+            assertEquals(servers.get(i).getMetadata(), result.get(i).getMetadata());
+        }
+    }
 
-            localStore.close();
+    @Test
+    public void readCorruptServers() throws IOException {
+        List<ServiceInstance> servers = getServiceInstanceList(3);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ServiceInstanceLocalStore.writeServers(new DataOutputStream(bytes), servers);
+        byte[] data = bytes.toByteArray();
+
+        // truncated
+        assertNull(readServers(Arrays.copyOf(data, data.length - 1)));
+        assertNull(readServers(Arrays.copyOf(data, 6)));
+        // illegal server count
+        assertNull(readServers(withInt(data, 8, Integer.MAX_VALUE)));
+        assertNull(readServers(withInt(data, 8, -2)));
+        // illegal string length of the first instanceId
+        assertNull(readServers(withInt(data, 16, Integer.MAX_VALUE)));
+        assertNull(readServers(withInt(data, 16, -2)));
+        // illegal string code of the first instanceId
+        assertNull(readServers(withInt(data, 12, 100)));
+        assertNull(readServers(withInt(data, 12, -2)));
+        // illegal metadata size of the first server
+        int metadataSizeOffset = 12 + 4 + 4 + "test-id-0".length() + 4 + 4 + "test-app".length() + 4 + 4
+            + "localhost".length() + 4 + 1;
+        assertEquals(12, ByteBuffer.wrap(data, metadataSizeOffset, 4).getInt());
+        assertNull(readServers(withInt(data, metadataSizeOffset, Integer.MAX_VALUE)));
+        assertNull(readServers(withInt(data, metadataSizeOffset, -2)));
+
+        assertEquals(servers, readServers(data));
+    }
 
-        } catch (NoSuchFieldException e) {
-            e.printStackTrace();
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
+    @Test
+    public void loadCorruptLocalCache() throws IOException {
+        File file = new File(getCacheFileName("testApp-corrupt"));
+        file.getParentFile().mkdirs();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ServiceInstanceLocalStore.writeServers(new DataOutputStream(bytes), getServiceInstanceList(3));
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(withInt(bytes.toByteArray(), 8, Integer.MAX_VALUE));
         }
+
+        ServiceInstanceLocalStore localStore =
+            new ServiceInstanceLocalStore("testApp-corrupt", new StarlightClientProperties());
+        assertEquals(0, localStore.getCachedListOfServers().size());
+        localStore.close();
     }
 
     @Test
@@ -142,6 +211,16 @@ public class ServiceInstanceLocalStoreTest {
 
     }
 
+    private static List<ServiceInstance> readServers(byte[] data) throws IOException {
+        return ServiceInstanceLocalStore.readServers(new DataInputStream(new ByteArrayInputStream(data)));
+    }
+
+    private static byte[] withInt(byte[] data, int offset, int value) {
+        byte[] copy = data.clone();
+        ByteBuffer.wrap(copy).putInt(offset, value);
+        return copy;
+    }
+
     private String getCacheFileName(String clientName) {
         return System.getProperty("java.io.tmpdir") + "/starlight/local-registry/" + clientName + ".cache";
     }
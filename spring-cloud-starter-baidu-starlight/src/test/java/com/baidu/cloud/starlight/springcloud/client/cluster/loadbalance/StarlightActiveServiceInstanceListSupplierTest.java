@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance;
+
+import com.baidu.cloud.starlight.api.rpc.RpcContext;
+import com.baidu.cloud.starlight.api.transport.PeerStatus;
+import com.baidu.cloud.starlight.springcloud.client.cluster.ClusterSelector;
+import com.baidu.cloud.starlight.springcloud.client.cluster.SingleStarlightClientManager;
+import com.baidu.cloud.starlight.springcloud.client.properties.StarlightClientProperties;
+import com.baidu.cloud.starlight.springcloud.common.SpringCloudConstants;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.DelegatingServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class StarlightActiveServiceInstanceListSupplierTest {
+
+    private StarlightServerListFilter statusFilter;
+
+    private StarlightServerListFilter routeFilter;
+
+    private ServiceInstanceListSupplier delegate;
+
+    private StarlightActiveServiceInstanceListSupplier supplier;
+
+    private List<ServiceInstance> servers;
+
+    @Before
+    public void before() {
+        servers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            servers.add(new DefaultServiceInstance("app-" + i, "app", "10.0.0." + i, 8000, false));
+        }
+
+        // ejects the first server
+        statusFilter = mock(StarlightServerListFilter.class);
+        doReturn(2).when(statusFilter).getOrder();
+        doReturn(servers.subList(1, 3)).when(statusFilter).getFilteredList(any());
+        // keeps the last server
+        routeFilter = mock(StarlightServerListFilter.class);
+        doReturn(1).when(routeFilter).getOrder();
+        doReturn(true).when(routeFilter).isRequestScoped();
+        doReturn(servers.subList(2, 3)).when(routeFilter).getFilteredList(any());
+
+        Map<String, StarlightServerListFilter> filters = new HashMap<>();
+        filters.put("status", statusFilter);
+        filters.put("route", routeFilter);
+
+        StarlightClientProperties properties = new StarlightClientProperties();
+        properties.setConfig(new HashMap<>());
+        ConfigurableApplicationContext context = mock(ConfigurableApplicationContext.class);
+        doReturn(properties).when(context).getBean(StarlightClientProperties.class);
+        doReturn(new SingleStarlightClientManager()).when(context).getBean(SingleStarlightClientManager.class);
+        doReturn(filters).when(context).getBeansOfType(StarlightServerListFilter.class);
+        delegate = mock(ServiceInstanceListSupplier.class);
+        supplier = new StarlightActiveServiceInstanceListSupplier(context, delegate);
+    }
+
+    @Test
+    public void snapshotServers() {
+        List<ServiceInstance> snapshot = supplier.snapshotServers(servers);
+        assertEquals(servers.subList(1, 3), snapshot);
+        // a new list of the same instances
+        assertSame(snapshot, supplier.snapshotServers(new ArrayList<>(servers)));
+        verify(statusFilter, times(1)).getFilteredList(any());
+        verify(routeFilter, times(0)).getFilteredList(any());
+
+        // peer status changed
+        PeerStatus.statusChanged();
+        supplier.snapshotServers(servers);
+        verify(statusFilter, times(2)).getFilteredList(any());
+
+        // discovered servers changed
+        supplier.snapshotServers(servers.subList(0, 2));
+        verify(statusFilter, times(3)).getFilteredList(any());
+    }
+
+    @Test
+    public void activeServers() {
+        assertEquals(servers.subList(2, 3), supplier.activeServers(servers));
+        assertEquals(servers.subList(2, 3), supplier.activeServers(servers));
+        verify(statusFilter, times(1)).getFilteredList(any());
+        verify(routeFilter, times(2)).getFilteredList(any());
+    }
+
+    @Test
+    public void getInstances() {
+        ClusterSelector clusterSelector = mock(ClusterSelector.class);
+        doReturn(Flux.just(servers)).when(delegate).get();
+        doReturn(servers.subList(2, 3)).when(routeFilter).getFilteredList(any(), eq(clusterSelector));
+
+        assertEquals(servers.subList(2, 3), supplier.getInstances(clusterSelector));
+        assertEquals(servers.subList(2, 3), supplier.getInstances(clusterSelector));
+        // discovered servers are cached, route selector is passed explicitly
+        verify(delegate, times(1)).get();
+        verify(statusFilter, times(1)).getFilteredList(any());
+        verify(routeFilter, times(0)).getFilteredList(any());
+        verify(routeFilter, times(2)).getFilteredList(any(), eq(clusterSelector));
+    }
+
+    @Test
+    public void instancesOfWrappedSupplier() {
+        ClusterSelector clusterSelector = mock(ClusterSelector.class);
+        doReturn(Flux.just(servers)).when(delegate).get();
+        // the route filter reads the route selector from RpcContext
+        doAnswer(invocation -> RpcContext.getContext().get(SpringCloudConstants.REQUEST_ROUTE_KEY) == clusterSelector
+            ? servers.subList(2, 3) : invocation.getArgument(0)).when(routeFilter).getFilteredList(any());
+        ServiceInstanceListSupplier wrapped = new DelegatingServiceInstanceListSupplier(supplier) {
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return getDelegate().get();
+            }
+        };
+
+        assertEquals(servers.subList(2, 3),
+            StarlightActiveServiceInstanceListSupplier.instances(wrapped, clusterSelector));
+        assertNull(RpcContext.getContext().get(SpringCloudConstants.REQUEST_ROUTE_KEY));
+        assertEquals(servers.subList(1, 3), StarlightActiveServiceInstanceListSupplier.instances(wrapped, null));
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance;
+
+import com.baidu.cloud.starlight.springcloud.client.cluster.ClusterSelector;
+import org.junit.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.support.ServiceInstanceListSuppliers;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class StarlightRoundRobinLoadBalancerTest {
+
+    @Test
+    public void choose() {
+        ServiceInstance[] servers = new ServiceInstance[3];
+        for (int i = 0; i < servers.length; i++) {
+            servers[i] = new DefaultServiceInstance("app-" + i, "app", "10.0.0." + i, 8000, false);
+        }
+        StarlightRoundRobinLoadBalancer loadBalancer =
+            new StarlightRoundRobinLoadBalancer(ServiceInstanceListSuppliers.toProvider("app", servers), "app");
+
+        Set<ServiceInstance> chosen = new HashSet<>();
+        for (int i = 0; i < servers.length; i++) {
+            chosen.add(loadBalancer.choose((ClusterSelector) null));
+        }
+        assertEquals(servers.length, chosen.size());
+    }
+
+    @Test
+    public void chooseNoInstance() {
+        StarlightRoundRobinLoadBalancer loadBalancer =
+            new StarlightRoundRobinLoadBalancer(ServiceInstanceListSuppliers.toProvider("app"), "app");
+        assertNull(loadBalancer.choose((ClusterSelector) null));
+    }
+}
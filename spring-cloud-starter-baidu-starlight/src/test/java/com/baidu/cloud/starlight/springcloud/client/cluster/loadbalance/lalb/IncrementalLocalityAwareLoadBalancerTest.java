@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance.lalb;
+
+import com.baidu.cloud.starlight.springcloud.client.cluster.ClusterSelector;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+public class IncrementalLocalityAwareLoadBalancerTest {
+
+    private final AtomicReference<List<ServiceInstance>> discovered = new AtomicReference<>();
+
+    private IncrementalLocalityAwareLoadBalancer loadBalancer;
+
+    @Before
+    public void before() {
+        ServiceInstanceListSupplier supplier = mock(ServiceInstanceListSupplier.class);
+        doAnswer(invocation -> Flux.just(discovered.get())).when(supplier).get();
+        ObjectProvider<ServiceInstanceListSupplier> provider = mock(ObjectProvider.class);
+        doReturn(supplier).when(provider).getIfAvailable(any());
+        loadBalancer = new IncrementalLocalityAwareLoadBalancer(provider, "lalb-app");
+    }
+
+    @Test
+    public void refreshInstanceObjects() {
+        discovered.set(servers(1, 3, "stargate"));
+        assertEquals("stargate", loadBalancer.choose((ClusterSelector) null).getMetadata().get("protocols"));
+        LalbWeightTree<ServiceInstance> tree = loadBalancer.getWeightTree();
+
+        // rediscovered with new metadata, the tree is kept but chooses the new instances
+        discovered.set(servers(1, 3, "brpc"));
+        for (int i = 0; i < 10; i++) {
+            assertEquals("brpc", loadBalancer.choose((ClusterSelector) null).getMetadata().get("protocols"));
+        }
+        assertSame(tree, loadBalancer.getWeightTree());
+
+        // membership changed
+        discovered.set(servers(1, 4, "brpc"));
+        loadBalancer.choose((ClusterSelector) null);
+        assertNotSame(tree, loadBalancer.getWeightTree());
+        assertEquals(4, loadBalancer.getWeightTree().size());
+    }
+
+    @Test
+    public void weightTreePerClusterSelector() {
+        ClusterSelector selector1 = mock(ClusterSelector.class);
+        ClusterSelector selector2 = mock(ClusterSelector.class);
+        List<ServiceInstance> servers1 = servers(1, 2, "brpc");
+        List<ServiceInstance> servers2 = servers(3, 2, "brpc");
+
+        discovered.set(servers1);
+        loadBalancer.choose(selector1);
+        discovered.set(servers2);
+        loadBalancer.choose(selector2);
+        LalbWeightTree<ServiceInstance> tree1 = loadBalancer.getWeightTree(selector1);
+        LalbWeightTree<ServiceInstance> tree2 = loadBalancer.getWeightTree(selector2);
+        assertNotSame(tree1, tree2);
+
+        // alternating selectors with different subsets do not rebuild the trees
+        for (int i = 0; i < 10; i++) {
+            discovered.set(servers1);
+            assertTrue(servers1.contains(loadBalancer.choose(selector1)));
+            discovered.set(servers2);
+            loadBalancer.choose(selector2);
+        }
+        assertSame(tree1, loadBalancer.getWeightTree(selector1));
+        assertSame(tree2, loadBalancer.getWeightTree(selector2));
+    }
+
+    private static List<ServiceInstance> servers(int from, int count, String protocols) {
+        List<ServiceInstance> servers = new ArrayList<>(count);
+        for (int i = from; i < from + count; i++) {
+            servers.add(new DefaultServiceInstance("lalb-app-" + i, "lalb-app", "10.0.1." + i, 8000, false,
+                Collections.singletonMap("protocols", protocols)));
+        }
+        return servers;
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster.loadbalance.lalb;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class LalbWeightTreeTest {
+
+    @Test
+    public void emptyTree() {
+        LalbWeightTree<String> tree = new LalbWeightTree<>();
+        assertNull(tree.select());
+        assertEquals(0, tree.getTotalWeight());
+        assertTrue(tree.sameEntities(Collections.emptyList()));
+    }
+
+    @Test
+    public void incrementalUpdate() {
+        List<String> entities = Arrays.asList("a", "b", "c", "d", "e");
+        List<LalbLatencyStats> stats = new ArrayList<>();
+        for (int i = 0; i < entities.size(); i++) {
+            stats.add(new LalbLatencyStats());
+        }
+        LalbWeightTree<String> tree = new LalbWeightTree<>(entities, stats);
+        assertEquals(LalbLatencyStats.INITIAL_WEIGHT * 5, tree.getTotalWeight());
+
+        tree.attach();
+        stats.get(4).updateWeight(1000L);
+        assertEquals(stats.get(4).weight(), tree.getNodeWeight(4));
+        assertEquals(LalbLatencyStats.INITIAL_WEIGHT * 4 + stats.get(4).weight(), tree.getTotalWeight());
+
+        // detached tree no longer follows the stats
+        tree.detach();
+        stats.get(0).updateWeight(1000L);
+        assertEquals(LalbLatencyStats.INITIAL_WEIGHT, tree.getNodeWeight(0));
+    }
+
+    @Test
+    public void selectByWeight() {
+        List<String> entities = Arrays.asList("fast", "slow1", "slow2", "slow3");
+        List<LalbLatencyStats> stats = new ArrayList<>();
+        for (int i = 0; i < entities.size(); i++) {
+            stats.add(new LalbLatencyStats());
+        }
+        LalbWeightTree<String> tree = new LalbWeightTree<>(entities, stats);
+        tree.attach();
+        stats.get(0).updateWeight(0L);
+        for (int i = 1; i < entities.size(); i++) {
+            stats.get(i).updateWeight(100L);
+        }
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            counts.merge(tree.select(), 1, Integer::sum);
+        }
+        assertTrue(counts.get("fast") > counts.getOrDefault("slow1", 0) * 10);
+    }
+
+    @Test
+    public void sameEntities() {
+        String a = new String("a");
+        String b = new String("b");
+        List<LalbLatencyStats> stats = Arrays.asList(new LalbLatencyStats(), new LalbLatencyStats());
+        LalbWeightTree<String> tree = new LalbWeightTree<>(Arrays.asList(a, b), stats);
+
+        assertTrue(tree.sameEntities(Arrays.asList(a, b)));
+        assertTrue(tree.sameEntities(Arrays.asList(b, a)));
+        assertFalse(tree.sameEntities(Arrays.asList(a)));
+        assertFalse(tree.sameEntities(Arrays.asList(a, "c")));
+        // equal but not the same instance
+        assertTrue(tree.sameEntities(Arrays.asList(a, new String("b"))));
+    }
+
+    @Test
+    public void sameEntitiesByKey() {
+        List<LalbLatencyStats> stats = Arrays.asList(new LalbLatencyStats(), new LalbLatencyStats());
+        LalbWeightTree<String> tree =
+            new LalbWeightTree<>(Arrays.asList("10.0.0.1:80", "10.0.0.2:80"), stats, s -> s.split(":")[0]);
+
+        assertTrue(tree.sameEntities(Arrays.asList("10.0.0.2:8080", "10.0.0.1:8080")));
+        assertFalse(tree.sameEntities(Arrays.asList("10.0.0.1:80", "10.0.0.3:80")));
+    }
+
+    @Test
+    public void updateEntities() {
+        List<LalbLatencyStats> stats = Arrays.asList(new LalbLatencyStats(), new LalbLatencyStats());
+        LalbWeightTree<String> tree =
+            new LalbWeightTree<>(Arrays.asList("10.0.0.1:80:v1", "10.0.0.2:80:v1"), stats, s -> s.substring(0, 11));
+        tree.attach();
+        stats.get(0).updateWeight(1000L);
+        long weight = tree.getNodeWeight(0);
+
+        // same instances with new metadata, in another order
+        assertTrue(tree.updateEntities(Arrays.asList("10.0.0.2:80:v2", "10.0.0.1:80:v2")));
+        for (int i = 0; i < 100; i++) {
+            assertTrue(tree.select().endsWith(":v2"));
+        }
+        // the weights and the listeners are kept
+        assertEquals(weight, tree.getNodeWeight(0));
+        stats.get(1).updateWeight(1000L);
+        assertEquals(stats.get(1).weight(), tree.getNodeWeight(1));
+
+        assertFalse(tree.updateEntities(Arrays.asList("10.0.0.1:80:v2", "10.0.0.3:80:v2")));
+    }
+}
@@ -27,6 +27,8 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * Created by liuruisen on 2021/12/6.
@@ -102,6 +104,44 @@ public class LabelClusterSelectorTest {
 
     }
 
+    @Test
+    public void selectorResultCached() {
+        LabelClusterSelector labelService = new LabelClusterSelector();
+        labelService.getMeta().put(SpringCloudConstants.LABEL_SELECTOR_ROUTE_KEY, "EM_PLATFORM=online");
+
+        List<ServiceInstance> origin = serviceInstances(10);
+        List<ServiceInstance> result1 = labelService.selectorClusterInstances(origin);
+        assertEquals(5, result1.size());
+        // same instance list, hit the cache
+        assertSame(result1, labelService.selectorClusterInstances(origin));
+
+        // new instance list, filter again
+        List<ServiceInstance> result2 = labelService.selectorClusterInstances(serviceInstances(4));
+        assertNotSame(result1, result2);
+        assertEquals(2, result2.size());
+
+        // selector changed, filter again
+        labelService.getMeta().put(SpringCloudConstants.LABEL_SELECTOR_ROUTE_KEY, "EM_LOGIC_IDC=nj");
+        assertEquals(5, labelService.selectorClusterInstances(origin).size());
+    }
+
+    @Test
+    public void filterBnsEndpoints() {
+        LabelClusterSelector labelService = new LabelClusterSelector();
+        labelService.getMeta().put(SpringCloudConstants.LABEL_SELECTOR_ROUTE_KEY, "EM_PRODUCT_LINE=ns&&env=online");
+        labelService.getMeta().put(SpringCloudConstants.EM_PRODUCT_LINE, "ns");
+
+        Map<String, String> labels = new HashMap<>();
+        labels.put("env", "online");
+        List<ServiceInstance> origin = new ArrayList<>();
+        origin.add(new DefaultServiceInstance("1", "service", "ip.1", 1, true, labels));
+        origin.add(new DefaultServiceInstance("2", "service", "ip.2", 2, true, new HashMap<>()));
+
+        List<ServiceInstance> result = labelService.selectorClusterInstances(origin);
+        assertEquals(1, result.size());
+        assertEquals("1", result.get(0).getInstanceId());
+    }
+
     private List<ServiceInstance> serviceInstances(Integer size) {
         List<ServiceInstance> endpoints = new ArrayList<>();
 
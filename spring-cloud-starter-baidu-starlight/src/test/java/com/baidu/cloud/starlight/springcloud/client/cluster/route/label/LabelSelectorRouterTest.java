@@ -57,5 +57,8 @@ public class LabelSelectorRouterTest {
             .get(SpringCloudConstants.LABEL_SELECTOR_ROUTE_KEY);
         assertTrue(labelSelector.contains("env=offline"));
         assertTrue(labelSelector.contains("EM_PLATFORM in (online,onlinenew)"));
+
+        // same label selector reuses the cluster
+        assertSame(cluster, router.route(request));
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.springcloud.client.cluster.subcluster;
+
+import com.baidu.cloud.starlight.springcloud.client.cluster.subcluster.InstanceMetadataCache.InstanceMetadata;
+import com.baidu.cloud.starlight.springcloud.common.SpringCloudConstants;
+import org.junit.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class InstanceMetadataCacheTest {
+
+    private static final String INTERFACES =
+        "[\"group:com.baidu.EchoService:1.0.1\", \"group2:com.baidu.UserService:2.0.0\"]";
+
+    @Test
+    public void get() {
+        InstanceMetadataCache cache = new InstanceMetadataCache();
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(SpringCloudConstants.PROTOCOLS_KEY, "stargate,brpc");
+        metadata.put(SpringCloudConstants.INTERFACES_KEY, INTERFACES);
+
+        InstanceMetadata instanceMetadata = cache.get(instance(metadata));
+        assertEquals("stargate", instanceMetadata.getProtocol());
+        assertEquals(2, instanceMetadata.getInterfaceList().size());
+        assertFalse(instanceMetadata.isInterfacesIllegal());
+        assertArrayEquals(new String[] {"group2", "com.baidu.UserService", "2.0.0"},
+            instanceMetadata.getInterfaceMeta("com.baidu.UserService"));
+        assertNull(instanceMetadata.getInterfaceMeta("com.baidu.OrderService"));
+
+        // same metadata of a new instance object
+        assertSame(instanceMetadata, cache.get(instance(new HashMap<>(metadata))));
+
+        // metadata changed
+        metadata.put(SpringCloudConstants.PROTOCOLS_KEY, "brpc");
+        InstanceMetadata changed = cache.get(instance(metadata));
+        assertNotSame(instanceMetadata, changed);
+        assertEquals("brpc", changed.getProtocol());
+    }
+
+    @Test
+    public void getIllegal() {
+        InstanceMetadataCache cache = new InstanceMetadataCache();
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(SpringCloudConstants.INTERFACES_KEY, "com.baidu.EchoService");
+
+        InstanceMetadata instanceMetadata = cache.get(instance(metadata));
+        assertNull(instanceMetadata.getProtocol());
+        assertTrue(instanceMetadata.isInterfacesIllegal());
+        assertNull(instanceMetadata.getInterfaceMeta("com.baidu.EchoService"));
+    }
+
+    @Test
+    public void trimOverCapacity() {
+        InstanceMetadataCache cache = new InstanceMetadataCache(8);
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(SpringCloudConstants.PROTOCOLS_KEY, "brpc");
+
+        for (int i = 0; i < 8; i++) {
+            cache.get(instance("app-" + i, metadata));
+        }
+        assertEquals(8, cache.size());
+        InstanceMetadata cached = cache.get(instance("app-0", metadata));
+        assertSame(cached, cache.get(instance("app-0", metadata)));
+
+        // trimmed to 3/4 of the capacity
+        cache.get(instance("app-8", metadata));
+        assertEquals(6, cache.size());
+        for (int i = 9; i < 100; i++) {
+            assertEquals("brpc", cache.get(instance("app-" + i, metadata)).getProtocol());
+            assertTrue(cache.size() <= 8);
+        }
+    }
+
+    private static ServiceInstance instance(Map<String, String> metadata) {
+        return instance("app-1", metadata);
+    }
+
+    private static ServiceInstance instance(String instanceId, Map<String, String> metadata) {
+        return new DefaultServiceInstance(instanceId, "app", "10.0.0.1", 8000, false, metadata);
+    }
+}
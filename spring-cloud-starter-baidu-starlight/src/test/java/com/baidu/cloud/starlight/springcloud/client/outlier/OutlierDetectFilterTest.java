@@ -24,7 +24,7 @@ import com.baidu.cloud.starlight.api.model.RpcResponse;
 import com.baidu.cloud.starlight.api.rpc.config.TransportConfig;
 import com.baidu.cloud.starlight.api.transport.PeerStatus;
 import com.baidu.cloud.starlight.core.rpc.SingleStarlightClient;
-import com.baidu.cloud.starlight.core.statistics.FixedTimeWindowStats;
+import com.baidu.cloud.starlight.core.statistics.SlidingWindowStats;
 import com.baidu.cloud.starlight.core.statistics.StarlightStatistics;
 import com.baidu.cloud.starlight.core.statistics.StarlightStatsManager;
 import com.baidu.cloud.starlight.springcloud.client.cluster.SingleStarlightClientManager;
@@ -96,7 +96,7 @@ public class OutlierDetectFilterTest {
             remoteURI.addParameters(SpringCloudConstants.OUTLIER_DETECT_MINI_REQUEST_NUM_KEY, String.valueOf(3));
         request.setRemoteURI(remoteURI);
         StarlightStatistics starlightStatistics = StarlightStatsManager.getStats(remoteURI);
-        starlightStatistics.registerStats(SpringCloudConstants.OUTLIER_STATS_KEY, new FixedTimeWindowStats(100));
+        starlightStatistics.registerStats(SpringCloudConstants.OUTLIER_STATS_KEY, new SlidingWindowStats(100));
         starlightStatistics.record(request, response);
         outlierDetectFilter.filterResponse(response, request);
         assertEquals(PeerStatus.Status.ACTIVE, singleStarlightClient.getStatus().getStatus());
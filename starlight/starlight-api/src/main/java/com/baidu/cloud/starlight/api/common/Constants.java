@@ -86,6 +86,11 @@ public class Constants {
      */
     public static final Integer REQUEST_TIMEOUT_VALUE = 30 * 1000;
 
+    /**
+     * Shard num of the timer tracking request timeouts, Client Side. Clients with the same shard num share the timer
+     */
+    public static final String TIMEOUT_TIMER_SHARDS_KEY = "timeout_timer_shards";
+
     /**
      * Whether to open the connection keep-alive capability
      */
@@ -96,6 +101,16 @@ public class Constants {
      */
     public static final boolean CONNECT_KEEPALIVE_ENABLED_VALUE = false;
 
+    /**
+     * Whether to record the latency histogram(mean/p50/p90/p99) of each peer for monitoring, Client Side
+     */
+    public static final String LATENCY_HISTOGRAM_ENABLED_KEY = "latency_histogram_enabled";
+
+    /**
+     * Default is false
+     */
+    public static final boolean LATENCY_HISTOGRAM_ENABLED_VALUE = false;
+
     /**
      * Read Idle timeout key, used in Client Side
      */
@@ -127,7 +142,7 @@ public class Constants {
     public static final int DEFAULT_IO_THREADS_VALUE = EnvUtils.getCpuCores();
 
     /**
-     * RPC Channel Type: long \ short \ pool
+     * RPC Channel Type: long \ pool \ multi
      */
     public static final String RPC_CHANNEL_TYPE_KEY = "channel_type";
 
@@ -296,6 +311,31 @@ public class Constants {
      */
     public static final Integer MAX_TOTAL_CONNECTIONS = 8;
 
+    /**
+     * Multiplexed channel connections key, used when channel_type is multi
+     */
+    public static final String MULTI_CHANNEL_CONNECTIONS_KEY = "multi_connections";
+
+    /**
+     * Multiplexed channel connections
+     */
+    public static final Integer MULTI_CHANNEL_CONNECTIONS = 4;
+
+    /**
+     * Multiplexed channel select strategy key: least_inflight \ round_robin
+     */
+    public static final String MULTI_CHANNEL_SELECT_KEY = "multi_select";
+
+    /**
+     * Multiplexed channel select strategy: select the connection with the least in-flight requests
+     */
+    public static final String MULTI_CHANNEL_SELECT_LEAST_INFLIGHT = "least_inflight";
+
+    /**
+     * Multiplexed channel select strategy: round robin
+     */
+    public static final String MULTI_CHANNEL_SELECT_ROUND_ROBIN = "round_robin";
+
     /**
      * Pooled channel max idle connections key
      */
@@ -444,6 +484,16 @@ public class Constants {
      */
     public static final String COMPRESS_TYPE = "none";
 
+    /**
+     * Body smaller than this size(bytes) will not be compressed
+     */
+    public static final int DEFAULT_COMPRESS_THRESHOLD = 1024;
+
+    /**
+     * Max body size 512M, decompressed body larger than this size will be rejected
+     */
+    public static final int MAX_BODY_SIZE = 512 * 1024 * 1024;
+
     public static final String RECEIVE_BYTE_MSG_TIME_KEY = "receive_byte_msg_time";
 
     /**
@@ -560,6 +610,22 @@ public class Constants {
      */
     public static final String SERVER_RECEIVE_REQ_TIME_KEY = "serv_recv_req_time";
 
+    /**
+     * Execute mode key, Client Side: pool \ direct. Server side is configured by ServiceConfig#executeMode
+     */
+    public static final String EXECUTE_MODE_KEY = "execute_mode";
+
+    /**
+     * Execute mode: process requests and responses in the biz thread pool
+     */
+    public static final String EXECUTE_MODE_POOL = "pool";
+
+    /**
+     * Execute mode: decode, filter and invoke inline on the netty io thread without thread switch. Only for
+     * non-blocking services and callbacks, blocking in this mode stalls all channels of the io thread
+     */
+    public static final String EXECUTE_MODE_DIRECT = "direct";
+
     /**
      * Netty io ratio key
      */
@@ -588,4 +654,9 @@ public class Constants {
      * sse call back request id
      */
     public static final String SSE_REQUEST_ID_KEY = "sse_requset_id";
+
+    /**
+     * http stream decoder attribute key, keep http parse state across reads
+     */
+    public static final String HTTP_STREAM_DECODER_KEY = "http_stream_decoder";
 }
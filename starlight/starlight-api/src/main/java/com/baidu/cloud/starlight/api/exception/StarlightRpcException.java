@@ -40,6 +40,11 @@ public class StarlightRpcException extends RpcException {
 
     public static final Integer UNKNOW = 1007;
 
+    /**
+     * The request is abandoned by the client, such as the slower one of hedged requests
+     */
+    public static final Integer CANCELLED = 1008;
+
     public StarlightRpcException(Integer code, String message) {
         super(code, message);
     }
@@ -67,6 +67,17 @@ public class ExtensionLoader<T> {
         return loader;
     }
 
+    /**
+     * Typed fast path used in the message hot path: lock free once the extension has been instantiated.
+     *
+     * @param type extension interface
+     * @param name extension name
+     * @return extension instance
+     */
+    public static <T> T getExtension(Class<T> type, String name) {
+        return getInstance(type).getExtension(name);
+    }
+
     private ExtensionLoader(Class<?> type) {
         this.type = type;
     }
@@ -80,14 +91,21 @@ public class ExtensionLoader<T> {
     }
 
     @SuppressWarnings("unchecked")
-    public synchronized T getExtension(String name) {
+    public T getExtension(String name) {
         if (name == null) {
             throw new IllegalArgumentException("Extension name == null");
         }
+        // cached instance, no need to lock
         Object instance = cachedInstances.get(name);
-        if (instance == null) {
-            instance = createExtension(name);
-            cachedInstances.putIfAbsent(name, instance);
+        if (instance != null) {
+            return (T) instance;
+        }
+        synchronized (this) {
+            instance = cachedInstances.get(name);
+            if (instance == null) {
+                instance = createExtension(name);
+                cachedInstances.putIfAbsent(name, instance);
+            }
         }
         return (T) instance;
     }
@@ -16,6 +16,9 @@
  
 package com.baidu.cloud.starlight.api.model;
 
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufUtil;
+
 import java.lang.reflect.Type;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -42,6 +45,8 @@ public abstract class AbstractMsgBase implements MsgBase {
 
     private byte[] bodyBytes;
 
+    private ByteBuf bodyBuf;
+
     private Class<?> returnType;
 
     private boolean heartbeat;
@@ -80,16 +85,55 @@ public abstract class AbstractMsgBase implements MsgBase {
         this.attachmentKv = kvMap;
     }
 
+    /**
+     * Compatible with the byte[] body: materialize and release the ByteBuf body on first access
+     *
+     * @return
+     */
     @Override
     public byte[] getBodyBytes() {
+        if (bodyBytes == null && bodyBuf != null) {
+            bodyBytes = ByteBufUtil.getBytes(bodyBuf);
+            releaseBody();
+        }
         return bodyBytes;
     }
 
     @Override
     public void setBodyBytes(byte[] bodyBytes) {
+        releaseBody();
         this.bodyBytes = bodyBytes;
     }
 
+    @Override
+    public ByteBuf getBodyBuf() {
+        return bodyBuf;
+    }
+
+    @Override
+    public void setBodyBuf(ByteBuf bodyBuf) {
+        releaseBody();
+        this.bodyBytes = null;
+        this.bodyBuf = bodyBuf;
+    }
+
+    @Override
+    public boolean hasBody() {
+        if (bodyBuf != null) {
+            return bodyBuf.isReadable();
+        }
+        return bodyBytes != null && bodyBytes.length > 0;
+    }
+
+    @Override
+    public void releaseBody() {
+        ByteBuf buf = this.bodyBuf;
+        this.bodyBuf = null;
+        if (buf != null && buf.refCnt() > 0) {
+            buf.release();
+        }
+    }
+
     @Override
     public Class<?> getReturnType() {
         return returnType;
@@ -16,6 +16,8 @@
  
 package com.baidu.cloud.starlight.api.model;
 
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+
 import java.lang.reflect.Type;
 import java.util.Map;
 
@@ -56,6 +58,33 @@ public interface MsgBase {
 
     void setBodyBytes(byte[] bodyByteBuf);
 
+    /**
+     * body data backed by a retained {@link ByteBuf} slice of the received frame, used to deserialize without copying
+     * to byte[]. The owner of the message must call {@link #releaseBody()} once the body is no longer needed.
+     *
+     * @return
+     */
+    ByteBuf getBodyBuf();
+
+    /**
+     * Set the retained body ByteBuf, ownership is transferred to the message
+     *
+     * @param bodyBuf
+     */
+    void setBodyBuf(ByteBuf bodyBuf);
+
+    /**
+     * Whether the message carries body data, either as byte[] or as ByteBuf
+     *
+     * @return
+     */
+    boolean hasBody();
+
+    /**
+     * Release the body ByteBuf if present, idempotent
+     */
+    void releaseBody();
+
     /**
      * Body data type, used to serializer/deserializer
      * 
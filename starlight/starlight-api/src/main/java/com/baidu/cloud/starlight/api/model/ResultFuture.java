@@ -19,64 +19,57 @@ package com.baidu.cloud.starlight.api.model;
 import com.baidu.cloud.starlight.api.common.Constants;
 import com.baidu.cloud.starlight.api.exception.StarlightRpcException;
 
-import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 /**
- * Returned by an async call: Future Created by liuruisen on 2019/12/8.
+ * Created by liuruisen on 2019/12/8.
+ * Future and {@link java.util.concurrent.CompletionStage} of an async call, completed in the thread receiving the
+ * response.
  */
-public class ResultFuture implements Future {
-
-    private CountDownLatch countDownLatch = new CountDownLatch(1);
-
-    private Response response;
+public class ResultFuture extends CompletableFuture<Object> {
 
     public void putResponse(Response response) {
-        this.response = response;
-        countDownLatch.countDown();
-    }
-
-    @Override
-    public boolean cancel(boolean mayInterruptIfRunning) {
-        return false;
-    }
-
-    @Override
-    public boolean isCancelled() {
-        return countDownLatch.getCount() == 0;
-    }
-
-    @Override
-    public boolean isDone() {
-        return response != null;
+        if (response.getStatus() != Constants.SUCCESS_CODE) {
+            if (response.getException() instanceof RuntimeException) {
+                completeExceptionally(response.getException());
+            } else {
+                completeExceptionally(new StarlightRpcException(response.getStatus(), response.getErrorMsg(),
+                    response.getException()));
+            }
+            return;
+        }
+        complete(response.getResult());
     }
 
+    /**
+     * Rpc exception is thrown directly as before, instead of being wrapped in {@link ExecutionException}
+     */
     @Override
     public Object get() throws InterruptedException, ExecutionException {
-        countDownLatch.await();
-        return result();
+        try {
+            return super.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
     }
 
     @Override
     public Object get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-        countDownLatch.await(timeout, unit);
-        if (response == null) { // 在限定时间内未返回，则返回TimeoutException
-            throw new TimeoutException();
+        try {
+            return super.get(timeout, unit);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
         }
-        return result();
     }
 
-    private Object result() {
-        if (response.getStatus() != Constants.SUCCESS_CODE) {
-            if (response.getException() instanceof RuntimeException) {
-                throw (RuntimeException) response.getException();
-            }
-            throw new StarlightRpcException(response.getStatus(), response.getErrorMsg(), response.getException());
+    private static ExecutionException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+            throw (RuntimeException) e.getCause();
         }
-        return response.getResult();
+        return e;
     }
 
 }
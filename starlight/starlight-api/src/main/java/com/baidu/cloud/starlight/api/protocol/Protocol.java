@@ -17,6 +17,7 @@
 package com.baidu.cloud.starlight.api.protocol;
 
 import com.baidu.cloud.starlight.api.serialization.serializer.Serializer;
+import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
 
 /**
  * Created by liuruisen on 2019/11/27.
@@ -31,4 +32,15 @@ public interface Protocol {
 
     Serializer getSerialize();
 
+    /**
+     * Detect the protocol of a new channel by the magic in its first bytes. Must not consume bytes, throw exceptions or
+     * allocate, it is called for every protocol before any of them tries to decode.
+     *
+     * @param input readable bytes of the channel
+     * @return {@link ProtocolMatch#UNKNOWN} if the protocol declares no magic
+     */
+    default ProtocolMatch match(DynamicCompositeByteBuf input) {
+        return ProtocolMatch.UNKNOWN;
+    }
+
 }
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.api.protocol;
+
+import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
+
+/**
+ * Result of {@link Protocol#match(DynamicCompositeByteBuf)}: whether the first bytes of a channel belong to the
+ * protocol.
+ */
+public enum ProtocolMatch {
+
+    /**
+     * the first bytes carry the magic of the protocol
+     */
+    MATCH,
+
+    /**
+     * the first bytes are not of the protocol
+     */
+    NOT_MATCH,
+
+    /**
+     * the readable bytes are a prefix of the magic, wait for more data
+     */
+    NEED_MORE_DATA,
+
+    /**
+     * the protocol declares no magic, can only be detected by trying to decode
+     */
+    UNKNOWN;
+
+    /**
+     * Compare the readable bytes from {@code offset} with {@code magic}
+     *
+     * @param input
+     * @param offset offset from the readerIndex of input
+     * @param magic
+     * @return MATCH, NOT_MATCH or NEED_MORE_DATA if the readable bytes are a prefix of magic
+     */
+    public static ProtocolMatch magic(DynamicCompositeByteBuf input, int offset, byte[] magic) {
+        int length = Math.min(magic.length, input.readableBytes() - offset);
+        for (int i = 0; i < length; i++) {
+            if (input.getByte(offset + i) != magic[i]) {
+                return NOT_MATCH;
+            }
+        }
+        return length == magic.length ? MATCH : NEED_MORE_DATA;
+    }
+}
@@ -37,10 +37,16 @@ public class ServiceConfig {
 
     /**
      * Support service dimension compressType, if this field is specified, will use this compress type to compress
-     * request bytes and response bytes. Note: not used currently
+     * request bytes and response bytes: none \ gzip \ snappy. Note: only used in brpc protocol currently
      */
     private String compressType;
 
+    /**
+     * Body smaller than this size(bytes) will not be compressed, default is
+     * {@link com.baidu.cloud.starlight.api.common.Constants#DEFAULT_COMPRESS_THRESHOLD}
+     */
+    private Integer compressThreshold;
+
     /**
      * Only used in brpc protocol currently
      *
@@ -80,6 +86,12 @@ public class ServiceConfig {
 
     private Integer idleThreadKeepAliveSecond;
 
+    /**
+     * pool: execute in biz thread pool(default) \ direct: decode, filter and invoke on the io thread, only for
+     * non-blocking services. See {@link com.baidu.cloud.starlight.api.common.Constants#EXECUTE_MODE_DIRECT}
+     */
+    private String executeMode;
+
     public String getServiceId() {
         return serviceId;
     }
@@ -152,6 +164,14 @@ public class ServiceConfig {
         this.compressType = compressType;
     }
 
+    public Integer getCompressThreshold() {
+        return compressThreshold;
+    }
+
+    public void setCompressThreshold(Integer compressThreshold) {
+        this.compressThreshold = compressThreshold;
+    }
+
     public String getGroup() {
         return group;
     }
@@ -168,6 +188,14 @@ public class ServiceConfig {
         this.version = version;
     }
 
+    public String getExecuteMode() {
+        return executeMode;
+    }
+
+    public void setExecuteMode(String executeMode) {
+        this.executeMode = executeMode;
+    }
+
     public String getSerializeMode() {
         return serializeMode;
     }
@@ -17,6 +17,9 @@
 package com.baidu.cloud.starlight.api.serialization.compressor;
 
 import com.baidu.cloud.starlight.api.exception.CodecException;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufUtil;
+import com.baidu.cloud.thirdparty.netty.buffer.Unpooled;
 
 /**
  * SPI Compressor Created by liuruisen on 2020/2/7.
@@ -40,4 +43,16 @@ public interface Compress {
      * @throws CodecException
      */
     byte[] decompress(byte[] inputByte) throws CodecException;
+
+    /**
+     * uncompress the readable bytes of input without copying them to byte[] first. The caller owns the returned
+     * buffer and must release it, input is not released.
+     *
+     * @param input
+     * @return
+     * @throws CodecException
+     */
+    default ByteBuf decompress(ByteBuf input) throws CodecException {
+        return Unpooled.wrappedBuffer(decompress(ByteBufUtil.getBytes(input)));
+    }
 }
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.api.serialization.compressor;
+
+import com.baidu.cloud.starlight.api.exception.CodecException;
+import com.baidu.cloud.starlight.api.extension.ExtensionLoader;
+import com.baidu.cloud.starlight.api.utils.StringUtils;
+
+/**
+ * Compress type carried by {@link com.baidu.cloud.starlight.api.model.MsgBase#getCompressType()}. The type ids are the
+ * same as brpc CompressType, the names are the SPI names of {@link Compress}.
+ */
+public enum CompressType {
+
+    NONE(0, "none"),
+
+    SNAPPY(1, "snappy"),
+
+    GZIP(2, "gzip");
+
+    private final int type;
+
+    private final String name;
+
+    CompressType(int type, String name) {
+        this.type = type;
+        this.name = name;
+    }
+
+    public int getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Compress getCompress() {
+        return ExtensionLoader.getExtension(Compress.class, name);
+    }
+
+    /**
+     * Get CompressType by type id
+     *
+     * @param type
+     * @return
+     * @throws CodecException unsupported type id
+     */
+    public static CompressType valueOf(int type) {
+        for (CompressType compressType : values()) {
+            if (compressType.type == type) {
+                return compressType;
+            }
+        }
+        throw new CodecException(CodecException.DECOMPRESS_EXCEPTION, "Unsupported compress type: " + type);
+    }
+
+    /**
+     * Get CompressType by name, empty name is {@link #NONE}
+     *
+     * @param name
+     * @return
+     * @throws CodecException unsupported name
+     */
+    public static CompressType forName(String name) {
+        if (StringUtils.isEmpty(name)) {
+            return NONE;
+        }
+        for (CompressType compressType : values()) {
+            if (compressType.name.equalsIgnoreCase(name)) {
+                return compressType;
+            }
+        }
+        throw new CodecException(CodecException.COMPRESS_EXCEPTION, "Unsupported compress type: " + name);
+    }
+}
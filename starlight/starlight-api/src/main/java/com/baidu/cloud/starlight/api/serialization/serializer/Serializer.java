@@ -19,6 +19,8 @@ package com.baidu.cloud.starlight.api.serialization.serializer;
 import com.baidu.cloud.starlight.api.exception.CodecException;
 import com.baidu.cloud.starlight.api.protocol.ProtocolDecoder;
 import com.baidu.cloud.starlight.api.protocol.ProtocolEncoder;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,4 +41,20 @@ public interface Serializer {
     byte[] serialize(Object obj, Type type) throws CodecException;
 
     Object deserialize(byte[] bytes, Type type) throws CodecException;
+
+    /**
+     * Deserialize from the readable bytes of the ByteBuf. The reference count of the buffer is not changed. Serializers
+     * able to read from the buffer directly should override this to avoid copying, the default copies to byte[].
+     *
+     * @param byteBuf
+     * @param type
+     * @return
+     * @throws CodecException
+     */
+    default Object deserialize(ByteBuf byteBuf, Type type) throws CodecException {
+        if (byteBuf == null || !byteBuf.isReadable()) {
+            throw new CodecException(CodecException.DESERIALIZE_EXCEPTION, "The bytes used to deserializing are empty");
+        }
+        return deserialize(ByteBufUtil.getBytes(byteBuf), type);
+    }
 }
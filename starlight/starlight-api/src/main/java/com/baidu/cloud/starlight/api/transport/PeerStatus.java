@@ -17,12 +17,19 @@
 package com.baidu.cloud.starlight.api.transport;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by liuruisen on 2020/11/27.
  */
 public class PeerStatus {
 
+    /**
+     * Increased when the status of any client peer is changed, results computed from the statuses (such as the
+     * filtered server list) are stale once the version moves
+     */
+    private static final AtomicLong STATUS_VERSION = new AtomicLong();
+
     private Status status;
 
     /**
@@ -64,6 +71,14 @@ public class PeerStatus {
         this.statusReason = statusReason;
     }
 
+    public static long statusVersion() {
+        return STATUS_VERSION.get();
+    }
+
+    public static void statusChanged() {
+        STATUS_VERSION.incrementAndGet();
+    }
+
     /**
      * Status of the client or server. ACTIVE exchange to OUTLIER ACTIVE to SHUTTING DOWN to SHUTDOWN
      */
@@ -353,6 +353,31 @@ public class DynamicCompositeByteBuf {
         return this;
     }
 
+    /**
+     * Gets a byte at the specified offset from the current {@code readerIndex}. This method does not modify
+     * {@code readerIndex} of this buffer.
+     *
+     * @throws IndexOutOfBoundsException if {@code offset} is less than {@code 0} or not less than
+     *         {@code this.readableBytes}
+     */
+    public byte getByte(int offset) {
+        if (offset < 0 || offset >= readableBytes) {
+            throw new IndexOutOfBoundsException("offset " + offset + ", readableBytes " + readableBytes);
+        }
+        ByteBuf first = buffers.peekFirst();
+        if (offset < first.readableBytes()) {
+            return first.getByte(first.readerIndex() + offset);
+        }
+        for (ByteBuf buf : buffers) {
+            int bufLen = buf.readableBytes();
+            if (offset < bufLen) {
+                return buf.getByte(buf.readerIndex() + offset);
+            }
+            offset -= bufLen;
+        }
+        throw new IndexOutOfBoundsException("offset > readableBytes");
+    }
+
     /**
      * Gets a byte at the current {@code readerIndex} and increases the {@code readerIndex} by {@code 1} in this buffer.
      *
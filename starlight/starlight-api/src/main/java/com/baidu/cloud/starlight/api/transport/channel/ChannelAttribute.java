@@ -17,7 +17,13 @@
 package com.baidu.cloud.starlight.api.transport.channel;
 
 import com.baidu.cloud.starlight.api.common.Constants;
+import com.baidu.cloud.starlight.api.extension.ExtensionLoader;
+import com.baidu.cloud.starlight.api.protocol.Protocol;
+import com.baidu.cloud.starlight.api.protocol.ProtocolDecoder;
+import com.baidu.cloud.starlight.api.protocol.ProtocolEncoder;
+import com.baidu.cloud.starlight.api.serialization.serializer.Serializer;
 import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
+import com.baidu.cloud.thirdparty.netty.channel.Channel;
 
 /**
  * Created by liuruisen on 2020/3/31.
@@ -29,6 +35,9 @@ public class ChannelAttribute {
 
     private final RpcChannel rpcChannel;
 
+    // Protocol resolved for this channel, re-resolved only when the protocol name changes
+    private volatile ResolvedProtocol resolvedProtocol;
+
     public ChannelAttribute(RpcChannel rpcChannel) {
         this.rpcChannel = rpcChannel;
         this.dynamicByteBuf = new DynamicCompositeByteBuf(16);
@@ -49,4 +58,87 @@ public class ChannelAttribute {
     public void resetChannelProtocol(String protocolName) {
         rpcChannel.setAttribute(Constants.PROTOCOL_ATTR_KEY, protocolName);
     }
+
+    /**
+     * The protocol the channel is specified to, null if the protocol is not specified yet
+     *
+     * @return
+     */
+    public Protocol getProtocol() {
+        String protocolName = getChannelProtocol();
+        if (protocolName == null || protocolName.equals(Constants.UNSPECIFIED_PROTOCOL)) {
+            return null;
+        }
+        return resolve(protocolName).protocol;
+    }
+
+    /**
+     * Get the protocol by name, the protocol the channel is using will be returned without ExtensionLoader lookup
+     *
+     * @param protocolName
+     * @return
+     */
+    public Protocol getProtocol(String protocolName) {
+        return resolve(protocolName).protocol;
+    }
+
+    public ProtocolEncoder getEncoder(String protocolName) {
+        return resolve(protocolName).encoder;
+    }
+
+    public ProtocolDecoder getDecoder(String protocolName) {
+        return resolve(protocolName).decoder;
+    }
+
+    public Serializer getSerializer(String protocolName) {
+        return resolve(protocolName).serializer;
+    }
+
+    /**
+     * Get the protocol through the cache in the channel's ChannelAttribute, fall back to ExtensionLoader
+     *
+     * @param rpcChannel
+     * @param protocolName
+     * @return
+     */
+    public static Protocol protocolOf(RpcChannel rpcChannel, String protocolName) {
+        Channel channel = rpcChannel == null ? null : rpcChannel.channel();
+        ChannelAttribute attribute = channel == null ? null : channel.attr(RpcChannel.ATTRIBUTE_KEY).get();
+        if (attribute != null) {
+            return attribute.getProtocol(protocolName);
+        }
+        return ExtensionLoader.getExtension(Protocol.class, protocolName);
+    }
+
+    private ResolvedProtocol resolve(String protocolName) {
+        ResolvedProtocol resolved = this.resolvedProtocol;
+        if (resolved != null && resolved.name.equals(protocolName)) {
+            return resolved;
+        }
+        // first message or protocol changed, benign race: the same instances will be resolved
+        resolved = new ResolvedProtocol(protocolName, ExtensionLoader.getExtension(Protocol.class, protocolName));
+        this.resolvedProtocol = resolved;
+        return resolved;
+    }
+
+    private static class ResolvedProtocol {
+
+        private final String name;
+
+        private final Protocol protocol;
+
+        private final ProtocolEncoder encoder;
+
+        private final ProtocolDecoder decoder;
+
+        private final Serializer serializer;
+
+        private ResolvedProtocol(String name, Protocol protocol) {
+            this.name = name;
+            this.protocol = protocol;
+            this.encoder = protocol.getEncoder();
+            this.decoder = protocol.getDecoder();
+            this.serializer = protocol.getSerialize();
+        }
+    }
 }
@@ -124,6 +124,15 @@ public interface RpcChannel {
      */
     Map<Long, RpcCallback> allCallbacks();
 
+    /**
+     * Number of in-flight callbacks
+     *
+     * @return
+     */
+    default int callbackCount() {
+        return allCallbacks().size();
+    }
+
     /**
      * Allow to store a value reference. It is thread-safe
      * 
@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.api.utils;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Rpc method returning {@link CompletionStage}: the value type of the stage is transferred on the wire.
+ */
+public class CompletionStageUtils {
+
+    public static boolean isCompletionStage(Class<?> type) {
+        return type != null && CompletionStage.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Value type T of CompletionStage&lt;T&gt;, Object if the type argument is absent or not concrete
+     *
+     * @param genericReturnType
+     * @return
+     */
+    public static Type valueType(Type genericReturnType) {
+        if (genericReturnType instanceof ParameterizedType) {
+            Type[] typeArguments = ((ParameterizedType) genericReturnType).getActualTypeArguments();
+            if (typeArguments.length == 1
+                && (typeArguments[0] instanceof Class || typeArguments[0] instanceof ParameterizedType)) {
+                return typeArguments[0];
+            }
+        }
+        return Object.class;
+    }
+
+    /**
+     * Raw class of the type, Object for type variables and wildcards
+     *
+     * @param type
+     * @return
+     */
+    public static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        }
+        return Object.class;
+    }
+}
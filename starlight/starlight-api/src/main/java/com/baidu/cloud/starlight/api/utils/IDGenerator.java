@@ -20,6 +20,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * 依据snowflake改造的算法，单节点使用，最大限度保持唯一
@@ -56,10 +57,13 @@ public class IDGenerator {
 
     private long dataCenterId; // 数据中心
     private long machineId; // 机器标识
-    private long sequence = 0L; // 序列号
-    private long lastStamp = -1L; // 上一次时间戳
 
-    private static IDGenerator idGenerator;
+    /**
+     * 时间戳部分(相对START_STMP) + 序列号部分, 单调递增. 序列号溢出时进位到时间戳, 即借用下一毫秒的序列号, 不再自旋等待
+     */
+    private final AtomicLong stampAndSequence = new AtomicLong();
+
+    private static volatile IDGenerator idGenerator;
 
     public static IDGenerator getInstance() {
         if (idGenerator == null) {
@@ -98,45 +102,32 @@ public class IDGenerator {
     }
 
     /**
-     * 产生下一个ID
+     * 产生下一个ID, lock free
      *
      * @return
      */
-    public synchronized long nextId() {
-        long currStmp = getNewstamp();
-        if (currStmp < lastStamp) {
-            throw new RuntimeException("Clock moved backwards. Refusing to generate id");
-        }
-
-        if (currStmp == lastStamp) {
-            // 相同毫秒内，序列号自增
-            sequence = (sequence + 1) & MAX_SEQUENCE;
-            // 同一毫秒的序列数已经达到最大, 等待下一毫秒
-            if (sequence == 0L) {
-                currStmp = getNextMill();
+    public long nextId() {
+        // fast path: take the next sequence
+        long next = stampAndSequence.incrementAndGet();
+        long currStamp = getNewstamp() - START_STMP;
+        // 进入新的毫秒, 序列号置为0. 推进失败时next仍是本线程独占的, 可直接使用
+        long current = next;
+        while ((current >>> SEQUENCE_BIT) < currStamp) {
+            long newMill = currStamp << SEQUENCE_BIT;
+            if (stampAndSequence.compareAndSet(current, newMill)) {
+                next = newMill;
+                break;
             }
-        } else {
-            // 不同毫秒内，序列号置为0
-            sequence = 0L;
+            current = stampAndSequence.get();
         }
 
-        lastStamp = currStmp;
-
-        return (currStmp - START_STMP) << TIMESTMP_LEFT // 时间戳部分
+        return (next >>> SEQUENCE_BIT) << TIMESTMP_LEFT // 时间戳部分
             | dataCenterId << DATACENTER_LEFT // 机房随机数部分
             | machineId << MACHINE_LEFT // 机器IP标识部分
-            | sequence; // 序列号部分
-    }
-
-    private long getNextMill() {
-        long mill = getNewstamp();
-        while (mill <= lastStamp) {
-            mill = getNewstamp();
-        }
-        return mill;
+            | (next & MAX_SEQUENCE); // 序列号部分
     }
 
     private long getNewstamp() {
         return System.currentTimeMillis();
     }
-}
\ No newline at end of file
+}
@@ -23,6 +23,7 @@ import org.junit.Test;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -37,6 +38,15 @@ public class ExtensionLoaderTest {
         assertTrue(ExtensionLoader.getInstance(Ext1.class).getExtension("xxx") instanceof Ext1Impl3);
     }
 
+    @Test
+    public void test_getExtension_Typed() throws Exception {
+        Ext1 ext1 = ExtensionLoader.getExtension(Ext1.class, "impl1");
+        assertTrue(ext1 instanceof Ext1Impl1);
+        // cached instance
+        assertSame(ext1, ExtensionLoader.getExtension(Ext1.class, "impl1"));
+        assertSame(ext1, ExtensionLoader.getInstance(Ext1.class).getExtension("impl1"));
+    }
+
     @Test
     public void test_getExtension_Run() throws Exception {
         String[] impls = new String[] {"impl1", "impl2", "xxx"};
@@ -22,9 +22,11 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Created by liuruisen on 2020/3/24.
@@ -46,7 +48,7 @@ public class ResultFutureTest {
         resultFuture.putResponse(response);
         Assert.assertEquals(resultFuture.get(), "111");
         Assert.assertTrue(resultFuture.isDone());
-        Assert.assertTrue(resultFuture.isCancelled());
+        Assert.assertFalse(resultFuture.isCancelled());
         Assert.assertFalse(resultFuture.cancel(true));
     }
 
@@ -70,4 +72,31 @@ public class ResultFutureTest {
             Assert.assertTrue(e.getCode() == 1000);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void completionStage() throws Exception {
+        ResultFuture resultFuture = new ResultFuture();
+        AtomicReference<Thread> stageThread = new AtomicReference<>();
+        CompletableFuture<String> stage = resultFuture.thenApply(result -> {
+            stageThread.set(Thread.currentThread());
+            return result + "222";
+        });
+        Assert.assertFalse(stage.isDone());
+
+        Thread responseThread = new Thread(() -> resultFuture.putResponse(response));
+        responseThread.start();
+        responseThread.join();
+        Assert.assertEquals("111222", stage.get());
+        // dependent stage runs in the thread putting response
+        Assert.assertSame(responseThread, stageThread.get());
+
+        ResultFuture errorFuture = new ResultFuture();
+        Response errorResponse = new RpcResponse();
+        errorResponse.setStatus(1000);
+        errorResponse.setErrorMsg("Error");
+        errorFuture.putResponse(errorResponse);
+        Throwable cause = errorFuture.handle((result, throwable) -> throwable).get();
+        Assert.assertTrue(cause instanceof StarlightRpcException);
+        Assert.assertEquals(1000, (int) ((StarlightRpcException) cause).getCode());
+    }
+}
@@ -18,7 +18,9 @@ package com.baidu.cloud.starlight.api.utils;
 
 import org.junit.Test;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -50,6 +52,18 @@ public class IDGeneratorTest {
         assertEquals(500 * (1 << 10), result.size());
     }
 
+    @Test
+    public void genIDSequenceOverflow() {
+        // 远超单毫秒1024个序列号, 溢出时借用后续毫秒而非自旋等待
+        IDGenerator generator = IDGenerator.getInstance();
+        Set<Long> ids = new HashSet<>();
+        int count = 1 << 20;
+        for (int i = 0; i < count; i++) {
+            ids.add(generator.nextId());
+        }
+        assertEquals(count, ids.size());
+    }
+
     @Test
     public void testError() {
         Integer intV = 2147483647;
@@ -24,6 +24,7 @@ import com.baidu.cloud.starlight.api.model.Response;
 import com.baidu.cloud.starlight.api.rpc.Invoker;
 import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
 import com.baidu.cloud.starlight.api.utils.LogUtils;
+import com.baidu.cloud.starlight.core.statistics.LatencyHistogram;
 import com.baidu.cloud.starlight.core.statistics.StarlightStatistics;
 import com.baidu.cloud.starlight.core.statistics.StarlightStatsManager;
 import org.slf4j.Logger;
@@ -87,10 +88,17 @@ public class ClientMonitorFilter implements Filter {
             // 心跳检测接口不参与业务统计信息的记录
             return;
         }
-        if (request.getRemoteURI() != null && StarlightStatsManager.getStats(request.getRemoteURI()) != null) {
+        StarlightStatistics statistics =
+            request.getRemoteURI() == null ? null : StarlightStatsManager.getStats(request.getRemoteURI());
+        if (statistics != null) {
             LOGGER.debug("ClientMonitorFilter start record stats");
             long startTime = System.currentTimeMillis();
-            StarlightStatistics statistics = StarlightStatsManager.getStats(request.getRemoteURI());
+            // latency histogram of the peer: mean/p50/p90/p99, registered lazily when enabled
+            if (request.getRemoteURI().getParameter(Constants.LATENCY_HISTOGRAM_ENABLED_KEY,
+                Constants.LATENCY_HISTOGRAM_ENABLED_VALUE)
+                && statistics.discoverStats(LatencyHistogram.LATENCY_STATS_KEY) == null) {
+                statistics.registerStats(LatencyHistogram.LATENCY_STATS_KEY, new LatencyHistogram());
+            }
             statistics.record(request, response);
             long recordStatsCost = System.currentTimeMillis() - startTime;
             LOGGER.debug("ClientMonitorFilter record stats cost {}", recordStatsCost);
@@ -19,7 +19,6 @@ package com.baidu.cloud.starlight.core.rpc;
 import com.baidu.cloud.starlight.api.common.Constants;
 import com.baidu.cloud.starlight.api.exception.CodecException;
 import com.baidu.cloud.starlight.api.exception.StarlightRpcException;
-import com.baidu.cloud.starlight.api.extension.ExtensionLoader;
 import com.baidu.cloud.starlight.api.model.MsgBase;
 import com.baidu.cloud.starlight.api.model.Request;
 import com.baidu.cloud.starlight.api.model.Response;
@@ -29,6 +28,7 @@ import com.baidu.cloud.starlight.api.rpc.ServiceRegistry;
 import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
 import com.baidu.cloud.starlight.api.rpc.threadpool.ThreadPoolFactory;
 import com.baidu.cloud.starlight.api.serialization.serializer.Serializer;
+import com.baidu.cloud.starlight.api.transport.channel.ChannelAttribute;
 import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
 import com.baidu.cloud.starlight.api.protocol.Protocol;
 import com.baidu.cloud.starlight.api.utils.GenericUtil;
@@ -49,8 +49,18 @@ public class ClientProcessor implements Processor {
 
     private ThreadPoolFactory threadPoolFactory;
 
+    /**
+     * Execute response callback on the io thread directly, see {@link Constants#EXECUTE_MODE_DIRECT}
+     */
+    private final boolean directExecute;
+
     public ClientProcessor(ThreadPoolFactory threadPoolFactory) {
+        this(threadPoolFactory, false);
+    }
+
+    public ClientProcessor(ThreadPoolFactory threadPoolFactory, boolean directExecute) {
         this.threadPoolFactory = threadPoolFactory;
+        this.directExecute = directExecute;
     }
 
     private KeyOrderedExecutor sseCallBackExecutor = new KeyOrderedExecutor("sse-callback");
@@ -73,10 +83,18 @@ public class ClientProcessor implements Processor {
 
         ClientProcessTask processTask = new ClientProcessTask(response, context);
         LogUtils.addLogTimeAttachment(msgBase, Constants.BEFORE_THREAD_EXECUTE_TIME_KEY, System.currentTimeMillis());
-        if (SpringRestSseProtocol.PROTOCOL_NAME.equals(response.getProtocolName())) {
-            sseCallBackExecutor.execute(response.getId(), processTask);
-        } else {
-            threadPoolFactory.getThreadPool().execute(processTask);
+        try {
+            if (SpringRestSseProtocol.PROTOCOL_NAME.equals(response.getProtocolName())) {
+                sseCallBackExecutor.execute(response.getId(), processTask);
+            } else if (directExecute) {
+                processTask.runDirect();
+            } else {
+                threadPoolFactory.getThreadPool().execute(processTask);
+            }
+        } catch (RuntimeException e) {
+            // the task will never run, release the retained body
+            response.releaseBody();
+            throw e;
         }
     }
 
@@ -120,6 +138,29 @@ public class ClientProcessor implements Processor {
 
         @Override
         public void run() {
+            try {
+                process();
+            } finally {
+                // body is released after decoded, this makes sure discarded responses are released too
+                response.releaseBody();
+            }
+        }
+
+        /**
+         * Run on the io thread, the context ClassLoader of the io thread is restored after callback
+         */
+        public void runDirect() {
+            ClassLoader ioClassLoader = Thread.currentThread().getContextClassLoader();
+            try {
+                run();
+            } catch (Throwable e) {
+                LOGGER.error("Failed to process response {} directly in io thread", response.getId(), e);
+            } finally {
+                Thread.currentThread().setContextClassLoader(ioClassLoader);
+            }
+        }
+
+        private void process() {
             // set currentThread's contextClassLoader to requestThread's ClassLoader
             // this make Protostuff get the correct Schema bound with ClassLoader
             ClassLoader classLoader = LocalContext.getContext(Constants.LOCAL_CONTEXT_THREAD_CLASSLOADER_KEY)
@@ -172,10 +213,8 @@ public class ClientProcessor implements Processor {
             }
             // body decode in work thread
             try {
-                if (response.getStatus() == Constants.SUCCESS_CODE.intValue() && response.getBodyBytes() != null
-                    && response.getBodyBytes().length > 0) {
-                    Protocol protocol =
-                        ExtensionLoader.getInstance(Protocol.class).getExtension(response.getProtocolName());
+                if (response.getStatus() == Constants.SUCCESS_CODE.intValue() && response.hasBody()) {
+                    Protocol protocol = ChannelAttribute.protocolOf(context, response.getProtocolName());
                     if (protocol == null) {
                         throw new StarlightRpcException(StarlightRpcException.BAD_REQUEST,
                             "The response's protocol information is not found, protocol {" + response.getProtocolName()
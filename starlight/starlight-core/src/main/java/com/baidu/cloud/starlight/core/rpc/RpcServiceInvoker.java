@@ -25,12 +25,16 @@ import com.baidu.cloud.starlight.api.rpc.RpcService;
 import com.baidu.cloud.starlight.api.rpc.ServiceInvoker;
 import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
 import com.baidu.cloud.starlight.api.rpc.sse.RpcSseEmitter;
+import com.baidu.cloud.starlight.api.utils.CompletionStageUtils;
 import com.baidu.cloud.starlight.api.utils.LogUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 /**
  * Created by liuruisen on 2020/2/13.
@@ -84,6 +88,11 @@ public class RpcServiceInvoker implements ServiceInvoker {
             long beforeMethodExeTime = System.currentTimeMillis();
             LogUtils.addLogTimeAttachment(request, Constants.BEFORE_EXECUTE_METHOD_TIME_KEY, beforeMethodExeTime);
             Object result = method.invoke(serviceObj, request.getParams());
+            if (result instanceof CompletionStage) {
+                // async service method, respond when the stage completes without blocking the worker thread
+                invokeAsync(request, method, (CompletionStage<?>) result, response, callback, beforeMethodExeTime);
+                return;
+            }
             LogUtils.addLogTimeAttachment(request, Constants.EXECUTE_METHOD_COST,
                 System.currentTimeMillis() - beforeMethodExeTime);
             response.setStatus(Constants.SUCCESS_CODE);
@@ -104,6 +113,27 @@ public class RpcServiceInvoker implements ServiceInvoker {
         }
     }
 
+    private void invokeAsync(Request request, Method method, CompletionStage<?> stage, Response response,
+        RpcCallback callback, long beforeMethodExeTime) {
+        Type valueType = CompletionStageUtils.valueType(method.getGenericReturnType());
+        stage.whenComplete((value, throwable) -> {
+            LogUtils.addLogTimeAttachment(request, Constants.EXECUTE_METHOD_COST,
+                System.currentTimeMillis() - beforeMethodExeTime);
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause() : throwable;
+                LOGGER.error("Failed to execute method " + request.getMethodName() + ", caused by ", cause);
+                callback.onError(convertThrowable(cause));
+                return;
+            }
+            response.setStatus(Constants.SUCCESS_CODE);
+            response.setResult(value);
+            response.setReturnType(CompletionStageUtils.rawClass(valueType));
+            response.setGenericReturnType(valueType);
+            callback.onResponse(response);
+        });
+    }
+
     @Override
     public void destroy() {
         // do nothing
@@ -19,7 +19,6 @@ package com.baidu.cloud.starlight.core.rpc;
 import com.baidu.cloud.starlight.api.common.Constants;
 import com.baidu.cloud.starlight.api.exception.CodecException;
 import com.baidu.cloud.starlight.api.exception.StarlightRpcException;
-import com.baidu.cloud.starlight.api.extension.ExtensionLoader;
 import com.baidu.cloud.starlight.api.model.MsgBase;
 import com.baidu.cloud.starlight.api.model.Request;
 import com.baidu.cloud.starlight.api.model.Response;
@@ -30,10 +29,12 @@ import com.baidu.cloud.starlight.api.rpc.ServiceRegistry;
 import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
 import com.baidu.cloud.starlight.api.rpc.threadpool.ThreadPoolFactory;
 import com.baidu.cloud.starlight.api.serialization.serializer.Serializer;
+import com.baidu.cloud.starlight.api.transport.channel.ChannelAttribute;
 import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
 import com.baidu.cloud.starlight.api.protocol.Protocol;
 import com.baidu.cloud.starlight.api.utils.GenericUtil;
 import com.baidu.cloud.starlight.api.utils.LogUtils;
+import com.baidu.cloud.starlight.core.rpc.callback.BaseInvokeCallBack;
 import com.baidu.cloud.starlight.core.rpc.callback.InvokeCallBack;
 import com.baidu.cloud.starlight.core.rpc.callback.SseServerCallBack;
 import com.baidu.cloud.starlight.protocol.http.springrest.sse.SpringRestSseProtocol;
@@ -80,12 +81,13 @@ public class ServerProcessor implements Processor {
 
         Request request = (Request) msgBase;
         // construct callback
-        RpcCallback callback = Objects.equals(request.getProtocolName(), SpringRestSseProtocol.PROTOCOL_NAME)
+        BaseInvokeCallBack callback = Objects.equals(request.getProtocolName(), SpringRestSseProtocol.PROTOCOL_NAME)
             ? new SseServerCallBack(request, context) : new InvokeCallBack(request, context);
 
         // service check
         ServiceInvoker serviceInvoker = serviceRegistry.discover(request.getServiceName());
         if (serviceInvoker == null) {
+            request.releaseBody();
             callback.onError(new StarlightRpcException(StarlightRpcException.SERVICE_NOT_FOUND_EXCEPTION,
                 "Service {" + request.getServiceName() + "} not found in provider"));
             return;
@@ -95,7 +97,7 @@ public class ServerProcessor implements Processor {
             // add Timeout
             Integer invokeTimeout = rpcService.getServiceConfig().getInvokeTimeoutMills();
             if (invokeTimeout != null && invokeTimeout > 0) {
-                Timeout timeout = TimerHolder.getTimer().newTimeout(new TimerTask() {
+                Timeout timeout = TimerHolder.getTimeoutTimer().newTimeout(new TimerTask() {
                     @Override
                     public void run(Timeout timeout) throws Exception {
                         callback.onError(new StarlightRpcException(StarlightRpcException.TIME_OUT_EXCEPTION,
@@ -107,9 +109,32 @@ public class ServerProcessor implements Processor {
                 callback.addTimeout(timeout);
             }
         }
-        ServerProcessTask task = new ServerProcessTask(request, callback, serviceInvoker);
+        ServerProcessTask task = new ServerProcessTask(request, callback, serviceInvoker, context);
         LogUtils.addLogTimeAttachment(msgBase, Constants.BEFORE_THREAD_EXECUTE_TIME_KEY, System.currentTimeMillis());
-        threadPoolFactory.getThreadPool(rpcService).execute(task);
+        if (rpcService.getServiceConfig() != null
+            && Constants.EXECUTE_MODE_DIRECT.equals(rpcService.getServiceConfig().getExecuteMode())) {
+            // non-blocking service: run on the io thread, no thread switch and queue handoff
+            ClassLoader ioClassLoader = Thread.currentThread().getContextClassLoader();
+            try {
+                task.run();
+            } catch (Throwable e) {
+                LOGGER.error("Failed to process request {} directly in io thread", request.getId(), e);
+                // the failure may come from the response itself, do not answer twice
+                if (!callback.isResponded()) {
+                    callback.onError(e);
+                }
+            } finally {
+                Thread.currentThread().setContextClassLoader(ioClassLoader);
+            }
+            return;
+        }
+        try {
+            threadPoolFactory.getThreadPool(rpcService).execute(task);
+        } catch (RuntimeException e) {
+            // the task will never run, release the retained body
+            request.releaseBody();
+            throw e;
+        }
     }
 
     @Override
@@ -177,10 +202,14 @@ public class ServerProcessor implements Processor {
 
         private ServiceInvoker serviceInvoker;
 
-        public ServerProcessTask(Request request, RpcCallback callback, ServiceInvoker serviceInvoker) {
+        private RpcChannel context;
+
+        public ServerProcessTask(Request request, RpcCallback callback, ServiceInvoker serviceInvoker,
+            RpcChannel context) {
             this.request = request;
             this.callback = callback;
             this.serviceInvoker = serviceInvoker;
+            this.context = context;
         }
 
         @Override
@@ -197,6 +226,7 @@ public class ServerProcessor implements Processor {
             if (!GenericUtil.isGenericCall(request)) {
                 Method method = rpcService.getMethod(request.getMethodName());
                 if (method == null) {
+                    request.releaseBody();
                     callback.onError(new StarlightRpcException(StarlightRpcException.METHOD_NOT_FOUND_EXCEPTION,
                         "The called method {" + request.getMethodName() + "} does not exist"));
                     return;
@@ -211,7 +241,7 @@ public class ServerProcessor implements Processor {
 
             // body decode in work thread
             try {
-                Protocol protocol = ExtensionLoader.getInstance(Protocol.class).getExtension(request.getProtocolName());
+                Protocol protocol = ChannelAttribute.protocolOf(context, request.getProtocolName());
                 if (protocol == null) {
                     throw new StarlightRpcException(StarlightRpcException.BAD_REQUEST,
                         "The request's protocol information is not found");
@@ -229,6 +259,9 @@ public class ServerProcessor implements Processor {
                 }
                 callback.onError(e);
                 return;
+            } finally {
+                // decodeBody releases the body itself, this makes sure it is released when decode is skipped
+                request.releaseBody();
             }
             // invoke
             LogUtils.addLogTimeAttachment(request, Constants.BEFORE_SERVER_FILTER_EXEC_TIME_KEY,
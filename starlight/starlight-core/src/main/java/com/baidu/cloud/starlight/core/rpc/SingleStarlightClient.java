@@ -44,6 +44,7 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -90,6 +91,16 @@ public class SingleStarlightClient implements StarlightClient {
         return this.uri;
     }
 
+    /**
+     * 所有client共享的业务线程池，用于在timer等共享线程之外发起重试等请求。尚无client初始化时返回null
+     *
+     * @return
+     */
+    public static Executor bizExecutor() {
+        ThreadPoolFactory threadPoolFactory = threadPoolOfAll;
+        return threadPoolFactory == null ? null : threadPoolFactory.getThreadPool();
+    }
+
     @Override
     public void init() {
         if (threadPoolOfAll == null) {
@@ -106,7 +117,8 @@ public class SingleStarlightClient implements StarlightClient {
         }
         if (isInitialed.compareAndSet(false, true)) {
             // Processor init
-            Processor processor = new ClientProcessor(threadPoolOfAll);
+            Processor processor = new ClientProcessor(threadPoolOfAll, Constants.EXECUTE_MODE_DIRECT
+                .equals(uri.getParameter(Constants.EXECUTE_MODE_KEY, Constants.EXECUTE_MODE_POOL)));
             clientPeer.setProcessor(processor);
             clientPeer.init();
             try {
@@ -40,6 +40,11 @@ public class BaseInvokeCallBack implements RpcCallback {
 
     private Timeout timeout;
 
+    /**
+     * 是否已开始响应，正常响应或错误响应
+     */
+    private volatile boolean responded = false;
+
     public BaseInvokeCallBack(Request request, RpcChannel context) {
         this.request = request;
         this.context = context;
@@ -47,6 +52,7 @@ public class BaseInvokeCallBack implements RpcCallback {
 
     @Override
     public void onResponse(Response response) {
+        responded = true;
         if (timeout != null && !timeout.isCancelled()) {
             timeout.cancel();
         }
@@ -69,7 +75,7 @@ public class BaseInvokeCallBack implements RpcCallback {
 
     @Override
     public void onError(Throwable e) {
-
+        responded = true;
         if (timeout != null && !timeout.isCancelled()) {
             timeout.cancel();
         }
@@ -106,4 +112,8 @@ public class BaseInvokeCallBack implements RpcCallback {
     public Request getRequest() {
         return request;
     }
+
+    public boolean isResponded() {
+        return responded;
+    }
 }
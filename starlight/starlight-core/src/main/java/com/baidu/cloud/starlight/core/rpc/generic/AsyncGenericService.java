@@ -19,6 +19,7 @@ package com.baidu.cloud.starlight.core.rpc.generic;
 import com.baidu.cloud.starlight.api.rpc.callback.Callback;
 import com.baidu.cloud.starlight.api.exception.StarlightRpcException;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 
 /**
@@ -36,6 +37,16 @@ public interface AsyncGenericService extends GenericService {
      */
     Future<Object> $invokeFuture(String method, Object[] args) throws StarlightRpcException;
 
+    /**
+     * Async rpc call: CompletableFuture, completed in the thread receiving response
+     *
+     * @param method
+     * @param args
+     * @return
+     * @throws StarlightRpcException
+     */
+    CompletableFuture<Object> $invokeAsync(String method, Object[] args) throws StarlightRpcException;
+
     /**
      * Async rpc call: Callback
      * 
@@ -23,6 +23,7 @@ import com.baidu.cloud.starlight.api.model.ResultFuture;
 import com.baidu.cloud.starlight.api.model.RpcRequest;
 import com.baidu.cloud.starlight.api.rpc.config.ServiceConfig;
 import com.baidu.cloud.starlight.api.rpc.sse.RpcSseEmitter;
+import com.baidu.cloud.starlight.api.utils.CompletionStageUtils;
 import com.baidu.cloud.starlight.core.rpc.callback.BizWrapCallback;
 import com.baidu.cloud.starlight.api.rpc.callback.Callback;
 import com.baidu.cloud.starlight.core.rpc.callback.FutureCallback;
@@ -33,7 +34,11 @@ import com.baidu.cloud.starlight.protocol.http.springrest.sse.SpringRestSseProto
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.lang.reflect.Type;
 import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 
 public class JdkInvocationHandler implements InvocationHandler {
@@ -42,6 +47,8 @@ public class JdkInvocationHandler implements InvocationHandler {
 
     private static final String CALLBACK_SUFFIX = "Callback";
 
+    private static final String ASYNC_METHOD_SUFFIX = "Async";
+
     private static final String ASYNC_INTERFACE_SUFFIX = "Async";
 
     private final StarlightClient client;
@@ -50,10 +57,23 @@ public class JdkInvocationHandler implements InvocationHandler {
 
     private final ServiceConfig serviceConfig;
 
+    /**
+     * Reflection results of the proxy methods, computed once when the proxy is created
+     */
+    private final Map<Method, MethodDescriptor> descriptors;
+
     JdkInvocationHandler(Class<?> targetClass, ServiceConfig serviceConfig, StarlightClient client) {
         this.client = client;
         this.targetClass = targetClass;
         this.serviceConfig = serviceConfig;
+        this.descriptors = new ConcurrentHashMap<>();
+        for (Method method : targetClass.getMethods()) {
+            try {
+                descriptors.put(method, new MethodDescriptor(method));
+            } catch (StarlightRpcException e) {
+                // illegal async method, the exception will be thrown when it is called
+            }
+        }
     }
 
     @Override
@@ -66,46 +86,57 @@ public class JdkInvocationHandler implements InvocationHandler {
         } else if ("toString".equals(method.getName()) && (args == null || args.length == 0)) {
             return toString();
         }
+        MethodDescriptor descriptor = descriptor(method);
         RpcCallback rpcCallback = null;
         Request request = null;
-        Class<?> resultType = method.getReturnType(); // return type
         if (args != null && args.length > 1 && args[args.length - 1] instanceof Callback) {
             Callback bizCallBack = (Callback) args[args.length - 1];
             Object[] realArgs = Arrays.copyOf(args, args.length - 1);
-            request = buildRequest(targetMethod(method), realArgs);
+            request = buildRequest(descriptor, realArgs);
             rpcCallback = new BizWrapCallback(bizCallBack, request);
             client.request(request, rpcCallback);
             return null;
-        } else if (RpcSseEmitter.class.isAssignableFrom(resultType)) {
-            request = buildRequest(targetMethod(method), args);
+        } else if (descriptor.returnSseEmitter) {
+            request = buildRequest(descriptor, args);
             request.setProtocolName(SpringRestSseProtocol.PROTOCOL_NAME);
             StarlightClientSseEmitter clientSseEmitter = new StarlightClientSseEmitter(request);
             rpcCallback = new SseClientCallBack(clientSseEmitter, request);
             client.request(request, rpcCallback);
             return clientSseEmitter;
         } else {
-            request = buildRequest(targetMethod(method), args);
+            request = buildRequest(descriptor, args);
             ResultFuture resultFuture = new ResultFuture();
             rpcCallback = new FutureCallback(resultFuture, request);
             client.request(request, rpcCallback);
 
-            if (Future.class.isAssignableFrom(resultType)) {
+            // Future, CompletableFuture or CompletionStage: completed in the thread receiving response
+            if (descriptor.returnFuture) {
                 return resultFuture;
             }
             return resultFuture.get();
         }
     }
 
-    private Request buildRequest(Method method, Object[] realArgs) {
+    MethodDescriptor descriptor(Method proxyMethod) {
+        MethodDescriptor descriptor = descriptors.get(proxyMethod);
+        if (descriptor == null) {
+            // methods not declared in the target interface, not cached if the target method is illegal
+            descriptor = new MethodDescriptor(proxyMethod);
+            descriptors.putIfAbsent(proxyMethod, descriptor);
+        }
+        return descriptor;
+    }
+
+    private Request buildRequest(MethodDescriptor descriptor, Object[] realArgs) {
         Request request = new RpcRequest();
-        request.setServiceClass(targetServiceClass(targetClass));
-        request.setMethodName(method.getName());
-        request.setMethod(method);
-        request.setParamsTypes(method.getParameterTypes());
-        request.setGenericParamsTypes(method.getGenericParameterTypes());
+        request.setServiceClass(descriptor.serviceClass);
+        request.setMethodName(descriptor.methodName);
+        request.setMethod(descriptor.targetMethod);
+        request.setParamsTypes(descriptor.paramsTypes);
+        request.setGenericParamsTypes(descriptor.genericParamsTypes);
         request.setParams(realArgs);
-        request.setReturnType(method.getReturnType());
-        request.setGenericReturnType(method.getGenericReturnType());
+        request.setReturnType(descriptor.returnType);
+        request.setGenericReturnType(descriptor.genericReturnType);
         request.setServiceConfig(serviceConfig);
         return request;
     }
@@ -131,7 +162,18 @@ public class JdkInvocationHandler implements InvocationHandler {
             }
         }
 
-        // method end with Future
+        // method end with Async, return CompletionStage
+        if (methodName.endsWith(ASYNC_METHOD_SUFFIX)) {
+            String syncMethodName = methodName.substring(0, methodName.length() - ASYNC_METHOD_SUFFIX.length());
+            try {
+                targetMethod = serviceClass.getMethod(syncMethodName, proxyParameterTypes);
+            } catch (NoSuchMethodException e) {
+                throw new StarlightRpcException("No related synchronization method in parent class, "
+                    + "async method { " + methodName + "}, " + "related sync method {" + syncMethodName + "}");
+            }
+        }
+
+        // method end with Callback
         if (methodName.endsWith(CALLBACK_SUFFIX)) {
             try {
                 proxyParameterTypes = Arrays.copyOf(proxyParameterTypes, proxyParameterTypes.length - 1);
@@ -174,7 +216,8 @@ public class JdkInvocationHandler implements InvocationHandler {
         }
 
         String methodName = proxyMethod.getName();
-        if (!methodName.endsWith(CALLBACK_SUFFIX) && !methodName.endsWith(FUTURE_SUFFIX)) {
+        if (!methodName.endsWith(CALLBACK_SUFFIX) && !methodName.endsWith(FUTURE_SUFFIX)
+            && !methodName.endsWith(ASYNC_METHOD_SUFFIX)) {
             return false;
         }
 
@@ -186,8 +229,59 @@ public class JdkInvocationHandler implements InvocationHandler {
             }
             return Callback.class.isAssignableFrom(paramTypes[paramTypes.length - 1])
                 && proxyMethod.getReturnType().equals(Void.TYPE);
+        } else if (methodName.endsWith(ASYNC_METHOD_SUFFIX)) { // completion stage
+            return CompletionStage.class.isAssignableFrom(proxyMethod.getReturnType());
         } else { // future
             return Future.class.isAssignableFrom(proxyMethod.getReturnType());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Immutable invocation metadata of one proxy method. The arrays are shared by all the requests of the method and
+     * must not be modified.
+     */
+    final class MethodDescriptor {
+
+        final Method targetMethod;
+
+        final Class<?> serviceClass;
+
+        final String methodName;
+
+        final Class<?>[] paramsTypes;
+
+        final Type[] genericParamsTypes;
+
+        final Class<?> returnType;
+
+        final Type genericReturnType;
+
+        /**
+         * return the ResultFuture directly: Future, CompletableFuture or CompletionStage
+         */
+        final boolean returnFuture;
+
+        final boolean returnSseEmitter;
+
+        MethodDescriptor(Method proxyMethod) {
+            this.targetMethod = targetMethod(proxyMethod);
+            this.serviceClass = targetServiceClass(targetClass);
+            this.methodName = targetMethod.getName();
+            this.paramsTypes = targetMethod.getParameterTypes();
+            this.genericParamsTypes = targetMethod.getGenericParameterTypes();
+            if (CompletionStageUtils.isCompletionStage(targetMethod.getReturnType())) {
+                // CompletionStage<T> declared in the service interface, the response body is T
+                Type valueType = CompletionStageUtils.valueType(targetMethod.getGenericReturnType());
+                this.returnType = CompletionStageUtils.rawClass(valueType);
+                this.genericReturnType = valueType;
+            } else {
+                this.returnType = targetMethod.getReturnType();
+                this.genericReturnType = targetMethod.getGenericReturnType();
+            }
+            Class<?> proxyReturnType = proxyMethod.getReturnType();
+            this.returnFuture = Future.class.isAssignableFrom(proxyReturnType)
+                || CompletionStage.class.isAssignableFrom(proxyReturnType);
+            this.returnSseEmitter = RpcSseEmitter.class.isAssignableFrom(proxyReturnType);
+        }
+    }
+}
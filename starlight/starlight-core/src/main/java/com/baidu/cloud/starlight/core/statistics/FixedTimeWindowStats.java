@@ -28,7 +28,10 @@ import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Fixed time window statistics, expires will be cleared Created by liuruisen on 2021/4/18.
+ *
+ * @deprecated allocates and CASes one shared pair per record, use {@link SlidingWindowStats}
  */
+@Deprecated
 public class FixedTimeWindowStats implements CountStats {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(FixedTimeWindowStats.class);
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.core.statistics;
+
+import com.baidu.cloud.starlight.api.common.Constants;
+import com.baidu.cloud.starlight.api.model.Request;
+import com.baidu.cloud.starlight.api.model.Response;
+import com.baidu.cloud.starlight.api.statistics.Stats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Log bucketed latency histogram of one peer, like HdrHistogram. Latencies below 16ms have their own buckets, larger
+ * ones share 16 buckets per power of 2, the relative error is within 1/16. Counts are halved once per decay interval
+ * so the histogram follows the recent latency. Recording is lock-free and does not allocate.
+ */
+public class LatencyHistogram implements Stats {
+
+    /**
+     * Key of the histogram registered by ClientMonitorFilter for each peer
+     */
+    public static final String LATENCY_STATS_KEY = "latency_histogram";
+
+    /**
+     * Counts are halved every 60s by default
+     */
+    public static final long DEFAULT_DECAY_INTERVAL_MILLS = 60_000L;
+
+    /**
+     * Max age of the percentile returned by {@link #recentPercentile(double)}
+     */
+    public static final long RECENT_PERCENTILE_MILLS = 1000L;
+
+    private static final int SUB_BUCKET_BITS = 4;
+
+    private static final int SUB_BUCKET_NUM = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Latencies larger than this are recorded as this: about 24 days
+     */
+    private static final long MAX_LATENCY = Integer.MAX_VALUE;
+
+    private static final int BUCKET_NUM = bucketIndex(MAX_LATENCY) + 1;
+
+    private final long decayIntervalMills;
+
+    private final AtomicLongArray buckets;
+
+    private final AtomicLong count;
+
+    private final AtomicLong sum;
+
+    private final AtomicLong lastDecayTime;
+
+    private volatile PercentileSnapshot percentileSnapshot;
+
+    public LatencyHistogram() {
+        this(DEFAULT_DECAY_INTERVAL_MILLS);
+    }
+
+    public LatencyHistogram(long decayIntervalMills) {
+        if (decayIntervalMills <= 0) {
+            throw new IllegalArgumentException("Decay interval must be positive: " + decayIntervalMills);
+        }
+        this.decayIntervalMills = decayIntervalMills;
+        this.buckets = new AtomicLongArray(BUCKET_NUM);
+        this.count = new AtomicLong();
+        this.sum = new AtomicLong();
+        this.lastDecayTime = new AtomicLong(System.currentTimeMillis());
+    }
+
+    @Override
+    public void record(Request request, Response response) {
+        Object latency = request.getNoneAdditionKv().get(Constants.CLIENT_REQUEST_COST);
+        if (latency instanceof Long) {
+            record((Long) latency);
+        }
+    }
+
+    /**
+     * @param latency latency in millis
+     */
+    public void record(long latency) {
+        record(latency, System.currentTimeMillis());
+    }
+
+    void record(long latency, long now) {
+        decay(now);
+        long value = Math.min(Math.max(latency, 0L), MAX_LATENCY);
+        buckets.getAndIncrement(bucketIndex(value));
+        count.getAndIncrement();
+        sum.getAndAdd(value);
+    }
+
+    /**
+     * Decayed count of the samples
+     *
+     * @return
+     */
+    public long count() {
+        return count.get();
+    }
+
+    /**
+     * Mean latency in millis, 0 if there is no sample
+     *
+     * @return
+     */
+    public long mean() {
+        long samples = count.get();
+        return samples <= 0 ? 0L : sum.get() / samples;
+    }
+
+    public long p50() {
+        return percentile(50);
+    }
+
+    public long p90() {
+        return percentile(90);
+    }
+
+    public long p99() {
+        return percentile(99);
+    }
+
+    /**
+     * Walk the buckets twice instead of copying them, the result is approximate if samples are recorded concurrently
+     *
+     * @param percentile 0-100, such as 99
+     * @return latency mills of the percentile, -1 if there is no sample
+     */
+    public long percentile(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_NUM; i++) {
+            total += buckets.get(i);
+        }
+        if (total <= 0) {
+            return -1;
+        }
+
+        long rank = Math.max(1L, (long) Math.ceil(percentile / 100 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_NUM; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return bucketValue(i);
+            }
+        }
+        return bucketValue(BUCKET_NUM - 1);
+    }
+
+    /**
+     * Percentile computed at most once per {@link #RECENT_PERCENTILE_MILLS}, for callers in the request path such as
+     * load balancers and hedged requests
+     *
+     * @param percentile 0-100, such as 99
+     * @return latency mills of the percentile, -1 if there is no sample
+     */
+    public long recentPercentile(double percentile) {
+        return recentPercentile(percentile, System.currentTimeMillis());
+    }
+
+    long recentPercentile(double percentile, long now) {
+        PercentileSnapshot snapshot = percentileSnapshot;
+        if (snapshot != null && snapshot.percentile == percentile
+            && now - snapshot.computeTime < RECENT_PERCENTILE_MILLS) {
+            return snapshot.value;
+        }
+        long value = percentile(percentile);
+        // no sample yet, compute again next time
+        if (value >= 0) {
+            percentileSnapshot = new PercentileSnapshot(percentile, value, now);
+        }
+        return value;
+    }
+
+    /**
+     * Halve the counts once the decay interval is passed, done by the caller which wins the CAS
+     */
+    void decay(long now) {
+        long last = lastDecayTime.get();
+        if (now - last < decayIntervalMills || !lastDecayTime.compareAndSet(last, now)) {
+            return;
+        }
+        for (int i = 0; i < BUCKET_NUM; i++) {
+            if (buckets.get(i) > 0) {
+                buckets.getAndUpdate(i, c -> c >> 1);
+            }
+        }
+        count.getAndUpdate(c -> c >> 1);
+        sum.getAndUpdate(s -> s >> 1);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_NUM) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_NUM - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_NUM + subBucket;
+    }
+
+    /**
+     * The middle value of the bucket
+     */
+    static long bucketValue(int index) {
+        if (index < SUB_BUCKET_NUM) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_NUM - 1;
+        long lower = (long) (SUB_BUCKET_NUM + index % SUB_BUCKET_NUM) << shift;
+        return lower + ((1L << shift) - 1) / 2;
+    }
+
+    private static final class PercentileSnapshot {
+
+        private final double percentile;
+
+        private final long value;
+
+        private final long computeTime;
+
+        private PercentileSnapshot(double percentile, long value, long computeTime) {
+            this.percentile = percentile;
+            this.value = value;
+            this.computeTime = computeTime;
+        }
+    }
+}
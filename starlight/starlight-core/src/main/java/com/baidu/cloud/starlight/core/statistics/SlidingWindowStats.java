@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.core.statistics;
+
+import com.baidu.cloud.starlight.api.common.Constants;
+import com.baidu.cloud.starlight.api.model.Request;
+import com.baidu.cloud.starlight.api.model.Response;
+import com.baidu.cloud.starlight.api.statistics.CountStats;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sliding time window statistics. The window is divided into a ring of buckets, each bucket counts with striped
+ * LongAdders, so recording neither allocates nor spins on a shared CAS. The bucket of an elapsed period is reset and
+ * reused when the ring comes around, counts recorded concurrently with the reset may be lost.
+ */
+public class SlidingWindowStats implements CountStats {
+
+    /**
+     * Default size of the bucket: 500ms
+     */
+    public static final long DEFAULT_BUCKET_MILLS = 500;
+
+    /**
+     * Bounds the buckets summed by one read, large windows use larger buckets
+     */
+    public static final int MAX_BUCKET_NUM = 120;
+
+    private final long bucketMills;
+
+    private final Bucket[] buckets;
+
+    /**
+     * @param timeWindowSize the size of time window: seconds
+     */
+    public SlidingWindowStats(long timeWindowSize) {
+        this(timeWindowSize * 1000, DEFAULT_BUCKET_MILLS);
+    }
+
+    public SlidingWindowStats(long timeWindowMills, long bucketMills) {
+        if (timeWindowMills <= 0 || bucketMills <= 0) {
+            throw new IllegalArgumentException(
+                "Time window and bucket must be positive: " + timeWindowMills + ", " + bucketMills);
+        }
+        if (timeWindowMills / bucketMills > MAX_BUCKET_NUM) {
+            bucketMills = (timeWindowMills + MAX_BUCKET_NUM - 1) / MAX_BUCKET_NUM;
+        }
+        int bucketNum = (int) Math.max(1, (timeWindowMills + bucketMills - 1) / bucketMills);
+        this.bucketMills = bucketMills;
+        this.buckets = new Bucket[bucketNum];
+        for (int i = 0; i < bucketNum; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    @Override
+    public Integer totalReqCount() {
+        return (int) sum(System.currentTimeMillis(), false);
+    }
+
+    @Override
+    public Integer failReqCount() {
+        return (int) sum(System.currentTimeMillis(), true);
+    }
+
+    @Override
+    public Integer sucReqCount() {
+        long now = System.currentTimeMillis();
+        return (int) (sum(now, false) - sum(now, true));
+    }
+
+    @Override
+    public void recordReqCount(boolean success) {
+        recordReqCount(success, System.currentTimeMillis());
+    }
+
+    @Override
+    public void record(Request request, Response response) {
+        boolean success = true;
+        if (!Constants.SUCCESS_CODE.equals(response.getStatus())) {
+            if (response.getStatus() > 1000 && response.getStatus() < 3000) { // StarlightRpcExp & TransportExp
+                success = false;
+            }
+        }
+
+        recordReqCount(success);
+    }
+
+    void recordReqCount(boolean success, long now) {
+        long period = now / bucketMills;
+        Bucket bucket = buckets[(int) (period % buckets.length)];
+        long bucketPeriod = bucket.period.get();
+        if (bucketPeriod < period && bucket.period.compareAndSet(bucketPeriod, period)) {
+            // the bucket of an elapsed period, reuse it
+            bucket.total.reset();
+            bucket.fail.reset();
+        }
+        bucket.total.increment();
+        if (!success) {
+            bucket.fail.increment();
+        }
+    }
+
+    long sum(long now, boolean fail) {
+        long period = now / bucketMills;
+        long sum = 0;
+        for (Bucket bucket : buckets) {
+            long bucketPeriod = bucket.period.get();
+            if (bucketPeriod <= period && bucketPeriod > period - buckets.length) {
+                sum += fail ? bucket.fail.sum() : bucket.total.sum();
+            }
+        }
+        return sum;
+    }
+
+    private static class Bucket {
+
+        private final AtomicLong period = new AtomicLong(-1);
+
+        private final LongAdder total = new LongAdder();
+
+        private final LongAdder fail = new LongAdder();
+    }
+}
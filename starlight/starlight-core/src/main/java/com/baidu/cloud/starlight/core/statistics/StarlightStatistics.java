@@ -71,6 +71,18 @@ public class StarlightStatistics {
         return clientStatsMap.get(statsKey);
     }
 
+    /**
+     * Latency histogram of the peer for monitoring, such as {@link LatencyHistogram#mean()},
+     * {@link LatencyHistogram#p50()}, {@link LatencyHistogram#p90()} and {@link LatencyHistogram#p99()}
+     *
+     * @return null if {@link com.baidu.cloud.starlight.api.common.Constants#LATENCY_HISTOGRAM_ENABLED_KEY} is not
+     *         enabled or no response is recorded yet
+     */
+    public LatencyHistogram latencyHistogram() {
+        Stats stats = clientStatsMap.get(LatencyHistogram.LATENCY_STATS_KEY);
+        return stats instanceof LatencyHistogram ? (LatencyHistogram) stats : null;
+    }
+
     /**
      * Remove stats by key
      * 
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.core.benchmark;
+
+import com.baidu.cloud.starlight.api.model.Request;
+import com.baidu.cloud.starlight.api.model.Response;
+import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
+import com.baidu.cloud.starlight.transport.channel.CallbackTable;
+import com.baidu.cloud.thirdparty.netty.util.Timeout;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-flight callback table of one channel: every rpc puts its callback, the response removes it later. Each thread
+ * keeps {@link ThreadState#INFLIGHT_PER_THREAD} requests in flight, ids come from a shared sequence like
+ * AbstractMsgBase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class CallbackTableBenchmark {
+
+    private static final RpcCallback CALLBACK = new RpcCallback() {
+        @Override
+        public void addTimeout(Timeout timeout) {}
+
+        @Override
+        public Request getRequest() {
+            return null;
+        }
+
+        @Override
+        public void onResponse(Response response) {}
+
+        @Override
+        public void onError(Throwable e) {}
+    };
+
+    @Param({"concurrentHashMap", "callbackTable"})
+    private String impl;
+
+    private final AtomicLong idGenerator = new AtomicLong();
+
+    private Map<Long, RpcCallback> map;
+
+    private CallbackTable table;
+
+    @Setup
+    public void setup() {
+        map = new ConcurrentHashMap<>();
+        table = new CallbackTable();
+        // long running requests of other callers, ids never used by the sequence
+        for (long id = -1; id >= -1024; id--) {
+            map.put(id, CALLBACK);
+            table.putIfAbsent(id, CALLBACK);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+
+        static final int INFLIGHT_PER_THREAD = 64;
+
+        private final long[] inflight = new long[INFLIGHT_PER_THREAD];
+
+        private int cursor;
+    }
+
+    @Benchmark
+    public Object putAndRemove(ThreadState state) {
+        long id = idGenerator.incrementAndGet();
+        int slot = state.cursor++ & (ThreadState.INFLIGHT_PER_THREAD - 1);
+        long completed = state.inflight[slot];
+        state.inflight[slot] = id;
+        if ("callbackTable".equals(impl)) {
+            table.putIfAbsent(id, CALLBACK);
+            return completed == 0 ? null : table.remove(completed);
+        }
+        map.putIfAbsent(id, CALLBACK);
+        return completed == 0 ? null : map.remove(completed);
+    }
+
+    @Benchmark
+    public int count() {
+        return "callbackTable".equals(impl) ? table.count() : map.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(CallbackTableBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.core.benchmark;
+
+import com.baidu.cloud.starlight.api.exception.CodecException;
+import com.baidu.cloud.starlight.api.model.Request;
+import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
+import com.baidu.cloud.starlight.api.transport.channel.ChannelAttribute;
+import com.baidu.cloud.starlight.api.transport.channel.ChannelSide;
+import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
+import com.baidu.cloud.starlight.api.transport.channel.ThreadLocalChannelContext;
+import com.baidu.cloud.starlight.protocol.http.HttpDecoder;
+import com.baidu.cloud.starlight.protocol.http.HttpRequestResponseDecoder;
+import com.baidu.cloud.starlight.transport.channel.LongRpcChannel;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.Unpooled;
+import com.baidu.cloud.thirdparty.netty.channel.embedded.EmbeddedChannel;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.DefaultHttpContent;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.DefaultHttpRequest;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.FullHttpMessage;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.FullHttpRequest;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpMethod;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpRequest;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpRequestEncoder;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpUtil;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpVersion;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.LastHttpContent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decode one chunked http request whose body arrives in 64KB reads. embedded: a new EmbeddedChannel re-parses all
+ * the buffered bytes on every read (the way it was before), stream: parse state kept in the channel, every byte is
+ * parsed once.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpStreamDecodeBenchmark {
+
+    private static final int READ_SIZE = 64 * 1024;
+
+    @Param({"embedded", "stream"})
+    private String mode;
+
+    @Param({"65536", "1048576", "8388608"})
+    private int bodySize;
+
+    private EmbeddedChannel channel;
+
+    private List<ByteBuf> reads;
+
+    private final HttpDecoder decoder = new HttpDecoder() {
+        @Override
+        protected Request reverseConvertRequest(FullHttpRequest httpRequest) {
+            httpRequest.release();
+            return null;
+        }
+    };
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel();
+        RpcChannel rpcChannel = new LongRpcChannel(channel, ChannelSide.SERVER);
+        channel.attr(RpcChannel.ATTRIBUTE_KEY).set(new ChannelAttribute(rpcChannel));
+
+        EmbeddedChannel encoder = new EmbeddedChannel(new HttpRequestEncoder());
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/upload");
+        HttpUtil.setTransferEncodingChunked(request, true);
+        encoder.writeOutbound(request);
+        for (int written = 0; written < bodySize; written += 8192) {
+            encoder.writeOutbound(new DefaultHttpContent(Unpooled.wrappedBuffer(new byte[8192])));
+        }
+        encoder.writeOutbound(LastHttpContent.EMPTY_LAST_CONTENT);
+        ByteBuf encoded = Unpooled.buffer();
+        for (Object msg : encoder.outboundMessages()) {
+            encoded.writeBytes((ByteBuf) msg);
+            ((ByteBuf) msg).release();
+        }
+
+        reads = new ArrayList<>();
+        while (encoded.isReadable()) {
+            reads.add(encoded.readRetainedSlice(Math.min(READ_SIZE, encoded.readableBytes())));
+        }
+        encoded.release();
+    }
+
+    @TearDown
+    public void tearDown() {
+        reads.forEach(ByteBuf::release);
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public int decode() {
+        DynamicCompositeByteBuf input = new DynamicCompositeByteBuf();
+        int decoded = 0;
+        try {
+            for (ByteBuf read : reads) {
+                input.addBuffer(read.retainedDuplicate());
+                if ("stream".equals(mode) ? streamDecode(input) : embeddedDecode(input)) {
+                    decoded++;
+                }
+            }
+        } finally {
+            input.release();
+        }
+        return decoded;
+    }
+
+    private boolean streamDecode(DynamicCompositeByteBuf input) {
+        ThreadLocalChannelContext.getContext().setChannel(channel);
+        try {
+            decoder.decode(input);
+            return true;
+        } catch (CodecException e) {
+            return false;
+        } finally {
+            ThreadLocalChannelContext.removeContext();
+        }
+    }
+
+    private static boolean embeddedDecode(DynamicCompositeByteBuf input) {
+        ByteBuf byteBuf = input.retainedSlice(input.readableBytes());
+        EmbeddedChannel embeddedChannel = new EmbeddedChannel(new HttpRequestResponseDecoder());
+        try {
+            embeddedChannel.writeInbound(byteBuf);
+            FullHttpMessage httpMessage = embeddedChannel.readInbound();
+            if (httpMessage == null) {
+                return false;
+            }
+            input.skipBytes(byteBuf.readerIndex());
+            httpMessage.release();
+            return true;
+        } finally {
+            byteBuf.release();
+            embeddedChannel.close();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(HttpStreamDecodeBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.core.benchmark;
+
+import com.baidu.cloud.starlight.api.utils.IDGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention of {@link IDGenerator#nextId()}, used for every stargate request id. The synchronized generator is the
+ * previous implementation kept here as baseline. Run {@link #main} to compare 1, 16 and 64 threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IDGeneratorBenchmark {
+
+    private final IDGenerator generator = IDGenerator.getInstance();
+
+    private final SynchronizedIDGenerator synchronizedGenerator = new SynchronizedIDGenerator();
+
+    @Benchmark
+    public long lockFree() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    public long synchronizedBaseline() {
+        return synchronizedGenerator.nextId();
+    }
+
+    /**
+     * Same bit layout, spins to the next millisecond once 1024 ids are used up
+     */
+    private static class SynchronizedIDGenerator {
+
+        private static final long START_STMP = 1627637626000L;
+
+        private static final long MAX_SEQUENCE = 1023L;
+
+        private long sequence = 0L;
+
+        private long lastStamp = -1L;
+
+        public synchronized long nextId() {
+            long currStmp = System.currentTimeMillis();
+            if (currStmp == lastStamp) {
+                sequence = (sequence + 1) & MAX_SEQUENCE;
+                if (sequence == 0L) {
+                    while (currStmp <= lastStamp) {
+                        currStmp = System.currentTimeMillis();
+                    }
+                }
+            } else {
+                sequence = 0L;
+            }
+            lastStamp = currStmp;
+            return (currStmp - START_STMP) << 28 | sequence;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[] {1, 16, 64}) {
+            Options options = new OptionsBuilder().include(IDGeneratorBenchmark.class.getSimpleName())
+                .threads(threads).build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.core.benchmark;
+
+import com.baidu.cloud.starlight.api.common.Constants;
+import com.baidu.cloud.starlight.api.extension.ExtensionLoader;
+import com.baidu.cloud.starlight.api.model.MsgBase;
+import com.baidu.cloud.starlight.api.model.RpcRequest;
+import com.baidu.cloud.starlight.api.protocol.Protocol;
+import com.baidu.cloud.starlight.api.protocol.ProtocolDecoder;
+import com.baidu.cloud.starlight.api.protocol.ProtocolEncoder;
+import com.baidu.cloud.starlight.api.rpc.config.ServiceConfig;
+import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
+import com.baidu.cloud.starlight.api.transport.channel.ChannelAttribute;
+import com.baidu.cloud.starlight.api.transport.channel.ChannelSide;
+import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
+import com.baidu.cloud.starlight.protocol.brpc.BrpcProtocol;
+import com.baidu.cloud.starlight.transport.channel.LongRpcChannel;
+import com.baidu.cloud.thirdparty.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Brpc request encode/decode round trip as the netty handlers and processors do it. lockedExtensionLoader: protocol
+ * resolved through ExtensionLoader for every step while holding the loader lock (the way it was before),
+ * extensionLoader: resolved through the lock free ExtensionLoader for every step, channel: resolved once in
+ * {@link ChannelAttribute}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class ProtocolRoundTripBenchmark {
+
+    @Param({"lockedExtensionLoader", "extensionLoader", "channel"})
+    private String mode;
+
+    private EmbeddedChannel channel;
+
+    private ChannelAttribute attribute;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel();
+        RpcChannel rpcChannel = new LongRpcChannel(channel, ChannelSide.SERVER);
+        attribute = new ChannelAttribute(rpcChannel);
+        attribute.resetChannelProtocol(BrpcProtocol.PROTOCOL_NAME);
+        channel.attr(RpcChannel.ATTRIBUTE_KEY).set(attribute);
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.finishAndReleaseAll();
+    }
+
+    @Benchmark
+    public Object roundTrip() {
+        RpcRequest request = request();
+        // encode: EncoderHandler
+        ProtocolEncoder encoder = "channel".equals(mode) ? attribute.getEncoder(request.getProtocolName())
+            : protocol(request.getProtocolName()).getEncoder();
+        encoder.encodeBody(request);
+        DynamicCompositeByteBuf byteBuf = new DynamicCompositeByteBuf(encoder.encode(request));
+
+        try {
+            // decode: DecoderHandler
+            ProtocolDecoder decoder = "channel".equals(mode) ? attribute.getDecoder(attribute.getChannelProtocol())
+                : protocol(attribute.getChannelProtocol()).getDecoder();
+            MsgBase msgBase = decoder.decode(byteBuf);
+
+            // body decode: ServerProcessor
+            Protocol protocol = "channel".equals(mode)
+                ? ChannelAttribute.protocolOf(attribute.getRpcChannel(), msgBase.getProtocolName())
+                : protocol(msgBase.getProtocolName());
+            ((RpcRequest) msgBase).setParamsTypes(new Class[] {String.class});
+            protocol.getDecoder().decodeBody(msgBase);
+            return msgBase;
+        } finally {
+            byteBuf.release();
+        }
+    }
+
+    private Protocol protocol(String protocolName) {
+        ExtensionLoader<Protocol> loader = ExtensionLoader.getInstance(Protocol.class);
+        if ("lockedExtensionLoader".equals(mode)) {
+            // getExtension used to be synchronized on the loader
+            synchronized (loader) {
+                return loader.getExtension(protocolName);
+            }
+        }
+        return loader.getExtension(protocolName);
+    }
+
+    private static RpcRequest request() {
+        Map<String, Object> kvMap = new HashMap<>();
+        kvMap.put(Constants.TRACE_ID_KEY, 123L);
+        kvMap.put(Constants.SPAN_ID_KEY, 2L);
+        kvMap.put(Constants.PARENT_SPAN_ID_KEY, 1L);
+
+        RpcRequest request = new RpcRequest();
+        request.setMethodName("echo");
+        request.setServiceClass(ProtocolRoundTripBenchmark.class);
+        request.setServiceConfig(new ServiceConfig());
+        request.setParams(new Object[] {"Hello Starlight"});
+        request.setParamsTypes(new Class[] {String.class});
+        request.setProtocolName(BrpcProtocol.PROTOCOL_NAME);
+        request.setAttachmentKv(kvMap);
+        return request;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder().include(ProtocolRoundTripBenchmark.class.getSimpleName()).build();
+        new Runner(options).run();
+    }
+}
@@ -16,10 +16,12 @@
  
 package com.baidu.cloud.starlight.core.filter;
 
+import com.baidu.cloud.starlight.api.common.Constants;
 import com.baidu.cloud.starlight.api.common.URI;
 import com.baidu.cloud.starlight.api.model.RpcRequest;
 import com.baidu.cloud.starlight.api.model.RpcResponse;
 import com.baidu.cloud.starlight.core.statistics.FixedTimeWindowStats;
+import com.baidu.cloud.starlight.core.statistics.LatencyHistogram;
 import com.baidu.cloud.starlight.core.statistics.StarlightStatistics;
 import com.baidu.cloud.starlight.core.statistics.StarlightStatsManager;
 import org.junit.Test;
@@ -47,5 +49,25 @@ public class ClientMonitorFilterTest {
 
         assertTrue(statistics.discoverStats("TEST") instanceof FixedTimeWindowStats);
         assertEquals(0, ((FixedTimeWindowStats) statistics.discoverStats("TEST")).totalReqCount().intValue());
+        // latency histogram is disabled by default
+        assertNull(statistics.latencyHistogram());
+    }
+
+    @Test
+    public void latencyHistogram() {
+        ClientMonitorFilter monitorFilter = new ClientMonitorFilter();
+        URI uri = new URI.Builder("brpc", "localhost", 8007).param(Constants.LATENCY_HISTOGRAM_ENABLED_KEY, true)
+            .build();
+        RpcRequest rpcRequest = new RpcRequest();
+        rpcRequest.setRemoteURI(uri);
+        rpcRequest.getNoneAdditionKv().put(Constants.CLIENT_REQUEST_COST, 20L);
+        StarlightStatistics statistics = StarlightStatsManager.getOrCreateStats(uri);
+        monitorFilter.filterResponse(new RpcResponse(), rpcRequest);
+
+        LatencyHistogram histogram = statistics.latencyHistogram();
+        assertEquals(1, histogram.count());
+        assertEquals(20, histogram.mean());
+        assertEquals(20, histogram.p99());
+        StarlightStatsManager.removeStats(uri);
     }
 }
\ No newline at end of file
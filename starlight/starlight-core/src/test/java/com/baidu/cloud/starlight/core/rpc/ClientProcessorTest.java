@@ -28,12 +28,15 @@ import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
 import com.baidu.cloud.starlight.api.rpc.config.ServiceConfig;
 import com.baidu.cloud.starlight.core.rpc.threadpool.RpcThreadPoolFactory;
 import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
+import com.baidu.cloud.thirdparty.netty.channel.Channel;
+import com.baidu.cloud.thirdparty.netty.channel.ChannelId;
 import com.baidu.cloud.thirdparty.netty.util.Timeout;
 import org.junit.Assert;
 import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.doReturn;
@@ -94,6 +97,56 @@ public class ClientProcessorTest {
         Assert.assertTrue(clientProcessor.completeCount(UserService.class.getName()) >= 1);
     }
 
+    @Test
+    public void processDirect() {
+        ClientProcessor directProcessor = new ClientProcessor(new RpcThreadPoolFactory(0, 2, "c"), true);
+        Response response = new RpcResponse();
+        response.setStatus(Constants.SUCCESS_CODE);
+        response.setResult(new User());
+
+        AtomicReference<Thread> callbackThread = new AtomicReference<>();
+        RpcCallback rpcCallback = new RpcCallback() {
+            @Override
+            public void addTimeout(Timeout timeout) {}
+
+            @Override
+            public Request getRequest() {
+                Request request = new RpcRequest();
+                request.setMethodName("getUser");
+                request.setServiceClass(UserService.class);
+                request.setServiceConfig(new ServiceConfig());
+                request.setProtocolName("brpc");
+                request.setReturnType(User.class);
+                request.setGenericReturnType(User.class);
+                return request;
+            }
+
+            @Override
+            public void onResponse(Response response) {
+                callbackThread.set(Thread.currentThread());
+            }
+
+            @Override
+            public void onError(Throwable e) {}
+        };
+        Channel channel = Mockito.mock(Channel.class);
+        ChannelId channelId = Mockito.mock(ChannelId.class);
+        doReturn("direct").when(channelId).asLongText();
+        doReturn(channelId).when(channel).id();
+        RpcChannel rpcChannel = Mockito.mock(RpcChannel.class);
+        doReturn(channel).when(rpcChannel).channel();
+        doReturn(rpcCallback).when(rpcChannel).removeCallback(anyLong());
+
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        directProcessor.process(response, rpcChannel);
+
+        // callback in the calling thread without thread pool
+        Assert.assertSame(Thread.currentThread(), callbackThread.get());
+        Assert.assertEquals(0L, (long) directProcessor.completeCount(UserService.class.getName()));
+        Assert.assertSame(classLoader, Thread.currentThread().getContextClassLoader());
+        directProcessor.close();
+    }
+
     @Test
     public void processError() throws InterruptedException {
 
@@ -32,8 +32,11 @@ import org.junit.Test;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -91,6 +94,63 @@ public class RpcServiceInvokerTest {
         rpcServiceInvoker.invoke(request, rpcCallback);
     }
 
+    @Test
+    public void invokeCompletionStage() {
+        CompletableFuture<String> stage = new CompletableFuture<>();
+        RpcService rpcService = new RpcService(EchoService.class, (EchoService) echo -> stage);
+        RpcServiceInvoker invoker = new RpcServiceInvoker(rpcService);
+
+        Request request = new RpcRequest();
+        request.setMethodName("echo");
+        request.setServiceName(EchoService.class.getName());
+        request.setProtocolName("brpc");
+        request.setParams(new Object[] {"hello"});
+
+        AtomicReference<Response> responseRef = new AtomicReference<>();
+        AtomicReference<Throwable> errorRef = new AtomicReference<>();
+        RpcCallback rpcCallback = new RpcCallback() {
+            @Override
+            public void addTimeout(Timeout timeout) {}
+
+            @Override
+            public Request getRequest() {
+                return request;
+            }
+
+            @Override
+            public void onResponse(Response response) {
+                responseRef.set(response);
+            }
+
+            @Override
+            public void onError(Throwable e) {
+                errorRef.set(e);
+            }
+        };
+        invoker.invoke(request, rpcCallback);
+        // not responded until the stage completes
+        assertNull(responseRef.get());
+
+        stage.complete("hello");
+        assertNull(errorRef.get());
+        assertEquals("hello", responseRef.get().getResult());
+        assertEquals(String.class, responseRef.get().getReturnType());
+        assertEquals(String.class, responseRef.get().getGenericReturnType());
+
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        invoker = new RpcServiceInvoker(new RpcService(EchoService.class, (EchoService) echo -> failed));
+        responseRef.set(null);
+        invoker.invoke(request, rpcCallback);
+        failed.completeExceptionally(new IllegalStateException("async failed"));
+        assertNull(responseRef.get());
+        assertTrue(errorRef.get() instanceof StarlightRpcException);
+        assertTrue(errorRef.get().getMessage().contains("async failed"));
+    }
+
+    public interface EchoService {
+        CompletableFuture<String> echo(String echo);
+    }
+
     @Test
     public void destroy() {
         rpcServiceInvoker.destroy();
@@ -16,6 +16,7 @@
  
 package com.baidu.cloud.starlight.core.rpc;
 
+import com.baidu.cloud.starlight.api.common.Constants;
 import com.baidu.cloud.starlight.api.rpc.RpcService;
 import com.baidu.cloud.starlight.api.rpc.ServiceInvoker;
 import com.baidu.cloud.starlight.api.rpc.config.ServiceConfig;
@@ -32,10 +33,13 @@ import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.net.URL;
+import java.net.URLClassLoader;
 import java.util.concurrent.TimeUnit;
 
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
 
 /**
  * Created by liuruisen on 2020/3/23.
@@ -84,6 +88,57 @@ public class ServerProcessorTest {
         Assert.assertTrue(serverProcessor.completeCount(request.getServiceName()) > 0);
     }
 
+    @Test
+    public void processDirect() {
+        RpcService rpcService = RpcServiceRegistry.getInstance().discover(UserService.class.getName()).getRpcService();
+        rpcService.getServiceConfig().setExecuteMode(Constants.EXECUTE_MODE_DIRECT);
+        try {
+            Request request = new RpcRequest();
+            request.setMethodName("getUser");
+            request.setServiceName(UserService.class.getName());
+            request.setProtocolName("brpc");
+            request.setParams(new Object[] {1l});
+
+            RpcChannel rpcChannel = Mockito.mock(RpcChannel.class);
+            doNothing().when(rpcChannel).send(any());
+            serverProcessor.setThreadPoolFactory(new RpcThreadPoolFactory(0, 10, "s"));
+            serverProcessor.process(request, rpcChannel);
+
+            // responded in the calling thread, the biz thread pool is not used
+            Mockito.verify(rpcChannel, Mockito.atLeastOnce()).send(any());
+            Assert.assertEquals(0L, (long) serverProcessor.completeCount(request.getServiceName()));
+        } finally {
+            rpcService.getServiceConfig().setExecuteMode(null);
+        }
+    }
+
+    @Test
+    public void processDirectSendFailed() {
+        RpcService rpcService = RpcServiceRegistry.getInstance().discover(UserService.class.getName()).getRpcService();
+        rpcService.getServiceConfig().setExecuteMode(Constants.EXECUTE_MODE_DIRECT);
+        ClassLoader ioClassLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        ClassLoader originClassLoader = Thread.currentThread().getContextClassLoader();
+        Thread.currentThread().setContextClassLoader(ioClassLoader);
+        try {
+            Request request = new RpcRequest();
+            request.setMethodName("getUser");
+            request.setServiceName(UserService.class.getName());
+            request.setProtocolName("brpc");
+            request.setParams(new Object[] {1l});
+
+            RpcChannel rpcChannel = Mockito.mock(RpcChannel.class);
+            doThrow(new RuntimeException("send failed")).when(rpcChannel).send(any());
+            serverProcessor.process(request, rpcChannel);
+
+            // already responded, no error response is sent again
+            Mockito.verify(rpcChannel, Mockito.times(1)).send(any());
+            Assert.assertSame(ioClassLoader, Thread.currentThread().getContextClassLoader());
+        } finally {
+            Thread.currentThread().setContextClassLoader(originClassLoader);
+            rpcService.getServiceConfig().setExecuteMode(null);
+        }
+    }
+
     @Test
     public void processError() throws InterruptedException {
         Request request = new RpcRequest();
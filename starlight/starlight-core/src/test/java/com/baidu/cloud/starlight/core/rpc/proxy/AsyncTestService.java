@@ -18,6 +18,7 @@ package com.baidu.cloud.starlight.core.rpc.proxy;
 
 import com.baidu.cloud.starlight.api.rpc.callback.Callback;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Future;
 
 /**
@@ -29,6 +30,12 @@ public interface AsyncTestService extends TestService {
 
     void echoCallback(String echo, Callback callback);
 
+    CompletableFuture<String> echoAsync(String echo);
+
+    CompletableFuture<String> testAsync(String echo);
+
+    String notAsync(String echo);
+
     void testCallback(String echo, Callback callback);
 
     void test(String echo);
@@ -48,6 +48,19 @@ public class JdkInvocationHandlerTest {
         assertNotEquals(callBackMethod, metho2);
         assertEquals(echoMethod, metho2);
 
+        Method asyncMethod = targateClass.getMethod("echoAsync", String.class);
+        Method method3 = jdkHandler.targetMethod(asyncMethod);
+        assertNotEquals(asyncMethod, method3);
+        assertEquals(echoMethod, method3);
+
+        Method testAsync = targateClass.getMethod("testAsync", String.class);
+        try {
+            jdkHandler.targetMethod(testAsync);
+            fail();
+        } catch (Exception e) {
+            assertTrue(e instanceof StarlightRpcException);
+        }
+
         Method testCallback = targateClass.getMethod("testCallback", String.class, Callback.class);
         try {
             jdkHandler.targetMethod(testCallback);
@@ -57,6 +70,38 @@ public class JdkInvocationHandlerTest {
 
     }
 
+    @Test
+    public void descriptor() throws NoSuchMethodException {
+        Method echoMethod = TestService.class.getMethod("echo", String.class);
+        JdkInvocationHandler.MethodDescriptor echo = jdkHandler.descriptor(echoMethod);
+        assertSame(echo, jdkHandler.descriptor(echoMethod));
+        assertEquals(echoMethod, echo.targetMethod);
+        assertEquals(TestService.class, echo.serviceClass);
+        assertEquals(String.class, echo.returnType);
+        assertFalse(echo.returnFuture);
+
+        Method asyncMethod = AsyncTestService.class.getMethod("echoAsync", String.class);
+        JdkInvocationHandler.MethodDescriptor echoAsync = jdkHandler.descriptor(asyncMethod);
+        assertEquals(echoMethod, echoAsync.targetMethod);
+        assertEquals("echo", echoAsync.methodName);
+        assertArrayEquals(new Class[] {String.class}, echoAsync.paramsTypes);
+        assertEquals(String.class, echoAsync.returnType);
+        assertTrue(echoAsync.returnFuture);
+
+        Method callbackMethod = AsyncTestService.class.getMethod("echoCallback", String.class, Callback.class);
+        JdkInvocationHandler.MethodDescriptor echoCallback = jdkHandler.descriptor(callbackMethod);
+        assertEquals(echoMethod, echoCallback.targetMethod);
+        assertArrayEquals(new Class[] {String.class}, echoCallback.paramsTypes);
+
+        Method testCallback = AsyncTestService.class.getMethod("testCallback", String.class, Callback.class);
+        try {
+            jdkHandler.descriptor(testCallback);
+            fail();
+        } catch (StarlightRpcException e) {
+            assertTrue(e.getMessage().contains("testCallback"));
+        }
+    }
+
     @Test
     public void targetServiceClass() {
         assertEquals(jdkHandler.targetServiceClass(AsyncTestService.class), TestService.class);
@@ -91,6 +136,12 @@ public class JdkInvocationHandlerTest {
         Method testCallbackMethod = AsyncTestService.class.getMethod("testCallback", String.class, Callback.class);
         assertTrue(jdkHandler.isAsyncCall(testCallbackMethod));
 
+        Method asyncMethod = AsyncTestService.class.getMethod("echoAsync", String.class);
+        assertTrue(jdkHandler.isAsyncCall(asyncMethod));
+
+        Method notAsyncMethod = AsyncTestService.class.getMethod("notAsync", String.class);
+        assertFalse(jdkHandler.isAsyncCall(notAsyncMethod));
+
         Method testMethod = AsyncTestService.class.getMethod("test", String.class);
         assertFalse(jdkHandler.isAsyncCall(testMethod));
 
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.core.statistics;
+
+import com.baidu.cloud.starlight.api.common.Constants;
+import com.baidu.cloud.starlight.api.model.RpcRequest;
+import com.baidu.cloud.starlight.api.model.RpcResponse;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucket() {
+        for (long value = 0; value < 100000; value++) {
+            int index = LatencyHistogram.bucketIndex(value);
+            long bucketValue = LatencyHistogram.bucketValue(index);
+            assertEquals(index, LatencyHistogram.bucketIndex(bucketValue));
+            assertTrue(Math.abs(bucketValue - value) <= value / 16);
+        }
+        // small latencies are exact
+        assertEquals(15, LatencyHistogram.bucketValue(LatencyHistogram.bucketIndex(15)));
+    }
+
+    @Test
+    public void percentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(-1, histogram.p99());
+        assertEquals(0, histogram.mean());
+
+        long now = System.currentTimeMillis();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i, now);
+        }
+        assertEquals(1000, histogram.count());
+        assertEquals(500, histogram.mean());
+        assertEquals(500, histogram.p50(), 500 / 16);
+        assertEquals(900, histogram.p90(), 900 / 16);
+        assertEquals(990, histogram.p99(), 990 / 16);
+        assertEquals(1, histogram.percentile(0.1));
+
+        // negative and huge latencies are bounded
+        histogram.record(-1, now);
+        histogram.record(Long.MAX_VALUE, now);
+        assertEquals(1002, histogram.count());
+    }
+
+    @Test
+    public void decay() {
+        LatencyHistogram histogram = new LatencyHistogram(1000);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < 100; i++) {
+            histogram.record(1000, now);
+        }
+        assertEquals(1000, histogram.p99(), 1000 / 16);
+
+        // the old samples are halved every interval, the recent ones take over
+        for (int round = 1; round <= 5; round++) {
+            for (int i = 0; i < 100; i++) {
+                histogram.record(10, now + round * 1000);
+            }
+        }
+        assertEquals(10, histogram.p90());
+        assertTrue(histogram.count() < 300);
+    }
+
+    @Test
+    public void recentPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        long now = System.currentTimeMillis();
+        // no sample is not cached
+        assertEquals(-1, histogram.recentPercentile(90, now));
+        histogram.record(10, now);
+        assertEquals(10, histogram.recentPercentile(90, now));
+
+        // cached within the interval
+        for (int i = 0; i < 100; i++) {
+            histogram.record(1000, now);
+        }
+        assertEquals(10, histogram.recentPercentile(90, now + LatencyHistogram.RECENT_PERCENTILE_MILLS - 1));
+        // another percentile or an expired one is computed again
+        assertEquals(1000, histogram.recentPercentile(99, now), 1000 / 16);
+        assertEquals(1000, histogram.recentPercentile(90, now + LatencyHistogram.RECENT_PERCENTILE_MILLS),
+            1000 / 16);
+    }
+
+    @Test
+    public void record() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        RpcRequest request = new RpcRequest();
+        histogram.record(request, new RpcResponse());
+        assertEquals(0, histogram.count());
+
+        request.getNoneAdditionKv().put(Constants.CLIENT_REQUEST_COST, 20L);
+        histogram.record(request, new RpcResponse());
+        assertEquals(1, histogram.count());
+        assertEquals(20, histogram.mean());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.core.statistics;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+
+public class SlidingWindowStatsTest {
+
+    @Test
+    public void recordReqCount() throws InterruptedException {
+        SlidingWindowStats stats = new SlidingWindowStats(180);
+
+        int threads = 10;
+        CountDownLatch latch = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            int finalI = i;
+            new Thread(() -> {
+                for (int j = 0; j < 50; j++) {
+                    stats.recordReqCount(finalI < 4);
+                }
+                latch.countDown();
+            }).start();
+        }
+        latch.await();
+
+        assertEquals(500, stats.totalReqCount().intValue());
+        assertEquals(300, stats.failReqCount().intValue());
+        assertEquals(200, stats.sucReqCount().intValue());
+    }
+
+    @Test
+    public void slide() {
+        // 10 buckets of 100ms
+        SlidingWindowStats stats = new SlidingWindowStats(1000, 100);
+        long start = 100000;
+        stats.recordReqCount(true, start);
+        stats.recordReqCount(false, start + 50);
+        stats.recordReqCount(true, start + 500);
+        assertEquals(3, stats.sum(start + 500, false));
+        assertEquals(1, stats.sum(start + 500, true));
+
+        // the first bucket slides out
+        assertEquals(1, stats.sum(start + 1000, false));
+        assertEquals(0, stats.sum(start + 1000, true));
+
+        // the bucket is reused by a later period
+        stats.recordReqCount(false, start + 1000);
+        assertEquals(2, stats.sum(start + 1000, false));
+        assertEquals(1, stats.sum(start + 1000, true));
+
+        // all expired
+        assertEquals(0, stats.sum(start + 5000, false));
+    }
+
+    @Test
+    public void maxBucketNum() {
+        SlidingWindowStats stats = new SlidingWindowStats(3600);
+        long start = 100000;
+        stats.recordReqCount(true, start);
+        assertEquals(1, stats.sum(start + 3500 * 1000L, false));
+        assertEquals(0, stats.sum(start + 3600 * 1000L, false));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void illegal() {
+        new SlidingWindowStats(0);
+    }
+}
@@ -18,21 +18,21 @@ package com.baidu.cloud.starlight.protocol.brpc;
 
 import com.baidu.cloud.starlight.api.common.Constants;
 import com.baidu.cloud.starlight.api.exception.CodecException;
-import com.baidu.cloud.starlight.api.extension.ExtensionLoader;
 import com.baidu.cloud.starlight.api.model.MsgBase;
 import com.baidu.cloud.starlight.api.model.Request;
 import com.baidu.cloud.starlight.api.model.Response;
 import com.baidu.cloud.starlight.api.model.RpcRequest;
 import com.baidu.cloud.starlight.api.model.RpcResponse;
 import com.baidu.cloud.starlight.api.model.Wrapper;
+import com.baidu.cloud.starlight.api.serialization.compressor.CompressType;
 import com.baidu.cloud.starlight.api.serialization.serializer.Serializer;
 import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
-import com.baidu.cloud.starlight.api.protocol.Protocol;
 import com.baidu.cloud.starlight.api.protocol.ProtocolDecoder;
-import com.baidu.cloud.starlight.api.utils.ByteArrayUtils;
 import com.baidu.cloud.starlight.api.utils.StringUtils;
 import com.baidu.cloud.starlight.serialization.serializer.ProtobufSerializer;
 import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufUtil;
+import com.baidu.cloud.thirdparty.netty.buffer.Unpooled;
 import com.baidu.cloud.starlight.serialization.serializer.ProtoStuffSerializer;
 
 import java.util.Arrays;
@@ -94,10 +94,10 @@ public class BrpcDecoder implements ProtocolDecoder {
                     throw new CodecException(CodecException.PROTOCOL_DECODE_EXCEPTION,
                         "Brpc decode failed, brpc body data is null");
                 }
-                // data body: body data + binary attach data, remember to release
-                byte[] dataBytes = new byte[dataSize]; // data
-                dataBuf.readBytes(dataBytes);
-                output.setBodyBytes(dataBytes);
+                // data body: body data + binary attach data, zero copy.
+                // The retained slice is owned by the message and released after body decoded
+                output.setBodyBuf(dataBuf);
+                dataBuf = null;
             }
             // set protocol name
             output.setProtocolName(BrpcProtocol.PROTOCOL_NAME);
@@ -108,7 +108,7 @@ public class BrpcDecoder implements ProtocolDecoder {
             if (metaBuf != null) {
                 metaBuf.release();
             }
-            if (dataBuf != null) {
+            if (dataBuf != null) { // not transferred to the message because of exception
                 dataBuf.release();
             }
         }
@@ -158,7 +158,7 @@ public class BrpcDecoder implements ProtocolDecoder {
     private Request requestMeta(BrpcMeta rpcMeta) {
         Request request = new RpcRequest(rpcMeta.getCorrelationId());
         // msgBase common information
-        request.setCompressType(rpcMeta.getCompressType());
+        request.setCompressType(rpcMeta.getCompressType() == null ? 0 : rpcMeta.getCompressType());
         request.setHeartbeat(false); // not support heartbeat message
         // protocol
         request.setProtocolName(BrpcProtocol.PROTOCOL_NAME);
@@ -203,7 +203,7 @@ public class BrpcDecoder implements ProtocolDecoder {
     private Response responseMeta(BrpcMeta rpcMeta) {
         Response response = new RpcResponse(rpcMeta.getCorrelationId());
         // msgBase common information
-        response.setCompressType(rpcMeta.getCompressType());
+        response.setCompressType(rpcMeta.getCompressType() == null ? 0 : rpcMeta.getCompressType());
 
         // Response information
         BrpcResponseMeta responseMeta = rpcMeta.getResponse();
@@ -227,33 +227,52 @@ public class BrpcDecoder implements ProtocolDecoder {
         if (msgBase == null) {
             throw new CodecException(CodecException.BODY_DECODE_EXCEPTION, "Message is null to decode");
         }
-        if (msgBase.getBodyBytes() == null || msgBase.getBodyBytes().length == 0) { // body is null, return
+        if (!msgBase.hasBody()) { // body is null, return
             return;
         }
 
-        int attachSize = 0; // binary attach
-        if (msgBase.getAttachmentKv() != null
-            && msgBase.getAttachmentKv().get(BrpcProtocol.BINARY_ATTACH_SIZE_KEY) != null) {
-            attachSize = (int) msgBase.getAttachmentKv().get(BrpcProtocol.BINARY_ATTACH_SIZE_KEY);
-            if (attachSize > 0) {
-                byte[] dataBytes =
-                    ByteArrayUtils.subByte(msgBase.getBodyBytes(), 0, msgBase.getBodyBytes().length - attachSize);
-                byte[] attach = ByteArrayUtils.subByte(msgBase.getBodyBytes(),
-                    msgBase.getBodyBytes().length - attachSize, attachSize);
-                msgBase.setBodyBytes(dataBytes);
-                msgBase.getAttachmentKv().put(BrpcProtocol.BINARY_ATTACH_KEY, attach);
+        ByteBuf plainBuf = null;
+        try {
+            // read from the retained body slice directly, byte[] body is wrapped without copying
+            ByteBuf bodyBuf = msgBase.getBodyBuf();
+            if (bodyBuf == null) {
+                bodyBuf = Unpooled.wrappedBuffer(msgBase.getBodyBytes());
             }
-        }
 
-        if (msgBase instanceof Request) {
-            decodeRequestBody((Request) msgBase);
-        }
-        if (msgBase instanceof Response) {
-            decodeResponseBody((Response) msgBase);
+            int attachSize = 0; // binary attach
+            if (msgBase.getAttachmentKv() != null
+                && msgBase.getAttachmentKv().get(BrpcProtocol.BINARY_ATTACH_SIZE_KEY) != null) {
+                attachSize = (int) msgBase.getAttachmentKv().get(BrpcProtocol.BINARY_ATTACH_SIZE_KEY);
+                if (attachSize > 0) {
+                    int dataSize = bodyBuf.readableBytes() - attachSize;
+                    // binary attachment is exposed as byte[], only the attachment part is copied
+                    byte[] attach = ByteBufUtil.getBytes(bodyBuf, bodyBuf.readerIndex() + dataSize, attachSize);
+                    msgBase.getAttachmentKv().put(BrpcProtocol.BINARY_ATTACH_KEY, attach);
+                    bodyBuf = bodyBuf.slice(bodyBuf.readerIndex(), dataSize);
+                }
+            }
+
+            // only data part is compressed
+            if (msgBase.getCompressType() != CompressType.NONE.getType()) {
+                plainBuf = CompressType.valueOf(msgBase.getCompressType()).getCompress().decompress(bodyBuf);
+                bodyBuf = plainBuf;
+            }
+
+            if (msgBase instanceof Request) {
+                decodeRequestBody((Request) msgBase, bodyBuf);
+            }
+            if (msgBase instanceof Response) {
+                decodeResponseBody((Response) msgBase, bodyBuf);
+            }
+        } finally {
+            if (plainBuf != null) {
+                plainBuf.release();
+            }
+            msgBase.releaseBody();
         }
     }
 
-    private void decodeRequestBody(Request request) {
+    private void decodeRequestBody(Request request, ByteBuf bodyBuf) {
         Class[] originParamTypes = request.getParamsTypes();
 
         // Compatible with various problems in the Java scene
@@ -266,12 +285,12 @@ public class BrpcDecoder implements ProtocolDecoder {
             ProtoStuffSerializer stuffSerializer = (ProtoStuffSerializer) serializer;
             // compatible empty collection in response body
             Integer idStrategyFlag = BrpcProtocol.bodyStrategyFlag(BrpcProtocol.bodySerMode(request));
-            object = stuffSerializer.deserialize(request.getBodyBytes(), request.getParamsTypes()[0], idStrategyFlag);
+            object = stuffSerializer.deserialize(bodyBuf, request.getParamsTypes()[0], idStrategyFlag);
         }
 
         if (serializer instanceof ProtobufSerializer) {
             ProtobufSerializer protobufSerializer = (ProtobufSerializer) serializer;
-            object = protobufSerializer.deserialize(request.getBodyBytes(), request.getParamsTypes()[0]);
+            object = protobufSerializer.deserialize(bodyBuf, request.getParamsTypes()[0]);
         }
         request.setParams(new Object[] {object});
 
@@ -284,7 +303,7 @@ public class BrpcDecoder implements ProtocolDecoder {
         request.setParamsTypes(originParamTypes);
     }
 
-    private void decodeResponseBody(Response response) {
+    private void decodeResponseBody(Response response, ByteBuf bodyBuf) {
         Class originRetType = response.getReturnType();
 
         // Compatible with various problems in the Java scene
@@ -297,12 +316,12 @@ public class BrpcDecoder implements ProtocolDecoder {
             ProtoStuffSerializer stuffSerializer = (ProtoStuffSerializer) serializer;
             // compatible empty collection in response body
             Integer idStrategyFlag = BrpcProtocol.bodyStrategyFlag(BrpcProtocol.bodySerMode(response.getRequest()));
-            result = stuffSerializer.deserialize(response.getBodyBytes(), response.getReturnType(), idStrategyFlag);
+            result = stuffSerializer.deserialize(bodyBuf, response.getReturnType(), idStrategyFlag);
         }
 
         if (serializer instanceof ProtobufSerializer) {
             ProtobufSerializer protobufSerializer = (ProtobufSerializer) serializer;
-            result = protobufSerializer.deserialize(response.getBodyBytes(), response.getReturnType());
+            result = protobufSerializer.deserialize(bodyBuf, response.getReturnType());
         }
         response.setResult(result);
 
@@ -316,8 +335,6 @@ public class BrpcDecoder implements ProtocolDecoder {
     }
 
     private Serializer serializer(String serializerType) {
-        BrpcProtocol brpcProtocol =
-            (BrpcProtocol) ExtensionLoader.getInstance(Protocol.class).getExtension(BrpcProtocol.PROTOCOL_NAME);
-        return brpcProtocol.getSerialize(serializerType);
+        return BrpcProtocol.serializer(serializerType);
     }
 }
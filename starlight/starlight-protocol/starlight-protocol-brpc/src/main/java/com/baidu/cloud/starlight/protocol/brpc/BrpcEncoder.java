@@ -18,18 +18,18 @@ package com.baidu.cloud.starlight.protocol.brpc;
 
 import com.baidu.cloud.starlight.api.common.Constants;
 import com.baidu.cloud.starlight.api.exception.CodecException;
-import com.baidu.cloud.starlight.api.extension.ExtensionLoader;
 import com.baidu.cloud.starlight.api.model.MsgBase;
 import com.baidu.cloud.starlight.api.model.Request;
 import com.baidu.cloud.starlight.api.model.Response;
-import com.baidu.cloud.starlight.api.protocol.Protocol;
 import com.baidu.cloud.starlight.api.protocol.ProtocolEncoder;
+import com.baidu.cloud.starlight.api.rpc.config.ServiceConfig;
+import com.baidu.cloud.starlight.api.serialization.compressor.CompressType;
 import com.baidu.cloud.starlight.api.serialization.serializer.Serializer;
 import com.baidu.cloud.starlight.api.utils.ByteArrayUtils;
 import com.baidu.cloud.starlight.api.utils.StringUtils;
 import com.baidu.cloud.starlight.serialization.serializer.ProtobufSerializer;
 import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
-import com.baidu.cloud.thirdparty.netty.buffer.Unpooled;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufAllocator;
 import com.baidu.cloud.starlight.serialization.serializer.ProtoStuffSerializer;
 
 import java.util.HashMap;
@@ -202,30 +202,30 @@ public class BrpcEncoder implements ProtocolEncoder {
         return starlightResponseMeta;
     }
 
+    /**
+     * Write header + meta + body into one buffer from the pooled io allocator, the channel writes it to the socket
+     * directly and returns it to the pool after being written.
+     *
+     * @param metaBytes
+     * @param dataBytes
+     * @return
+     */
     private ByteBuf protocolEncode(byte[] metaBytes, byte[] dataBytes) {
-        // header buf
-        ByteBuf headerBuf = Unpooled.buffer(FIXED_LEN);
-        // magic num
-        headerBuf.writeBytes(BrpcProtocol.MAGIC_HEAD);
         int bodySize = metaBytes.length;
-        if (dataBytes != null && dataBytes.length > 0) {
+        if (dataBytes != null) {
             bodySize = bodySize + dataBytes.length;
         }
-        // body size
-        headerBuf.writeInt(bodySize);
-        // meta size
-        headerBuf.writeInt(metaBytes.length);
-
-        // body buf
-        ByteBuf bodyBuf = null;
-        // body
-        if (dataBytes != null && dataBytes.length > 0) {
-            bodyBuf = Unpooled.wrappedBuffer(metaBytes, dataBytes);
-        } else {
-            bodyBuf = Unpooled.wrappedBuffer(metaBytes);
+        ByteBuf outBuf = ByteBufAllocator.DEFAULT.ioBuffer(FIXED_LEN + bodySize);
+        // header: magic num + body size + meta size
+        outBuf.writeBytes(BrpcProtocol.MAGIC_HEAD);
+        outBuf.writeInt(bodySize);
+        outBuf.writeInt(metaBytes.length);
+        // meta + body
+        outBuf.writeBytes(metaBytes);
+        if (dataBytes != null) {
+            outBuf.writeBytes(dataBytes);
         }
-
-        return Unpooled.wrappedBuffer(headerBuf, bodyBuf);
+        return outBuf;
     }
 
     @Override
@@ -242,6 +242,9 @@ public class BrpcEncoder implements ProtocolEncoder {
             encodeResponseBody((Response) msgBase);
         }
 
+        // compress data part only, binary attachment is not compressed as brpc does
+        compressBody(msgBase);
+
         // support brpc attachment bytes
         if (msgBase.getAttachmentKv() != null
             && msgBase.getAttachmentKv().get(BrpcProtocol.BINARY_ATTACH_KEY) != null) {
@@ -319,9 +322,37 @@ public class BrpcEncoder implements ProtocolEncoder {
         response.setReturnType(originRetType);
     }
 
+    private void compressBody(MsgBase msgBase) {
+        CompressType compressType = CompressType.NONE;
+        int threshold = Constants.DEFAULT_COMPRESS_THRESHOLD;
+        if (msgBase.getCompressType() != CompressType.NONE.getType()) {
+            compressType = CompressType.valueOf(msgBase.getCompressType());
+        }
+        if (msgBase instanceof Request) {
+            ServiceConfig serviceConfig = ((Request) msgBase).getServiceConfig();
+            if (serviceConfig != null && compressType == CompressType.NONE) {
+                compressType = CompressType.forName(serviceConfig.getCompressType());
+            }
+            if (serviceConfig != null && serviceConfig.getCompressThreshold() != null) {
+                threshold = serviceConfig.getCompressThreshold();
+            }
+        }
+        // response is compressed the same way as the request
+        if (msgBase instanceof Response && compressType == CompressType.NONE
+            && ((Response) msgBase).getRequest() != null) {
+            compressType = CompressType.valueOf(((Response) msgBase).getRequest().getCompressType());
+        }
+
+        byte[] bodyBytes = msgBase.getBodyBytes();
+        if (compressType == CompressType.NONE || bodyBytes == null || bodyBytes.length < threshold) {
+            msgBase.setCompressType(CompressType.NONE.getType());
+            return;
+        }
+        msgBase.setBodyBytes(compressType.getCompress().compress(bodyBytes));
+        msgBase.setCompressType(compressType.getType());
+    }
+
     private Serializer serializer(String serializerType) {
-        BrpcProtocol brpcProtocol =
-            (BrpcProtocol) ExtensionLoader.getInstance(Protocol.class).getExtension(BrpcProtocol.PROTOCOL_NAME);
-        return brpcProtocol.getSerialize(serializerType);
+        return BrpcProtocol.serializer(serializerType);
     }
 }
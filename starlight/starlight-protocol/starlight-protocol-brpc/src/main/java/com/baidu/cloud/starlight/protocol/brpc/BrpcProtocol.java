@@ -30,6 +30,8 @@ import com.baidu.cloud.starlight.api.protocol.HeartbeatTrigger;
 import com.baidu.cloud.starlight.api.protocol.Protocol;
 import com.baidu.cloud.starlight.api.protocol.ProtocolDecoder;
 import com.baidu.cloud.starlight.api.protocol.ProtocolEncoder;
+import com.baidu.cloud.starlight.api.protocol.ProtocolMatch;
+import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
 import com.baidu.cloud.starlight.serialization.serializer.ProtoStuffSerializer;
 import com.baidu.cloud.starlight.api.serialization.serializer.Serializer;
 import com.google.protobuf.MessageLite;
@@ -75,7 +77,7 @@ public class BrpcProtocol implements Protocol {
     /**
      * MAX body size 512M
      */
-    protected static final Integer MAX_BODY_SIZE = 512 * 1024 * 1024;
+    protected static final Integer MAX_BODY_SIZE = Constants.MAX_BODY_SIZE;
 
     /**
      * stargate protostuff IdStrategy
@@ -128,7 +130,22 @@ public class BrpcProtocol implements Protocol {
         return getSerialize(SERIALIZER_TYPE_PROTOSTUFF);
     }
 
+    @Override
+    public ProtocolMatch match(DynamicCompositeByteBuf input) {
+        return ProtocolMatch.magic(input, 0, MAGIC_HEAD);
+    }
+
     public Serializer getSerialize(String serializerType) {
+        return serializer(serializerType);
+    }
+
+    /**
+     * Serializer by serializerType, used by encoder and decoder without looking up the protocol extension
+     *
+     * @param serializerType
+     * @return
+     */
+    static Serializer serializer(String serializerType) {
         // 选择protobuf作为序列化反序列化器
         if (SERIALIZER_TYPE_PROTOBUF.equalsIgnoreCase(serializerType)) {
             return PROTOBUF_SERIALIZER;
@@ -103,9 +103,15 @@ public class BrpcDecoderTest {
             rpcRequest.getAttachmentKv().get(BrpcProtocol.BINARY_ATTACH_SIZE_KEY));
 
         // request rpc body check
+        Assert.assertNotNull(rpcRequest.getBodyBuf());
+        Assert.assertTrue(rpcRequest.hasBody());
         rpcRequest.setParamsTypes(new Class[] {String.class});
         brpcDecoder.decodeBody(rpcRequest);
         Assert.assertTrue(rpcRequest.getParams()[0].equals("Test"));
+        Assert.assertArrayEquals("hello".getBytes(),
+            (byte[]) rpcRequest.getAttachmentKv().get(BrpcProtocol.BINARY_ATTACH_KEY));
+        // body slice is released after decoded
+        Assert.assertNull(rpcRequest.getBodyBuf());
 
         byteBuf.addBuffer(responseBuf);
         RpcResponse rpcResponse = (RpcResponse) brpcDecoder.decode(byteBuf);
@@ -114,5 +120,80 @@ public class BrpcDecoderTest {
         rpcResponse.setReturnType(String.class);
         brpcDecoder.decodeBody(rpcResponse);
         Assert.assertTrue(rpcResponse.getResult().equals("Test"));
+        Assert.assertNull(rpcResponse.getBodyBuf());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void decodeCompressed() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            builder.append("{\"id\":").append(i).append(",\"name\":\"starlight\"}");
+        }
+        String param = builder.toString();
+
+        for (String compressType : new String[] {"gzip", "snappy"}) {
+            ServiceConfig serviceConfig = new ServiceConfig();
+            serviceConfig.setCompressType(compressType);
+            RpcRequest request = new RpcRequest();
+            request.setMethodName("init");
+            request.setServiceClass(this.getClass());
+            request.setServiceConfig(serviceConfig);
+            request.setParams(new Object[] {param});
+            request.setParamsTypes(new Class[] {String.class});
+            request.setProtocolName("brpc");
+            Map<String, Object> kvMap = new HashMap<>();
+            kvMap.put(BrpcProtocol.BINARY_ATTACH_KEY, "hello".getBytes());
+            request.setAttachmentKv(kvMap);
+
+            brpcEncoder.encodeBody(request);
+            Assert.assertTrue(request.getCompressType() != 0);
+            DynamicCompositeByteBuf byteBuf = new DynamicCompositeByteBuf();
+            byteBuf.addBuffer(brpcEncoder.encode(request));
+            RpcRequest decoded = (RpcRequest) brpcDecoder.decode(byteBuf);
+            Assert.assertEquals(request.getCompressType(), decoded.getCompressType());
+            decoded.setParamsTypes(new Class[] {String.class});
+            brpcDecoder.decodeBody(decoded);
+            Assert.assertEquals(param, decoded.getParams()[0]);
+            Assert.assertArrayEquals("hello".getBytes(),
+                (byte[]) decoded.getAttachmentKv().get(BrpcProtocol.BINARY_ATTACH_KEY));
+
+            // response is compressed as the request
+            RpcResponse response = new RpcResponse(decoded.getId());
+            response.setResult(param);
+            response.setReturnType(String.class);
+            response.setStatus(Constants.SUCCESS_CODE);
+            response.setProtocolName("brpc");
+            response.setRequest(decoded);
+            response.setAttachmentKv(new HashMap<>());
+            brpcEncoder.encodeBody(response);
+            Assert.assertEquals(decoded.getCompressType(), response.getCompressType());
+            byteBuf.addBuffer(brpcEncoder.encode(response));
+            RpcResponse decodedResponse = (RpcResponse) brpcDecoder.decode(byteBuf);
+            decodedResponse.setRequest(request);
+            decodedResponse.setReturnType(String.class);
+            brpcDecoder.decodeBody(decodedResponse);
+            Assert.assertEquals(param, decodedResponse.getResult());
+        }
+    }
+
+    @Test
+    public void compressThreshold() {
+        ServiceConfig serviceConfig = new ServiceConfig();
+        serviceConfig.setCompressType("gzip");
+        RpcRequest request = new RpcRequest();
+        request.setMethodName("init");
+        request.setServiceClass(this.getClass());
+        request.setServiceConfig(serviceConfig);
+        request.setParams(new Object[] {"Test"});
+        request.setParamsTypes(new Class[] {String.class});
+        request.setAttachmentKv(new HashMap<>());
+
+        // small body is not compressed
+        brpcEncoder.encodeBody(request);
+        Assert.assertEquals(0, request.getCompressType());
+
+        serviceConfig.setCompressThreshold(0);
+        brpcEncoder.encodeBody(request);
+        Assert.assertEquals(2, request.getCompressType());
+    }
+}
@@ -22,11 +22,15 @@ import com.baidu.cloud.starlight.api.model.Response;
 import com.baidu.cloud.starlight.api.model.RpcRequest;
 import com.baidu.cloud.starlight.api.model.RpcResponse;
 import com.baidu.cloud.starlight.api.model.Wrapper;
+import com.baidu.cloud.starlight.api.protocol.ProtocolMatch;
+import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
 import com.baidu.cloud.starlight.api.utils.GenericUtil;
 import com.baidu.cloud.starlight.serialization.serializer.ProtoStuffSerializer;
+import com.baidu.cloud.thirdparty.netty.buffer.Unpooled;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -62,6 +66,17 @@ public class BrpcProtocolTest {
         assertTrue(brpcProtocol.getSerialize(BrpcProtocol.SERIALIZER_TYPE_PROTOSTUFF) instanceof ProtoStuffSerializer);
     }
 
+    @Test
+    public void match() {
+        assertEquals(ProtocolMatch.MATCH, brpcProtocol.match(input("PRPC0000")));
+        assertEquals(ProtocolMatch.NEED_MORE_DATA, brpcProtocol.match(input("PR")));
+        assertEquals(ProtocolMatch.NOT_MATCH, brpcProtocol.match(input("GET / HTTP/1.1")));
+    }
+
+    private static DynamicCompositeByteBuf input(String data) {
+        return new DynamicCompositeByteBuf(Unpooled.wrappedBuffer(data.getBytes(StandardCharsets.US_ASCII)));
+    }
+
     @Test
     public void wrapRequest() {
         Request request = new RpcRequest();
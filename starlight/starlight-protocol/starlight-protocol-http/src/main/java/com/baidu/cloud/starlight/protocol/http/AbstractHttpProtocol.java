@@ -19,11 +19,15 @@ package com.baidu.cloud.starlight.protocol.http;
 import com.baidu.cloud.starlight.api.model.Request;
 import com.baidu.cloud.starlight.api.protocol.HeartbeatTrigger;
 import com.baidu.cloud.starlight.api.protocol.Protocol;
+import com.baidu.cloud.starlight.api.protocol.ProtocolMatch;
+import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
 import com.baidu.cloud.starlight.serialization.serializer.JsonSerializer;
 import com.baidu.cloud.starlight.api.serialization.serializer.Serializer;
 import com.baidu.cloud.thirdparty.servlet.http.HttpServletRequest;
 import com.baidu.cloud.thirdparty.servlet.http.HttpServletResponse;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * HttpProtocol Created by liuruisen on 2020/5/27.
  */
@@ -39,6 +43,12 @@ public abstract class AbstractHttpProtocol implements Protocol {
 
     public static final Integer UNKNOW_STATUS = 99999;
 
+    /**
+     * 请求行或响应行的起始token: 请求方法或者"HTTP/"
+     */
+    static final byte[][] START_LINE_TOKENS = tokens("GET ", "POST ", "PUT ", "DELETE ", "HEAD ", "OPTIONS ",
+        "PATCH ", "TRACE ", "CONNECT ", "HTTP/");
+
     @Override
     public HeartbeatTrigger getHeartbeatTrigger() {
         return null;
@@ -49,6 +59,49 @@ public abstract class AbstractHttpProtocol implements Protocol {
         return serializer;
     }
 
+    @Override
+    public ProtocolMatch match(DynamicCompositeByteBuf input) {
+        return matchStartLine(input);
+    }
+
+    /**
+     * 跳过前导控制字符后，判断数据是否以请求方法或者"HTTP/"开头
+     *
+     * @param input
+     * @return
+     */
+    static ProtocolMatch matchStartLine(DynamicCompositeByteBuf input) {
+        // skip control chars before the start line, the same as HttpObjectDecoder
+        int offset = 0;
+        while (offset < input.readableBytes() && isControlOrWhitespace(input.getByte(offset))) {
+            offset++;
+        }
+        ProtocolMatch result = ProtocolMatch.NOT_MATCH;
+        for (byte[] token : START_LINE_TOKENS) {
+            ProtocolMatch match = ProtocolMatch.magic(input, offset, token);
+            if (match == ProtocolMatch.MATCH) {
+                return match;
+            }
+            if (match == ProtocolMatch.NEED_MORE_DATA) {
+                result = match;
+            }
+        }
+        return result;
+    }
+
+    private static boolean isControlOrWhitespace(byte b) {
+        char c = (char) (b & 0xFF);
+        return Character.isISOControl(c) || Character.isWhitespace(c);
+    }
+
+    private static byte[][] tokens(String... tokens) {
+        byte[][] bytes = new byte[tokens.length][];
+        for (int i = 0; i < tokens.length; i++) {
+            bytes[i] = tokens[i].getBytes(StandardCharsets.US_ASCII);
+        }
+        return bytes;
+    }
+
     /**
      * If the request is servletRequest, such as # methodName(HttpServletRequest, HttpServletResponse) #
      * 
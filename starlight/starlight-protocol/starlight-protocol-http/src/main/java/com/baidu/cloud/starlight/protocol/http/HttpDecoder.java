@@ -25,12 +25,12 @@ import com.baidu.cloud.starlight.api.model.Response;
 import com.baidu.cloud.starlight.api.model.RpcRequest;
 import com.baidu.cloud.starlight.api.model.RpcResponse;
 import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
+import com.baidu.cloud.starlight.api.transport.channel.ThreadLocalChannelContext;
 import com.baidu.cloud.starlight.api.protocol.Protocol;
 import com.baidu.cloud.starlight.api.protocol.ProtocolDecoder;
 import com.baidu.cloud.starlight.api.serialization.serializer.Serializer;
 import com.baidu.cloud.starlight.api.utils.StringUtils;
 import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
-import com.baidu.cloud.thirdparty.netty.channel.embedded.EmbeddedChannel;
 import com.baidu.cloud.thirdparty.netty.handler.codec.http.FullHttpMessage;
 import com.baidu.cloud.thirdparty.netty.handler.codec.http.FullHttpRequest;
 import com.baidu.cloud.thirdparty.netty.handler.codec.http.FullHttpResponse;
@@ -59,69 +59,46 @@ public abstract class HttpDecoder implements ProtocolDecoder {
                 "Too little data to parse using Http"); // wait and retry
         }
         // 解析请求或者响应行，能解出来证明是Http协议的数据，不能解出来证明不是
-
-        // NOTICE 暂无办法复现、构造如下异常:
-        // NOTICE PROTOCOL_INSUFFICIENT_DATA_EXCEPTION PROTOCOL_DECODE_NOTMATCH_EXCEPTION PROTOCOL_DECODE_EXCEPTION
+        // 解析状态与channel绑定，拆包时下次读取从上次解析到的位置继续，已读取的字节不会被重复解析
         MsgBase msgBase = null;
-        ByteBuf byteBuf = input.retainedSlice(input.readableBytes());
-        FullHttpMessage httpMessage = null;
-        EmbeddedChannel embeddedChannel = new EmbeddedChannel(new HttpRequestResponseDecoder());
-        try {
-            embeddedChannel.writeInbound(byteBuf);
-            httpMessage = embeddedChannel.readInbound();
-            if (httpMessage == null || !httpMessage.decoderResult().isSuccess()) {
-                LOGGER.debug("Cannot use Http protocol to decode: ",
-                    httpMessage == null ? "result is null" : "result failed " + httpMessage.decoderResult());
-                throw new CodecException(CodecException.PROTOCOL_DECODE_NOTMATCH_EXCEPTION,
-                    "Cannot use Http protocol to decode: decoded result is null");
+        FullHttpMessage httpMessage =
+            HttpStreamDecoder.bind(ThreadLocalChannelContext.getContext().getChannelAttribute()).decode(input);
+        if (httpMessage.headers() != null) {
+            // request id check, discard
+            if (httpMessage.headers().get(AbstractHttpProtocol.X_STARLIGHT_ID) == null) {
+                // support null id for url request (2020.10.16 for ironman)
+                httpMessage.headers().add(AbstractHttpProtocol.X_STARLIGHT_ID, "-1"); // -1 represent none
+                LOGGER.debug("Starlight id is null, make sure it is correct");
             }
 
-            if (httpMessage.headers() != null) {
-                // request id check, discard
-                if (httpMessage.headers().get(AbstractHttpProtocol.X_STARLIGHT_ID) == null) {
-                    // support null id for url request (2020.10.16 for ironman)
-                    httpMessage.headers().add(AbstractHttpProtocol.X_STARLIGHT_ID, "-1"); // -1 represent none
-                    LOGGER.debug("Starlight id is null, make sure it is correct");
+            // content type check
+            String contentTypeAndEncoding = httpMessage.headers().get(HttpHeaderNames.CONTENT_TYPE);
+            if (!StringUtils.isBlank(contentTypeAndEncoding)) {
+                String[] splits = contentTypeAndEncoding.split(";");
+                String contentType = splits[0];
+                // not support content_type, discard
+                if (!contentType.equals(AbstractHttpProtocol.CONTENT_TYPE_JSON)) {
+
+                    /*
+                     * httpMessage = null; input.skipBytes(byteBuf.readerIndex()); throw new
+                     * CodecException(CodecException.PROTOCOL_DECODE_EXCEPTION,
+                     * "Cannot use httpDecoder to decode bytes");
+                     */
+                    // this protocol can only deal with http protobuf and http json request.
+                    // record
+                    LOGGER.warn("ContentType id is not application/json, make sure it is a browser request");
                 }
-
-                // content type check
-                String contentTypeAndEncoding = httpMessage.headers().get(HttpHeaderNames.CONTENT_TYPE);
-                if (!StringUtils.isBlank(contentTypeAndEncoding)) {
-                    String[] splits = contentTypeAndEncoding.split(";");
-                    String contentType = splits[0];
-                    // not support content_type, discard
-                    if (!contentType.equals(AbstractHttpProtocol.CONTENT_TYPE_JSON)) {
-
-                        /*
-                         * httpMessage = null; input.skipBytes(byteBuf.readerIndex()); throw new
-                         * CodecException(CodecException.PROTOCOL_DECODE_EXCEPTION,
-                         * "Cannot use httpDecoder to decode bytes");
-                         */
-                        // this protocol can only deal with http protobuf and http json request.
-                        // record
-                        LOGGER.warn("ContentType id is not application/json, make sure it is a browser request");
-                    }
-                }
-            } else {
-                LOGGER.error("The http request not have headers, this is unlikely to happen");
             }
+        } else {
+            LOGGER.error("The http request not have headers, this is unlikely to happen");
+        }
 
-            if (httpMessage instanceof FullHttpRequest) {
-                msgBase = reverseConvertRequest((FullHttpRequest) httpMessage);
-            }
+        if (httpMessage instanceof FullHttpRequest) {
+            msgBase = reverseConvertRequest((FullHttpRequest) httpMessage);
+        }
 
-            if (httpMessage instanceof FullHttpResponse) {
-                msgBase = reverseConvertResponse((FullHttpResponse) httpMessage);
-            }
-        } finally {
-            // When there is only one http protocol, and httpMessage is not null, we think decode success and skip bytes
-            // FIXME When multiple http protocols are implemented, please check if the logic here is as expected
-            if (httpMessage != null && httpMessage.decoderResult().isSuccess() /* && msgBase != null */) {
-                input.skipBytes(byteBuf.readerIndex());
-            }
-            LOGGER.debug("input.retainedSlice bytebuf refCnt {}", byteBuf.refCnt());
-            byteBuf.release();
-            embeddedChannel.close();
+        if (httpMessage instanceof FullHttpResponse) {
+            msgBase = reverseConvertResponse((FullHttpResponse) httpMessage);
         }
 
         return msgBase;
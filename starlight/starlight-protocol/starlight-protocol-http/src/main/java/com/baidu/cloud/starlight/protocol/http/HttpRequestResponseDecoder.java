@@ -56,7 +56,7 @@ public class HttpRequestResponseDecoder extends HttpObjectDecoder {
     /**
      * 512m
      */
-    private static final Integer MAX_CONTENT_LENGTH = 512 * 1024 * 1024;
+    static final Integer MAX_CONTENT_LENGTH = 512 * 1024 * 1024;
 
     private static final Integer MAX_HEADER_SIZE = 8192;
 
@@ -192,6 +192,18 @@ public class HttpRequestResponseDecoder extends HttpObjectDecoder {
         }
     }
 
+    /**
+     * 增量解析：只调用一次 {@link HttpObjectDecoder} 的状态机，解析状态保留在本对象中，下次读取时从断点继续。
+     * 不做聚合，由 {@link HttpStreamDecoder} 负责聚合
+     *
+     * @param buffer
+     * @param out http message parts
+     * @throws Exception
+     */
+    void parse(ByteBuf buffer, List<Object> out) throws Exception {
+        super.decode(null, buffer, out);
+    }
+
     @Override
     public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
         if (msg instanceof ByteBuf) {
@@ -0,0 +1,261 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.protocol.http;
+
+import com.baidu.cloud.starlight.api.common.Constants;
+import com.baidu.cloud.starlight.api.exception.CodecException;
+import com.baidu.cloud.starlight.api.protocol.ProtocolMatch;
+import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
+import com.baidu.cloud.starlight.api.transport.channel.ChannelAttribute;
+import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufAllocator;
+import com.baidu.cloud.thirdparty.netty.buffer.CompositeByteBuf;
+import com.baidu.cloud.thirdparty.netty.channel.Channel;
+import com.baidu.cloud.thirdparty.netty.channel.ChannelFutureListener;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.DefaultFullHttpRequest;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.DefaultFullHttpResponse;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.DefaultHttpHeaders;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.FullHttpMessage;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpContent;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpHeaderNames;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpHeaders;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpMessage;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpObject;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpRequest;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpResponse;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpUtil;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.LastHttpContent;
+import com.baidu.cloud.thirdparty.netty.util.ReferenceCountUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stateful http decoder bound to one {@link RpcChannel}. Parse state of {@link HttpRequestResponseDecoder} and the
+ * partially aggregated message are kept across reads, so the bytes already read are never parsed again. Body chunks
+ * are aggregated into a {@link CompositeByteBuf} without copy.
+ * <p>
+ * Un Thread Safe, used in the io thread of the channel.
+ */
+class HttpStreamDecoder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HttpStreamDecoder.class);
+
+    /**
+     * 聚合body时composite buffer的最大分片数，超过后netty会合并分片
+     */
+    private static final int MAX_CONTENT_COMPONENTS = 1024;
+
+    private final HttpRequestResponseDecoder parser = new HttpRequestResponseDecoder();
+
+    private final List<Object> parts = new ArrayList<>(4);
+
+    /**
+     * false: 没有绑定channel时使用，解不出完整消息时不消费input，也不保留解析状态
+     */
+    private final boolean incremental;
+
+    /**
+     * 上一个完整消息之后是否已经消费过字节
+     */
+    private boolean inProgress;
+
+    private HttpMessage message;
+
+    private CompositeByteBuf content;
+
+    HttpStreamDecoder(boolean incremental) {
+        this.incremental = incremental;
+    }
+
+    /**
+     * Get the decoder bound to the channel, create and bind one if absent. Return a one-shot decoder when the
+     * attribute is null.
+     *
+     * @param attribute
+     * @return
+     */
+    static HttpStreamDecoder bind(ChannelAttribute attribute) {
+        if (attribute == null || attribute.getRpcChannel() == null) {
+            return new HttpStreamDecoder(false);
+        }
+        RpcChannel rpcChannel = attribute.getRpcChannel();
+        HttpStreamDecoder decoder = (HttpStreamDecoder) rpcChannel.getAttribute(Constants.HTTP_STREAM_DECODER_KEY);
+        if (decoder == null) {
+            decoder = new HttpStreamDecoder(true);
+            rpcChannel.setAttribute(Constants.HTTP_STREAM_DECODER_KEY, decoder);
+            Channel channel = rpcChannel.channel();
+            if (channel != null) {
+                // release the half-decoded message when channel closed
+                HttpStreamDecoder bound = decoder;
+                channel.closeFuture().addListener((ChannelFutureListener) future -> bound.reset());
+            }
+        }
+        return decoder;
+    }
+
+    /**
+     * Decode one {@link FullHttpMessage} from input. Bytes consumed by the parser are skipped from input even if the
+     * message is not complete, the next call will continue from there.
+     *
+     * @param input
+     * @return full http message, never null
+     * @throws CodecException NOTMATCH if not http, NOTENOUGHDATA if the message is not complete
+     */
+    FullHttpMessage decode(DynamicCompositeByteBuf input) throws CodecException {
+        if (!inProgress) {
+            checkStartLine(input);
+        }
+        ByteBuf byteBuf = input.retainedSlice(input.readableBytes());
+        FullHttpMessage fullMessage = null;
+        boolean failed = true;
+        try {
+            while (fullMessage == null && byteBuf.isReadable()) {
+                int oldReadable = byteBuf.readableBytes();
+                parser.parse(byteBuf, parts);
+                if (parts.isEmpty() && oldReadable == byteBuf.readableBytes()) {
+                    break; // wait for more data
+                }
+                fullMessage = aggregate();
+            }
+            failed = false;
+        } catch (CodecException e) {
+            throw e;
+        } catch (Exception e) {
+            LOGGER.debug("Cannot use Http protocol to decode, the reason is : {}", e.getMessage());
+            throw new CodecException(CodecException.PROTOCOL_DECODE_NOTMATCH_EXCEPTION,
+                "Cannot use Http protocol to decode: " + e.getMessage());
+        } finally {
+            if (failed) {
+                reset();
+            } else if (fullMessage != null) {
+                input.skipBytes(byteBuf.readerIndex());
+                inProgress = false;
+            } else if (incremental) {
+                input.skipBytes(byteBuf.readerIndex());
+                inProgress = inProgress || byteBuf.readerIndex() > 0;
+            } else {
+                reset();
+            }
+            byteBuf.release();
+        }
+
+        if (fullMessage == null) {
+            throw new CodecException(CodecException.PROTOCOL_DECODE_NOTENOUGHDATA_EXCEPTION,
+                "Data not enough to parse using Http");
+        }
+        return fullMessage;
+    }
+
+    /**
+     * Release the half-decoded message and restart parsing from a new message
+     */
+    void reset() {
+        for (Object part : parts) {
+            ReferenceCountUtil.release(part);
+        }
+        parts.clear();
+        if (content != null) {
+            content.release();
+            content = null;
+        }
+        message = null;
+        inProgress = false;
+        parser.reset();
+    }
+
+    private FullHttpMessage aggregate() {
+        FullHttpMessage fullMessage = null;
+        while (!parts.isEmpty()) {
+            Object part = parts.remove(0);
+            if (!(part instanceof HttpObject) || !((HttpObject) part).decoderResult().isSuccess()) {
+                ReferenceCountUtil.release(part);
+                throw new CodecException(CodecException.PROTOCOL_DECODE_NOTMATCH_EXCEPTION,
+                    "Cannot use Http protocol to decode: decoded result failed");
+            }
+
+            if (part instanceof HttpMessage) {
+                message = (HttpMessage) part;
+                content = ByteBufAllocator.DEFAULT.compositeBuffer(MAX_CONTENT_COMPONENTS);
+            }
+
+            if (part instanceof HttpContent) {
+                ByteBuf chunk = ((HttpContent) part).content();
+                if (message == null) {
+                    chunk.release();
+                    throw new CodecException(CodecException.PROTOCOL_DECODE_NOTMATCH_EXCEPTION,
+                        "Cannot use Http protocol to decode: content without message");
+                }
+                if (content.readableBytes() > HttpRequestResponseDecoder.MAX_CONTENT_LENGTH - chunk.readableBytes()) {
+                    chunk.release();
+                    throw new CodecException(CodecException.PROTOCOL_DECODE_EXCEPTION,
+                        "Http content is bigger than the max " + HttpRequestResponseDecoder.MAX_CONTENT_LENGTH);
+                }
+                if (chunk.isReadable()) {
+                    content.addComponent(true, chunk);
+                } else {
+                    chunk.release();
+                }
+                if (part instanceof LastHttpContent) {
+                    fullMessage = fullMessage(((LastHttpContent) part).trailingHeaders());
+                }
+            }
+        }
+        return fullMessage;
+    }
+
+    private FullHttpMessage fullMessage(HttpHeaders trailingHeaders) {
+        HttpUtil.setTransferEncodingChunked(message, false);
+        if (!HttpUtil.isContentLengthSet(message)) {
+            message.headers().set(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(content.readableBytes()));
+        }
+        HttpHeaders trailers = new DefaultHttpHeaders().add(trailingHeaders);
+
+        FullHttpMessage fullMessage;
+        if (message instanceof HttpRequest) {
+            HttpRequest request = (HttpRequest) message;
+            fullMessage = new DefaultFullHttpRequest(request.protocolVersion(), request.method(), request.uri(),
+                content, request.headers(), trailers);
+        } else {
+            HttpResponse response = (HttpResponse) message;
+            fullMessage = new DefaultFullHttpResponse(response.protocolVersion(), response.status(), content,
+                response.headers(), trailers);
+        }
+        fullMessage.setDecoderResult(message.decoderResult());
+        message = null;
+        content = null;
+        return fullMessage;
+    }
+
+    /**
+     * 新消息开始解析前先检查起始行，避免把其他协议的数据交给http状态机
+     */
+    private static void checkStartLine(DynamicCompositeByteBuf input) {
+        ProtocolMatch match = AbstractHttpProtocol.matchStartLine(input);
+        if (match == ProtocolMatch.NEED_MORE_DATA) {
+            throw new CodecException(CodecException.PROTOCOL_INSUFFICIENT_DATA_EXCEPTION,
+                "Too little data to parse using Http");
+        }
+        if (match == ProtocolMatch.NOT_MATCH) {
+            throw new CodecException(CodecException.PROTOCOL_DECODE_NOTMATCH_EXCEPTION,
+                "Cannot use Http protocol to decode: not start with http method or version");
+        }
+    }
+}
@@ -20,9 +20,15 @@ import com.baidu.cloud.thirdparty.netty.handler.codec.http.FullHttpRequest;
 import com.baidu.cloud.starlight.api.model.Request;
 import com.baidu.cloud.starlight.api.protocol.ProtocolDecoder;
 import com.baidu.cloud.starlight.api.protocol.ProtocolEncoder;
+import com.baidu.cloud.starlight.api.protocol.ProtocolMatch;
+import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.Unpooled;
 import com.baidu.cloud.starlight.serialization.serializer.JsonSerializer;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 /**
@@ -71,4 +77,17 @@ public class AbstractHttpProtocolTest {
     public void getSerialize() {
         assertTrue(protocol.getSerialize() instanceof JsonSerializer);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void match() {
+        assertEquals(ProtocolMatch.MATCH, protocol.match(input("POST /echo HTTP/1.1\r\n")));
+        assertEquals(ProtocolMatch.MATCH, protocol.match(input("\r\nHTTP/1.1 200 OK\r\n")));
+        assertEquals(ProtocolMatch.NEED_MORE_DATA, protocol.match(input("\r\nDEL")));
+        assertEquals(ProtocolMatch.NOT_MATCH, protocol.match(input("PRPC0000")));
+        assertEquals(ProtocolMatch.NOT_MATCH, protocol.match(input("GETX / HTTP/1.1")));
+    }
+
+    private static DynamicCompositeByteBuf input(String data) {
+        return new DynamicCompositeByteBuf(Unpooled.wrappedBuffer(data.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
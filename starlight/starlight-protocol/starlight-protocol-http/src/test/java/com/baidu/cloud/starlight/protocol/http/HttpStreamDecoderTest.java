@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.protocol.http;
+
+import com.baidu.cloud.starlight.api.exception.CodecException;
+import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.Unpooled;
+import com.baidu.cloud.thirdparty.netty.channel.embedded.EmbeddedChannel;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.DefaultFullHttpResponse;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.DefaultHttpContent;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.DefaultHttpRequest;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.FullHttpMessage;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.FullHttpRequest;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.FullHttpResponse;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpHeaderNames;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpMethod;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpRequest;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpRequestEncoder;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpResponseEncoder;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpResponseStatus;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpUtil;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.HttpVersion;
+import com.baidu.cloud.thirdparty.netty.handler.codec.http.LastHttpContent;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class HttpStreamDecoderTest {
+
+    @Test
+    public void decodeChunkedAcrossReads() {
+        StringBuilder body = new StringBuilder();
+        EmbeddedChannel outboundChannel = new EmbeddedChannel(new HttpRequestEncoder());
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, "/upload");
+        HttpUtil.setTransferEncodingChunked(request, true);
+        outboundChannel.writeOutbound(request);
+        for (int i = 0; i < 100; i++) {
+            String chunk = "chunk-" + i + ";";
+            body.append(chunk);
+            outboundChannel.writeOutbound(
+                new DefaultHttpContent(Unpooled.wrappedBuffer(chunk.getBytes(StandardCharsets.UTF_8))));
+        }
+        outboundChannel.writeOutbound(LastHttpContent.EMPTY_LAST_CONTENT);
+        ByteBuf encoded = Unpooled.buffer();
+        for (Object msg : outboundChannel.outboundMessages()) {
+            encoded.writeBytes((ByteBuf) msg);
+            ((ByteBuf) msg).release();
+        }
+
+        // 每次只读到7个字节，已经解析过的字节会被消费掉
+        HttpStreamDecoder decoder = new HttpStreamDecoder(true);
+        DynamicCompositeByteBuf input = new DynamicCompositeByteBuf();
+        FullHttpMessage message = null;
+        while (encoded.isReadable()) {
+            input.addBuffer(encoded.readRetainedSlice(Math.min(7, encoded.readableBytes())));
+            try {
+                message = decoder.decode(input);
+            } catch (CodecException e) {
+                Assert.assertTrue(e.getCode().equals(CodecException.PROTOCOL_DECODE_NOTENOUGHDATA_EXCEPTION)
+                    || e.getCode().equals(CodecException.PROTOCOL_INSUFFICIENT_DATA_EXCEPTION));
+                // 只保留不完整的一行
+                Assert.assertTrue(input.readableBytes() < 32);
+            }
+        }
+        encoded.release();
+
+        Assert.assertTrue(message instanceof FullHttpRequest);
+        Assert.assertEquals("/upload", ((FullHttpRequest) message).uri());
+        Assert.assertEquals(body.toString(), message.content().toString(StandardCharsets.UTF_8));
+        Assert.assertFalse(HttpUtil.isTransferEncodingChunked(message));
+        Assert.assertEquals(body.length(), HttpUtil.getContentLength(message));
+        Assert.assertEquals(0, input.readableBytes());
+        message.release();
+    }
+
+    @Test
+    public void decodePipelined() {
+        EmbeddedChannel outboundChannel = new EmbeddedChannel(new HttpResponseEncoder());
+        for (int i = 0; i < 2; i++) {
+            ByteBuf data = Unpooled.wrappedBuffer(("response" + i).getBytes(StandardCharsets.UTF_8));
+            FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK, data);
+            response.headers().add(HttpHeaderNames.CONTENT_LENGTH, data.readableBytes());
+            outboundChannel.writeOutbound(response);
+        }
+        DynamicCompositeByteBuf input = new DynamicCompositeByteBuf();
+        for (Object msg : outboundChannel.outboundMessages()) {
+            input.addBuffer((ByteBuf) msg);
+        }
+
+        HttpStreamDecoder decoder = new HttpStreamDecoder(true);
+        for (int i = 0; i < 2; i++) {
+            FullHttpMessage message = decoder.decode(input);
+            Assert.assertTrue(message instanceof FullHttpResponse);
+            Assert.assertEquals("response" + i, message.content().toString(StandardCharsets.UTF_8));
+            message.release();
+        }
+        Assert.assertEquals(0, input.readableBytes());
+    }
+
+    @Test
+    public void decodeNotHttp() {
+        HttpStreamDecoder decoder = new HttpStreamDecoder(true);
+        DynamicCompositeByteBuf input = new DynamicCompositeByteBuf();
+        input.addBuffer(Unpooled.wrappedBuffer("PRPC0000".getBytes(StandardCharsets.US_ASCII)));
+        try {
+            decoder.decode(input);
+            Assert.fail();
+        } catch (CodecException e) {
+            Assert.assertEquals(CodecException.PROTOCOL_DECODE_NOTMATCH_EXCEPTION, e.getCode());
+        }
+        Assert.assertEquals(8, input.readableBytes());
+        input.release();
+
+        // prefix of a method, wait for more data
+        DynamicCompositeByteBuf input2 = new DynamicCompositeByteBuf();
+        input2.addBuffer(Unpooled.wrappedBuffer("\r\nPO".getBytes(StandardCharsets.US_ASCII)));
+        try {
+            decoder.decode(input2);
+            Assert.fail();
+        } catch (CodecException e) {
+            Assert.assertEquals(CodecException.PROTOCOL_INSUFFICIENT_DATA_EXCEPTION, e.getCode());
+        }
+        Assert.assertEquals(4, input2.readableBytes());
+        input2.release();
+    }
+
+    @Test
+    public void decodeOneShot() {
+        byte[] bytes = "GET /echo HTTP/1.1\r\nHost: localhost\r\n".getBytes(StandardCharsets.US_ASCII);
+        DynamicCompositeByteBuf input = new DynamicCompositeByteBuf();
+        input.addBuffer(Unpooled.wrappedBuffer(bytes));
+
+        // 没有绑定channel时，解不出完整消息不消费数据
+        HttpStreamDecoder decoder = HttpStreamDecoder.bind(null);
+        try {
+            decoder.decode(input);
+            Assert.fail();
+        } catch (CodecException e) {
+            Assert.assertEquals(CodecException.PROTOCOL_DECODE_NOTENOUGHDATA_EXCEPTION, e.getCode());
+        }
+        Assert.assertEquals(bytes.length, input.readableBytes());
+
+        input.addBuffer(Unpooled.wrappedBuffer("\r\n".getBytes(StandardCharsets.US_ASCII)));
+        FullHttpMessage message = HttpStreamDecoder.bind(null).decode(input);
+        Assert.assertTrue(message instanceof FullHttpRequest);
+        Assert.assertEquals("localhost", message.headers().get(HttpHeaderNames.HOST));
+        Assert.assertEquals(0, input.readableBytes());
+        message.release();
+    }
+}
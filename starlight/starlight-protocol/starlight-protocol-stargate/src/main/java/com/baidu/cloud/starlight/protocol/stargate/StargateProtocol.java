@@ -20,7 +20,9 @@ import com.baidu.cloud.starlight.api.protocol.HeartbeatTrigger;
 import com.baidu.cloud.starlight.api.protocol.Protocol;
 import com.baidu.cloud.starlight.api.protocol.ProtocolDecoder;
 import com.baidu.cloud.starlight.api.protocol.ProtocolEncoder;
+import com.baidu.cloud.starlight.api.protocol.ProtocolMatch;
 import com.baidu.cloud.starlight.api.serialization.serializer.Serializer;
+import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
 import com.baidu.cloud.starlight.serialization.serializer.DyuProtostuffSerializer;
 
 /**
@@ -77,4 +79,20 @@ public class StargateProtocol implements Protocol {
     public Serializer getSerialize() {
         return serializer;
     }
+
+    /**
+     * stargate has no magic, check body size and the first byte of body in the same way as StargateDecoder
+     */
+    @Override
+    public ProtocolMatch match(DynamicCompositeByteBuf input) {
+        if (input.readableBytes() < FIXED_LEN) {
+            return ProtocolMatch.NEED_MORE_DATA;
+        }
+        int bodySize = (input.getByte(0) & 0xFF) << 24 | (input.getByte(1) & 0xFF) << 16
+            | (input.getByte(2) & 0xFF) << 8 | input.getByte(3) & 0xFF;
+        if (bodySize <= 0 || bodySize > MAX_BODY_SIZE || input.getByte(HEAD_LEN) != FIRST_BYTE_VALUE_OF_BODY) {
+            return ProtocolMatch.NOT_MATCH;
+        }
+        return ProtocolMatch.MATCH;
+    }
 }
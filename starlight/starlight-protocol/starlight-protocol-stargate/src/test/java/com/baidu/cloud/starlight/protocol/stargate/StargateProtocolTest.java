@@ -16,7 +16,10 @@
  
 package com.baidu.cloud.starlight.protocol.stargate;
 
+import com.baidu.cloud.starlight.api.protocol.ProtocolMatch;
+import com.baidu.cloud.starlight.api.transport.buffer.DynamicCompositeByteBuf;
 import com.baidu.cloud.starlight.serialization.serializer.DyuProtostuffSerializer;
+import com.baidu.cloud.thirdparty.netty.buffer.Unpooled;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -46,4 +49,21 @@ public class StargateProtocolTest {
     public void getSerialize() {
         Assert.assertTrue(stargateProtocol.getSerialize() instanceof DyuProtostuffSerializer);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void match() {
+        DynamicCompositeByteBuf input = new DynamicCompositeByteBuf(Unpooled.wrappedBuffer(new byte[] {0, 0, 0}));
+        Assert.assertEquals(ProtocolMatch.NEED_MORE_DATA, stargateProtocol.match(input));
+
+        input.addBuffer(Unpooled.wrappedBuffer(new byte[] {20, 10}));
+        Assert.assertEquals(ProtocolMatch.MATCH, stargateProtocol.match(input));
+
+        // first byte of body is not 10
+        input = new DynamicCompositeByteBuf(Unpooled.wrappedBuffer(new byte[] {0, 0, 0, 20, 11}));
+        Assert.assertEquals(ProtocolMatch.NOT_MATCH, stargateProtocol.match(input));
+
+        // body size bigger than 512m
+        input = new DynamicCompositeByteBuf(Unpooled.wrappedBuffer("PRPC0000".getBytes()));
+        Assert.assertEquals(ProtocolMatch.NOT_MATCH, stargateProtocol.match(input));
+    }
+}
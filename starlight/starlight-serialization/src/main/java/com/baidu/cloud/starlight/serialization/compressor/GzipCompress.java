@@ -16,21 +16,39 @@
  
 package com.baidu.cloud.starlight.serialization.compressor;
 
+import com.baidu.cloud.starlight.api.common.Constants;
 import com.baidu.cloud.starlight.api.exception.CodecException;
 import com.baidu.cloud.starlight.api.serialization.compressor.Compress;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufAllocator;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufInputStream;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufOutputStream;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufUtil;
+import com.baidu.cloud.thirdparty.netty.buffer.Unpooled;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 /**
- * GZip Compressor SPI name: gzip
+ * GZip Compressor SPI name: gzip. Compress and uncompress into pooled buffers instead of growing byte arrays.
  */
 public class GzipCompress implements Compress {
 
-    private static final Integer UNCOMPRESS_BYTE_SIZE = 256;
+    private static final int BUFFER_SIZE = 4096;
+
+    /**
+     * 解压后的最大字节数，防止压缩炸弹耗尽内存
+     */
+    private final int maxDecompressedSize;
+
+    public GzipCompress() {
+        this(Constants.MAX_BODY_SIZE);
+    }
+
+    public GzipCompress(int maxDecompressedSize) {
+        this.maxDecompressedSize = maxDecompressedSize;
+    }
 
     @Override
     public byte[] compress(byte[] inputByte) throws CodecException {
@@ -38,13 +56,16 @@ public class GzipCompress implements Compress {
             return inputByte;
         }
 
-        try (ByteArrayOutputStream outputStream = new ByteArrayOutputStream();) {
-            GZIPOutputStream gzipStream = new GZIPOutputStream(outputStream);
-            gzipStream.write(inputByte);
-            gzipStream.close();
-            return outputStream.toByteArray();
+        ByteBuf out = ByteBufAllocator.DEFAULT.heapBuffer(inputByte.length / 2 + 64);
+        try {
+            try (GZIPOutputStream gzipStream = new GZIPOutputStream(new ByteBufOutputStream(out), BUFFER_SIZE)) {
+                gzipStream.write(inputByte);
+            }
+            return ByteBufUtil.getBytes(out);
         } catch (IOException e) {
             throw new CodecException(CodecException.COMPRESS_EXCEPTION, "Gzip compress error: " + e.getMessage(), e);
+        } finally {
+            out.release();
         }
     }
 
@@ -54,19 +75,43 @@ public class GzipCompress implements Compress {
             return inputByte;
         }
 
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream();
-            ByteArrayInputStream in = new ByteArrayInputStream(inputByte)) {
-            GZIPInputStream unGzip = new GZIPInputStream(in);
-            byte[] buffer = new byte[UNCOMPRESS_BYTE_SIZE];
-            int n;
-            while ((n = unGzip.read(buffer)) >= 0) {
-                out.write(buffer, 0, n);
+        ByteBuf out = decompress(Unpooled.wrappedBuffer(inputByte));
+        try {
+            return ByteBufUtil.getBytes(out);
+        } finally {
+            out.release();
+        }
+    }
+
+    @Override
+    public ByteBuf decompress(ByteBuf input) throws CodecException {
+        if (!input.isReadable()) {
+            return Unpooled.EMPTY_BUFFER;
+        }
+
+        // one more byte than the limit, so that exceeding the limit can be detected
+        ByteBuf out = ByteBufAllocator.DEFAULT
+            .heapBuffer((int) Math.min(input.readableBytes() * 2L + 64, maxDecompressedSize), maxDecompressedSize + 1);
+        boolean success = false;
+        try (GZIPInputStream unGzip = new GZIPInputStream(new ByteBufInputStream(input), BUFFER_SIZE)) {
+            for (;;) {
+                if (out.readableBytes() > maxDecompressedSize) {
+                    throw new CodecException(CodecException.DECOMPRESS_EXCEPTION,
+                        "Gzip decompress error: decompressed size exceeds the limit " + maxDecompressedSize);
+                }
+                out.ensureWritable(Math.min(BUFFER_SIZE, out.maxWritableBytes()));
+                if (out.writeBytes(unGzip, out.writableBytes()) < 0) {
+                    success = true;
+                    return out;
+                }
             }
-            unGzip.close();
-            return out.toByteArray();
         } catch (IOException e) {
             throw new CodecException(CodecException.DECOMPRESS_EXCEPTION, "Gzip decompress error: " + e.getMessage(),
                 e);
+        } finally {
+            if (!success) {
+                out.release();
+            }
         }
     }
-}
\ No newline at end of file
+}
@@ -18,6 +18,7 @@ package com.baidu.cloud.starlight.serialization.compressor;
 
 import com.baidu.cloud.starlight.api.exception.CodecException;
 import com.baidu.cloud.starlight.api.serialization.compressor.Compress;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
 
 /**
  * None compressor Return as is. Created by liuruisen on 2019-05-10.
@@ -33,4 +34,9 @@ public class NoneCompress implements Compress {
     public byte[] decompress(byte[] outputBytes) throws CodecException {
         return outputBytes;
     }
+
+    @Override
+    public ByteBuf decompress(ByteBuf input) throws CodecException {
+        return input.retainedSlice();
+    }
 }
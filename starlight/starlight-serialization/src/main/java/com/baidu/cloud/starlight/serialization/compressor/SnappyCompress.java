@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.serialization.compressor;
+
+import com.baidu.cloud.starlight.api.common.Constants;
+import com.baidu.cloud.starlight.api.exception.CodecException;
+import com.baidu.cloud.starlight.api.serialization.compressor.Compress;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufAllocator;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufUtil;
+import com.baidu.cloud.thirdparty.netty.buffer.Unpooled;
+import com.baidu.cloud.thirdparty.netty.handler.codec.compression.Snappy;
+
+/**
+ * Snappy Compressor SPI name: snappy. Raw snappy format(length preamble + snappy stream), the same as brpc snappy
+ * compress, not the framed format.
+ */
+public class SnappyCompress implements Compress {
+
+    /**
+     * 解压后的最大字节数，防止伪造的长度前缀导致超大内存分配
+     */
+    private final int maxDecompressedSize;
+
+    public SnappyCompress() {
+        this(Constants.MAX_BODY_SIZE);
+    }
+
+    public SnappyCompress(int maxDecompressedSize) {
+        this.maxDecompressedSize = maxDecompressedSize;
+    }
+
+    @Override
+    public byte[] compress(byte[] inputByte) throws CodecException {
+        if (inputByte == null || inputByte.length == 0) {
+            return inputByte;
+        }
+
+        // max compressed length of snappy: 32 + n + n / 6
+        ByteBuf out = ByteBufAllocator.DEFAULT.heapBuffer(32 + inputByte.length + inputByte.length / 6);
+        try {
+            // Snappy is stateful, one instance per call
+            new Snappy().encode(Unpooled.wrappedBuffer(inputByte), out, inputByte.length);
+            return ByteBufUtil.getBytes(out);
+        } catch (Exception e) {
+            throw new CodecException(CodecException.COMPRESS_EXCEPTION, "Snappy compress error: " + e.getMessage(),
+                e);
+        } finally {
+            out.release();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] inputByte) throws CodecException {
+        if (inputByte == null || inputByte.length == 0) {
+            return inputByte;
+        }
+
+        ByteBuf out = decompress(Unpooled.wrappedBuffer(inputByte));
+        try {
+            return ByteBufUtil.getBytes(out);
+        } finally {
+            out.release();
+        }
+    }
+
+    @Override
+    public ByteBuf decompress(ByteBuf input) throws CodecException {
+        if (!input.isReadable()) {
+            return Unpooled.EMPTY_BUFFER;
+        }
+
+        // the preamble tells the uncompressed length, check it before allocating
+        int uncompressedLength = uncompressedLength(input);
+        if (uncompressedLength < 0 || uncompressedLength > maxDecompressedSize) {
+            throw new CodecException(CodecException.DECOMPRESS_EXCEPTION, "Snappy decompress error: uncompressed size "
+                + uncompressedLength + " exceeds the limit " + maxDecompressedSize);
+        }
+        ByteBuf out = ByteBufAllocator.DEFAULT.heapBuffer(uncompressedLength, uncompressedLength);
+        try {
+            new Snappy().decode(input, out);
+            return out;
+        } catch (Exception e) {
+            out.release();
+            throw new CodecException(CodecException.DECOMPRESS_EXCEPTION,
+                "Snappy decompress error: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Read the varint preamble without moving the reader index
+     *
+     * @param input
+     * @return
+     */
+    private static int uncompressedLength(ByteBuf input) {
+        int result = 0;
+        int index = input.readerIndex();
+        for (int shift = 0; shift < 32 && index < input.writerIndex(); shift += 7) {
+            int b = input.getUnsignedByte(index++);
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+        throw new CodecException(CodecException.DECOMPRESS_EXCEPTION, "Snappy decompress error: illegal preamble");
+    }
+    }
+}
@@ -19,6 +19,8 @@ package com.baidu.cloud.starlight.serialization.serializer;
 import com.baidu.cloud.starlight.api.exception.CodecException;
 import com.baidu.cloud.starlight.api.serialization.serializer.Serializer;
 import com.baidu.cloud.starlight.serialization.utils.SerializationUtils;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufInputStream;
 import com.baidu.cloud.thirdparty.protostuff.LinkedBuffer;
 import com.baidu.cloud.thirdparty.protostuff.ProtobufIOUtil;
 import com.baidu.cloud.thirdparty.protostuff.Schema;
@@ -148,6 +150,61 @@ public class ProtoStuffSerializer implements Serializer {
         }
     }
 
+    @Override
+    public Object deserialize(ByteBuf byteBuf, Type type) throws CodecException {
+        return deserialize(byteBuf, type, IdStrategy.DEFAULT_FLAGS);
+    }
+
+    /**
+     * Deserialize from the ByteBuf directly without copying it to byte[], support specified idstrategy, used in brpc.
+     * The readerIndex and reference count of the ByteBuf are not changed.
+     *
+     * @param byteBuf
+     * @param type
+     * @param strategyFlag
+     * @return
+     * @throws CodecException
+     */
+    public Object deserialize(ByteBuf byteBuf, Type type, Integer strategyFlag) throws CodecException {
+
+        if (byteBuf == null || !byteBuf.isReadable()) {
+            throw new CodecException(CodecException.DESERIALIZE_EXCEPTION,
+                "The bytes used to protostuff deserializing are empty");
+        }
+
+        if (!(type instanceof Class)) {
+            throw new CodecException(CodecException.DESERIALIZE_EXCEPTION,
+                "The type to protostuff deserializing is not Class");
+        }
+
+        Class clazz = (Class) type;
+        if (!isSupported(clazz)) {
+            throw new CodecException(CodecException.DESERIALIZE_EXCEPTION,
+                "The type used to protostuff deserializing are illegal");
+        }
+        long starTime = System.currentTimeMillis();
+        try {
+            Schema schema = RuntimeSchema.getSchema(clazz, getIdStrategy(strategyFlag)); // schema will be cached
+            Object content = schema.newMessage();
+            if (byteBuf.hasArray()) {
+                ProtobufIOUtil.mergeFrom(byteBuf.array(), byteBuf.arrayOffset() + byteBuf.readerIndex(),
+                    byteBuf.readableBytes(), content, schema);
+            } else {
+                // direct or composite buffer: stream through the thread local buffer
+                ProtobufIOUtil.mergeFrom(new ByteBufInputStream(byteBuf.duplicate()), content, schema, buffer.get());
+            }
+            LOGGER.debug("Deserialize obj cost: {}", System.currentTimeMillis() - starTime);
+            return content;
+        } catch (Throwable e) {
+            CodecException exception = SerializationUtils.convertToCodecException(e,
+                CodecException.DESERIALIZE_EXCEPTION, "Protostuff Deserialize error");
+            LOGGER.error("Deserialize error, ", e);
+            throw exception;
+        } finally {
+            buffer.get().clear();
+        }
+    }
+
     private boolean isSupported(Class<?> clazz) {
         if (clazz == null) {
             return false;
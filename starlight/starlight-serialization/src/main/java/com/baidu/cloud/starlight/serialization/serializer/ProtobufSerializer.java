@@ -19,11 +19,15 @@ package com.baidu.cloud.starlight.serialization.serializer;
 import com.baidu.cloud.starlight.api.exception.CodecException;
 import com.baidu.cloud.starlight.api.serialization.serializer.Serializer;
 import com.baidu.cloud.starlight.serialization.utils.SerializationUtils;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufInputStream;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.Message;
 import com.google.protobuf.MessageLite;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.InputStream;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 
@@ -84,6 +88,50 @@ public class ProtobufSerializer implements Serializer {
         }
     }
 
+    /**
+     * Parse from the ByteBuf directly without copying it to byte[]. The readerIndex and reference count of the ByteBuf
+     * are not changed.
+     *
+     * @param byteBuf
+     * @param type
+     * @return
+     * @throws CodecException
+     */
+    @Override
+    public Object deserialize(ByteBuf byteBuf, Type type) throws CodecException {
+        if (byteBuf == null || !byteBuf.isReadable()) {
+            throw new CodecException(CodecException.DESERIALIZE_EXCEPTION,
+                "The bytes used to protobuf deserializing are empty");
+        }
+
+        if (!(type instanceof Class)) {
+            throw new CodecException(CodecException.SERIALIZE_EXCEPTION,
+                "The type to protobuf deserializing is not Class");
+        }
+
+        Class clazz = (Class) type;
+        if (!isSupported(clazz)) {
+            throw new CodecException(CodecException.DESERIALIZE_EXCEPTION,
+                "The type used to protobuf deserializing are illegal");
+        }
+
+        try {
+            if (byteBuf.nioBufferCount() == 1) {
+                // heap or direct ByteBuffer view of the buffer, read in place
+                CodedInputStream input = CodedInputStream.newInstance(byteBuf.nioBuffer());
+                Method outputParseFromMethod = clazz.getMethod("parseFrom", CodedInputStream.class);
+                return outputParseFromMethod.invoke(type, input);
+            }
+            Method outputParseFromMethod = clazz.getMethod("parseFrom", InputStream.class);
+            return outputParseFromMethod.invoke(type, new ByteBufInputStream(byteBuf.duplicate()));
+        } catch (Throwable e) {
+            CodecException codecException = SerializationUtils.convertToCodecException(e,
+                CodecException.DESERIALIZE_EXCEPTION, "Protobuf deserialize error");
+            LOGGER.error("Protobuf deserialize error, ", codecException);
+            throw codecException;
+        }
+    }
+
     private boolean isSupported(Class<?> clazz) {
         if (clazz == null) {
             return false;
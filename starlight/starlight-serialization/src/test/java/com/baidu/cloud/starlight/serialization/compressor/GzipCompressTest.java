@@ -17,6 +17,9 @@
 package com.baidu.cloud.starlight.serialization.compressor;
 
 import com.baidu.cloud.starlight.api.exception.CodecException;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufUtil;
+import com.baidu.cloud.thirdparty.netty.buffer.Unpooled;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -56,6 +59,40 @@ public class GzipCompressTest {
         Assert.assertTrue(Arrays.equals(bytes, origin));
     }
 
+    @Test
+    public void decompressByteBuf() {
+        byte[] large = new byte[64 * 1024];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i % 16);
+        }
+        byte[] compress = gzipCompress.compress(large);
+        Assert.assertTrue(compress.length < large.length);
+
+        ByteBuf output = gzipCompress.decompress(Unpooled.wrappedBuffer(compress));
+        try {
+            Assert.assertTrue(Arrays.equals(large, ByteBufUtil.getBytes(output)));
+        } finally {
+            output.release();
+        }
+    }
+
+    @Test
+    public void decompressExceedLimit() {
+        byte[] large = new byte[64 * 1024];
+        byte[] compress = gzipCompress.compress(large);
+
+        GzipCompress limitedCompress = new GzipCompress(large.length);
+        Assert.assertArrayEquals(large, limitedCompress.decompress(compress));
+
+        limitedCompress = new GzipCompress(large.length - 1);
+        try {
+            limitedCompress.decompress(compress);
+            Assert.fail();
+        } catch (CodecException e) {
+            Assert.assertEquals(CodecException.DECOMPRESS_EXCEPTION, e.getCode());
+        }
+    }
+
     @Test
     public void decompressExp() {
         // decompress null
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.serialization.compressor;
+
+import com.baidu.cloud.starlight.api.exception.CodecException;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.ByteBufUtil;
+import com.baidu.cloud.thirdparty.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class SnappyCompressTest {
+
+    private SnappyCompress snappyCompress = new SnappyCompress();
+
+    private byte[] origin = "Hello".getBytes();
+
+    @Test
+    public void compress() {
+        byte[] compress = snappyCompress.compress(origin);
+        Assert.assertFalse(Arrays.equals(origin, compress));
+
+        Assert.assertNull(snappyCompress.compress(null));
+        Assert.assertEquals(0, snappyCompress.compress(new byte[0]).length);
+    }
+
+    @Test
+    public void decompress() {
+        byte[] compress = snappyCompress.compress(origin);
+        Assert.assertArrayEquals(origin, snappyCompress.decompress(compress));
+
+        Assert.assertNull(snappyCompress.decompress(null));
+        Assert.assertEquals(0, snappyCompress.decompress(new byte[0]).length);
+    }
+
+    @Test
+    public void decompressByteBuf() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            builder.append("{\"id\":").append(i).append(",\"name\":\"starlight\"}");
+        }
+        byte[] large = builder.toString().getBytes();
+        byte[] compress = snappyCompress.compress(large);
+        Assert.assertTrue(compress.length < large.length);
+
+        ByteBuf input = Unpooled.wrappedBuffer(compress);
+        ByteBuf output = snappyCompress.decompress(input);
+        try {
+            Assert.assertArrayEquals(large, ByteBufUtil.getBytes(output));
+        } finally {
+            output.release();
+        }
+    }
+
+    @Test
+    public void decompressExp() {
+        try {
+            snappyCompress.decompress(Unpooled.wrappedBuffer(new byte[] {10, 1, 0}));
+            Assert.fail();
+        } catch (CodecException e) {
+            Assert.assertEquals(CodecException.DECOMPRESS_EXCEPTION, e.getCode());
+        }
+    }
+
+    @Test
+    public void decompressExceedLimit() {
+        byte[] large = new byte[64 * 1024];
+        byte[] compress = snappyCompress.compress(large);
+
+        SnappyCompress limitedCompress = new SnappyCompress(large.length);
+        Assert.assertArrayEquals(large, limitedCompress.decompress(compress));
+
+        limitedCompress = new SnappyCompress(large.length - 1);
+        try {
+            limitedCompress.decompress(compress);
+            Assert.fail();
+        } catch (CodecException e) {
+            Assert.assertEquals(CodecException.DECOMPRESS_EXCEPTION, e.getCode());
+        }
+
+        // forged preamble: 0xFFFFFFFF0F
+        try {
+            snappyCompress.decompress(Unpooled.wrappedBuffer(new byte[] {-1, -1, -1, -1, 15, 0}));
+            Assert.fail();
+        } catch (CodecException e) {
+            Assert.assertEquals(CodecException.DECOMPRESS_EXCEPTION, e.getCode());
+        }
+    }
+}
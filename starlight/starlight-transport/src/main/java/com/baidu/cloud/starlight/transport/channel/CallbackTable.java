@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.transport.channel;
+
+import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * In-flight callback table keyed by the primitive request id. The table is split into stripes, each stripe is an
+ * open-addressing hash table guarded by its own lock, so put/remove are O(1) without boxing the id and concurrent
+ * requests rarely contend on the same lock.
+ * <p>
+ * Also a {@link java.util.Map} for compatibility with {@link com.baidu.cloud.starlight.api.transport.channel.RpcChannel
+ * #allCallbacks()}: the map view reads a snapshot, {@link #size()} and {@link #clear()} work on the table directly.
+ */
+public class CallbackTable extends AbstractMap<Long, RpcCallback> {
+
+    private static final int DEFAULT_STRIPES = 16;
+
+    private static final int INITIAL_STRIPE_CAPACITY = 16;
+
+    private final Stripe[] stripes;
+
+    private final int stripeMask;
+
+    public CallbackTable() {
+        this(DEFAULT_STRIPES);
+    }
+
+    public CallbackTable(int stripeNum) {
+        int num = 1;
+        while (num < stripeNum) {
+            num <<= 1;
+        }
+        this.stripes = new Stripe[num];
+        for (int i = 0; i < num; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.stripeMask = num - 1;
+    }
+
+    /**
+     * Put the callback if there is no callback for the id
+     *
+     * @param id
+     * @param callback
+     * @return the existing callback, null if the callback is put
+     */
+    public RpcCallback putIfAbsent(long id, RpcCallback callback) {
+        if (callback == null) {
+            throw new NullPointerException("callback");
+        }
+        long hash = hash(id);
+        return stripe(hash).put(id, (int) hash, callback, true);
+    }
+
+    public RpcCallback get(long id) {
+        long hash = hash(id);
+        return stripe(hash).get(id, (int) hash);
+    }
+
+    public RpcCallback remove(long id) {
+        long hash = hash(id);
+        return stripe(hash).remove(id, (int) hash);
+    }
+
+    /**
+     * Number of in-flight callbacks
+     *
+     * @return
+     */
+    public int count() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.size;
+        }
+        return count;
+    }
+
+    /**
+     * Remove and return all the callbacks
+     *
+     * @return
+     */
+    public List<RpcCallback> drain() {
+        List<RpcCallback> drained = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.drainTo(drained);
+        }
+        return drained;
+    }
+
+    @Override
+    public int size() {
+        return count();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof Long && get(((Long) key).longValue()) != null;
+    }
+
+    @Override
+    public RpcCallback get(Object key) {
+        return key instanceof Long ? get(((Long) key).longValue()) : null;
+    }
+
+    @Override
+    public RpcCallback put(Long key, RpcCallback value) {
+        if (value == null) {
+            throw new NullPointerException("value");
+        }
+        long hash = hash(key);
+        return stripe(hash).put(key, (int) hash, value, false);
+    }
+
+    @Override
+    public RpcCallback remove(Object key) {
+        return key instanceof Long ? remove(((Long) key).longValue()) : null;
+    }
+
+    @Override
+    public void clear() {
+        drain();
+    }
+
+    /**
+     * Snapshot of the table
+     *
+     * @return
+     */
+    @Override
+    public Set<Entry<Long, RpcCallback>> entrySet() {
+        Set<Entry<Long, RpcCallback>> entries = new HashSet<>();
+        for (Stripe stripe : stripes) {
+            stripe.copyTo(entries);
+        }
+        return entries;
+    }
+
+    private Stripe stripe(long hash) {
+        return stripes[(int) (hash >>> 32) & stripeMask];
+    }
+
+    private static long hash(long id) {
+        // request ids are sequential, spread them over stripes and slots
+        long h = id * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+
+    private static final class Stripe {
+
+        private long[] keys = new long[INITIAL_STRIPE_CAPACITY];
+
+        // null means the slot is free
+        private RpcCallback[] values = new RpcCallback[INITIAL_STRIPE_CAPACITY];
+
+        private volatile int size;
+
+        private synchronized RpcCallback put(long key, int hash, RpcCallback value, boolean onlyIfAbsent) {
+            int mask = values.length - 1;
+            int i = hash & mask;
+            for (;;) {
+                RpcCallback existing = values[i];
+                if (existing == null) {
+                    keys[i] = key;
+                    values[i] = value;
+                    size = size + 1;
+                    if (size > (values.length >>> 1)) {
+                        resize();
+                    }
+                    return null;
+                }
+                if (keys[i] == key) {
+                    if (!onlyIfAbsent) {
+                        values[i] = value;
+                    }
+                    return existing;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        private synchronized RpcCallback get(long key, int hash) {
+            int mask = values.length - 1;
+            int i = hash & mask;
+            for (;;) {
+                RpcCallback existing = values[i];
+                if (existing == null) {
+                    return null;
+                }
+                if (keys[i] == key) {
+                    return existing;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        private synchronized RpcCallback remove(long key, int hash) {
+            int mask = values.length - 1;
+            int i = hash & mask;
+            for (;;) {
+                RpcCallback existing = values[i];
+                if (existing == null) {
+                    return null;
+                }
+                if (keys[i] == key) {
+                    values[i] = null;
+                    size = size - 1;
+                    shiftBack(i, mask);
+                    return existing;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        /**
+         * Backward shift deletion, keeps the probe sequences valid without tombstones
+         */
+        private void shiftBack(int free, int mask) {
+            int i = (free + 1) & mask;
+            while (values[i] != null) {
+                int ideal = (int) hash(keys[i]) & mask;
+                // move the entry if its ideal slot is not in (free, i]
+                if (((i - ideal) & mask) >= ((i - free) & mask)) {
+                    keys[free] = keys[i];
+                    values[free] = values[i];
+                    values[i] = null;
+                    free = i;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            RpcCallback[] oldValues = values;
+            int capacity = oldValues.length << 1;
+            int mask = capacity - 1;
+            keys = new long[capacity];
+            values = new RpcCallback[capacity];
+            for (int j = 0; j < oldValues.length; j++) {
+                if (oldValues[j] == null) {
+                    continue;
+                }
+                int i = (int) hash(oldKeys[j]) & mask;
+                while (values[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+
+        private synchronized void drainTo(List<RpcCallback> drained) {
+            if (size == 0) {
+                return;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    drained.add(values[i]);
+                }
+            }
+            // shrink back, a drained table is usually a closing channel
+            keys = new long[INITIAL_STRIPE_CAPACITY];
+            values = new RpcCallback[INITIAL_STRIPE_CAPACITY];
+            size = 0;
+        }
+
+        private synchronized void copyTo(Set<Entry<Long, RpcCallback>> entries) {
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    entries.add(new SimpleImmutableEntry<>(keys[i], values[i]));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.transport.channel;
+
+import com.baidu.cloud.thirdparty.pool2.impl.GenericObjectPool;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of {@link PooledRpcChannelGroup}, used to size the connection pool(max_connections etc.)
+ */
+public class ChannelPoolMetrics {
+
+    /**
+     * Window of the creation rate
+     */
+    static final long CREATION_RATE_WINDOW_MILLS = 60 * 1000L;
+
+    private final LongAdder borrowCount = new LongAdder();
+
+    private final LongAdder borrowNanos = new LongAdder();
+
+    private final AtomicLong maxBorrowNanos = new AtomicLong();
+
+    /**
+     * Borrows which found no idle channel and had to wait for creation or return
+     */
+    private final LongAdder borrowWaitCount = new LongAdder();
+
+    private final LongAdder borrowFailCount = new LongAdder();
+
+    private final LongAdder createdCount = new LongAdder();
+
+    private final LongAdder destroyedCount = new LongAdder();
+
+    /**
+     * 创建连接是低频事件，创建速率的窗口由锁保护
+     */
+    private long rateWindowStart;
+
+    private long windowCreated;
+
+    private long lastWindowCreated;
+
+    private volatile GenericObjectPool<?> pool;
+
+    void bindPool(GenericObjectPool<?> pool) {
+        this.pool = pool;
+    }
+
+    void recordBorrow(long costNanos, boolean waited, boolean success) {
+        borrowCount.increment();
+        borrowNanos.add(costNanos);
+        if (waited) {
+            borrowWaitCount.increment();
+        }
+        if (!success) {
+            borrowFailCount.increment();
+        }
+        long max = maxBorrowNanos.get();
+        while (costNanos > max && !maxBorrowNanos.compareAndSet(max, costNanos)) {
+            max = maxBorrowNanos.get();
+        }
+    }
+
+    synchronized void recordCreated(long now) {
+        rollRateWindow(now);
+        windowCreated++;
+        createdCount.increment();
+    }
+
+    void recordDestroyed() {
+        destroyedCount.increment();
+    }
+
+    public long borrowCount() {
+        return borrowCount.sum();
+    }
+
+    public long borrowWaitCount() {
+        return borrowWaitCount.sum();
+    }
+
+    public long borrowFailCount() {
+        return borrowFailCount.sum();
+    }
+
+    /**
+     * Mean borrow latency in microseconds
+     *
+     * @return
+     */
+    public long meanBorrowMicros() {
+        long count = borrowCount.sum();
+        return count == 0 ? 0 : borrowNanos.sum() / count / 1000;
+    }
+
+    /**
+     * Max borrow latency in microseconds
+     *
+     * @return
+     */
+    public long maxBorrowMicros() {
+        return maxBorrowNanos.get() / 1000;
+    }
+
+    /**
+     * Channels borrowed and not returned
+     *
+     * @return
+     */
+    public int activeCount() {
+        GenericObjectPool<?> current = pool;
+        return current == null ? 0 : current.getNumActive();
+    }
+
+    public int idleCount() {
+        GenericObjectPool<?> current = pool;
+        return current == null ? 0 : current.getNumIdle();
+    }
+
+    /**
+     * Threads currently blocked waiting for a channel
+     *
+     * @return
+     */
+    public int waiterCount() {
+        GenericObjectPool<?> current = pool;
+        return current == null ? 0 : current.getNumWaiters();
+    }
+
+    public long createdCount() {
+        return createdCount.sum();
+    }
+
+    public long destroyedCount() {
+        return destroyedCount.sum();
+    }
+
+    /**
+     * Channels created per minute, counted in the last complete window
+     *
+     * @return
+     */
+    public long creationRate() {
+        return creationRate(System.currentTimeMillis());
+    }
+
+    synchronized long creationRate(long now) {
+        rollRateWindow(now);
+        return lastWindowCreated;
+    }
+
+    private void rollRateWindow(long now) {
+        long elapsed = now - rateWindowStart;
+        if (elapsed < CREATION_RATE_WINDOW_MILLS) {
+            return;
+        }
+        // the last window is empty if more than one window passed
+        lastWindowCreated = elapsed < 2 * CREATION_RATE_WINDOW_MILLS ? windowCreated : 0;
+        windowCreated = 0;
+        rateWindowStart = now - elapsed % CREATION_RATE_WINDOW_MILLS;
+    }
+
+    @Override
+    public String toString() {
+        return "ChannelPoolMetrics{" + "borrowCount=" + borrowCount() + ", borrowWaitCount=" + borrowWaitCount()
+            + ", borrowFailCount=" + borrowFailCount() + ", meanBorrowMicros=" + meanBorrowMicros()
+            + ", maxBorrowMicros=" + maxBorrowMicros() + ", activeCount=" + activeCount() + ", idleCount="
+            + idleCount() + ", waiterCount=" + waiterCount() + ", createdCount=" + createdCount()
+            + ", destroyedCount=" + destroyedCount() + ", creationRate=" + creationRate() + '}';
+    }
+}
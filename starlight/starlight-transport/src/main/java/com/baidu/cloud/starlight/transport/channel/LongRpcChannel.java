@@ -50,7 +50,8 @@ public class LongRpcChannel implements RpcChannel {
 
     protected static final Logger LOGGER = LoggerFactory.getLogger(NettyRpcChannelGroup.class);
 
-    private final Map<Long, RpcCallback> callbacks;
+    // in-flight callbacks keyed by the primitive request id
+    private final CallbackTable callbacks;
 
     private final Map<String, Object> attributes;
 
@@ -67,7 +68,7 @@ public class LongRpcChannel implements RpcChannel {
     }
 
     public LongRpcChannel(Channel channel, ChannelSide side, RpcChannelGroup channelGroup) {
-        this.callbacks = new ConcurrentHashMap<>();
+        this.callbacks = new CallbackTable();
         this.attributes = new ConcurrentHashMap<>();
         this.channel = channel;
         this.side = side;
@@ -190,11 +191,11 @@ public class LongRpcChannel implements RpcChannel {
         }
 
         // clear callback
-        if (callbacks.size() > 0) {
+        if (callbacks.count() > 0) {
             LOGGER.warn(
                 "There are still unfinished requests when RpcChannel close, size {}, channelId {}, "
                     + "remoteAddress {}, will wait and handle this requests.",
-                callbacks.size(), channel.id().asLongText(), channel.remoteAddress());
+                callbacks.count(), channel.id().asLongText(), channel.remoteAddress());
             clearCallbacks();
         }
 
@@ -255,6 +256,11 @@ public class LongRpcChannel implements RpcChannel {
         return this.channelGroup;
     }
 
+    @Override
+    public int callbackCount() {
+        return callbacks.count();
+    }
+
     @Override
     public Map<Long, RpcCallback> allCallbacks() {
         return this.callbacks;
@@ -267,7 +273,7 @@ public class LongRpcChannel implements RpcChannel {
         long startClearTime = System.currentTimeMillis();
 
         for (;;) {
-            if (callbacks.size() <= 0) {
+            if (callbacks.count() <= 0) {
                 LOGGER.info("The channel has handled all request, will close, channelId {}, remoteAddr {}",
                     channel.id().asLongText(), channel.remoteAddress());
                 break;
@@ -276,12 +282,11 @@ public class LongRpcChannel implements RpcChannel {
             // FIXME 兜底方案，实际场景会走不到，因为每个请求对应的callback均有超时时间
             if ((System.currentTimeMillis() - startClearTime) > (1000 * 60 * 3)) { // max wait 3 min
                 LOGGER.error("The request has not been processed after waiting 3 minutes when closing channel. "
-                    + "Unhandled request size {}, will response timeout", callbacks.size());
-                for (RpcCallback callback : callbacks.values()) {
+                    + "Unhandled request size {}, will response timeout", callbacks.count());
+                for (RpcCallback callback : callbacks.drain()) {
                     callback.onError(StarlightRpcException.timeoutException(callback.getRequest(),
                         getRemoteAddress().getAddress().getHostAddress() + ":" + getRemoteAddress().getPort()));
                 }
-                callbacks.clear();
 
                 break;
             }
@@ -291,7 +296,7 @@ public class LongRpcChannel implements RpcChannel {
             } catch (InterruptedException e) {
                 LOGGER.error(
                     "Thread interrupted when clearCallbacks, remind callback size {}, " + "will response timeout",
-                    callbacks.size());
+                    callbacks.count());
                 // ignore
             }
         }
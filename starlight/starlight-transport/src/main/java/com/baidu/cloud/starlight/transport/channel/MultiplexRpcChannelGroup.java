@@ -0,0 +1,315 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.transport.channel;
+
+import com.baidu.cloud.starlight.api.common.Constants;
+import com.baidu.cloud.starlight.api.common.URI;
+import com.baidu.cloud.starlight.api.exception.TransportException;
+import com.baidu.cloud.starlight.api.rpc.LocalContext;
+import com.baidu.cloud.starlight.api.transport.channel.ChannelSide;
+import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
+import com.baidu.cloud.starlight.transport.utils.TimerHolder;
+import com.baidu.cloud.thirdparty.netty.bootstrap.Bootstrap;
+import com.baidu.cloud.thirdparty.netty.util.Timeout;
+import com.baidu.cloud.thirdparty.netty.util.TimerTask;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Multiplexed RpcChannel group: keep N long connections with one server, every connection is shared by concurrent
+ * requests. Requests select the connection with the least in-flight requests (or round robin), there is no
+ * borrow/return and no lock on the request path. A broken connection is reconnected in background, the others keep
+ * serving requests meanwhile.
+ */
+public class MultiplexRpcChannelGroup extends NettyRpcChannelGroup {
+
+    private final int channelNum;
+
+    private final boolean roundRobin;
+
+    private final AtomicReferenceArray<RpcChannel> rpcChannels;
+
+    private final AtomicInteger index = new AtomicInteger();
+
+    private final AtomicBoolean inited = new AtomicBoolean(false);
+
+    private final Set<Timeout> reconnectTimeouts = new CopyOnWriteArraySet<>();
+
+    private volatile boolean closed;
+
+    public MultiplexRpcChannelGroup(URI uri, Bootstrap bootstrap) {
+        super(uri, bootstrap);
+        this.channelNum = Math.max(1,
+            uri.getParameter(Constants.MULTI_CHANNEL_CONNECTIONS_KEY, Constants.MULTI_CHANNEL_CONNECTIONS));
+        this.roundRobin = Constants.MULTI_CHANNEL_SELECT_ROUND_ROBIN.equalsIgnoreCase(
+            uri.getParameter(Constants.MULTI_CHANNEL_SELECT_KEY, Constants.MULTI_CHANNEL_SELECT_LEAST_INFLIGHT));
+        this.rpcChannels = new AtomicReferenceArray<>(channelNum);
+    }
+
+    @Override
+    public void init() {
+        if (!inited.compareAndSet(false, true)) {
+            return;
+        }
+        TransportException lastException = null;
+        for (int i = 0; i < channelNum; i++) {
+            try {
+                rpcChannels.set(i, newRpcChannel());
+            } catch (TransportException e) {
+                lastException = e;
+                scheduleReconnect(i, null, 0);
+            }
+        }
+        // none of the connections established, fail like the single long connection
+        if (lastException != null && allRpcChannels().isEmpty()) {
+            throw lastException;
+        }
+    }
+
+    @Override
+    public RpcChannel getRpcChannel() throws TransportException {
+        RpcChannel rpcChannel = roundRobin ? roundRobinSelect() : leastInflightSelect();
+        if (rpcChannel == null) {
+            // no active connection, connect synchronously like SingleRpcChannelGroup
+            rpcChannel = reconnectNow();
+        }
+        LocalContext.getContext(Constants.LOCAL_CONTEXT_THREAD_CLASSLOADER_KEY)
+            .set(rpcChannel.channel().id().asLongText(), Thread.currentThread().getContextClassLoader());
+        return rpcChannel;
+    }
+
+    private RpcChannel roundRobinSelect() {
+        int start = startIndex();
+        for (int i = 0; i < channelNum; i++) {
+            RpcChannel rpcChannel = rpcChannels.get((start + i) % channelNum);
+            if (rpcChannel != null && rpcChannel.isActive()) {
+                return rpcChannel;
+            }
+        }
+        return null;
+    }
+
+    private RpcChannel leastInflightSelect() {
+        // start from a rotating offset so that idle connections are used evenly
+        int start = startIndex();
+        RpcChannel selected = null;
+        int minInflight = Integer.MAX_VALUE;
+        for (int i = 0; i < channelNum; i++) {
+            RpcChannel rpcChannel = rpcChannels.get((start + i) % channelNum);
+            if (rpcChannel == null || !rpcChannel.isActive()) {
+                continue;
+            }
+            int inflight = rpcChannel.callbackCount();
+            if (inflight < minInflight) {
+                minInflight = inflight;
+                selected = rpcChannel;
+                if (inflight == 0) {
+                    break;
+                }
+            }
+        }
+        return selected;
+    }
+
+    /**
+     * Reduce before adding the offset, start + i never overflows even if the counter wraps around
+     */
+    private int startIndex() {
+        return Math.floorMod(index.getAndIncrement(), channelNum);
+    }
+
+    /**
+     * For test
+     *
+     * @param value
+     */
+    void setIndex(int value) {
+        index.set(value);
+    }
+
+    private synchronized RpcChannel reconnectNow() {
+        for (int i = 0; i < channelNum; i++) {
+            RpcChannel rpcChannel = rpcChannels.get(i);
+            if (rpcChannel != null && rpcChannel.isActive()) { // reconnected by another thread
+                return rpcChannel;
+            }
+        }
+        LOGGER.info("Get RpcChannel from MultiplexRpcChannelGroup, no active RpcChannel. "
+            + "Will create new, remoteAddress {}.", getUri().getAddress());
+        RpcChannel oldChannel = rpcChannels.get(0);
+        RpcChannel newChannel = newRpcChannel();
+        // the others are reconnected in background
+        for (int i = 1; i < channelNum; i++) {
+            scheduleReconnect(i, rpcChannels.get(i), 0);
+        }
+        if (replace(0, oldChannel, newChannel)) {
+            return newChannel;
+        }
+        RpcChannel current = rpcChannels.get(0);
+        if (current == null || !current.isActive()) {
+            throw new TransportException(TransportException.CONNECT_EXCEPTION,
+                "Get Channel from MultiplexRpcChannelGroup failed, remoteAddress " + getUri().getAddress());
+        }
+        return current;
+    }
+
+    /**
+     * Connections are multiplexed, nothing to return
+     *
+     * @param rpcChannel
+     */
+    @Override
+    public void returnRpcChannel(RpcChannel rpcChannel) {
+        // do nothing
+    }
+
+    // 当前仅在HeartBeatHandler与RpcHandler中调用，只重连当前失效的连接
+    @Override
+    public void removeRpcChannel(RpcChannel rpcChannel) {
+        for (int i = 0; i < channelNum; i++) {
+            if (rpcChannels.get(i) == rpcChannel) {
+                scheduleReconnect(i, rpcChannel, 0);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 仅统计当前可用的连接，失效待重连的连接不计入
+     *
+     * @return
+     */
+    @Override
+    public int rpcChannelCount() {
+        int count = 0;
+        for (int i = 0; i < channelNum; i++) {
+            RpcChannel rpcChannel = rpcChannels.get(i);
+            if (rpcChannel != null && rpcChannel.isActive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (Timeout timeout : reconnectTimeouts) {
+            timeout.cancel();
+        }
+        for (int i = 0; i < channelNum; i++) {
+            RpcChannel rpcChannel = rpcChannels.getAndSet(i, null);
+            if (rpcChannel != null) {
+                rpcChannel.close();
+            }
+        }
+    }
+
+    @Override
+    public Set<RpcChannel> allRpcChannels() {
+        Set<RpcChannel> result = new HashSet<>();
+        for (int i = 0; i < channelNum; i++) {
+            RpcChannel rpcChannel = rpcChannels.get(i);
+            if (rpcChannel != null) {
+                result.add(rpcChannel);
+            }
+        }
+        return result;
+    }
+
+    private RpcChannel newRpcChannel() throws TransportException {
+        RpcChannel rpcChannel = new LongRpcChannel(connect(), ChannelSide.CLIENT, this);
+        // cache protocol information, so we can use it in DecoderHandler
+        rpcChannel.setAttribute(Constants.PROTOCOL_ATTR_KEY, getUri().getProtocol());
+        return rpcChannel;
+    }
+
+    private boolean replace(int slot, RpcChannel oldChannel, RpcChannel newChannel) {
+        if (!rpcChannels.compareAndSet(slot, oldChannel, newChannel)) {
+            // replaced by another thread
+            newChannel.close();
+            return false;
+        }
+        if (oldChannel != null) {
+            // close old channel, use thread to reduce time consuming
+            new Thread(oldChannel::close).start();
+        }
+        if (closed && rpcChannels.compareAndSet(slot, newChannel, null)) {
+            newChannel.close();
+            return false;
+        }
+        return true;
+    }
+
+    private void scheduleReconnect(int slot, RpcChannel oldChannel, int reconnectedTimes) {
+        if (closed) {
+            return;
+        }
+        long delay = reconnectedTimes == 0 ? 0 : Constants.RECONNECT_RETRY_INTERVAL_AFTER_FAILED;
+        Timeout timeout = TimerHolder.getTimer().newTimeout(new ReconnectTask(slot, oldChannel, reconnectedTimes),
+            delay, TimeUnit.SECONDS);
+        reconnectTimeouts.add(timeout);
+    }
+
+    /**
+     * Reconnect one slot of the group
+     */
+    private class ReconnectTask implements TimerTask {
+
+        private final int slot;
+
+        private final RpcChannel needReconChannel;
+
+        private final int reconnectedTimes;
+
+        private ReconnectTask(int slot, RpcChannel needReconChannel, int reconnectedTimes) {
+            this.slot = slot;
+            this.needReconChannel = needReconChannel;
+            this.reconnectedTimes = reconnectedTimes;
+        }
+
+        @Override
+        public void run(Timeout timeout) throws Exception {
+            reconnectTimeouts.remove(timeout);
+            if (closed || rpcChannels.get(slot) != needReconChannel) { // already reconnected
+                return;
+            }
+            try {
+                LOGGER.info("Will reconnect channel {} of MultiplexRpcChannelGroup, remoteAddress {}",
+                    needReconChannel, getUri().getAddress());
+                replace(slot, needReconChannel, newRpcChannel());
+            } catch (TransportException e) {
+                if (reconnectedTimes >= Constants.MAX_RECONNECT_TIMES) {
+                    LOGGER.info("Maximum number {} of connection retries reached, reconnect failed: "
+                        + "remoteHost {}, remotePort {}", Constants.MAX_RECONNECT_TIMES, getUri().getHost(),
+                        getUri().getPort(), e);
+                    return;
+                }
+                LOGGER.info("Reconnect to remote {}:{} failed, retry times {}, will retry after {}s",
+                    getUri().getHost(), getUri().getPort(), reconnectedTimes + 1,
+                    Constants.RECONNECT_RETRY_INTERVAL_AFTER_FAILED);
+                scheduleReconnect(slot, needReconChannel, reconnectedTimes + 1);
+            }
+        }
+    }
+}
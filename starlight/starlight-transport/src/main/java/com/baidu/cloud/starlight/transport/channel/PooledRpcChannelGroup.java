@@ -23,13 +23,12 @@ import com.baidu.cloud.starlight.api.rpc.LocalContext;
 import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
 import com.baidu.cloud.thirdparty.netty.bootstrap.Bootstrap;
 import com.baidu.cloud.thirdparty.pool2.PooledObject;
-import com.baidu.cloud.thirdparty.pool2.impl.DefaultPooledObjectInfo;
 import com.baidu.cloud.thirdparty.pool2.impl.GenericObjectPool;
 import com.baidu.cloud.thirdparty.pool2.impl.GenericObjectPoolConfig;
 
-import java.lang.reflect.Field;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * PooledRpcChannel: keep fixed connections with one server Created by liuruisen on 2020/3/31.
@@ -38,6 +37,13 @@ public class PooledRpcChannelGroup extends NettyRpcChannelGroup {
 
     private GenericObjectPool<RpcChannel> channelPool;
 
+    /**
+     * All channels created by the pool and not destroyed yet, tracked by the pooled object factory
+     */
+    private final Set<RpcChannel> rpcChannels = ConcurrentHashMap.newKeySet();
+
+    private final ChannelPoolMetrics metrics = new ChannelPoolMetrics();
+
     public PooledRpcChannelGroup(URI uri, Bootstrap bootstrap) {
         super(uri, bootstrap);
         // init();
@@ -45,12 +51,16 @@ public class PooledRpcChannelGroup extends NettyRpcChannelGroup {
 
     @Override
     public RpcChannel getRpcChannel() {
+        long borrowStart = System.nanoTime();
+        boolean waited = channelPool.getNumIdle() == 0;
         try {
             RpcChannel rpcChannel = channelPool.borrowObject();
             LocalContext.getContext(Constants.LOCAL_CONTEXT_THREAD_CLASSLOADER_KEY)
                 .set(rpcChannel.channel().id().asLongText(), Thread.currentThread().getContextClassLoader());
+            metrics.recordBorrow(System.nanoTime() - borrowStart, waited, true);
             return rpcChannel;
         } catch (Exception e) {
+            metrics.recordBorrow(System.nanoTime() - borrowStart, waited, false);
             throw new TransportException(TransportException.CONNECT_EXCEPTION,
                 "Get Channel from pool failed :" + e.getMessage());
         }
@@ -86,7 +96,7 @@ public class PooledRpcChannelGroup extends NettyRpcChannelGroup {
 
     @Override
     public int rpcChannelCount() {
-        return channelPool.listAllObjects().size();
+        return rpcChannels.size();
     }
 
     /**
@@ -108,7 +118,8 @@ public class PooledRpcChannelGroup extends NettyRpcChannelGroup {
         poolConfig.setTestOnBorrow(true);
         poolConfig.setTimeBetweenEvictionRunsMillis(Constants.TIME_BETWEEN_EVICTION_RUN_MILLS);
 
-        channelPool = new GenericObjectPool<>(new ChannelPooledObjectFactory(this), poolConfig);
+        channelPool = new GenericObjectPool<>(new TrackedChannelPooledObjectFactory(), poolConfig);
+        metrics.bindPool(channelPool);
 
         try {
             channelPool.preparePool();
@@ -120,23 +131,46 @@ public class PooledRpcChannelGroup extends NettyRpcChannelGroup {
     @Override
     public void close() {
         channelPool.close();
+        LOGGER.info("PooledRpcChannelGroup of {} closed, {}", getUri().getAddress(), metrics);
     }
 
     @Override
     public Set<RpcChannel> allRpcChannels() {
-        Set<RpcChannel> rpcChannels = new HashSet<>();
-        Set<DefaultPooledObjectInfo> pooledObjectInfos = channelPool.listAllObjects();
-        try {
-            for (DefaultPooledObjectInfo pooledObjectInfo : pooledObjectInfos) {
-                Field pooledObjectField = pooledObjectInfo.getClass().getDeclaredField("pooledObject");
-                pooledObjectField.setAccessible(true);
-                PooledObject pooledObject = (PooledObject) pooledObjectField.get(pooledObjectInfo);
-                rpcChannels.add((RpcChannel) pooledObject.getObject());
-            }
-        } catch (NoSuchFieldException | IllegalAccessException e) {
-            LOGGER.error("Get all rpcChannels from PooledChannelGroup failed", e);
+        return Collections.unmodifiableSet(rpcChannels);
+    }
+
+    /**
+     * Metrics of the channel pool
+     *
+     * @return
+     */
+    public ChannelPoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Register channels to {@link #rpcChannels} when created and remove them when destroyed
+     */
+    private class TrackedChannelPooledObjectFactory extends ChannelPooledObjectFactory {
+
+        TrackedChannelPooledObjectFactory() {
+            super(PooledRpcChannelGroup.this);
         }
 
-        return rpcChannels;
+        @Override
+        public RpcChannel create() throws Exception {
+            RpcChannel rpcChannel = super.create();
+            rpcChannels.add(rpcChannel);
+            metrics.recordCreated(System.currentTimeMillis());
+            return rpcChannel;
+        }
+
+        @Override
+        public void destroyObject(PooledObject<RpcChannel> p) throws Exception {
+            if (rpcChannels.remove(p.getObject())) {
+                metrics.recordDestroyed();
+            }
+            super.destroyObject(p);
+        }
     }
 }
@@ -0,0 +1,358 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.transport.concurrent;
+
+import com.baidu.cloud.starlight.api.rpc.threadpool.NamedThreadFactory;
+import com.baidu.cloud.thirdparty.netty.util.Timeout;
+import com.baidu.cloud.thirdparty.netty.util.Timer;
+import com.baidu.cloud.thirdparty.netty.util.TimerTask;
+import com.baidu.cloud.thirdparty.netty.util.internal.PlatformDependent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Timeout timer used to track rpc timeouts, replaces the shared single-thread HashedWheelTimer.
+ * <p>
+ * Timeouts are spread over several shards, each shard owns a worker thread and a deadline queue (min-heap). A new
+ * timeout is handed to the shard through a mpsc queue, cancel is a single CAS: most rpc complete before the worker
+ * transfers the timeout to the heap, so cancelled timeouts never reach the heap. Cancelled timeouts in the heap are
+ * purged when they make up more than half of it.
+ * <p>
+ * Lag (the delay between deadline and actual expiration) and backlog (pending timeouts) are exposed as metrics.
+ */
+public class ShardedDeadlineTimer implements Timer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ShardedDeadlineTimer.class);
+
+    private static final long DEFAULT_TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+    private static final long LAG_WARN_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final int MIN_PURGE_SIZE = 64;
+
+    private static final Comparator<DeadlineTimeout> DEADLINE_COMPARATOR =
+        (t1, t2) -> Long.compare(t1.deadline - t2.deadline, 0);
+
+    private final Shard[] shards;
+
+    private final long tickNanos;
+
+    private volatile boolean stopped;
+
+    public ShardedDeadlineTimer(String name, int shardNum) {
+        this(name, shardNum, DEFAULT_TICK_NANOS, TimeUnit.NANOSECONDS);
+    }
+
+    public ShardedDeadlineTimer(String name, int shardNum, long tick, TimeUnit unit) {
+        if (shardNum <= 0) {
+            throw new IllegalArgumentException("shardNum must be greater than 0: " + shardNum);
+        }
+        if (tick <= 0) {
+            throw new IllegalArgumentException("tick must be greater than 0: " + tick);
+        }
+        this.tickNanos = unit.toNanos(tick);
+        ThreadFactory threadFactory = new NamedThreadFactory(name);
+        this.shards = new Shard[shardNum];
+        for (int i = 0; i < shardNum; i++) {
+            shards[i] = new Shard();
+            Thread worker = threadFactory.newThread(shards[i]);
+            shards[i].worker = worker;
+            worker.start();
+        }
+    }
+
+    /**
+     * Timeouts of the same thread are put in the same shard
+     */
+    @Override
+    public Timeout newTimeout(TimerTask task, long delay, TimeUnit unit) {
+        return schedule(Thread.currentThread().getId(), task, delay, unit);
+    }
+
+    /**
+     * Timeouts with the same shardKey (such as the channel) are put in the same shard
+     *
+     * @param shardKey
+     * @param task
+     * @param delay
+     * @param unit
+     * @return
+     */
+    public Timeout newTimeout(Object shardKey, TimerTask task, long delay, TimeUnit unit) {
+        return schedule(shardKey == null ? 0 : shardKey.hashCode(), task, delay, unit);
+    }
+
+    private Timeout schedule(long hash, TimerTask task, long delay, TimeUnit unit) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        if (stopped) {
+            throw new IllegalStateException("cannot be started once stopped");
+        }
+        Shard shard = shards[(int) ((hash ^ (hash >>> 16)) & Integer.MAX_VALUE) % shards.length];
+        DeadlineTimeout timeout =
+            new DeadlineTimeout(this, shard, task, System.nanoTime() + Math.max(unit.toNanos(delay), 0));
+        shard.pendingCount.incrementAndGet();
+        shard.incoming.add(timeout);
+        return timeout;
+    }
+
+    @Override
+    public Set<Timeout> stop() {
+        stopped = true;
+        Set<Timeout> unprocessed = new HashSet<>();
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.worker);
+            boolean interrupted = false;
+            while (shard.worker.isAlive() && shard.worker != Thread.currentThread()) {
+                try {
+                    shard.worker.join(100);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            unprocessed.addAll(shard.unprocessed);
+        }
+        return unprocessed;
+    }
+
+    /**
+     * Backlog: timeouts neither expired nor cancelled
+     *
+     * @return
+     */
+    public long getPendingTimeouts() {
+        long pending = 0;
+        for (Shard shard : shards) {
+            pending += shard.pendingCount.get();
+        }
+        return pending;
+    }
+
+    /**
+     * Total number of expired timeouts
+     *
+     * @return
+     */
+    public long getExpiredTimeouts() {
+        long expired = 0;
+        for (Shard shard : shards) {
+            expired += shard.expiredCount.get();
+        }
+        return expired;
+    }
+
+    /**
+     * Max lag between deadline and expiration since the last call, reset on read
+     *
+     * @return
+     */
+    public long getMaxLagMills() {
+        long maxLagNanos = 0;
+        for (Shard shard : shards) {
+            maxLagNanos = Math.max(maxLagNanos, shard.maxLagNanos.getAndSet(0));
+        }
+        return TimeUnit.NANOSECONDS.toMillis(maxLagNanos);
+    }
+
+    public int getShardNum() {
+        return shards.length;
+    }
+
+    private final class Shard implements Runnable {
+
+        // mpsc: producers are rpc threads, the consumer is the worker
+        private final Queue<DeadlineTimeout> incoming = PlatformDependent.newMpscQueue();
+
+        // owned by the worker thread
+        private final PriorityQueue<DeadlineTimeout> deadlines = new PriorityQueue<>(DEADLINE_COMPARATOR);
+
+        private final AtomicLong pendingCount = new AtomicLong();
+
+        private final AtomicLong expiredCount = new AtomicLong();
+
+        private final AtomicLong maxLagNanos = new AtomicLong();
+
+        // approximate, only used to decide when to purge the heap
+        private final AtomicLong cancelledInHeap = new AtomicLong();
+
+        private final Set<Timeout> unprocessed = new HashSet<>();
+
+        private Thread worker;
+
+        @Override
+        public void run() {
+            while (!stopped) {
+                transferIncoming();
+                purgeCancelled();
+                long now = System.nanoTime();
+                expire(now);
+
+                long waitNanos = tickNanos;
+                DeadlineTimeout head = deadlines.peek();
+                if (head != null) {
+                    waitNanos = Math.min(waitNanos, Math.max(head.deadline - now, 0));
+                }
+                if (waitNanos > 0) {
+                    LockSupport.parkNanos(this, waitNanos);
+                }
+            }
+            transferIncoming();
+            for (DeadlineTimeout timeout : deadlines) {
+                if (!timeout.isCancelled()) {
+                    unprocessed.add(timeout);
+                }
+            }
+            deadlines.clear();
+        }
+
+        private void transferIncoming() {
+            DeadlineTimeout timeout;
+            while ((timeout = incoming.poll()) != null) {
+                if (timeout.isCancelled()) { // completed before reaching the heap
+                    continue;
+                }
+                timeout.inHeap = true;
+                deadlines.add(timeout);
+            }
+        }
+
+        private void purgeCancelled() {
+            int size = deadlines.size();
+            if (size >= MIN_PURGE_SIZE && cancelledInHeap.get() > size / 2) {
+                deadlines.removeIf(DeadlineTimeout::isCancelled);
+                cancelledInHeap.set(0);
+            }
+        }
+
+        private void expire(long now) {
+            for (;;) {
+                DeadlineTimeout timeout = deadlines.peek();
+                if (timeout == null || timeout.deadline - now > 0) {
+                    return;
+                }
+                deadlines.poll();
+                if (!timeout.expire()) { // cancelled
+                    continue;
+                }
+                long lag = now - timeout.deadline;
+                maxLagNanos.accumulateAndGet(lag, Math::max);
+                if (lag > LAG_WARN_NANOS) {
+                    LOGGER.warn("Timeout expired {}ms later than its deadline, pending timeouts {}",
+                        TimeUnit.NANOSECONDS.toMillis(lag), pendingCount.get());
+                }
+                try {
+                    timeout.task.run(timeout);
+                } catch (Throwable t) {
+                    LOGGER.warn("An exception was thrown by TimerTask {}", timeout.task, t);
+                }
+            }
+        }
+    }
+
+    private static final class DeadlineTimeout implements Timeout {
+
+        private static final int ST_INIT = 0;
+
+        private static final int ST_CANCELLED = 1;
+
+        private static final int ST_EXPIRED = 2;
+
+        private static final AtomicIntegerFieldUpdater<DeadlineTimeout> STATE_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(DeadlineTimeout.class, "state");
+
+        private final ShardedDeadlineTimer timer;
+
+        private final Shard shard;
+
+        private final TimerTask task;
+
+        private final long deadline;
+
+        private volatile int state = ST_INIT;
+
+        // written by the worker, read by cancel to count the cancelled timeouts in the heap
+        private volatile boolean inHeap;
+
+        private DeadlineTimeout(ShardedDeadlineTimer timer, Shard shard, TimerTask task, long deadline) {
+            this.timer = timer;
+            this.shard = shard;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public Timer timer() {
+            return timer;
+        }
+
+        @Override
+        public TimerTask task() {
+            return task;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state == ST_EXPIRED;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == ST_CANCELLED;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_CANCELLED)) {
+                return false;
+            }
+            shard.pendingCount.decrementAndGet();
+            if (inHeap) {
+                shard.cancelledInHeap.incrementAndGet();
+            }
+            return true;
+        }
+
+        private boolean expire() {
+            if (!STATE_UPDATER.compareAndSet(this, ST_INIT, ST_EXPIRED)) {
+                return false;
+            }
+            shard.pendingCount.decrementAndGet();
+            shard.expiredCount.incrementAndGet();
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return "DeadlineTimeout(deadline: " + deadline + ", task: " + task + ")";
+        }
+    }
+}
@@ -20,6 +20,7 @@ import com.baidu.cloud.starlight.api.common.Constants;
 import com.baidu.cloud.starlight.api.exception.CodecException;
 import com.baidu.cloud.starlight.api.exception.TransportException;
 import com.baidu.cloud.starlight.api.extension.ExtensionLoader;
+import com.baidu.cloud.starlight.api.model.AbstractMsgBase;
 import com.baidu.cloud.starlight.api.model.MsgBase;
 import com.baidu.cloud.starlight.api.rpc.LocalContext;
 import com.baidu.cloud.starlight.api.rpc.RpcContext;
@@ -46,6 +47,25 @@ public class DecoderHandler extends SimpleChannelInboundHandler<ByteBuf> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DecoderHandler.class);
 
+    private static volatile String[] supportedProtocols;
+
+    /**
+     * Results of {@link #matchProtocol(String[], DynamicCompositeByteBuf)} other than the index of the matched protocol
+     */
+    private static final int MATCH_UNKNOWN = -1;
+
+    private static final int MATCH_NEED_MORE_DATA = -2;
+
+    private static final int MATCH_NONE = -3;
+
+    /**
+     * Returned instead of throwing {@link CodecException} when the protocol of the channel can not be detected, the
+     * read loop stops without allocating an exception
+     */
+    private static final MsgBase NEED_MORE_DATA = new AbstractMsgBase() {};
+
+    private static final MsgBase NOT_MATCH = new AbstractMsgBase() {};
+
     @Override
     protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) throws Exception {
 
@@ -91,6 +111,14 @@ public class DecoderHandler extends SimpleChannelInboundHandler<ByteBuf> {
                 ThreadLocalChannelContext.getContext().setChannel(attribute.getRpcChannel().channel());
                 // protocol decode
                 MsgBase msgBase = protocolDecode(attribute, attribute.getDynamicByteBuf());
+                if (msgBase == NEED_MORE_DATA) { // detect protocol next time
+                    break;
+                }
+                if (msgBase == NOT_MATCH) {
+                    LOGGER.warn("Bytes not match any protocol: side {}, remoteAddr {}, recvMsgTime {}, size {}.",
+                        rpcChannel.side(), remoteAddress, receiveTime, msgSize);
+                    break;
+                }
 
                 // fire message
                 if (msgBase != null) {
@@ -146,7 +174,7 @@ public class DecoderHandler extends SimpleChannelInboundHandler<ByteBuf> {
         try {
             if (attribute.getChannelProtocol() != null
                 && !attribute.getChannelProtocol().equals(Constants.UNSPECIFIED_PROTOCOL)) {
-                return knowProtocolDecode(attribute.getChannelProtocol(), byteBuf);
+                return knowProtocolDecode(attribute, attribute.getChannelProtocol(), byteBuf);
             }
         } catch (CodecException e) {
             // protocol not match will retry decode use unknow protocol
@@ -170,14 +198,16 @@ public class DecoderHandler extends SimpleChannelInboundHandler<ByteBuf> {
     /**
      * Decode message with know protocol May throw CodecException, when decode fail
      *
+     * @param attribute
      * @param protocolName
      * @param byteBuf
      * @return
      * @throws CodecException
      */
-    private MsgBase knowProtocolDecode(String protocolName, DynamicCompositeByteBuf byteBuf) throws CodecException {
-        Protocol protocol = ExtensionLoader.getInstance(Protocol.class).getExtension(protocolName);
-        return protocol.getDecoder().decode(byteBuf);
+    private MsgBase knowProtocolDecode(ChannelAttribute attribute, String protocolName,
+        DynamicCompositeByteBuf byteBuf) throws CodecException {
+        // decoder is resolved once per channel
+        return attribute.getDecoder(protocolName).decode(byteBuf);
     }
 
     /**
@@ -189,13 +219,36 @@ public class DecoderHandler extends SimpleChannelInboundHandler<ByteBuf> {
      */
     private MsgBase unKnowProtocolDecode(ChannelAttribute attribute, DynamicCompositeByteBuf byteBuf)
         throws CodecException {
+        // detect protocol by magic first, trial decoding is only needed when some protocol declares no magic
+        String[] supported = supportedProtocols();
+        int match = matchProtocol(supported, byteBuf);
+        if (match == MATCH_NEED_MORE_DATA) {
+            return NEED_MORE_DATA;
+        }
+        if (match == MATCH_NONE) {
+            return NOT_MATCH;
+        }
+        if (match >= 0) {
+            String matchedProtocol = supported[match];
+            attribute.resetChannelProtocol(matchedProtocol);
+            try {
+                return knowProtocolDecode(attribute, matchedProtocol, byteBuf);
+            } catch (CodecException e) {
+                if (!e.getCode().equals(CodecException.PROTOCOL_DECODE_NOTMATCH_EXCEPTION)) {
+                    throw e;
+                }
+                // magic matched but decode not, fall back to trial decoding
+                attribute.resetChannelProtocol(Constants.UNSPECIFIED_PROTOCOL);
+            }
+        }
+
         MsgBase msgObj = null;
         Set<String> protocols = ExtensionLoader.getInstance(Protocol.class).getSupportedExtensions();
         int protocolNum = 1;
         // all support protocols
         for (String protocolName : protocols) {
             try {
-                msgObj = knowProtocolDecode(protocolName, byteBuf);
+                msgObj = ExtensionLoader.getExtension(Protocol.class, protocolName).getDecoder().decode(byteBuf);
                 if (msgObj != null) {
                     // specified protocol, cache protocol to improve decoding efficiency
                     attribute.resetChannelProtocol(protocolName);
@@ -227,4 +280,50 @@ public class DecoderHandler extends SimpleChannelInboundHandler<ByteBuf> {
         return msgObj;
     }
 
+    /**
+     * Detect protocol by {@link Protocol#match(DynamicCompositeByteBuf)}, without consuming bytes or throwing
+     *
+     * @param protocols
+     * @param byteBuf
+     * @return index of the matched protocol in protocols, {@link #MATCH_UNKNOWN} if some protocol
+     *         can only be detected by trial decoding, {@link #MATCH_NEED_MORE_DATA} if waiting for more bytes,
+     *         {@link #MATCH_NONE} if no protocol matched
+     */
+    private static int matchProtocol(String[] protocols, DynamicCompositeByteBuf byteBuf) {
+        boolean needMoreData = false;
+        boolean unknown = false;
+        for (int i = 0; i < protocols.length; i++) {
+            switch (ExtensionLoader.getExtension(Protocol.class, protocols[i]).match(byteBuf)) {
+                case MATCH:
+                    return i;
+                case NEED_MORE_DATA:
+                    needMoreData = true;
+                    break;
+                case UNKNOWN:
+                    unknown = true;
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (unknown) {
+            return MATCH_UNKNOWN;
+        }
+        return needMoreData ? MATCH_NEED_MORE_DATA : MATCH_NONE;
+    }
+
+    /**
+     * Protocol extensions are loaded once, cache the names to avoid copying them for every new channel
+     *
+     * @return
+     */
+    private static String[] supportedProtocols() {
+        String[] protocols = supportedProtocols;
+        if (protocols == null) {
+            protocols = ExtensionLoader.getInstance(Protocol.class).getSupportedExtensions().toArray(new String[0]);
+            supportedProtocols = protocols;
+        }
+        return protocols;
+    }
+
 }
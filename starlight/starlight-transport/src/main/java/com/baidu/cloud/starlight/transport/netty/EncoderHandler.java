@@ -19,11 +19,9 @@ package com.baidu.cloud.starlight.transport.netty;
 import com.baidu.cloud.starlight.api.common.Constants;
 import com.baidu.cloud.starlight.api.exception.CodecException;
 import com.baidu.cloud.starlight.api.exception.TransportException;
-import com.baidu.cloud.starlight.api.extension.ExtensionLoader;
 import com.baidu.cloud.starlight.api.model.MsgBase;
 import com.baidu.cloud.starlight.api.model.Request;
 import com.baidu.cloud.starlight.api.model.Response;
-import com.baidu.cloud.starlight.api.protocol.Protocol;
 import com.baidu.cloud.starlight.api.protocol.ProtocolEncoder;
 import com.baidu.cloud.starlight.api.rpc.LocalContext;
 import com.baidu.cloud.starlight.api.transport.channel.ChannelAttribute;
@@ -35,20 +33,24 @@ import com.baidu.cloud.starlight.api.utils.StringUtils;
 import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
 import com.baidu.cloud.thirdparty.netty.channel.ChannelHandler;
 import com.baidu.cloud.thirdparty.netty.channel.ChannelHandlerContext;
-import com.baidu.cloud.thirdparty.netty.handler.codec.MessageToByteEncoder;
+import com.baidu.cloud.thirdparty.netty.handler.codec.MessageToMessageEncoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 /**
- * Protocol encoding in the IO thread Created by liuruisen on 2020/2/3.
+ * Protocol encoding in the IO thread. The (composite) ByteBuf returned by {@link ProtocolEncoder#encode(MsgBase)} is
+ * passed to the channel as it is, without copying into an encoder output buffer; the channel releases it once written.
+ * Created by liuruisen on 2020/2/3.
  */
 @ChannelHandler.Sharable
-public class EncoderHandler extends MessageToByteEncoder<MsgBase> {
+public class EncoderHandler extends MessageToMessageEncoder<MsgBase> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EncoderHandler.class);
 
     @Override
-    protected void encode(ChannelHandlerContext channelHandlerContext, MsgBase msgBase, ByteBuf byteBuf)
+    protected void encode(ChannelHandlerContext channelHandlerContext, MsgBase msgBase, List<Object> out)
         throws Exception {
 
         ChannelAttribute attribute = channelHandlerContext.channel().attr(RpcChannel.ATTRIBUTE_KEY).get();
@@ -83,9 +85,11 @@ public class EncoderHandler extends MessageToByteEncoder<MsgBase> {
             throw new CodecException("Cannot encode the message, protocol info is null in the message");
         }
 
-        ProtocolEncoder encoder = ExtensionLoader.getInstance(Protocol.class).getExtension(protocolName).getEncoder();
+        // encoder is resolved once per channel
+        ProtocolEncoder encoder = attribute.getEncoder(protocolName);
         // Protocol encode
         ByteBuf encodeResult = null;
+        boolean written = false;
         try {
             ThreadLocalChannelContext.getContext().setChannel(attribute.getRpcChannel().channel());
             long beforeEncodeHeaderTime = System.currentTimeMillis();
@@ -94,6 +98,10 @@ public class EncoderHandler extends MessageToByteEncoder<MsgBase> {
                 msgBase.getAttachmentKv().put(Constants.BEFORE_ENCODE_HEADER_TIME_KEY, beforeEncodeHeaderTime);
             }
             encodeResult = encoder.encode(msgBase);
+            if (encodeResult == null) {
+                throw new CodecException(CodecException.PROTOCOL_ENCODE_EXCEPTION,
+                    "Protocol encode result is null, protocol: " + protocolName);
+            }
             LogUtils.addLogTimeAttachment(msgBase, Constants.ENCODE_HEADER_COST,
                 System.currentTimeMillis() - beforeEncodeHeaderTime);
             if (msgBase instanceof Response) { // server side: the request - response is complete, record acc log
@@ -104,16 +112,17 @@ public class EncoderHandler extends MessageToByteEncoder<MsgBase> {
                 LogUtils.addLogTimeAttachment(msgBase, Constants.BEFORE_SERVER_EXECUTE_TIME_KEY,
                     System.currentTimeMillis());
             }
-            // NOTICE: 涉及一次内存拷贝，可优化？
-            byteBuf.writeBytes(encodeResult);
+            // zero copy: header + meta + body buffers are written to the channel directly
+            out.add(encodeResult);
+            written = true;
             LOGGER.debug("Send msg to {}, size {}", channelHandlerContext.channel().remoteAddress(),
-                byteBuf.readableBytes());
+                encodeResult.readableBytes());
         } catch (CodecException e) {
             LOGGER.warn("Protocol encode fail, protocol: " + protocolName, e);
             throw e;
         } finally {
-            // 此处进行encodeResult release的操作,encodeResult被writeBytes后将无用
-            if (encodeResult != null && encodeResult.refCnt() > 0) {
+            // encodeResult写出后由channel负责release，仅在未写出时在此处release
+            if (!written && encodeResult != null && encodeResult.refCnt() > 0) {
                 encodeResult.release();
             }
             ThreadLocalChannelContext.removeContext();
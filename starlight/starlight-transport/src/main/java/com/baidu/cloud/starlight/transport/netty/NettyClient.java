@@ -29,9 +29,12 @@ import com.baidu.cloud.starlight.api.transport.PeerStatus;
 import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
 import com.baidu.cloud.starlight.api.transport.channel.RpcChannelGroup;
 import com.baidu.cloud.starlight.protocol.http.springrest.sse.SpringRestSseProtocol;
+import com.baidu.cloud.starlight.transport.channel.CallbackTable;
+import com.baidu.cloud.starlight.transport.channel.MultiplexRpcChannelGroup;
 import com.baidu.cloud.starlight.transport.channel.PooledRpcChannelGroup;
 import com.baidu.cloud.starlight.transport.channel.SingleRpcChannelGroup;
 import com.baidu.cloud.starlight.transport.concurrent.DelegateThreadFactory;
+import com.baidu.cloud.starlight.transport.concurrent.ShardedDeadlineTimer;
 import com.baidu.cloud.starlight.transport.utils.TimerHolder;
 import com.baidu.cloud.thirdparty.netty.bootstrap.Bootstrap;
 import com.baidu.cloud.thirdparty.netty.buffer.PooledByteBufAllocator;
@@ -48,11 +51,15 @@ import com.baidu.cloud.thirdparty.netty.channel.socket.SocketChannel;
 import com.baidu.cloud.thirdparty.netty.channel.socket.nio.NioSocketChannel;
 import com.baidu.cloud.thirdparty.netty.handler.timeout.IdleStateHandler;
 import com.baidu.cloud.thirdparty.netty.util.Timeout;
-import com.baidu.cloud.thirdparty.netty.util.TimerTask;
 import com.baidu.cloud.thirdparty.netty.util.concurrent.DefaultThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ThreadFactory;
@@ -78,6 +85,8 @@ public class NettyClient implements ClientPeer {
 
     private ThreadFactory threadFactory;
 
+    private final ShardedDeadlineTimer timeoutTimer;
+
     // 存储NettyClient这个类的实例信息，以ip:port为key
     private static final Set<String> INSTANCE_SET = new CopyOnWriteArraySet<>();
 
@@ -122,6 +131,8 @@ public class NettyClient implements ClientPeer {
     public NettyClient(URI uri) {
 
         this.uri = uri;
+        this.timeoutTimer = TimerHolder.getTimeoutTimer(
+            uri.getParameter(Constants.TIMEOUT_TIMER_SHARDS_KEY, TimerHolder.DEFAULT_TIMEOUT_TIMER_SHARDS));
         INSTANCE_SET.add(this.uri.getAddress());
     }
 
@@ -175,16 +186,9 @@ public class NettyClient implements ClientPeer {
             // carry request time out to server, remember not set it in server side RpcContext
             request.getAttachmentKv().put(Constants.REQUEST_TIMEOUT_KEY, requestTimeoutMills);
 
-            Timeout timeout = TimerHolder.getTimer().newTimeout(new TimerTask() {
-                @Override
-                public void run(Timeout timeout) throws Exception {
-                    RpcCallback rpcCallback = rpcChannel.removeCallback(request.getId());
-                    if (rpcCallback == null) {
-                        return;
-                    }
-                    rpcCallback.onError(StarlightRpcException.timeoutException(request, getUri().getAddress()));
-                }
-            }, requestTimeoutMills, TimeUnit.MILLISECONDS);
+            // timeouts of the same channel are tracked in the same shard, cancelled cheaply on response
+            Timeout timeout = timeoutTimer.newTimeout(rpcChannel, new RequestTimeoutTask(rpcChannel, request, getUri()),
+                requestTimeoutMills, TimeUnit.MILLISECONDS);
             callback.addTimeout(timeout);
             rpcChannel.putCallback(request.getId(), callback); // put callback to rpc channel
             rpcChannel.send(request); // send request
@@ -197,6 +201,10 @@ public class NettyClient implements ClientPeer {
         }
     }
 
+    public ShardedDeadlineTimer getTimeoutTimer() {
+        return timeoutTimer;
+    }
+
     @Override
     public void init() {
         if (eventLoopGroup == null) {
@@ -298,6 +306,8 @@ public class NettyClient implements ClientPeer {
                     return new SingleRpcChannelGroup(getUri(), bootstrap);
                 case "pool":
                     return new PooledRpcChannelGroup(getUri(), bootstrap);
+                case "multi":
+                    return new MultiplexRpcChannelGroup(getUri(), bootstrap);
                 default:
                     throw new StarlightRpcException(
                         "RpcChannelGroup type {" + channelType + "} is illegal: not support.");
@@ -324,7 +334,7 @@ public class NettyClient implements ClientPeer {
                     int unfinishedCallbackNum = 0;
                     for (RpcChannel rpcChannel : rpcChannelGroup.allRpcChannels()) {
                         if (rpcChannel != null) {
-                            unfinishedCallbackNum = unfinishedCallbackNum + rpcChannel.allCallbacks().size();
+                            unfinishedCallbackNum = unfinishedCallbackNum + rpcChannel.callbackCount();
                         }
                     }
 
@@ -341,12 +351,9 @@ public class NettyClient implements ClientPeer {
                                 + "Will response timeout",
                             getUri().getAddress(), getProcessor().allWaitTaskCount(), unfinishedCallbackNum);
                         for (RpcChannel rpcChannel : rpcChannelGroup.allRpcChannels()) {
-                            if (rpcChannel.allCallbacks() != null && rpcChannel.allCallbacks().size() > 0) {
-                                for (RpcCallback rpcCallback : rpcChannel.allCallbacks().values()) {
-                                    rpcCallback.onError(StarlightRpcException.timeoutException(rpcCallback.getRequest(),
-                                        getUri().getAddress()));
-                                }
-                                rpcChannel.allCallbacks().clear();
+                            for (RpcCallback rpcCallback : drainCallbacks(rpcChannel)) {
+                                rpcCallback.onError(StarlightRpcException.timeoutException(rpcCallback.getRequest(),
+                                    getUri().getAddress()));
                             }
                         }
                         break;
@@ -368,11 +375,36 @@ public class NettyClient implements ClientPeer {
         }
     }
 
+    /**
+     * 移除并返回连接上所有未完成的callback，被移除的callback不会再被响应处理，避免同一请求被回调两次
+     *
+     * @param rpcChannel
+     * @return
+     */
+    private static Collection<RpcCallback> drainCallbacks(RpcChannel rpcChannel) {
+        Map<Long, RpcCallback> callbacks = rpcChannel.allCallbacks();
+        if (callbacks == null || callbacks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (callbacks instanceof CallbackTable) {
+            return ((CallbackTable) callbacks).drain();
+        }
+        List<RpcCallback> drained = new ArrayList<>();
+        for (Long id : new ArrayList<>(callbacks.keySet())) {
+            RpcCallback rpcCallback = rpcChannel.removeCallback(id);
+            if (rpcCallback != null) {
+                drained.add(rpcCallback);
+            }
+        }
+        return drained;
+    }
+
     @Override
     public synchronized void updateStatus(PeerStatus newStatus) {
         if (status == null) {
             LOGGER.debug("Update {} status from {} to {}", getUri().getAddress(), status, newStatus);
             status = newStatus;
+            PeerStatus.statusChanged();
             return;
         }
 
@@ -399,6 +431,7 @@ public class NettyClient implements ClientPeer {
 
         LOGGER.debug("Update {} status from {} to {}", getUri().getAddress(), status, newStatus);
         this.status = newStatus;
+        PeerStatus.statusChanged();
     }
 
     public void setThreadFactory(ThreadFactory threadFactory) {
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.transport.netty;
+
+import com.baidu.cloud.starlight.api.common.URI;
+import com.baidu.cloud.starlight.api.exception.StarlightRpcException;
+import com.baidu.cloud.starlight.api.model.Request;
+import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
+import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
+import com.baidu.cloud.thirdparty.netty.util.Timeout;
+import com.baidu.cloud.thirdparty.netty.util.TimerTask;
+
+/**
+ * Timeout of a request waiting for response on the rpc channel. Also used to abandon the request, such as the loser of
+ * hedged requests: {@link Timeout#task()} of the timeout passed to {@link RpcCallback#addTimeout(Timeout)}.
+ */
+public class RequestTimeoutTask implements TimerTask {
+
+    private final RpcChannel rpcChannel;
+
+    private final Request request;
+
+    private final URI remoteUri;
+
+    RequestTimeoutTask(RpcChannel rpcChannel, Request request, URI remoteUri) {
+        this.rpcChannel = rpcChannel;
+        this.request = request;
+        this.remoteUri = remoteUri;
+    }
+
+    @Override
+    public void run(Timeout timeout) throws Exception {
+        RpcCallback rpcCallback = rpcChannel.removeCallback(request.getId());
+        if (rpcCallback == null) {
+            return;
+        }
+        rpcCallback.onError(StarlightRpcException.timeoutException(request, remoteUri.getAddress()));
+    }
+
+    /**
+     * Remove the callback from the rpc channel without notifying it, the response will be dropped as a timeout one.
+     * The timeout should be cancelled by the caller.
+     *
+     * @return the callback removed, null if the request has completed
+     */
+    public RpcCallback abandon() {
+        return rpcChannel.removeCallback(request.getId());
+    }
+}
@@ -97,6 +97,7 @@ public class RpcHandler extends SimpleChannelInboundHandler<MsgBase> {
                     "Client receive server shutting down event, will close the related client, " + "remoteAddress {}",
                     rpcChannel.getRemoteAddress());
                 peer.updateStatus(new PeerStatus(PeerStatus.Status.SHUTTING_DOWN, System.currentTimeMillis()));
+                response.releaseBody();
                 return;
             }
         }
@@ -108,6 +109,7 @@ public class RpcHandler extends SimpleChannelInboundHandler<MsgBase> {
             LOGGER.warn(
                 "The server was shutting down and received a request, " + "status {}, remoteAddress {}, request {}",
                 peer.status(), ctx.channel().remoteAddress(), msg);
+            msg.releaseBody(); // request is discarded
             RpcResponse shuttingDownResponse = peer.shuttingDownResponse((Request) msg);
             Protocol protocol =
                 ExtensionLoader.getInstance(Protocol.class).getExtension(StargateProtocol.PROTOCOL_NAME);
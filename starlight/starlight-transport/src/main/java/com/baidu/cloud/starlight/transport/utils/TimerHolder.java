@@ -17,9 +17,13 @@
 package com.baidu.cloud.starlight.transport.utils;
 
 import com.baidu.cloud.starlight.api.rpc.threadpool.NamedThreadFactory;
+import com.baidu.cloud.starlight.transport.concurrent.ShardedDeadlineTimer;
 import com.baidu.cloud.thirdparty.netty.util.HashedWheelTimer;
 import com.baidu.cloud.thirdparty.netty.util.Timer;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
 /**
  * Created by liuruisen on 2020/2/13.
  */
@@ -33,6 +37,11 @@ public class TimerHolder {
 
     private static final Timer DEFAULT_TIMER = new HashedWheelTimer(new NamedThreadFactory("Timer"));
 
+    public static final int DEFAULT_TIMEOUT_TIMER_SHARDS = Math.min(4, Runtime.getRuntime().availableProcessors());
+
+    // rpc timeout timers keyed by shard num, clients configured with the same shard num share the timer
+    private static final ConcurrentMap<Integer, ShardedDeadlineTimer> TIMEOUT_TIMERS = new ConcurrentHashMap<>();
+
     private TimerHolder() {
 
     }
@@ -40,4 +49,21 @@ public class TimerHolder {
     public static Timer getTimer() {
         return DEFAULT_TIMER;
     }
+
+    /**
+     * Timer used to track rpc request timeouts
+     *
+     * @return
+     */
+    public static ShardedDeadlineTimer getTimeoutTimer() {
+        return getTimeoutTimer(DEFAULT_TIMEOUT_TIMER_SHARDS);
+    }
+
+    public static ShardedDeadlineTimer getTimeoutTimer(int shardNum) {
+        if (shardNum <= 0) {
+            shardNum = DEFAULT_TIMEOUT_TIMER_SHARDS;
+        }
+        return TIMEOUT_TIMERS.computeIfAbsent(shardNum,
+            num -> new ShardedDeadlineTimer("TimeoutTimer-" + num + "s", num));
+    }
 }
@@ -307,4 +307,27 @@ public class DynamicCompositeByteBufTest {
         Assert.assertTrue(buf2.refCnt() == 0);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testGetByte() {
+        ByteBuf buf1 = Unpooled.wrappedBuffer("PR".getBytes());
+        ByteBuf buf2 = Unpooled.wrappedBuffer("PC".getBytes());
+        DynamicCompositeByteBuf compositeByteBuf = new DynamicCompositeByteBuf();
+        compositeByteBuf.addBuffer(buf1);
+        compositeByteBuf.addBuffer(buf2);
+        Assert.assertEquals('R', compositeByteBuf.getByte(1));
+        Assert.assertEquals('C', compositeByteBuf.getByte(3));
+        Assert.assertEquals(4, compositeByteBuf.readableBytes());
+
+        compositeByteBuf.skipBytes(1);
+        Assert.assertEquals('R', compositeByteBuf.getByte(0));
+        Assert.assertEquals('P', compositeByteBuf.getByte(1));
+        try {
+            compositeByteBuf.getByte(3);
+            Assert.fail();
+        } catch (IndexOutOfBoundsException e) {
+            Assert.assertNotNull(e);
+        }
+        compositeByteBuf.release();
+    }
+
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.transport.channel;
+
+import com.baidu.cloud.starlight.api.model.Request;
+import com.baidu.cloud.starlight.api.model.Response;
+import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
+import com.baidu.cloud.thirdparty.netty.util.Timeout;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CallbackTableTest {
+
+    @Test
+    public void putAndRemove() {
+        CallbackTable table = new CallbackTable(4);
+        RpcCallback callback1 = new EmptyCallback();
+        RpcCallback callback2 = new EmptyCallback();
+
+        assertNull(table.putIfAbsent(1L, callback1));
+        assertSame(callback1, table.putIfAbsent(1L, callback2)); // not replaced
+        assertSame(callback1, table.get(1L));
+        assertEquals(1, table.count());
+        assertEquals(1, table.size());
+        assertTrue(table.containsKey(1L));
+
+        assertSame(callback1, table.remove(1L));
+        assertNull(table.remove(1L));
+        assertEquals(0, table.count());
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void compareWithHashMap() {
+        CallbackTable table = new CallbackTable(2);
+        Map<Long, RpcCallback> expected = new HashMap<>();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // random ids collide in the small stripes, covers resize and backward shift deletion
+        for (int i = 0; i < 100000; i++) {
+            long id = random.nextLong(2000);
+            if (random.nextBoolean()) {
+                RpcCallback callback = new EmptyCallback();
+                assertSame(expected.putIfAbsent(id, callback), table.putIfAbsent(id, callback));
+            } else {
+                assertSame(expected.remove(id), table.remove(id));
+            }
+        }
+        assertEquals(expected.size(), table.count());
+        for (Map.Entry<Long, RpcCallback> entry : expected.entrySet()) {
+            assertSame(entry.getValue(), table.get(entry.getKey().longValue()));
+        }
+        assertEquals(expected.entrySet(), table.entrySet());
+    }
+
+    @Test
+    public void drain() {
+        CallbackTable table = new CallbackTable();
+        for (long i = 0; i < 100; i++) {
+            table.putIfAbsent(i, new EmptyCallback());
+        }
+        List<RpcCallback> drained = table.drain();
+        assertEquals(100, drained.size());
+        assertEquals(0, table.count());
+
+        table.putIfAbsent(1L, new EmptyCallback());
+        table.clear();
+        assertTrue(table.isEmpty());
+    }
+
+    @Test
+    public void concurrentPutAndRemove() throws InterruptedException {
+        CallbackTable table = new CallbackTable();
+        AtomicLong idGenerator = new AtomicLong();
+        int threadNum = 8;
+        CountDownLatch latch = new CountDownLatch(threadNum);
+        for (int t = 0; t < threadNum; t++) {
+            new Thread(() -> {
+                try {
+                    for (int i = 0; i < 10000; i++) {
+                        long id = idGenerator.incrementAndGet();
+                        RpcCallback callback = new EmptyCallback();
+                        assertNull(table.putIfAbsent(id, callback));
+                        assertSame(callback, table.remove(id));
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            }).start();
+        }
+        latch.await();
+        assertEquals(0, table.count());
+    }
+
+    private static class EmptyCallback implements RpcCallback {
+        @Override
+        public void addTimeout(Timeout timeout) {}
+
+        @Override
+        public Request getRequest() {
+            return null;
+        }
+
+        @Override
+        public void onResponse(Response response) {}
+
+        @Override
+        public void onError(Throwable e) {}
+    }
+}
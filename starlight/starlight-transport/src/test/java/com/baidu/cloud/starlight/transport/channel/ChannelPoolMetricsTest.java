@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.transport.channel;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ChannelPoolMetricsTest {
+
+    @Test
+    public void recordBorrow() {
+        ChannelPoolMetrics metrics = new ChannelPoolMetrics();
+        metrics.recordBorrow(3000, false, true);
+        metrics.recordBorrow(5000, true, true);
+        metrics.recordBorrow(1000, true, false);
+
+        assertEquals(3, metrics.borrowCount());
+        assertEquals(2, metrics.borrowWaitCount());
+        assertEquals(1, metrics.borrowFailCount());
+        assertEquals(3, metrics.meanBorrowMicros());
+        assertEquals(5, metrics.maxBorrowMicros());
+        // no pool bound
+        assertEquals(0, metrics.activeCount());
+        assertEquals(0, metrics.idleCount());
+    }
+
+    @Test
+    public void creationRate() {
+        ChannelPoolMetrics metrics = new ChannelPoolMetrics();
+        long window = ChannelPoolMetrics.CREATION_RATE_WINDOW_MILLS;
+        long start = window * 1000;
+        metrics.recordCreated(start);
+        metrics.recordCreated(start + 1000);
+        metrics.recordDestroyed();
+        assertEquals(2, metrics.createdCount());
+        assertEquals(1, metrics.destroyedCount());
+
+        // current window is not complete
+        assertEquals(0, metrics.creationRate(start + 2000));
+        assertEquals(2, metrics.creationRate(start + window));
+        // no channel created in the last window
+        assertEquals(0, metrics.creationRate(start + 3 * window));
+    }
+}
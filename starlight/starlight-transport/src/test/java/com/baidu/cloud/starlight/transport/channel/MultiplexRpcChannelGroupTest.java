@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.transport.channel;
+
+import com.baidu.cloud.starlight.api.common.URI;
+import com.baidu.cloud.starlight.api.model.Request;
+import com.baidu.cloud.starlight.api.model.Response;
+import com.baidu.cloud.starlight.api.rpc.callback.RpcCallback;
+import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
+import com.baidu.cloud.thirdparty.netty.bootstrap.Bootstrap;
+import com.baidu.cloud.thirdparty.netty.channel.Channel;
+import com.baidu.cloud.thirdparty.netty.channel.ChannelFuture;
+import com.baidu.cloud.thirdparty.netty.channel.ChannelId;
+import com.baidu.cloud.thirdparty.netty.channel.DefaultChannelId;
+import com.baidu.cloud.thirdparty.netty.util.Attribute;
+import com.baidu.cloud.thirdparty.netty.util.Timeout;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+
+public class MultiplexRpcChannelGroupTest {
+
+    private static final String BASE_URI = "brpc://10.20.30.40:20880/context/path?channel_type=multi";
+
+    private Bootstrap bootstrap;
+
+    @Before
+    public void before() {
+        bootstrap = Mockito.mock(Bootstrap.class);
+
+        ChannelFuture channelFuture = Mockito.mock(ChannelFuture.class);
+        doReturn(true).when(channelFuture).awaitUninterruptibly(ArgumentMatchers.anyLong());
+        doReturn(true).when(channelFuture).isSuccess();
+
+        doReturn(channelFuture).when(bootstrap).connect(any());
+
+        Channel channel = Mockito.mock(Channel.class);
+        doReturn(channel).when(channelFuture).channel();
+
+        ChannelId channelId = DefaultChannelId.newInstance();
+        Attribute attribute = Mockito.mock(Attribute.class);
+        doReturn(attribute).when(channel).attr(any());
+        doReturn(channelId).when(channel).id();
+        doNothing().when(attribute).set(any());
+        doReturn(channelFuture).when(channel).close();
+        doReturn(true).when(channel).isActive();
+        doReturn(channelFuture).when(channel).writeAndFlush(any());
+    }
+
+    @Test
+    public void leastInflight() {
+        MultiplexRpcChannelGroup channelGroup =
+            new MultiplexRpcChannelGroup(URI.valueOf(BASE_URI + "&multi_connections=3"), bootstrap);
+        channelGroup.init();
+        assertEquals(3, channelGroup.rpcChannelCount());
+        assertEquals(3, channelGroup.allRpcChannels().size());
+
+        // every request selects the idle connection
+        List<RpcChannel> selected = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            RpcChannel rpcChannel = channelGroup.getRpcChannel();
+            rpcChannel.putCallback(i, new EmptyCallback());
+            selected.add(rpcChannel);
+            channelGroup.returnRpcChannel(rpcChannel);
+        }
+        assertEquals(3, new HashSet<>(selected).size());
+
+        // request 1 and 2 complete, the connection of request 0 is the busiest one
+        selected.get(1).removeCallback(1L);
+        selected.get(2).removeCallback(2L);
+        for (int i = 0; i < 10; i++) {
+            assertNotSame(selected.get(0), channelGroup.getRpcChannel());
+        }
+    }
+
+    @Test
+    public void roundRobin() {
+        MultiplexRpcChannelGroup channelGroup = new MultiplexRpcChannelGroup(
+            URI.valueOf(BASE_URI + "&multi_connections=2&multi_select=round_robin"), bootstrap);
+        channelGroup.init();
+
+        RpcChannel first = channelGroup.getRpcChannel();
+        RpcChannel second = channelGroup.getRpcChannel();
+        assertNotSame(first, second);
+        assertSame(first, channelGroup.getRpcChannel());
+    }
+
+    @Test
+    public void selectIndexOverflow() {
+        MultiplexRpcChannelGroup channelGroup = new MultiplexRpcChannelGroup(
+            URI.valueOf(BASE_URI + "&multi_connections=3&multi_select=round_robin"), bootstrap);
+        channelGroup.init();
+        // the counter wraps around to negative
+        channelGroup.setIndex(Integer.MAX_VALUE - 1);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(channelGroup.allRpcChannels().contains(channelGroup.getRpcChannel()));
+        }
+
+        channelGroup = new MultiplexRpcChannelGroup(URI.valueOf(BASE_URI + "&multi_connections=3"), bootstrap);
+        channelGroup.init();
+        channelGroup.setIndex(Integer.MAX_VALUE - 1);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(channelGroup.allRpcChannels().contains(channelGroup.getRpcChannel()));
+        }
+    }
+
+    @Test
+    public void removeRpcChannel() throws InterruptedException {
+        MultiplexRpcChannelGroup channelGroup =
+            new MultiplexRpcChannelGroup(URI.valueOf(BASE_URI + "&multi_connections=2"), bootstrap);
+        channelGroup.init();
+        Set<RpcChannel> before = channelGroup.allRpcChannels();
+        RpcChannel removed = before.iterator().next();
+
+        // mock disconnect cause by heartbeat fail
+        channelGroup.removeRpcChannel(removed);
+        // wait for reconnect task exec
+        TimeUnit.MILLISECONDS.sleep(500);
+
+        Set<RpcChannel> after = channelGroup.allRpcChannels();
+        assertEquals(2, after.size());
+        assertTrue(!after.contains(removed));
+
+        channelGroup.close();
+        assertTrue(channelGroup.allRpcChannels().isEmpty());
+        assertEquals(0, channelGroup.rpcChannelCount());
+    }
+
+    private static class EmptyCallback implements RpcCallback {
+        @Override
+        public void addTimeout(Timeout timeout) {}
+
+        @Override
+        public Request getRequest() {
+            return null;
+        }
+
+        @Override
+        public void onResponse(Response response) {}
+
+        @Override
+        public void onError(Throwable e) {}
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.transport.channel;
+
+import com.baidu.cloud.starlight.api.common.URI;
+import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
+import com.baidu.cloud.thirdparty.netty.bootstrap.Bootstrap;
+import com.baidu.cloud.thirdparty.netty.channel.Channel;
+import com.baidu.cloud.thirdparty.netty.channel.ChannelFuture;
+import com.baidu.cloud.thirdparty.netty.channel.DefaultChannelId;
+import com.baidu.cloud.thirdparty.netty.util.Attribute;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doReturn;
+
+public class PooledRpcChannelGroupTest {
+
+    private static final String BASE_URI = "brpc://10.20.30.40:20880/context/path?channel_type=pool";
+
+    private Bootstrap bootstrap;
+
+    @Before
+    public void before() {
+        bootstrap = Mockito.mock(Bootstrap.class);
+
+        ChannelFuture channelFuture = Mockito.mock(ChannelFuture.class);
+        doReturn(true).when(channelFuture).awaitUninterruptibly(ArgumentMatchers.anyLong());
+        doReturn(true).when(channelFuture).isSuccess();
+
+        doReturn(channelFuture).when(bootstrap).connect(any());
+
+        Channel channel = Mockito.mock(Channel.class);
+        doReturn(channel).when(channelFuture).channel();
+
+        Attribute attribute = Mockito.mock(Attribute.class);
+        doReturn(attribute).when(channel).attr(any());
+        doReturn(DefaultChannelId.newInstance()).when(channel).id();
+        doNothing().when(attribute).set(any());
+        doReturn(channelFuture).when(channel).close();
+        doReturn(true).when(channel).isActive();
+    }
+
+    @Test
+    public void trackChannels() {
+        PooledRpcChannelGroup channelGroup =
+            new PooledRpcChannelGroup(URI.valueOf(BASE_URI + "&min_idle_connections=2"), bootstrap);
+        channelGroup.init();
+        assertEquals(2, channelGroup.rpcChannelCount());
+        assertEquals(2, channelGroup.allRpcChannels().size());
+        assertEquals(2, channelGroup.getMetrics().createdCount());
+        assertEquals(2, channelGroup.getMetrics().idleCount());
+
+        RpcChannel rpcChannel = channelGroup.getRpcChannel();
+        assertTrue(channelGroup.allRpcChannels().contains(rpcChannel));
+        assertEquals(1, channelGroup.getMetrics().borrowCount());
+        assertEquals(0, channelGroup.getMetrics().borrowWaitCount());
+        assertEquals(1, channelGroup.getMetrics().activeCount());
+
+        // invalidate the channel
+        channelGroup.removeRpcChannel(rpcChannel);
+        assertFalse(channelGroup.allRpcChannels().contains(rpcChannel));
+        assertEquals(1, channelGroup.getMetrics().destroyedCount());
+        assertEquals(0, channelGroup.getMetrics().activeCount());
+
+        channelGroup.close();
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2019 Baidu, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+ 
+package com.baidu.cloud.starlight.transport.concurrent;
+
+import com.baidu.cloud.thirdparty.netty.util.Timeout;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ShardedDeadlineTimerTest {
+
+    private ShardedDeadlineTimer timer;
+
+    @Before
+    public void setUp() {
+        timer = new ShardedDeadlineTimer("TestTimer", 2, 1, TimeUnit.MILLISECONDS);
+    }
+
+    @After
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    public void expire() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(2);
+        Timeout timeout1 = timer.newTimeout(t -> latch.countDown(), 10, TimeUnit.MILLISECONDS);
+        Timeout timeout2 = timer.newTimeout(new Object(), t -> latch.countDown(), 20, TimeUnit.MILLISECONDS);
+        Assert.assertEquals(2, timer.getPendingTimeouts());
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(timeout1.isExpired());
+        Assert.assertTrue(timeout2.isExpired());
+        Assert.assertFalse(timeout1.cancel());
+        Assert.assertEquals(0, timer.getPendingTimeouts());
+        Assert.assertEquals(2, timer.getExpiredTimeouts());
+        Assert.assertTrue(timer.getMaxLagMills() >= 0);
+    }
+
+    @Test
+    public void cancel() throws InterruptedException {
+        AtomicInteger fired = new AtomicInteger();
+        for (int i = 0; i < 1000; i++) {
+            Timeout timeout = timer.newTimeout(i, t -> fired.incrementAndGet(), 50, TimeUnit.MILLISECONDS);
+            Assert.assertTrue(timeout.cancel());
+            Assert.assertTrue(timeout.isCancelled());
+        }
+        Assert.assertEquals(0, timer.getPendingTimeouts());
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        Assert.assertEquals(0, fired.get());
+        Assert.assertEquals(0, timer.getExpiredTimeouts());
+    }
+
+    @Test
+    public void expireInDeadlineOrder() throws InterruptedException {
+        StringBuffer order = new StringBuffer();
+        CountDownLatch latch = new CountDownLatch(3);
+        Object shardKey = new Object();
+        timer.newTimeout(shardKey, t -> {
+            order.append("3");
+            latch.countDown();
+        }, 60, TimeUnit.MILLISECONDS);
+        timer.newTimeout(shardKey, t -> {
+            order.append("1");
+            latch.countDown();
+        }, 10, TimeUnit.MILLISECONDS);
+        timer.newTimeout(shardKey, t -> {
+            order.append("2");
+            latch.countDown();
+        }, 30, TimeUnit.MILLISECONDS);
+
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals("123", order.toString());
+    }
+
+    @Test
+    public void stop() {
+        Timeout timeout = timer.newTimeout(t -> {
+        }, 1, TimeUnit.HOURS);
+        Set<Timeout> unprocessed = timer.stop();
+        Assert.assertTrue(unprocessed.contains(timeout));
+        Assert.assertFalse(timeout.isExpired());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void newTimeoutAfterStop() {
+        timer.stop();
+        timer.newTimeout(t -> {
+        }, 1, TimeUnit.SECONDS);
+    }
+}
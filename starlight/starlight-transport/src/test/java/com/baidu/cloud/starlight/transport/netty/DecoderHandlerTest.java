@@ -156,6 +156,24 @@ public class DecoderHandlerTest {
         Assert.assertTrue(attribute.getChannelProtocol().equals("brpc"));
     }
 
+    @Test
+    public void decodeUnKnowProtocolShortRead() {
+        EmbeddedChannel channel = new CustomEmbeddedChannel("localhost", 8006, new DecoderHandler());
+        LongRpcChannel rpcChannel = new LongRpcChannel(channel, ChannelSide.SERVER);
+        ChannelAttribute attribute = new ChannelAttribute(rpcChannel);
+        channel.attr(RpcChannel.ATTRIBUTE_KEY).set(attribute);
+
+        // part of the magic, wait for more data
+        int readable = requestBuf.readableBytes();
+        channel.writeInbound(requestBuf.retainedSlice(requestBuf.readerIndex(), 2));
+        Assert.assertNull(channel.readInbound());
+
+        channel.writeInbound(requestBuf.retainedSlice(requestBuf.readerIndex() + 2, readable - 2));
+        RpcRequest rpcRequest = channel.readInbound();
+        Assert.assertTrue(rpcRequest.getServiceName().equals(this.getClass().getName()));
+        Assert.assertTrue(attribute.getChannelProtocol().equals("brpc"));
+    }
+
     @Test
     public void decodeErrorMsg() {
         EmbeddedChannel channel = new CustomEmbeddedChannel("localhost", 8006, new DecoderHandler());
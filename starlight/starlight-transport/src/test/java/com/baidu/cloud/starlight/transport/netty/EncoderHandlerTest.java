@@ -26,6 +26,7 @@ import com.baidu.cloud.starlight.api.transport.channel.ChannelSide;
 import com.baidu.cloud.starlight.api.transport.channel.RpcChannel;
 import com.baidu.cloud.starlight.transport.channel.LongRpcChannel;
 import com.baidu.cloud.thirdparty.netty.buffer.ByteBuf;
+import com.baidu.cloud.thirdparty.netty.buffer.CompositeByteBuf;
 import com.baidu.cloud.thirdparty.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Assert;
 import org.junit.Before;
@@ -68,6 +69,9 @@ public class EncoderHandlerTest {
         channel.writeOutbound(rpcRequest);
         ByteBuf byteBuf = channel.readOutbound();
         Assert.assertTrue(byteBuf.readableBytes() > 0);
+        // protocol encode result is written as it is, without copying
+        Assert.assertTrue(byteBuf instanceof CompositeByteBuf);
+        Assert.assertTrue(byteBuf.release());
     }
 
     @Test(expected = Exception.class)